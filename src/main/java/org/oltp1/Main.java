@@ -4,6 +4,7 @@ import org.oltp1.common.CaseInsensitiveEnumConverter;
 import org.oltp1.egen.EGenLoader;
 import org.oltp1.initdb.DbInitRunner;
 import org.oltp1.runner.Oltp1Driver;
+import org.oltp1.runner.SetParameterBenchmark;
 import org.oltp1.runner.db.SqlEngine;
 
 import picocli.CommandLine;
@@ -13,7 +14,8 @@ import picocli.CommandLine.Command;
 		version = "oltp1 1.0", subcommands = {
 				EGenLoader.class,
 				DbInitRunner.class,
-				Oltp1Driver.class
+				Oltp1Driver.class,
+				SetParameterBenchmark.class
 		})
 public class Main implements Runnable
 {
@@ -25,6 +27,7 @@ public class Main implements Runnable
 
 		CommandLine cmd = new CommandLine(new Main());
 		cmd.registerConverter(SqlEngine.class, new CaseInsensitiveEnumConverter());
+		cmd.setCaseInsensitiveEnumValuesAllowed(true);
 		int exitCode = cmd.execute(args);
 		System.exit(exitCode);
 	}
@@ -88,6 +88,8 @@ public class DbInitializer
 
 		log.info("Applying database settings...");
 		scriptExecutor.executeScriptFromResource(getScriptPath("5_db_settings.sql"));
+		log.info("Creating stored procedures...");
+		scriptExecutor.executeRoutinesFromResource(getScriptPath("6_create_procedures.sql"));
 	}
 
 	private void initPostgresql() throws Exception
@@ -154,6 +156,8 @@ public class DbInitializer
 
 		log.info("Applying database settings...");
 		scriptExecutor.executeScriptFromResource(getScriptPath("8_db_settings.sql"));
+		log.info("Creating stored procedures...");
+		scriptExecutor.executeRoutinesFromResource(getScriptPath("9_create_procedures.sql"));
 	}
 
 	private void initMssql() throws Exception
@@ -195,6 +199,8 @@ public class DbInitializer
 
 		log.info("Applying database settings...");
 		scriptExecutor.executeScriptFromResource(getScriptPath("8_db_settings.sql"));
+		log.info("Creating stored procedures...");
+		scriptExecutor.executeRoutinesFromResource(getScriptPath("9_create_procedures.sql"));
 	}
 
 	private <T> T fetchValue(Sql2o db, Class<T> clazz, String sql)
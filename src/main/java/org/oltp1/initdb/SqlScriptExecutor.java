@@ -55,6 +55,45 @@ public class SqlScriptExecutor
 		}
 	}
 
+	/**
+	 * Executes a script of stored procedures or functions, whose bodies hold
+	 * semicolons: the statements are separated by lines that only hold
+	 * <code>GO</code>, whatever the engine.
+	 */
+	public void executeRoutinesFromResource(String resourcePath) throws Exception
+	{
+		InputStream inputStream = getClass().getResourceAsStream(resourcePath);
+		if (inputStream == null)
+		{
+			throw new IllegalArgumentException("Resource not found: " + resourcePath);
+		}
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)))
+		{
+			List<String> statements = new ArrayList<>();
+			for (String part : readFullContent(reader).split("(?im)^\\s*GO\\s*$"))
+			{
+				String trimmed = stripLeadingComments(part);
+				if (!trimmed.isEmpty())
+				{
+					statements.add(trimmed);
+				}
+			}
+			executeStatements(statements);
+		}
+	}
+
+	private String stripLeadingComments(String part)
+	{
+		String trimmed = part.trim();
+		while (trimmed.startsWith("--"))
+		{
+			int eol = trimmed.indexOf('\n');
+			trimmed = (eol < 0) ? "" : trimmed.substring(eol + 1).trim();
+		}
+		return trimmed;
+	}
+
 	private String readFullContent(BufferedReader reader) throws IOException
 	{
 		StringBuilder content = new StringBuilder();
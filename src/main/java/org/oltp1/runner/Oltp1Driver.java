@@ -1,33 +1,49 @@
 package org.oltp1.runner;
 
+import java.io.PrintWriter;
+import java.nio.file.Path;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.oltp1.common.CaseInsensitiveEnumConverter;
 import org.oltp1.common.ErrorAnalyser;
+import org.oltp1.runner.db.ExecutionMode;
 import org.oltp1.runner.db.SqlContext;
 import org.oltp1.runner.db.SqlEngine;
+import org.oltp1.runner.db.SqlProbe;
+import org.oltp1.runner.generator.ThreadLocalCRandom;
 import org.oltp1.runner.generator.TxInputGenerator;
+import org.oltp1.runner.mee.Mee;
+import org.oltp1.runner.perf.ArrivalDistribution;
 import org.oltp1.runner.perf.ConsoleReportWriter;
+import org.oltp1.runner.perf.IntervalFormat;
+import org.oltp1.runner.perf.IntervalReporter;
 import org.oltp1.runner.perf.JsonReportWriter;
+import org.oltp1.runner.perf.MetricsServer;
 import org.oltp1.runner.perf.MixParameters;
 import org.oltp1.runner.perf.MixRunner;
+import org.oltp1.runner.perf.OutputSampler;
 import org.oltp1.runner.perf.PeriodicTx;
 import org.oltp1.runner.perf.ThreadPoolBuilder;
+import org.oltp1.runner.perf.ThroughputSearch;
 import org.oltp1.runner.perf.TxBaseLine;
 import org.oltp1.runner.perf.TxOutput;
 import org.oltp1.runner.perf.TxRunSummary;
 import org.oltp1.runner.perf.TxStatsCollector;
 import org.oltp1.runner.perf.TxVoid;
+import org.oltp1.runner.replay.InputLogReader;
+import org.oltp1.runner.replay.InputLogWriter;
 import org.oltp1.runner.tx.broker_volume.TxBrokerVolume;
 import org.oltp1.runner.tx.customer_position.TxCustomerPosition;
 import org.oltp1.runner.tx.data_maintenance.TxDataMaintenance;
+import org.oltp1.runner.tx.market_feed.TxMarketFeed;
 import org.oltp1.runner.tx.market_watch.TxMarketWatch;
 import org.oltp1.runner.tx.security_detail.TxSecurityDetail;
 import org.oltp1.runner.tx.trade_cleanup.TxTradeCleanup;
 import org.oltp1.runner.tx.trade_lookup.TxTradeLookup;
 import org.oltp1.runner.tx.trade_order.TxTradeOrder;
+import org.oltp1.runner.tx.trade_result.TxTradeResult;
 import org.oltp1.runner.tx.trade_status.TxTradeStatus;
 import org.oltp1.runner.tx.trade_update.TxTradeUpdate;
 import org.slf4j.LoggerFactory;
@@ -43,6 +59,9 @@ public class Oltp1Driver implements Callable<Integer>
 {
 	private static final org.slf4j.Logger log = LoggerFactory.getLogger(Oltp1Driver.class);
 
+	// with pinned connections, the pool only serves the start-up queries
+	private static final int PINNED_MODE_POOL_SIZE = 2;
+
 	@Option(names = { "-h", "--host" }, description = "Database host", required = true)
 	public String host;
 
@@ -64,18 +83,102 @@ public class Oltp1Driver implements Callable<Integer>
 	@Option(names = { "-c", "--clients" }, description = "Number of simulated clients/users. [${DEFAULT-VALUE}]")
 	public int clients = 10;
 
+	@Option(names = { "--pool-size" }, description = "Number of database connections shared by the clients. Defaults to one connection per client")
+	public int poolSize = 0;
+
+	@Option(names = { "--pin-connections" }, description = "Give each client, and each MEE thread, a database connection of its own for the whole run instead of checking one out of the pool for every transaction. The connections are opened lazily and reopened after a failure")
+	public boolean isPinned = false;
+
+	@Option(names = { "--mode" }, description = "How the transactions run their frames, valid values: ${COMPLETION-CANDIDATES}. PROCEDURES calls one stored procedure for each frame of Trade-Order and Trade-Result that runs more than one statement; the procedures are installed by initdb. [${DEFAULT-VALUE}]")
+	public ExecutionMode mode = ExecutionMode.STATEMENTS;
+
+	@Option(names = { "--batch-writes" }, description = "PostgreSQL and OrioleDB only: send the inserts and updates of Trade-Order and Trade-Result whose row counts are not needed to the server together, in one round trip per batch, instead of one round trip each")
+	public boolean isBatchingWrites = false;
+
+	@Option(names = { "--retries" }, description = "Retry a transaction up to N times when it fails with a serialization failure or a deadlock, as expected under snapshot or serializable isolation. The response time of a retried transaction includes its failed attempts. Disabled when 0. [${DEFAULT-VALUE}]")
+	public int maxRetries = 0;
+
+	@Option(names = { "--retry-backoff" }, description = "Base wait, in milliseconds, before a retry: each retry waits a random time up to the base doubled for every previous retry. [${DEFAULT-VALUE}]")
+	public long retryBackoffMillis = 5;
+
+	@Option(names = { "--virtual-threads" }, description = "Run the simulated clients and the MEE tasks on virtual threads, allowing many more clients than connections")
+	public boolean useVirtualThreads = false;
+
+	@Option(names = { "--think-time" }, description = "Mean think time in milliseconds between the transactions of a client (negative exponential). [${DEFAULT-VALUE}]")
+	public long thinkTimeMillis = 0;
+
 	@Option(names = { "-b", "--baseline" }, description = "Only execute a baseline query during the run")
 	public boolean isBaselineRun = false;
 
 	@Option(names = { "-w", "--wait-time" }, description = "Enable pacing to control the transaction rate")
 	public boolean isPacingEnabled = false;
 
-	@Option(names = { "--tps" }, description = "Target transactions per second for pacing. [${DEFAULT-VALUE}]")
+	@Option(names = { "--tps" }, description = "Target transactions per second for pacing or for the open-loop arrival rate. [${DEFAULT-VALUE}]")
 	public int tps = 10;
 
+	@Option(names = { "--open-loop" }, description = "Start transactions on an arrival schedule at the --tps rate, regardless of how fast previous transactions complete. Response times are measured from the scheduled start and --clients caps the number of transactions in flight")
+	public boolean isOpenLoop = false;
+
+	@Option(names = { "--arrival" }, description = "Inter-arrival distribution for the open-loop mode, valid values: ${COMPLETION-CANDIDATES}. [${DEFAULT-VALUE}]")
+	public ArrivalDistribution arrival = ArrivalDistribution.FIXED;
+
+	@Option(names = { "--search" }, description = "Search for the maximum sustainable load: starting at --clients (or --tps in open-loop mode), double the load and then bisect it until the highest load at which every transaction meets its 90th percentile response time limit is found")
+	public boolean isSearch = false;
+
+	@Option(names = { "--search-max" }, description = "Highest load tried by --search. Defaults to 16 times the starting load")
+	public int searchMax = 0;
+
+	@Option(names = { "--search-step" }, description = "Measurement time, in seconds, of each --search step. [${DEFAULT-VALUE}]")
+	public int searchStep = 60;
+
+	@Option(names = { "--partition-customers" }, description = "Split the customers into one partition of whole load units per client, as the TPC-E Customer Emulator does when partitioning by C_ID. Each client draws its customers from its own partition, except for the --partition-spill percentage of the picks")
+	public boolean isCustomerPartitioned = false;
+
+	@Option(names = { "--partition-spill" }, description = "Percentage of the customer picks of a client with --partition-customers that are drawn from all the customers instead of its partition. [${DEFAULT-VALUE}]")
+	public int partitionSpillPct = 10;
+
+	@Option(names = { "--pregenerate" }, description = "Generate the inputs of each transaction type ahead of time on a producer thread of its own, keeping up to N of them ready, so that the clients only dequeue them and the generation cost stays out of the response times. Disabled when 0. [${DEFAULT-VALUE}]")
+	public int inputLead = 0;
+
+	@Option(names = { "--record" }, description = "Record the input and the scheduled start of every transaction of the mix to a compact binary file, to be replayed with --replay")
+	public Path recordPath;
+
+	@Option(names = { "--replay" }, description = "Replay the transactions recorded with --record, with their recorded inputs and on their recorded schedule, instead of generating the mix. Each recorded run is replayed in turn, and --clients caps the number of transactions in flight")
+	public Path replayPath;
+
+	@Option(names = { "--replay-speed" }, description = "Speed-up of the recorded schedule with --replay: 2 replays the transactions twice as fast. [${DEFAULT-VALUE}]")
+	public double replaySpeed = 1.0;
+
+	@Option(names = { "--seed" }, description = "Seed of the random streams. Client k always draws its transactions and their inputs from the same streams for a given seed, whichever thread runs it, so that two executions with the same seed and the same --clients run the same transactions. [${DEFAULT-VALUE}]")
+	public long seed = ThreadLocalCRandom.DEFAULT_SEED;
+
+	@Option(names = { "--feed-batch" }, description = "Number of tickers sent to each Market-Feed transaction, from 1 to 20 (max_feed_len). [${DEFAULT-VALUE}]")
+	public int feedBatchSize = 10;
+
+	@Option(names = { "--feed-linger" }, description = "Maximum time, in milliseconds, tickers wait for a Market-Feed batch to fill up. Disabled when 0. [${DEFAULT-VALUE}]")
+	public long feedLingerMillis = 0;
+
 	@Option(names = { "-j", "--json-output" }, description = "Output benchmark results in JSON format to a timestamped file in the current directory")
 	public boolean enableJsonOutput = false;
 
+	@Option(names = { "--interval" }, description = "Write per-interval metrics for every transaction type every N seconds to a timestamped file in the current directory. Disabled when 0. [${DEFAULT-VALUE}]")
+	public int reportInterval = 0;
+
+	@Option(names = { "--interval-format" }, description = "Format of the per-interval metrics, valid values: ${COMPLETION-CANDIDATES}. [${DEFAULT-VALUE}]")
+	public IntervalFormat intervalFormat = IntervalFormat.CSV;
+
+	@Option(names = { "--metrics-port" }, description = "Serve live metrics in the OpenMetrics (Prometheus) text format on http://<host>:<port>/metrics. Disabled when 0. [${DEFAULT-VALUE}]")
+	public int metricsPort = 0;
+
+	@Option(names = { "--frame-stats", "--latency-breakdown" }, description = "Split the time of each transaction into connection pool wait, input generation, database and client time, and report the time and the number of SQL statements of each frame and query")
+	public boolean enableFrameStats = false;
+
+	@Option(names = { "--discard-output" }, description = "Do not keep the result lists of the transactions: stream through the result sets and only validate the row counts, except for the --output-sample fraction of the transactions that keep their full output for debugging")
+	public boolean isDiscardOutput = false;
+
+	@Option(names = { "--output-sample" }, description = "Fraction of the transactions that keep their full output with --discard-output. [${DEFAULT-VALUE}]")
+	public double outputSample = 0.001;
+
 	@Option(names = { "-q", "--quiet" }, description = "Disable logging of transaction errors and warnings")
 	public boolean hideAlerts = false;
 
@@ -84,17 +187,104 @@ public class Oltp1Driver implements Callable<Integer>
 	{
 		try
 		{
-			SqlContext sqlCtx = engine.createSqlContext(host, port, "tpce", user, password, clients);
+			if (enableFrameStats)
+			{
+				SqlProbe.enable();
+			}
+
+			if (isDiscardOutput)
+			{
+				OutputSampler.discard(outputSample);
+			}
+
+			ThreadLocalCRandom.setSeed(seed);
+			log.info("Random seed: {}", seed);
+
+			final int maxSearchLoad = (searchMax > 0) ? searchMax : (isOpenLoop ? tps : clients) * 16;
+			final int maxClients = (isSearch && !isOpenLoop) ? maxSearchLoad : clients;
+			final int connections = (poolSize > 0 && !isPinned) ? poolSize : maxClients;
+			SqlContext sqlCtx = engine.createSqlContext(host, port, "tpce", user, password, isPinned ? PINNED_MODE_POOL_SIZE : connections);
+
+			if (isPinned)
+			{
+				if (poolSize > 0)
+				{
+					log.warn("The pool size (--pool-size) is ignored with pinned connections");
+				}
+				sqlCtx.pinConnections();
+			}
+
+			sqlCtx.setExecutionMode(mode);
+
+			if (maxRetries > 0)
+			{
+				sqlCtx.enableRetries(maxRetries, retryBackoffMillis);
+			}
+
+			if (isBatchingWrites)
+			{
+				if (engine == SqlEngine.POSTGRESQL || engine == SqlEngine.ORIOLEDB)
+				{
+					sqlCtx.enableWriteBatching();
+				}
+				else
+				{
+					log.warn("Write batching (--batch-writes) is only supported on POSTGRESQL and ORIOLEDB, ignored on {}", engine);
+				}
+			}
 
 			final String dbInfo = getDbInfo(sqlCtx);
 
-			MixParameters mparams = new MixParameters(dbInfo, clients, isPacingEnabled, tps);
+			final MixParameters mparams;
+			if (isOpenLoop)
+			{
+				if (isPacingEnabled)
+				{
+					log.warn("Pacing (--wait-time) is ignored in open-loop mode");
+				}
+				mparams = new MixParameters(dbInfo, clients, tps, arrival);
+			}
+			else
+			{
+				mparams = new MixParameters(dbInfo, clients, isPacingEnabled, tps);
+			}
+			mparams.useVirtualThreads = useVirtualThreads;
+			mparams.thinkTimeMillis = thinkTimeMillis;
+			mparams.seed = seed;
+
 			MixRunner txMixRunner = new MixRunner(mparams);
+			txMixRunner.setConnectionWaitStats(sqlCtx.getConnectionWaitStats());
+
+			if (isPinned)
+			{
+				txMixRunner.setClientExitHook(sqlCtx::releasePinnedConnection);
+			}
+
+			MetricsServer metricsServer = null;
+			if (metricsPort > 0)
+			{
+				metricsServer = new MetricsServer(metricsPort, txMixRunner::getLiveStats, sqlCtx);
+				metricsServer.start();
+			}
+
+			IntervalReporter intervalReporter = null;
+			if (reportInterval > 0)
+			{
+				intervalReporter = new IntervalReporter(sqlCtx.getSqlEngine(), intervalFormat);
+				txMixRunner.setIntervalReporter(intervalReporter, reportInterval);
+				log.info("Interval metrics written to: {}", intervalReporter.getOutputPath());
+			}
 
 			final long totalDurationSec = duration;
 
+			TxRunSummary runSummary = null;
+
 			if (isBaselineRun)
 			{
+				if (recordPath != null || replayPath != null)
+				{
+					log.warn("Recording (--record) and replay (--replay) are ignored with --baseline");
+				}
 				txMixRunner.addTx(new TxBaseLine(sqlCtx), 1.0);
 				log.info("Running 'baseline' benchmark");
 				txMixRunner.runTxMix(totalDurationSec);
@@ -103,8 +293,72 @@ public class Oltp1Driver implements Callable<Integer>
 			{
 				final TxInputGenerator txInputGen = new TxInputGenerator(sqlCtx);
 
-				int asyncPoolSize = calculatePoolSize(clients);
-				final ExecutorService mee = ThreadPoolBuilder.newThreadPool(asyncPoolSize, "run-async");
+				if (isCustomerPartitioned)
+				{
+					txInputGen.partitionCustomers(clients, 100 - partitionSpillPct);
+				}
+				txMixRunner.setClientStartHook(txInputGen::assignClient);
+
+				InputLogReader replay = null;
+				if (replayPath != null)
+				{
+					replay = InputLogReader.open(replayPath);
+					txMixRunner.setReplay(replay, replaySpeed);
+				}
+
+				InputLogWriter recorder = null;
+				if (recordPath != null)
+				{
+					if (replay != null)
+					{
+						log.warn("Recording (--record) is ignored with --replay");
+					}
+					else
+					{
+						recorder = InputLogWriter.create(recordPath);
+						txMixRunner.setInputRecorder(recorder);
+					}
+				}
+
+				if (inputLead > 0)
+				{
+					if (replay != null)
+					{
+						log.warn("Pre-generated inputs (--pregenerate) are ignored with --replay: the inputs are read from the recording");
+					}
+					else if (isCustomerPartitioned)
+					{
+						log.warn("Pre-generated inputs (--pregenerate) are ignored with --partition-customers: the customers are picked on the client threads");
+					}
+					else
+					{
+						txMixRunner.addProducerStats(txInputGen.pregenerate(inputLead));
+					}
+				}
+
+				// the heuristic only sets the starting size: the pool follows the
+				// MEE backlog, up to one thread per connection
+				final int meeThreads = calculatePoolSize(clients);
+				final int maxMeeThreads = Math.max(meeThreads, connections);
+				final ExecutorService meeExec;
+				// pinned connections need long-lived MEE threads: a virtual
+				// thread per task would open a connection per task
+				if (useVirtualThreads && !isPinned)
+				{
+					meeExec = ThreadPoolBuilder.newVirtualThreadPool("run-async");
+				}
+				else
+				{
+					meeExec = ThreadPoolBuilder.newThreadPool(meeThreads, maxMeeThreads, "run-async");
+				}
+
+				TxStatsCollector tradeResultStats = new TxStatsCollector("Trade-Result");
+				TxStatsCollector mktFeedStats = new TxStatsCollector("Market-Feed");
+
+				final Mee mee = new Mee(new TxTradeResult(sqlCtx, tradeResultStats), new TxMarketFeed(sqlCtx, mktFeedStats), meeExec, ThreadPoolBuilder.QUEUE_FACTOR * maxMeeThreads, feedBatchSize, feedLingerMillis);
+				txMixRunner.addMeeStats(mee.getStats());
+
+				mee.enableAdaptiveSizing(2, maxMeeThreads);
 
 				// # Read-Only Transactions
 				// Broker Volume Mid-Heavy R/O 4.9%
@@ -123,6 +377,11 @@ public class Oltp1Driver implements Callable<Integer>
 				// Trade-Result Heavy R/W 10%
 				// Trade-Update Medium R/W 2%
 
+				if (metricsServer != null)
+				{
+					metricsServer.setMee(mee);
+				}
+
 				log.info("Execute 'Trade-Cleanup' before test run");
 
 				TxTradeCleanup tradeCleanup = new TxTradeCleanup(txInputGen, sqlCtx);
@@ -131,6 +390,8 @@ public class Oltp1Driver implements Callable<Integer>
 
 				log.info("'Trade-Cleanup' finished: {}", clnOut.toString());
 
+				sqlCtx.releasePinnedConnection();
+
 				txMixRunner.addPeriodic(new PeriodicTx(new TxDataMaintenance(txInputGen, sqlCtx), 0, 60, TimeUnit.SECONDS));
 				txMixRunner.addTx(new TxBrokerVolume(txInputGen, sqlCtx), 0.049);
 				txMixRunner.addTx(new TxCustomerPosition(txInputGen, sqlCtx), 0.13);
@@ -139,32 +400,101 @@ public class Oltp1Driver implements Callable<Integer>
 				txMixRunner.addTx(new TxTradeLookup(txInputGen, sqlCtx), 0.08);
 				txMixRunner.addTx(new TxTradeStatus(txInputGen, sqlCtx), 0.19);
 
-				TxStatsCollector tradeResultStats = new TxStatsCollector("Trade-Result");
-				TxStatsCollector mktFeedStats = new TxStatsCollector("Market-Feed");
-
-				txMixRunner.addTx(new TxTradeOrder(txInputGen, sqlCtx, tradeResultStats, mktFeedStats, mee), 0.101);
+				txMixRunner.addTx(new TxTradeOrder(txInputGen, sqlCtx, mee), 0.101);
 				txMixRunner.addTx(new TxVoid(tradeResultStats), 0.1); // placeholder for TradeResult
 				txMixRunner.addTx(new TxVoid(mktFeedStats), 0.01); // placeholder for MarketFeed
 
 				txMixRunner.addTx(new TxTradeUpdate(txInputGen, sqlCtx), 0.02);
 
-				long warmupDurationSec = calculateWarmupTime(totalDurationSec);
-
-				// Ensure the measurement phase is at least 5 second to avoid errors.
-				long measureDurationSec = Math.max(totalDurationSec - warmupDurationSec, 5);
-
-				log.info("Total Run: {}s (Warmup: {}s, Measure: {}s)", totalDurationSec, warmupDurationSec, measureDurationSec);
+				if (replay != null)
+				{
+					if (isSearch)
+					{
+						log.warn("The load search (--search) is ignored with --replay");
+					}
+
+					int runs = 0;
+					long recordedSec;
+
+					// the last run replayed is the one summarized, as the
+					// measurement run follows the warmup run in a recording
+					while ((recordedSec = replay.nextRun()) >= 0)
+					{
+						final long runSec = Math.max(1L, (long) Math.ceil(recordedSec / replaySpeed));
+
+						log.info("Replaying recorded run {} ({}s at {}x)", ++runs, runSec, replaySpeed);
+						txMixRunner.runTxMix(runSec);
+					}
+
+					if (runs == 0)
+					{
+						log.warn("The input recording {} holds no run", replayPath);
+					}
+
+					replay.close();
+				}
+				else if (isSearch)
+				{
+					ThroughputSearch search = new ThroughputSearch(txMixRunner, mparams, maxSearchLoad, searchStep);
+
+					log.info("Starting warmup run");
+					txMixRunner.runTxMix(searchStep);
+
+					ThroughputSearch.Step best = search.run();
+					search.printSteps(new PrintWriter(System.out));
+
+					if (best == null)
+					{
+						log.warn("The starting load does not meet the response time limits");
+						runSummary = search.getSteps().get(0).summary;
+					}
+					else
+					{
+						log.info("Maximum sustainable load: {} ({} tx/s)", best.load, String.format("%.2f", best.txRate));
+						runSummary = best.summary;
+					}
+				}
+				else
+				{
+					long warmupDurationSec = calculateWarmupTime(totalDurationSec);
+
+					// Ensure the measurement phase is at least 5 second to avoid errors.
+					long measureDurationSec = Math.max(totalDurationSec - warmupDurationSec, 5);
+
+					log.info("Total Run: {}s (Warmup: {}s, Measure: {}s)", totalDurationSec, warmupDurationSec, measureDurationSec);
+
+					log.info("Starting warmup run");
+					txMixRunner.runTxMix(measureDurationSec);
+
+					log.info("Starting measurement run");
+					txMixRunner.runTxMix(measureDurationSec);
+				}
+
+				if (recorder != null)
+				{
+					recorder.close();
+				}
+
+				mee.close();
+				txInputGen.close();
+			}
 
-				log.info("Starting warmup run");
-				txMixRunner.runTxMix(measureDurationSec);
+			sqlCtx.closePinnedConnections();
 
-				log.info("Starting measurement run");
-				txMixRunner.runTxMix(measureDurationSec);
+			if (intervalReporter != null)
+			{
+				intervalReporter.close();
+			}
 
-				closeAsyncExec(mee);
+			if (metricsServer != null)
+			{
+				metricsServer.stop();
 			}
 
-			TxRunSummary runSummary = txMixRunner.buildSummary();
+			if (runSummary == null)
+			{
+				runSummary = txMixRunner.buildSummary();
+			}
 
 			if (enableJsonOutput)
 			{
@@ -229,23 +559,6 @@ public class Oltp1Driver implements Callable<Integer>
 		return asyncPoolSize;
 	}
 
-	private void closeAsyncExec(final ExecutorService asyncExecutor)
-	{
-		asyncExecutor.shutdown();
-		try
-		{
-			if (!asyncExecutor.awaitTermination(5, TimeUnit.SECONDS))
-			{
-				asyncExecutor.shutdownNow();
-			}
-		}
-		catch (InterruptedException e)
-		{
-			asyncExecutor.shutdownNow();
-			Thread.currentThread().interrupt();
-		}
-	}
-
 	private String getDbInfo(SqlContext sqlCtx)
 	{
 		try (Connection con = sqlCtx.getSql2o().open())
@@ -263,6 +576,7 @@ public class Oltp1Driver implements Callable<Integer>
 		Oltp1Driver driver = new Oltp1Driver();
 		CommandLine cmd = new CommandLine(driver);
 		cmd.registerConverter(SqlEngine.class, new CaseInsensitiveEnumConverter());
+		cmd.setCaseInsensitiveEnumValuesAllowed(true);
 
 		int exitCode = cmd.execute(args);
 
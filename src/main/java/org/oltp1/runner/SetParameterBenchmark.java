@@ -0,0 +1,227 @@
+package org.oltp1.runner;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.oltp1.common.Assert;
+import org.oltp1.runner.db.DbSession;
+import org.oltp1.runner.db.DbStatement;
+import org.oltp1.runner.db.SetParameterBinder;
+import org.oltp1.runner.db.SetParameterBinders;
+import org.oltp1.runner.db.SqlContext;
+import org.oltp1.runner.db.SqlEngine;
+import org.oltp1.runner.perf.LatencyHistogram;
+import org.oltp1.runner.perf.LatencyRecorder;
+import org.oltp1.runner.tx.QueryFactory;
+import org.oltp1.runner.tx.trade_lookup.TradeLookupQueries;
+import org.slf4j.LoggerFactory;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Compares the set parameter binders that a database supports, on the kind of
+ * query the transactions run with a set of trade ids: every binder runs the
+ * same random sets of existing trade ids through its own SQL form, in turns,
+ * on one connection.
+ */
+@Command(name = "bench-binders", mixinStandardHelpOptions = true, description = "Measures the ways of passing a set of trade ids to a Database server (SQL array, table-valued parameter, JSON, CSV) and reports the fastest")
+public class SetParameterBenchmark implements Callable<Integer>
+{
+	private static final org.slf4j.Logger log = LoggerFactory.getLogger(SetParameterBenchmark.class);
+
+	private static final String SELECT_TRADES = """
+			SELECT
+				t_id
+				, t_st_id
+				, tt_name
+				, t_exec_name
+				, t_is_cash
+			FROM
+				trade
+				INNER JOIN trade_type ON t_tt_id = tt_id
+			WHERE
+			""";
+
+	@Option(names = { "-h", "--host" }, description = "Database host", required = true)
+	public String host;
+
+	@Option(names = { "-p", "--port" }, description = "Database listening port")
+	public int port;
+
+	@Option(names = { "-U", "--user" }, description = "Database username", required = true)
+	public String user;
+
+	@Option(names = { "-P", "--password" }, defaultValue = "${env:OLTP1_PASSWORD}", description = "Database user password, You can also set OLTP1_PASSWORD in the environment.", required = true)
+	public String password;
+
+	@Option(names = { "-e", "--engine" }, description = "Database Engine under test, valid values: ${COMPLETION-CANDIDATES}", required = true)
+	public SqlEngine engine;
+
+	@Option(names = { "--set-size" }, description = "Number of trade ids in each set. [${DEFAULT-VALUE}]")
+	public int setSize = 20;
+
+	@Option(names = { "--iterations" }, description = "Number of measured executions of each binder. [${DEFAULT-VALUE}]")
+	public int iterations = 1000;
+
+	@Option(names = { "--warmup" }, description = "Number of executions of each binder before the measurement. [${DEFAULT-VALUE}]")
+	public int warmup = 1000;
+
+	/**
+	 * A binder with the SQL form that reads its set back.
+	 */
+	static final class Candidate
+	{
+		final SetParameterBinder binder;
+		final String sql;
+		final LatencyRecorder latency = new LatencyRecorder(1);
+
+		Candidate(SetParameterBinder binder, String predicate)
+		{
+			this.binder = binder;
+			this.sql = SELECT_TRADES + "\t" + predicate;
+		}
+	}
+
+	/**
+	 * @return the binders the engine supports, with the predicate on
+	 *         <code>t_id</code> that goes with each of them
+	 */
+	static List<Candidate> getCandidates(SqlEngine engine)
+	{
+		final List<Candidate> candidates = new ArrayList<>();
+
+		switch (engine)
+		{
+		case POSTGRESQL:
+		case ORIOLEDB:
+			candidates.add(new Candidate(SetParameterBinders.ARRAY_BIGINT, "t_id = ANY(:trade_ids::bigint[])"));
+			candidates.add(new Candidate(SetParameterBinders.JSON, "t_id IN (SELECT value::bigint FROM jsonb_array_elements_text(:trade_ids::jsonb))"));
+			candidates.add(new Candidate(SetParameterBinders.CSV, "t_id IN (SELECT trade_id::bigint FROM string_to_table(:trade_ids, ',') AS trade_id)"));
+			break;
+		case MSSQL:
+			candidates.add(new Candidate(SetParameterBinders.TVP_BIGINT, "t_id IN (SELECT ivalue FROM :trade_ids)"));
+			candidates.add(new Candidate(SetParameterBinders.JSON, "t_id IN (SELECT value FROM OPENJSON(:trade_ids) WITH (value bigint '$'))"));
+			candidates.add(new Candidate(SetParameterBinders.CSV, "t_id IN (SELECT CAST(value AS bigint) FROM STRING_SPLIT(:trade_ids, ','))"));
+			break;
+		case MARIADB:
+			candidates.add(new Candidate(SetParameterBinders.JSON, "t_id IN (SELECT value FROM JSON_TABLE(:trade_ids, '$[*]' COLUMNS (value bigint PATH '$')) tid)"));
+			candidates.add(new Candidate(SetParameterBinders.CSV, "t_id IN (SELECT value FROM JSON_TABLE(CONCAT('[', :trade_ids, ']'), '$[*]' COLUMNS (value bigint PATH '$')) tid)"));
+			break;
+		default:
+			throw new IllegalArgumentException(String.format("Unsupported SQL engine %s for the set parameter benchmark", engine));
+		}
+
+		return candidates;
+	}
+
+	@Override
+	public Integer call() throws Exception
+	{
+		Assert.isInRange("set-size", setSize, 1, 1000);
+		Assert.isInRange("iterations", iterations, 1, Integer.MAX_VALUE);
+		Assert.isInRange("warmup", warmup, 0, Integer.MAX_VALUE);
+
+		final List<Candidate> candidates = getCandidates(engine);
+		final SqlContext sqlCtx = engine.createSqlContext(host, port, "tpce", user, password, 1);
+
+		try (DbSession con = sqlCtx.beginTransaction())
+		{
+			final long[] idRange = con
+					.prepare("SELECT MIN(t_id) AS min_id, MAX(t_id) AS max_id FROM trade")
+					.fetchFirst(rs -> new long[] { rs.getLong("min_id"), rs.getLong("max_id") });
+
+			log.info("Warming up {} binders with {} sets of {} trade ids", candidates.size(), warmup, setSize);
+			run(con, candidates, idRange, warmup);
+
+			for (Candidate candidate : candidates)
+			{
+				candidate.latency.reset();
+			}
+
+			log.info("Measuring {} sets of {} trade ids", iterations, setSize);
+			run(con, candidates, idRange, iterations);
+
+			con.commit();
+		}
+
+		report(candidates);
+
+		return 0;
+	}
+
+	/*
+	 * Each set of trade ids goes through every binder in turn, so that a
+	 * drift of the server (e.g. checkpoints, cache warm up) hits all of them
+	 * alike.
+	 */
+	private void run(DbSession con, List<Candidate> candidates, long[] idRange, int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			final Set<Long> tradeIds = randomTradeIds(idRange);
+
+			for (Candidate candidate : candidates)
+			{
+				final long start = System.nanoTime();
+
+				DbStatement stmt = con.prepare(candidate.sql);
+				candidate.binder.bind(con, stmt, "trade_ids", tradeIds);
+				stmt.fetchCount();
+
+				candidate.latency.recordNanos(System.nanoTime() - start);
+			}
+		}
+	}
+
+	private Set<Long> randomTradeIds(long[] idRange)
+	{
+		final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+		final Set<Long> tradeIds = new LinkedHashSet<>();
+		final int size = (int) Math.min(setSize, idRange[1] - idRange[0] + 1);
+
+		while (tradeIds.size() < size)
+		{
+			tradeIds.add(rnd.nextLong(idRange[0], idRange[1] + 1));
+		}
+
+		return tradeIds;
+	}
+
+	private void report(List<Candidate> candidates)
+	{
+		Candidate fastest = null;
+		double fastestMean = Double.MAX_VALUE;
+
+		System.out.printf("%nSet parameter binders on %s, %d sets of %d trade ids%n%n", engine, iterations, setSize);
+		System.out.printf("%-8s %10s %10s %10s %10s%n", "Binder", "Mean(ms)", "p50(ms)", "p90(ms)", "p99(ms)");
+
+		for (Candidate candidate : candidates)
+		{
+			LatencyHistogram h = candidate.latency.snapshot();
+
+			System.out
+					.printf(
+							"%-8s %10.3f %10.3f %10.3f %10.3f%n",
+							candidate.binder.getName(),
+							h.getMean(),
+							h.getQuantile(0.50),
+							h.getQuantile(0.90),
+							h.getQuantile(0.99));
+
+			if (h.getMean() < fastestMean)
+			{
+				fastestMean = h.getMean();
+				fastest = candidate;
+			}
+		}
+
+		final String inUse = QueryFactory.getQueries(TradeLookupQueries.class, engine).getTradeIdsBinder().getName();
+
+		System.out.printf("%nFastest binder: %s (the %s queries use: %s)%n", fastest.binder.getName(), engine, inUse);
+	}
+}
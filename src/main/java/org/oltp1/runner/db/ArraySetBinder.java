@@ -0,0 +1,33 @@
+package org.oltp1.runner.db;
+
+import java.util.Collection;
+import java.util.function.IntFunction;
+
+/**
+ * Binds the set as a SQL array, created by the driver connection. The
+ * elements are copied into an array of their own type (e.g. Long[]), which
+ * the driver maps to the SQL element type.
+ */
+final class ArraySetBinder implements SetParameterBinder
+{
+	private final String typeName;
+	private final IntFunction<Object[]> arrayFactory;
+
+	ArraySetBinder(String typeName, IntFunction<Object[]> arrayFactory)
+	{
+		this.typeName = typeName;
+		this.arrayFactory = arrayFactory;
+	}
+
+	@Override
+	public String getName()
+	{
+		return "array";
+	}
+
+	@Override
+	public void bind(DbSession con, DbStatement stmt, String name, Collection<?> values)
+	{
+		stmt.bind(name, con.createArrayOf(typeName, values.toArray(arrayFactory.apply(values.size()))));
+	}
+}
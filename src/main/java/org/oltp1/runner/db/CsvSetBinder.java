@@ -0,0 +1,38 @@
+package org.oltp1.runner.db;
+
+import java.util.Collection;
+
+/**
+ * Binds the set as a comma separated list in a string parameter. The values
+ * themselves must not contain a comma.
+ */
+final class CsvSetBinder implements SetParameterBinder
+{
+	@Override
+	public String getName()
+	{
+		return "csv";
+	}
+
+	@Override
+	public void bind(DbSession con, DbStatement stmt, String name, Collection<?> values)
+	{
+		stmt.bind(name, encode(values));
+	}
+
+	static String encode(Collection<?> values)
+	{
+		final StringBuilder sb = new StringBuilder(values.size() * 16);
+
+		for (Object value : values)
+		{
+			if (sb.length() > 0)
+			{
+				sb.append(',');
+			}
+			sb.append(value);
+		}
+
+		return sb.toString();
+	}
+}
@@ -0,0 +1,68 @@
+package org.oltp1.runner.db;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * A row of a result set, with the values read by column label.
+ * <p>
+ * The labels are lower-case; the getters convert between the numeric types
+ * the way sql2o does, so the same code works with every JDBC driver.
+ */
+public final class DbRow
+{
+	private final Map<String, Integer> labels;
+	private final Object[] values;
+
+	DbRow(Map<String, Integer> labels, Object[] values)
+	{
+		this.labels = labels;
+		this.values = values;
+	}
+
+	public Object getObject(String label)
+	{
+		Integer idx = labels.get(label);
+
+		if (idx == null)
+		{
+			throw new IllegalArgumentException(String.format("Unknown column: '%s'", label));
+		}
+
+		return values[idx];
+	}
+
+	public String getString(String label)
+	{
+		Object v = getObject(label);
+		return (v == null) ? null : v.toString();
+	}
+
+	public Integer getInteger(String label)
+	{
+		Number n = (Number) getObject(label);
+		return (n == null) ? null : n.intValue();
+	}
+
+	public Long getLong(String label)
+	{
+		Number n = (Number) getObject(label);
+		return (n == null) ? null : n.longValue();
+	}
+
+	public Double getDouble(String label)
+	{
+		Number n = (Number) getObject(label);
+		return (n == null) ? null : n.doubleValue();
+	}
+
+	public BigDecimal getBigDecimal(String label)
+	{
+		return DbValues.toBigDecimal(getObject(label));
+	}
+
+	public Boolean getBoolean(String label)
+	{
+		return DbValues.toBoolean(getObject(label));
+	}
+}
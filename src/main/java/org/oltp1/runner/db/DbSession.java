@@ -0,0 +1,332 @@
+package org.oltp1.runner.db;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A database transaction on a pooled connection, executing the statements
+ * through the {@link StatementCache} of the connection.
+ * <p>
+ * Commit and rollback go through the pool connection, so the pool sees the
+ * end of the transaction. A transaction that was not committed is rolled
+ * back when the session is closed, before the connection goes back to the
+ * pool.
+ * <p>
+ * On a connection pinned to the calling thread (see
+ * {@link SqlContext#pinConnections()}), closing the session keeps the
+ * connection open for the next transaction of the thread, unless the
+ * connection is broken.
+ * <p>
+ * The statements queued by {@link #defer(String)} run, in order, before the
+ * next statement prepared on the session and before the commit. With
+ * write batching (see {@link SqlContext#enableWriteBatching()}), the queued
+ * statements go to the server together, as one multi-statement execution,
+ * instead of one round trip each.
+ */
+public class DbSession implements AutoCloseable
+{
+	private final Connection con;
+	private final PinnedConnections pins;
+	private final StatementCache statements;
+	private final boolean isBatchingWrites;
+	private final List<DeferredStatement> deferred = new ArrayList<>();
+	private boolean isEnded = false;
+	private boolean isBroken = false;
+
+	DbSession(Connection con)
+	{
+		this(con, null);
+	}
+
+	DbSession(Connection con, PinnedConnections pins)
+	{
+		this(con, pins, false);
+	}
+
+	DbSession(Connection con, PinnedConnections pins, boolean isBatchingWrites)
+	{
+		this.con = con;
+		this.pins = pins;
+		this.isBatchingWrites = isBatchingWrites;
+
+		try
+		{
+			// pinned connections are opened in manual commit mode
+			if (pins == null)
+			{
+				con.setAutoCommit(false);
+			}
+			this.statements = StatementCache.of(con.unwrap(Connection.class));
+		}
+		catch (SQLException e)
+		{
+			isBroken = true;
+			release();
+			throw new RuntimeException(e);
+		}
+		catch (RuntimeException e)
+		{
+			isBroken = true;
+			release();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the cached statement, ready to be bound and executed
+	 */
+	public DbStatement prepare(String namedSql)
+	{
+		flush();
+		return statements.get(namedSql, false);
+	}
+
+	/**
+	 * @return the cached statement of an insert that returns the generated
+	 *         key; a given SQL text must always be prepared the same way
+	 */
+	public DbStatement prepare(String namedSql, boolean returnGeneratedKeys)
+	{
+		flush();
+		return statements.get(namedSql, returnGeneratedKeys);
+	}
+
+	/**
+	 * Queues a statement whose row count is not needed, to be bound now and
+	 * executed with the next flush of the session.
+	 */
+	public DeferredStatement defer(String namedSql)
+	{
+		final DeferredStatement stmt = new DeferredStatement(namedSql);
+		deferred.add(stmt);
+		return stmt;
+	}
+
+	/**
+	 * Executes the queued statements, in one round trip when batching writes.
+	 */
+	public void flush()
+	{
+		if (deferred.isEmpty())
+		{
+			return;
+		}
+
+		try
+		{
+			if (isBatchingWrites && deferred.size() > 1)
+			{
+				executeBatch();
+			}
+			else
+			{
+				for (DeferredStatement stmt : deferred)
+				{
+					execute(stmt);
+				}
+			}
+		}
+		finally
+		{
+			deferred.clear();
+		}
+	}
+
+	/**
+	 * @return a SQL array, created by the driver connection
+	 */
+	public Array createArrayOf(String typeName, Object[] elements)
+	{
+		try
+		{
+			return con.unwrap(Connection.class).createArrayOf(typeName, elements);
+		}
+		catch (SQLException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	public void commit()
+	{
+		flush();
+
+		final long start = System.nanoTime();
+
+		try
+		{
+			con.commit();
+			isEnded = true;
+		}
+		catch (SQLException e)
+		{
+			throw new RuntimeException(e);
+		}
+		finally
+		{
+			probe("commit", start);
+		}
+	}
+
+	/**
+	 * Rolls the transaction back; the queued statements are dropped.
+	 */
+	public void rollback()
+	{
+		deferred.clear();
+
+		final long start = System.nanoTime();
+
+		try
+		{
+			con.rollback();
+			isEnded = true;
+		}
+		catch (SQLException e)
+		{
+			isBroken = true;
+			throw new RuntimeException(e);
+		}
+		finally
+		{
+			probe("rollback", start);
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		try
+		{
+			if (!isEnded)
+			{
+				rollback();
+			}
+		}
+		finally
+		{
+			release();
+		}
+	}
+
+	/**
+	 * @return the named SQL of the queued statements as one statement, each
+	 *         of them without its final semicolon
+	 */
+	static String join(List<DeferredStatement> stmts)
+	{
+		final StringBuilder sb = new StringBuilder();
+
+		for (DeferredStatement stmt : stmts)
+		{
+			String text = stmt.getNamedSql().strip();
+
+			if (text.endsWith(";"))
+			{
+				text = text.substring(0, text.length() - 1);
+			}
+
+			if (sb.length() > 0)
+			{
+				sb.append(";\n");
+			}
+			sb.append(text);
+		}
+
+		return sb.toString();
+	}
+
+	/*
+	 * The statement runs under its own query label, which may not be the
+	 * current one any more.
+	 */
+	private void execute(DeferredStatement stmt)
+	{
+		final DbStatement ps = statements.get(stmt.getNamedSql(), false);
+
+		stmt.bindTo(ps, 0);
+
+		if (!SqlProbe.isEnabled())
+		{
+			ps.executeUpdate();
+			return;
+		}
+
+		final String label = SqlProbe.currentQuery();
+
+		SqlProbe.query(stmt.getLabel());
+		try
+		{
+			ps.executeUpdate();
+		}
+		finally
+		{
+			SqlProbe.query(label);
+		}
+	}
+
+	/*
+	 * The placeholders of the joined statement are numbered across all the
+	 * queued statements, in order. The most recently used joined statements
+	 * are cached, so the usual sequences of statements (e.g. the holding
+	 * updates of Trade-Result) are prepared once per connection, while the
+	 * rare ones do not pile up over a long run.
+	 */
+	private void executeBatch()
+	{
+		final DbStatement ps = statements.getBatch(join(deferred));
+
+		int offset = 0;
+		for (DeferredStatement stmt : deferred)
+		{
+			stmt.bindTo(ps, offset);
+			offset += stmt.getSql().getPlaceholderCount();
+		}
+
+		final long start = System.nanoTime();
+		try
+		{
+			ps.executeAll();
+		}
+		finally
+		{
+			if (SqlProbe.isEnabled())
+			{
+				SqlProbe.roundTrip("batch", System.nanoTime() - start);
+			}
+		}
+	}
+
+	/*
+	 * The pool connections time their commits and rollbacks themselves.
+	 */
+	private void probe(String label, long start)
+	{
+		if (pins != null && SqlProbe.isEnabled())
+		{
+			SqlProbe.roundTrip(label, System.nanoTime() - start);
+		}
+	}
+
+	private void release()
+	{
+		if (pins == null)
+		{
+			try
+			{
+				con.close();
+			}
+			catch (SQLException ignored)
+			{
+				/* ignore */
+			}
+		}
+		else if (isBroken)
+		{
+			pins.release();
+		}
+	}
+}
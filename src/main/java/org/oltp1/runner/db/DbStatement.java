@@ -0,0 +1,387 @@
+package org.oltp1.runner.db;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A prepared statement of a connection, prepared once and reused by every
+ * transaction that runs on that connection.
+ * <p>
+ * Parameters are bound by name, through the positions computed when the SQL
+ * was parsed; a parameter keeps its value until it is bound again, so every
+ * parameter must be bound before each execution. The column labels of the
+ * result set are read once.
+ */
+public final class DbStatement
+{
+	private final NamedSql sql;
+	private final PreparedStatement ps;
+	private Map<String, Integer> labels;
+	private String[] labelNames;
+
+	DbStatement(NamedSql sql, PreparedStatement ps)
+	{
+		this.sql = sql;
+		this.ps = ps;
+	}
+
+	public DbStatement bind(String name, Object value)
+	{
+		final int idx = sql.indexOf(name);
+
+		if (idx < 0)
+		{
+			throw new IllegalArgumentException(String.format("Failed to bind parameter: '%s' is not a parameter of the statement", name));
+		}
+
+		try
+		{
+			for (int position : sql.getPositions(idx))
+			{
+				set(position, value);
+			}
+		}
+		catch (SQLException e)
+		{
+			throw new RuntimeException(e);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Binds one JDBC position, e.g. of a statement that is made of several
+	 * named statements.
+	 */
+	void bindAt(int position, Object value)
+	{
+		try
+		{
+			set(position, value);
+		}
+		catch (SQLException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @return the number of rows affected
+	 */
+	public int executeUpdate()
+	{
+		final long start = System.nanoTime();
+
+		try
+		{
+			return ps.executeUpdate();
+		}
+		catch (SQLException e)
+		{
+			throw new RuntimeException(e);
+		}
+		finally
+		{
+			probe(start);
+		}
+	}
+
+	/**
+	 * Executes an insert and returns the key generated for the new row. The
+	 * statement must have been prepared with generated keys.
+	 */
+	public long executeInsert()
+	{
+		final long start = System.nanoTime();
+
+		try
+		{
+			try
+			{
+				ps.executeUpdate();
+			}
+			finally
+			{
+				probe(start);
+			}
+
+			try (ResultSet rs = ps.getGeneratedKeys())
+			{
+				if (!rs.next())
+				{
+					throw new IllegalStateException("The insert did not return a generated key");
+				}
+				return rs.getLong(1);
+			}
+		}
+		catch (SQLException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @return every row, as maps keyed by the lower-case column label
+	 */
+	public List<Map<String, Object>> fetchMaps()
+	{
+		return fetch(values -> {
+			final Map<String, Object> row = new HashMap<>((int) (values.length / 0.75f) + 1);
+			for (int i = 0; i < values.length; i++)
+			{
+				row.put(labelNames[i], values[i]);
+			}
+			return row;
+		});
+	}
+
+	/**
+	 * @return the first row, as a map keyed by the lower-case column label, or
+	 *         an empty map when there is no row
+	 */
+	public Map<String, Object> fetchFirstMap()
+	{
+		List<Map<String, Object>> rows = fetchMaps();
+		return rows.isEmpty() ? Collections.emptyMap() : rows.get(0);
+	}
+
+	public List<DbRow> fetchRows()
+	{
+		return fetch(values -> new DbRow(labels, values));
+	}
+
+	/**
+	 * @return every row, read by the mapper
+	 */
+	public <T> List<T> fetchList(RowMapper<T> mapper)
+	{
+		try (ResultSet rs = executeQuery())
+		{
+			final List<T> rows = new ArrayList<>();
+
+			while (rs.next())
+			{
+				rows.add(mapper.map(rs));
+			}
+
+			return rows;
+		}
+		catch (SQLException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @return the first row, read by the mapper, or null when there is no row;
+	 *         the other rows are not read
+	 */
+	public <T> T fetchFirst(RowMapper<T> mapper)
+	{
+		try (ResultSet rs = executeQuery())
+		{
+			return rs.next() ? mapper.map(rs) : null;
+		}
+		catch (SQLException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Streams through the result set without reading any column.
+	 *
+	 * @return the number of rows
+	 */
+	public int fetchCount()
+	{
+		try (ResultSet rs = executeQuery())
+		{
+			int rows = 0;
+
+			while (rs.next())
+			{
+				rows++;
+			}
+
+			return rows;
+		}
+		catch (SQLException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @return the first column of the first row, or null when there is no row
+	 */
+	public <T> T fetchScalar(Class<T> type)
+	{
+		List<T> values = fetchScalars(type);
+		return values.isEmpty() ? null : values.get(0);
+	}
+
+	/**
+	 * @return the first column of every row
+	 */
+	public <T> List<T> fetchScalars(Class<T> type)
+	{
+		return fetch(values -> DbValues.convert(values[0], type));
+	}
+
+	private <R> List<R> fetch(RowFactory<R> rowFactory)
+	{
+		try (ResultSet rs = executeQuery())
+		{
+			if (labels == null)
+			{
+				readLabels(rs.getMetaData());
+			}
+
+			final int columns = labelNames.length;
+			final List<R> rows = new ArrayList<>();
+
+			while (rs.next())
+			{
+				final Object[] values = new Object[columns];
+				for (int i = 0; i < columns; i++)
+				{
+					values[i] = rs.getObject(i + 1);
+				}
+				rows.add(rowFactory.create(values));
+			}
+
+			return rows;
+		}
+		catch (SQLException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Executes a statement that is made of several statements and skips all
+	 * their results. The time is recorded by the caller, as one round trip.
+	 */
+	void executeAll()
+	{
+		try
+		{
+			boolean isResultSet = ps.execute();
+
+			while (isResultSet || ps.getUpdateCount() != -1)
+			{
+				isResultSet = ps.getMoreResults();
+			}
+		}
+		catch (SQLException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Closes the statement, e.g. when it is evicted from the cache of its
+	 * connection.
+	 */
+	void close()
+	{
+		try
+		{
+			ps.close();
+		}
+		catch (SQLException ignored)
+		{
+			/* ignore */
+		}
+	}
+
+	private void readLabels(ResultSetMetaData md) throws SQLException
+	{
+		final int columns = md.getColumnCount();
+		final String[] names = new String[columns];
+		final Map<String, Integer> index = new HashMap<>();
+
+		for (int i = 0; i < columns; i++)
+		{
+			names[i] = md.getColumnLabel(i + 1).toLowerCase(Locale.ROOT);
+			index.putIfAbsent(names[i], i);
+		}
+
+		labelNames = names;
+		labels = index;
+	}
+
+	private void set(int position, Object value) throws SQLException
+	{
+		if (value instanceof String s)
+		{
+			ps.setString(position, s);
+		}
+		else if (value instanceof Long l)
+		{
+			ps.setLong(position, l);
+		}
+		else if (value instanceof Integer i)
+		{
+			ps.setInt(position, i);
+		}
+		else if (value instanceof Double d)
+		{
+			ps.setDouble(position, d);
+		}
+		else if (value instanceof BigDecimal bd)
+		{
+			ps.setBigDecimal(position, bd);
+		}
+		else if (value instanceof Boolean b)
+		{
+			ps.setBoolean(position, b);
+		}
+		else
+		{
+			ps.setObject(position, value);
+		}
+	}
+
+	/*
+	 * Only the execution is recorded as database time: reading the rows into
+	 * objects is client time.
+	 */
+	private ResultSet executeQuery() throws SQLException
+	{
+		final long start = System.nanoTime();
+
+		try
+		{
+			return ps.executeQuery();
+		}
+		finally
+		{
+			probe(start);
+		}
+	}
+
+	private static void probe(long start)
+	{
+		if (SqlProbe.isEnabled())
+		{
+			SqlProbe.statement(System.nanoTime() - start);
+		}
+	}
+
+	@FunctionalInterface
+	private interface RowFactory<R>
+	{
+		R create(Object[] values);
+	}
+}
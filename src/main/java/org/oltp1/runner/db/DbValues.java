@@ -0,0 +1,82 @@
+package org.oltp1.runner.db;
+
+import java.math.BigDecimal;
+
+/**
+ * Conversions of the values returned by the JDBC drivers, e.g. a
+ * <code>NUMERIC</code> read as a Double or a <code>BIT</code> read as a
+ * Boolean.
+ */
+final class DbValues
+{
+	private DbValues()
+	{
+	}
+
+	static BigDecimal toBigDecimal(Object v)
+	{
+		if (v == null || v instanceof BigDecimal)
+		{
+			return (BigDecimal) v;
+		}
+		if (v instanceof Long || v instanceof Integer || v instanceof Short || v instanceof Byte)
+		{
+			return BigDecimal.valueOf(((Number) v).longValue());
+		}
+		if (v instanceof Number)
+		{
+			return BigDecimal.valueOf(((Number) v).doubleValue());
+		}
+		return new BigDecimal(v.toString());
+	}
+
+	static Boolean toBoolean(Object v)
+	{
+		if (v == null || v instanceof Boolean)
+		{
+			return (Boolean) v;
+		}
+		if (v instanceof Number)
+		{
+			return ((Number) v).intValue() != 0;
+		}
+
+		final String s = v.toString().trim();
+		return "1".equals(s) || "Y".equalsIgnoreCase(s) || "true".equalsIgnoreCase(s);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> T convert(Object v, Class<T> type)
+	{
+		if (v == null || type.isInstance(v))
+		{
+			return (T) v;
+		}
+		if (type == Double.class)
+		{
+			return (T) Double.valueOf(((Number) v).doubleValue());
+		}
+		if (type == Long.class)
+		{
+			return (T) Long.valueOf(((Number) v).longValue());
+		}
+		if (type == Integer.class)
+		{
+			return (T) Integer.valueOf(((Number) v).intValue());
+		}
+		if (type == BigDecimal.class)
+		{
+			return (T) toBigDecimal(v);
+		}
+		if (type == Boolean.class)
+		{
+			return (T) toBoolean(v);
+		}
+		if (type == String.class)
+		{
+			return (T) v.toString();
+		}
+
+		throw new IllegalArgumentException(String.format("Cannot convert %s to %s", v.getClass().getName(), type.getName()));
+	}
+}
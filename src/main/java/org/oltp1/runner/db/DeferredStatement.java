@@ -0,0 +1,81 @@
+package org.oltp1.runner.db;
+
+import java.util.Arrays;
+
+/**
+ * A statement queued by {@link DbSession#defer(String)}: an insert, update
+ * or delete whose row count the transaction does not need. Its parameters
+ * are bound by name, like those of a {@link DbStatement}, and it is executed
+ * when the session flushes its queue.
+ * <p>
+ * The query label of the statement (see {@link SqlProbe#query(String)}) is
+ * the one current when the statement is queued.
+ */
+public final class DeferredStatement
+{
+	private static final Object UNBOUND = new Object();
+
+	private final String namedSql;
+	private final NamedSql sql;
+	private final Object[] values;
+	private final String label;
+
+	DeferredStatement(String namedSql)
+	{
+		this.namedSql = namedSql;
+		this.sql = NamedSql.of(namedSql);
+		this.values = new Object[sql.getParameterCount()];
+		this.label = SqlProbe.isEnabled() ? SqlProbe.currentQuery() : null;
+
+		Arrays.fill(values, UNBOUND);
+	}
+
+	public DeferredStatement bind(String name, Object value)
+	{
+		final int idx = sql.indexOf(name);
+
+		if (idx < 0)
+		{
+			throw new IllegalArgumentException(String.format("Failed to bind parameter: '%s' is not a parameter of the statement", name));
+		}
+
+		values[idx] = value;
+
+		return this;
+	}
+
+	String getNamedSql()
+	{
+		return namedSql;
+	}
+
+	NamedSql getSql()
+	{
+		return sql;
+	}
+
+	String getLabel()
+	{
+		return label;
+	}
+
+	/**
+	 * Binds the values to the statement, whose placeholders of this statement
+	 * start after the <code>offset</code> first ones.
+	 */
+	void bindTo(DbStatement stmt, int offset)
+	{
+		for (int idx = 0; idx < values.length; idx++)
+		{
+			if (values[idx] == UNBOUND)
+			{
+				throw new IllegalStateException(String.format("Failed to execute a deferred statement: parameter '%s' is not bound", sql.getName(idx)));
+			}
+
+			for (int position : sql.getPositions(idx))
+			{
+				stmt.bindAt(offset + position, values[idx]);
+			}
+		}
+	}
+}
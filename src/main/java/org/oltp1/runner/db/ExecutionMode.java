@@ -0,0 +1,19 @@
+package org.oltp1.runner.db;
+
+/**
+ * How the transactions run their frames.
+ */
+public enum ExecutionMode
+{
+	/**
+	 * Every frame runs its SQL statements from the client.
+	 */
+	STATEMENTS,
+
+	/**
+	 * The frames of Trade-Order and Trade-Result that run more than one
+	 * statement call the stored procedure of the frame instead, installed by
+	 * initdb; the other frames run their statements.
+	 */
+	PROCEDURES
+}
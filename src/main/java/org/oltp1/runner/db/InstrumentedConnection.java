@@ -0,0 +1,465 @@
+package org.oltp1.runner.db;
+
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.SQLClientInfoException;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Savepoint;
+import java.sql.ShardingKey;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A connection borrowed through {@link InstrumentedDataSource}: releases the
+ * pool permit when closed and, while the {@link SqlProbe} is enabled, times
+ * the commits and rollbacks and hands out {@link ProbedStatement}s. The
+ * callable statements are not probed, the transactions do not use them.
+ */
+final class InstrumentedConnection implements Connection
+{
+	private final Connection conn;
+	private final Semaphore permits;
+	private final AtomicBoolean isReleased = new AtomicBoolean(false);
+
+	InstrumentedConnection(Connection conn, Semaphore permits)
+	{
+		super();
+		this.conn = conn;
+		this.permits = permits;
+	}
+
+	private static Statement probe(Statement stmt)
+	{
+		return SqlProbe.isEnabled() ? new ProbedStatement(stmt) : stmt;
+	}
+
+	private static PreparedStatement probe(PreparedStatement ps)
+	{
+		return SqlProbe.isEnabled() ? new ProbedPreparedStatement(ps) : ps;
+	}
+
+	@Override
+	public Statement createStatement() throws SQLException
+	{
+		return probe(conn.createStatement());
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql) throws SQLException
+	{
+		return probe(conn.prepareStatement(sql));
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql) throws SQLException
+	{
+		return conn.prepareCall(sql);
+	}
+
+	@Override
+	public String nativeSQL(String sql) throws SQLException
+	{
+		return conn.nativeSQL(sql);
+	}
+
+	@Override
+	public void setAutoCommit(boolean autoCommit) throws SQLException
+	{
+		conn.setAutoCommit(autoCommit);
+	}
+
+	@Override
+	public boolean getAutoCommit() throws SQLException
+	{
+		return conn.getAutoCommit();
+	}
+
+	@Override
+	public void commit() throws SQLException
+	{
+		if (!SqlProbe.isEnabled())
+		{
+			conn.commit();
+			return;
+		}
+
+		final long start = System.nanoTime();
+		try
+		{
+			conn.commit();
+		}
+		finally
+		{
+			SqlProbe.roundTrip("commit", System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void rollback() throws SQLException
+	{
+		if (!SqlProbe.isEnabled())
+		{
+			conn.rollback();
+			return;
+		}
+
+		final long start = System.nanoTime();
+		try
+		{
+			conn.rollback();
+		}
+		finally
+		{
+			SqlProbe.roundTrip("rollback", System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void close() throws SQLException
+	{
+		try
+		{
+			conn.close();
+		}
+		finally
+		{
+			if (isReleased.compareAndSet(false, true))
+			{
+				permits.release();
+			}
+		}
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException
+	{
+		return conn.isClosed();
+	}
+
+	@Override
+	public DatabaseMetaData getMetaData() throws SQLException
+	{
+		return conn.getMetaData();
+	}
+
+	@Override
+	public void setReadOnly(boolean readOnly) throws SQLException
+	{
+		conn.setReadOnly(readOnly);
+	}
+
+	@Override
+	public boolean isReadOnly() throws SQLException
+	{
+		return conn.isReadOnly();
+	}
+
+	@Override
+	public void setCatalog(String catalog) throws SQLException
+	{
+		conn.setCatalog(catalog);
+	}
+
+	@Override
+	public String getCatalog() throws SQLException
+	{
+		return conn.getCatalog();
+	}
+
+	@Override
+	public void setTransactionIsolation(int level) throws SQLException
+	{
+		conn.setTransactionIsolation(level);
+	}
+
+	@Override
+	public int getTransactionIsolation() throws SQLException
+	{
+		return conn.getTransactionIsolation();
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException
+	{
+		return conn.getWarnings();
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException
+	{
+		conn.clearWarnings();
+	}
+
+	@Override
+	public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException
+	{
+		return probe(conn.createStatement(resultSetType, resultSetConcurrency));
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException
+	{
+		return probe(conn.prepareStatement(sql, resultSetType, resultSetConcurrency));
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException
+	{
+		return conn.prepareCall(sql, resultSetType, resultSetConcurrency);
+	}
+
+	@Override
+	public Map<String, Class<?>> getTypeMap() throws SQLException
+	{
+		return conn.getTypeMap();
+	}
+
+	@Override
+	public void setTypeMap(Map<String, Class<?>> map) throws SQLException
+	{
+		conn.setTypeMap(map);
+	}
+
+	@Override
+	public void setHoldability(int holdability) throws SQLException
+	{
+		conn.setHoldability(holdability);
+	}
+
+	@Override
+	public int getHoldability() throws SQLException
+	{
+		return conn.getHoldability();
+	}
+
+	@Override
+	public Savepoint setSavepoint() throws SQLException
+	{
+		return conn.setSavepoint();
+	}
+
+	@Override
+	public Savepoint setSavepoint(String name) throws SQLException
+	{
+		return conn.setSavepoint(name);
+	}
+
+	@Override
+	public void rollback(Savepoint savepoint) throws SQLException
+	{
+		if (!SqlProbe.isEnabled())
+		{
+			conn.rollback(savepoint);
+			return;
+		}
+
+		final long start = System.nanoTime();
+		try
+		{
+			conn.rollback(savepoint);
+		}
+		finally
+		{
+			SqlProbe.roundTrip("rollback", System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void releaseSavepoint(Savepoint savepoint) throws SQLException
+	{
+		conn.releaseSavepoint(savepoint);
+	}
+
+	@Override
+	public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException
+	{
+		return probe(conn.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException
+	{
+		return probe(conn.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException
+	{
+		return conn.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException
+	{
+		return probe(conn.prepareStatement(sql, autoGeneratedKeys));
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException
+	{
+		return probe(conn.prepareStatement(sql, columnIndexes));
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException
+	{
+		return probe(conn.prepareStatement(sql, columnNames));
+	}
+
+	@Override
+	public Clob createClob() throws SQLException
+	{
+		return conn.createClob();
+	}
+
+	@Override
+	public Blob createBlob() throws SQLException
+	{
+		return conn.createBlob();
+	}
+
+	@Override
+	public NClob createNClob() throws SQLException
+	{
+		return conn.createNClob();
+	}
+
+	@Override
+	public SQLXML createSQLXML() throws SQLException
+	{
+		return conn.createSQLXML();
+	}
+
+	@Override
+	public boolean isValid(int timeout) throws SQLException
+	{
+		return conn.isValid(timeout);
+	}
+
+	@Override
+	public void setClientInfo(String name, String value) throws SQLClientInfoException
+	{
+		conn.setClientInfo(name, value);
+	}
+
+	@Override
+	public void setClientInfo(Properties properties) throws SQLClientInfoException
+	{
+		conn.setClientInfo(properties);
+	}
+
+	@Override
+	public String getClientInfo(String name) throws SQLException
+	{
+		return conn.getClientInfo(name);
+	}
+
+	@Override
+	public Properties getClientInfo() throws SQLException
+	{
+		return conn.getClientInfo();
+	}
+
+	@Override
+	public Array createArrayOf(String typeName, Object[] elements) throws SQLException
+	{
+		return conn.createArrayOf(typeName, elements);
+	}
+
+	@Override
+	public Struct createStruct(String typeName, Object[] attributes) throws SQLException
+	{
+		return conn.createStruct(typeName, attributes);
+	}
+
+	@Override
+	public void setSchema(String schema) throws SQLException
+	{
+		conn.setSchema(schema);
+	}
+
+	@Override
+	public String getSchema() throws SQLException
+	{
+		return conn.getSchema();
+	}
+
+	@Override
+	public void abort(Executor executor) throws SQLException
+	{
+		conn.abort(executor);
+	}
+
+	@Override
+	public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException
+	{
+		conn.setNetworkTimeout(executor, milliseconds);
+	}
+
+	@Override
+	public int getNetworkTimeout() throws SQLException
+	{
+		return conn.getNetworkTimeout();
+	}
+
+	@Override
+	public void beginRequest() throws SQLException
+	{
+		conn.beginRequest();
+	}
+
+	@Override
+	public void endRequest() throws SQLException
+	{
+		conn.endRequest();
+	}
+
+	@Override
+	public boolean setShardingKeyIfValid(ShardingKey shardingKey, ShardingKey superShardingKey, int timeout) throws SQLException
+	{
+		return conn.setShardingKeyIfValid(shardingKey, superShardingKey, timeout);
+	}
+
+	@Override
+	public boolean setShardingKeyIfValid(ShardingKey shardingKey, int timeout) throws SQLException
+	{
+		return conn.setShardingKeyIfValid(shardingKey, timeout);
+	}
+
+	@Override
+	public void setShardingKey(ShardingKey shardingKey, ShardingKey superShardingKey) throws SQLException
+	{
+		conn.setShardingKey(shardingKey, superShardingKey);
+	}
+
+	@Override
+	public void setShardingKey(ShardingKey shardingKey) throws SQLException
+	{
+		conn.setShardingKey(shardingKey);
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException
+	{
+		return conn.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException
+	{
+		return conn.isWrapperFor(iface);
+	}
+}
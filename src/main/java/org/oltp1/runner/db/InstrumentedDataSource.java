@@ -0,0 +1,130 @@
+package org.oltp1.runner.db;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.oltp1.runner.perf.TxStatsCollector;
+
+/**
+ * DataSource wrapper that measures how long callers wait to obtain a
+ * connection from the pool.
+ * <p>
+ * Callers must first acquire a permit from a fair {@link Semaphore} sized to
+ * the pool. When there are many more clients than connections, for example
+ * with thousands of virtual threads, the waiting happens on a
+ * java.util.concurrent primitive that parks virtual threads without pinning
+ * their carrier thread. It also keeps callers out of the pool's connection
+ * timeout. The permit is released when the connection is closed, see
+ * {@link InstrumentedConnection}.
+ */
+public class InstrumentedDataSource implements DataSource
+{
+	private final DataSource delegate;
+	private final Semaphore permits;
+	private final TxStatsCollector waitStats;
+
+	public InstrumentedDataSource(DataSource delegate, int poolSize, TxStatsCollector waitStats)
+	{
+		super();
+		this.delegate = delegate;
+		this.permits = new Semaphore(poolSize, true);
+		this.waitStats = waitStats;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException
+	{
+		final long start = System.nanoTime();
+
+		try
+		{
+			permits.acquire();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a pool connection", e);
+		}
+
+		try
+		{
+			Connection conn = delegate.getConnection();
+			final long elapsed = System.nanoTime() - start;
+			waitStats.addValue(elapsed / 1000000.0);
+			SqlProbe.poolWait(elapsed);
+			return new InstrumentedConnection(conn, permits);
+		}
+		catch (Throwable t)
+		{
+			permits.release();
+			throw t;
+		}
+	}
+
+	/**
+	 * @return an estimate of the number of callers waiting for a connection
+	 *         permit
+	 */
+	public int getQueuedClients()
+	{
+		return permits.getQueueLength();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException("Connections are only available with the pool credentials");
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException
+	{
+		return delegate.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException
+	{
+		delegate.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException
+	{
+		delegate.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException
+	{
+		return delegate.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException
+	{
+		return delegate.getParentLogger();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException
+	{
+		if (iface.isInstance(delegate))
+		{
+			return iface.cast(delegate);
+		}
+		return delegate.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException
+	{
+		return iface.isInstance(delegate) || delegate.isWrapperFor(iface);
+	}
+}
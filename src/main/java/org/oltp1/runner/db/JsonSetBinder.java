@@ -0,0 +1,73 @@
+package org.oltp1.runner.db;
+
+import java.util.Collection;
+
+/**
+ * Binds the set as a JSON array in a string parameter: numbers are written
+ * as JSON numbers and every other value as a JSON string. The array is
+ * written straight into a StringBuilder instead of going through an
+ * ObjectMapper.
+ */
+final class JsonSetBinder implements SetParameterBinder
+{
+	@Override
+	public String getName()
+	{
+		return "json";
+	}
+
+	@Override
+	public void bind(DbSession con, DbStatement stmt, String name, Collection<?> values)
+	{
+		stmt.bind(name, encode(values));
+	}
+
+	static String encode(Collection<?> values)
+	{
+		final StringBuilder sb = new StringBuilder(2 + values.size() * 16);
+
+		sb.append('[');
+		for (Object value : values)
+		{
+			if (sb.length() > 1)
+			{
+				sb.append(',');
+			}
+
+			if (value instanceof Number)
+			{
+				sb.append(value);
+			}
+			else
+			{
+				appendString(sb, String.valueOf(value));
+			}
+		}
+		sb.append(']');
+
+		return sb.toString();
+	}
+
+	private static void appendString(StringBuilder sb, String value)
+	{
+		sb.append('"');
+		for (int i = 0; i < value.length(); i++)
+		{
+			final char c = value.charAt(i);
+
+			if (c == '"' || c == '\\')
+			{
+				sb.append('\\').append(c);
+			}
+			else if (c < 0x20)
+			{
+				sb.append(String.format("\\u%04x", (int) c));
+			}
+			else
+			{
+				sb.append(c);
+			}
+		}
+		sb.append('"');
+	}
+}
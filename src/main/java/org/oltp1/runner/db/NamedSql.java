@@ -0,0 +1,180 @@
+package org.oltp1.runner.db;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A SQL statement with <code>:name</code> parameters, parsed once into the
+ * positional (<code>?</code>) form expected by JDBC and the positions of
+ * each named parameter.
+ * <p>
+ * The parser follows the same rules as sql2o: parameters are not recognized
+ * inside string literals, quoted identifiers or comments, and
+ * <code>::</code> (the PostgreSQL cast) is left untouched.
+ */
+public final class NamedSql
+{
+	private static final Map<String, NamedSql> parsed = new ConcurrentHashMap<>();
+
+	private final String sql;
+	private final String[] names;
+	private final int[][] positions;
+	private final int placeholderCount;
+
+	private NamedSql(String sql, String[] names, int[][] positions)
+	{
+		this.sql = sql;
+		this.names = names;
+		this.positions = positions;
+
+		int count = 0;
+		for (int[] p : positions)
+		{
+			count += p.length;
+		}
+		this.placeholderCount = count;
+	}
+
+	/**
+	 * @return the parsed statement, from the cache of every statement parsed
+	 *         so far
+	 */
+	public static NamedSql of(String namedSql)
+	{
+		return parsed.computeIfAbsent(namedSql, NamedSql::parse);
+	}
+
+	/**
+	 * @return the SQL text with <code>?</code> placeholders
+	 */
+	public String getSql()
+	{
+		return sql;
+	}
+
+	public int getParameterCount()
+	{
+		return names.length;
+	}
+
+	/**
+	 * @return the number of <code>?</code> placeholders, at least the number
+	 *         of parameters since a parameter may appear more than once
+	 */
+	public int getPlaceholderCount()
+	{
+		return placeholderCount;
+	}
+
+	public String getName(int index)
+	{
+		return names[index];
+	}
+
+	/**
+	 * @return the index of the named parameter, to be passed to
+	 *         {@link #getPositions(int)}, or -1 if the statement has no such
+	 *         parameter
+	 */
+	public int indexOf(String name)
+	{
+		for (int i = 0; i < names.length; i++)
+		{
+			if (names[i].equals(name))
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the 1-based JDBC positions of a named parameter, which may
+	 *         appear more than once in the statement
+	 */
+	public int[] getPositions(int index)
+	{
+		return positions[index];
+	}
+
+	static NamedSql parse(String namedSql)
+	{
+		final StringBuilder sb = new StringBuilder(namedSql.length());
+		final Map<String, List<Integer>> params = new LinkedHashMap<>();
+		final int len = namedSql.length();
+
+		int position = 0;
+		int i = 0;
+
+		while (i < len)
+		{
+			final char c = namedSql.charAt(i);
+
+			if (c == '\'' || c == '"')
+			{
+				int end = namedSql.indexOf(c, i + 1);
+				end = (end < 0) ? len : end + 1;
+				sb.append(namedSql, i, end);
+				i = end;
+			}
+			else if (c == '-' && i + 1 < len && namedSql.charAt(i + 1) == '-')
+			{
+				int end = namedSql.indexOf('\n', i);
+				end = (end < 0) ? len : end;
+				sb.append(namedSql, i, end);
+				i = end;
+			}
+			else if (c == '/' && i + 1 < len && namedSql.charAt(i + 1) == '*')
+			{
+				int end = namedSql.indexOf("*/", i + 2);
+				end = (end < 0) ? len : end + 2;
+				sb.append(namedSql, i, end);
+				i = end;
+			}
+			else if (c == ':' && i + 1 < len && namedSql.charAt(i + 1) == ':')
+			{
+				sb.append("::");
+				i += 2;
+			}
+			else if (c == ':' && i + 1 < len && isNameStart(namedSql.charAt(i + 1)))
+			{
+				int end = i + 1;
+				while (end < len && isNamePart(namedSql.charAt(end)))
+				{
+					end++;
+				}
+				params.computeIfAbsent(namedSql.substring(i + 1, end), n -> new ArrayList<>()).add(++position);
+				sb.append('?');
+				i = end;
+			}
+			else
+			{
+				sb.append(c);
+				i++;
+			}
+		}
+
+		final String[] names = params.keySet().toArray(new String[0]);
+		final int[][] positions = new int[names.length][];
+
+		for (int n = 0; n < names.length; n++)
+		{
+			positions[n] = params.get(names[n]).stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		return new NamedSql(sb.toString(), names, positions);
+	}
+
+	private static boolean isNameStart(char c)
+	{
+		return Character.isLetter(c) || c == '_';
+	}
+
+	private static boolean isNamePart(char c)
+	{
+		return Character.isLetterOrDigit(c) || c == '_';
+	}
+}
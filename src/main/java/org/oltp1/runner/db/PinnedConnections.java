@@ -0,0 +1,142 @@
+package org.oltp1.runner.db;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The database connections pinned to the threads that run transactions: each
+ * simulated client, and each MEE worker, owns one connection for its whole
+ * life instead of checking one out of the pool for every transaction.
+ * <p>
+ * A thread opens its connection, straight from the JDBC driver, with its
+ * first transaction. A connection whose transaction could not be rolled back
+ * is considered broken: it is closed and the next transaction of the thread
+ * opens a new one. The connections of the threads that ended are closed
+ * whenever a new connection is opened.
+ */
+final class PinnedConnections
+{
+	private static Logger log = LoggerFactory.getLogger(PinnedConnections.class);
+
+	private final Driver driver;
+	private final String jdbcUrl;
+	private final Map<Thread, Connection> connections = new ConcurrentHashMap<>();
+
+	PinnedConnections(String jdbcUrl, String jdbcDriver)
+	{
+		this.jdbcUrl = jdbcUrl;
+
+		try
+		{
+			this.driver = (Driver) Class.forName(jdbcDriver).getDeclaredConstructor().newInstance();
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @return the connection of the calling thread, opened if needed
+	 */
+	Connection get() throws SQLException
+	{
+		final Thread owner = Thread.currentThread();
+		Connection con = connections.get(owner);
+
+		if (con == null)
+		{
+			purgeEnded();
+			con = open();
+			connections.put(owner, con);
+		}
+
+		return con;
+	}
+
+	/**
+	 * Closes the connection of the calling thread, if it has one.
+	 */
+	void release()
+	{
+		final Connection con = connections.remove(Thread.currentThread());
+
+		if (con != null)
+		{
+			closeQuietly(con);
+		}
+	}
+
+	/**
+	 * @return the number of open connections
+	 */
+	int size()
+	{
+		return connections.size();
+	}
+
+	void closeAll()
+	{
+		connections.values().forEach(PinnedConnections::closeQuietly);
+		connections.clear();
+	}
+
+	private Connection open() throws SQLException
+	{
+		final Connection con = driver.connect(jdbcUrl, new Properties());
+
+		if (con == null)
+		{
+			throw new SQLException("The JDBC driver does not accept the URL of the database");
+		}
+
+		try
+		{
+			// the settings of the pool connections
+			con.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+			con.setAutoCommit(false);
+		}
+		catch (SQLException e)
+		{
+			closeQuietly(con);
+			throw e;
+		}
+
+		log.debug("Opened a pinned connection for {}", Thread.currentThread().getName());
+
+		return con;
+	}
+
+	private void purgeEnded()
+	{
+		connections.entrySet().removeIf(e -> {
+
+			if (e.getKey().isAlive())
+			{
+				return false;
+			}
+
+			closeQuietly(e.getValue());
+			return true;
+		});
+	}
+
+	private static void closeQuietly(Connection con)
+	{
+		try
+		{
+			con.close();
+		}
+		catch (SQLException ignored)
+		{
+			/* ignore */
+		}
+	}
+}
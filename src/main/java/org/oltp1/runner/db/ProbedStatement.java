@@ -0,0 +1,478 @@
+package org.oltp1.runner.db;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+
+/**
+ * Counts and times the statement executions (one round trip each) for the
+ * frame and query statistics.
+ */
+class ProbedStatement implements Statement
+{
+	private final Statement stmt;
+
+	ProbedStatement(Statement stmt)
+	{
+		super();
+		this.stmt = stmt;
+	}
+
+	@Override
+	public ResultSet executeQuery(String sql) throws SQLException
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			return stmt.executeQuery(sql);
+		}
+		finally
+		{
+			SqlProbe.statement(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql) throws SQLException
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			return stmt.executeUpdate(sql);
+		}
+		finally
+		{
+			SqlProbe.statement(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void close() throws SQLException
+	{
+		stmt.close();
+	}
+
+	@Override
+	public int getMaxFieldSize() throws SQLException
+	{
+		return stmt.getMaxFieldSize();
+	}
+
+	@Override
+	public void setMaxFieldSize(int max) throws SQLException
+	{
+		stmt.setMaxFieldSize(max);
+	}
+
+	@Override
+	public int getMaxRows() throws SQLException
+	{
+		return stmt.getMaxRows();
+	}
+
+	@Override
+	public void setMaxRows(int max) throws SQLException
+	{
+		stmt.setMaxRows(max);
+	}
+
+	@Override
+	public void setEscapeProcessing(boolean enable) throws SQLException
+	{
+		stmt.setEscapeProcessing(enable);
+	}
+
+	@Override
+	public int getQueryTimeout() throws SQLException
+	{
+		return stmt.getQueryTimeout();
+	}
+
+	@Override
+	public void setQueryTimeout(int seconds) throws SQLException
+	{
+		stmt.setQueryTimeout(seconds);
+	}
+
+	@Override
+	public void cancel() throws SQLException
+	{
+		stmt.cancel();
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException
+	{
+		return stmt.getWarnings();
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException
+	{
+		stmt.clearWarnings();
+	}
+
+	@Override
+	public void setCursorName(String name) throws SQLException
+	{
+		stmt.setCursorName(name);
+	}
+
+	@Override
+	public boolean execute(String sql) throws SQLException
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			return stmt.execute(sql);
+		}
+		finally
+		{
+			SqlProbe.statement(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public ResultSet getResultSet() throws SQLException
+	{
+		return stmt.getResultSet();
+	}
+
+	@Override
+	public int getUpdateCount() throws SQLException
+	{
+		return stmt.getUpdateCount();
+	}
+
+	@Override
+	public boolean getMoreResults() throws SQLException
+	{
+		return stmt.getMoreResults();
+	}
+
+	@Override
+	public void setFetchDirection(int direction) throws SQLException
+	{
+		stmt.setFetchDirection(direction);
+	}
+
+	@Override
+	public int getFetchDirection() throws SQLException
+	{
+		return stmt.getFetchDirection();
+	}
+
+	@Override
+	public void setFetchSize(int rows) throws SQLException
+	{
+		stmt.setFetchSize(rows);
+	}
+
+	@Override
+	public int getFetchSize() throws SQLException
+	{
+		return stmt.getFetchSize();
+	}
+
+	@Override
+	public int getResultSetConcurrency() throws SQLException
+	{
+		return stmt.getResultSetConcurrency();
+	}
+
+	@Override
+	public int getResultSetType() throws SQLException
+	{
+		return stmt.getResultSetType();
+	}
+
+	@Override
+	public void addBatch(String sql) throws SQLException
+	{
+		stmt.addBatch(sql);
+	}
+
+	@Override
+	public void clearBatch() throws SQLException
+	{
+		stmt.clearBatch();
+	}
+
+	@Override
+	public int[] executeBatch() throws SQLException
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			return stmt.executeBatch();
+		}
+		finally
+		{
+			SqlProbe.statement(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException
+	{
+		return stmt.getConnection();
+	}
+
+	@Override
+	public boolean getMoreResults(int current) throws SQLException
+	{
+		return stmt.getMoreResults(current);
+	}
+
+	@Override
+	public ResultSet getGeneratedKeys() throws SQLException
+	{
+		return stmt.getGeneratedKeys();
+	}
+
+	@Override
+	public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			return stmt.executeUpdate(sql, autoGeneratedKeys);
+		}
+		finally
+		{
+			SqlProbe.statement(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql, int[] columnIndexes) throws SQLException
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			return stmt.executeUpdate(sql, columnIndexes);
+		}
+		finally
+		{
+			SqlProbe.statement(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql, String[] columnNames) throws SQLException
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			return stmt.executeUpdate(sql, columnNames);
+		}
+		finally
+		{
+			SqlProbe.statement(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, int autoGeneratedKeys) throws SQLException
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			return stmt.execute(sql, autoGeneratedKeys);
+		}
+		finally
+		{
+			SqlProbe.statement(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, int[] columnIndexes) throws SQLException
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			return stmt.execute(sql, columnIndexes);
+		}
+		finally
+		{
+			SqlProbe.statement(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, String[] columnNames) throws SQLException
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			return stmt.execute(sql, columnNames);
+		}
+		finally
+		{
+			SqlProbe.statement(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public int getResultSetHoldability() throws SQLException
+	{
+		return stmt.getResultSetHoldability();
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException
+	{
+		return stmt.isClosed();
+	}
+
+	@Override
+	public void setPoolable(boolean poolable) throws SQLException
+	{
+		stmt.setPoolable(poolable);
+	}
+
+	@Override
+	public boolean isPoolable() throws SQLException
+	{
+		return stmt.isPoolable();
+	}
+
+	@Override
+	public void closeOnCompletion() throws SQLException
+	{
+		stmt.closeOnCompletion();
+	}
+
+	@Override
+	public boolean isCloseOnCompletion() throws SQLException
+	{
+		return stmt.isCloseOnCompletion();
+	}
+
+	@Override
+	public long getLargeUpdateCount() throws SQLException
+	{
+		return stmt.getLargeUpdateCount();
+	}
+
+	@Override
+	public void setLargeMaxRows(long max) throws SQLException
+	{
+		stmt.setLargeMaxRows(max);
+	}
+
+	@Override
+	public long getLargeMaxRows() throws SQLException
+	{
+		return stmt.getLargeMaxRows();
+	}
+
+	@Override
+	public long[] executeLargeBatch() throws SQLException
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			return stmt.executeLargeBatch();
+		}
+		finally
+		{
+			SqlProbe.statement(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql) throws SQLException
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			return stmt.executeLargeUpdate(sql);
+		}
+		finally
+		{
+			SqlProbe.statement(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			return stmt.executeLargeUpdate(sql, autoGeneratedKeys);
+		}
+		finally
+		{
+			SqlProbe.statement(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			return stmt.executeLargeUpdate(sql, columnIndexes);
+		}
+		finally
+		{
+			SqlProbe.statement(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			return stmt.executeLargeUpdate(sql, columnNames);
+		}
+		finally
+		{
+			SqlProbe.statement(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public String enquoteLiteral(String val) throws SQLException
+	{
+		return stmt.enquoteLiteral(val);
+	}
+
+	@Override
+	public String enquoteIdentifier(String identifier, boolean alwaysQuote) throws SQLException
+	{
+		return stmt.enquoteIdentifier(identifier, alwaysQuote);
+	}
+
+	@Override
+	public boolean isSimpleIdentifier(String identifier) throws SQLException
+	{
+		return stmt.isSimpleIdentifier(identifier);
+	}
+
+	@Override
+	public String enquoteNCharLiteral(String val) throws SQLException
+	{
+		return stmt.enquoteNCharLiteral(val);
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException
+	{
+		return stmt.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException
+	{
+		return stmt.isWrapperFor(iface);
+	}
+}
@@ -0,0 +1,133 @@
+package org.oltp1.runner.db;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.oltp1.common.Assert;
+
+/**
+ * Decides which transaction failures are worth retrying, and how long to wait
+ * before each retry. Serialization failures and deadlocks are expected under
+ * snapshot or serializable isolation: the transaction did nothing wrong and
+ * is likely to succeed when it runs again.
+ */
+public class RetryPolicy
+{
+	// SQLSTATE class 40 (transaction rollback)
+	private static final String SERIALIZATION_FAILURE = "40001";
+	private static final String DEADLOCK_DETECTED = "40P01";
+
+	// deadlock victim, snapshot update conflict, snapshot aborted by DDL
+	private static final int[] MSSQL_CODES = { 1205, 3960, 3961 };
+
+	// deadlock, lock wait timeout, record changed since the snapshot was taken
+	private static final int[] MARIADB_CODES = { 1213, 1205, 1020 };
+
+	private static final long MAX_BACKOFF_MILLIS = 1000L;
+
+	private final SqlEngine engine;
+	private final int maxRetries;
+	private final long baseBackoffMillis;
+
+	public RetryPolicy(SqlEngine engine, int maxRetries, long baseBackoffMillis)
+	{
+		super();
+
+		Assert.notNull("engine", engine);
+		Assert.isInRange("maxRetries", maxRetries, 0, 100);
+		Assert.isInRange("baseBackoffMillis", baseBackoffMillis, 0, MAX_BACKOFF_MILLIS);
+
+		this.engine = engine;
+		this.maxRetries = maxRetries;
+		this.baseBackoffMillis = baseBackoffMillis;
+	}
+
+	public int getMaxRetries()
+	{
+		return maxRetries;
+	}
+
+	/**
+	 * @return true if there are retries left after the given number of failed
+	 *         attempts, and the failure is one that a retry can resolve
+	 */
+	public boolean shouldRetry(Throwable failure, int attempts)
+	{
+		return attempts <= maxRetries && isRetryable(failure);
+	}
+
+	/**
+	 * @return true if the failure, or one of its causes, is a serialization
+	 *         failure or a deadlock on the engine under test
+	 */
+	public boolean isRetryable(Throwable failure)
+	{
+		for (Throwable t = failure; t != null; t = (t.getCause() == t) ? null : t.getCause())
+		{
+			if (t instanceof SQLException && isRetryable((SQLException) t))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private boolean isRetryable(SQLException e)
+	{
+		final String state = e.getSQLState();
+
+		if (SERIALIZATION_FAILURE.equals(state) || DEADLOCK_DETECTED.equals(state))
+		{
+			return true;
+		}
+
+		switch (engine)
+		{
+		case MSSQL:
+			return contains(MSSQL_CODES, e.getErrorCode());
+		case MARIADB:
+			return contains(MARIADB_CODES, e.getErrorCode());
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Exponential backoff with full jitter: a random wait between zero and the
+	 * base backoff doubled for every previous retry, so that the transactions
+	 * that collided do not collide again.
+	 *
+	 * @param attempt
+	 *            the number of the retry, starting at 1
+	 * @return the time to wait, in milliseconds, before the retry
+	 */
+	public long backoffMillis(int attempt)
+	{
+		if (baseBackoffMillis == 0)
+		{
+			return 0;
+		}
+
+		final long cap = Math.min(MAX_BACKOFF_MILLIS, baseBackoffMillis << Math.min(attempt - 1, 20));
+		return ThreadLocalRandom.current().nextLong(cap + 1);
+	}
+
+	private static boolean contains(int[] codes, int code)
+	{
+		for (int c : codes)
+		{
+			if (c == code)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("RetryPolicy [engine=%s, maxRetries=%s, baseBackoffMillis=%s]", engine, maxRetries, baseBackoffMillis);
+	}
+}
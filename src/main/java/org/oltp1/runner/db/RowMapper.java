@@ -0,0 +1,15 @@
+package org.oltp1.runner.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads the current row of a result set into a typed object, with the typed
+ * getters of the result set, so the values are neither boxed into an
+ * intermediate row nor converted again by the caller.
+ */
+@FunctionalInterface
+public interface RowMapper<T>
+{
+	T map(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,26 @@
+package org.oltp1.runner.db;
+
+import java.util.Collection;
+
+/**
+ * Passes a set of values, e.g. the trade ids of a Trade-Lookup, to a
+ * statement as one parameter.
+ * <p>
+ * Each binder encodes the set the way a given SQL form reads it back: a SQL
+ * array, a table-valued parameter, a JSON array or a comma separated list.
+ * The SQL of the statement must therefore match the binder; the query
+ * classes of each engine declare the binder their SQL expects (see
+ * {@link SetParameterBinders}).
+ */
+public interface SetParameterBinder
+{
+	/**
+	 * @return the short name of the binder, e.g. <code>csv</code>
+	 */
+	String getName();
+
+	/**
+	 * Binds the values to the named parameter of the statement.
+	 */
+	void bind(DbSession con, DbStatement stmt, String name, Collection<?> values);
+}
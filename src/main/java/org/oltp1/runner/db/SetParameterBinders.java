@@ -0,0 +1,37 @@
+package org.oltp1.runner.db;
+
+import java.sql.Types;
+
+/**
+ * The available {@link SetParameterBinder} implementations.
+ * <ul>
+ * <li>ARRAY: a SQL array, e.g. <code>t_id = ANY(:trade_ids::bigint[])</code>
+ * on PostgreSQL</li>
+ * <li>TVP: a SQL Server table-valued parameter, e.g.
+ * <code>t_id IN (SELECT ivalue FROM :trade_ids)</code></li>
+ * <li>JSON: a JSON array, e.g. <code>JSON_TABLE(:trade_ids, ...)</code> on
+ * MariaDB</li>
+ * <li>CSV: a comma separated list, e.g.
+ * <code>STRING_SPLIT(:trade_ids, ',')</code> on SQL Server</li>
+ * </ul>
+ * The <code>bench-binders</code> command measures which one is the fastest
+ * on a given database.
+ */
+public final class SetParameterBinders
+{
+	public static final SetParameterBinder ARRAY_BIGINT = new ArraySetBinder("bigint", Long[]::new);
+
+	public static final SetParameterBinder ARRAY_VARCHAR = new ArraySetBinder("varchar", String[]::new);
+
+	public static final SetParameterBinder TVP_BIGINT = new TvpSetBinder("dbo.bigint_list_type", Types.BIGINT);
+
+	public static final SetParameterBinder TVP_VARCHAR = new TvpSetBinder("dbo.string_list_type", Types.VARCHAR);
+
+	public static final SetParameterBinder JSON = new JsonSetBinder();
+
+	public static final SetParameterBinder CSV = new CsvSetBinder();
+
+	private SetParameterBinders()
+	{
+	}
+}
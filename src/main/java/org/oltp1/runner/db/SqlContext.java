@@ -1,10 +1,14 @@
 package org.oltp1.runner.db;
 
+import java.sql.SQLException;
+
+import org.oltp1.runner.perf.TxStatsCollector;
 import org.sql2o.Sql2o;
 import org.sql2o.quirks.QuirksDetector;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 
 public class SqlContext
 {
@@ -20,21 +24,40 @@ public class SqlContext
 		c.setJdbcUrl(jdbcUrl);
 		c.setMaximumPoolSize(connections);
 		c.setConnectionTestQuery(engine.getBaselineQuery());
+		// the isolation level sql2o sets when beginning a transaction
+		c.setTransactionIsolation("TRANSACTION_READ_COMMITTED");
 
 		HikariDataSource ds = new HikariDataSource(c);
 
-		return new SqlContext(new Sql2o(ds, QuirksDetector.forURL(jdbcUrl)), engine);
+		TxStatsCollector connWaitStats = new TxStatsCollector("Connection-Wait");
+		InstrumentedDataSource ids = new InstrumentedDataSource(ds, connections, connWaitStats);
+
+		return new SqlContext(new Sql2o(ids, QuirksDetector.forURL(jdbcUrl)), engine, connWaitStats, ds.getHikariPoolMXBean(), ids, jdbcUrl, jdbcDriver);
 	}
 
 	private final Sql2o sql2o;
 	private final SqlEngine sqlEngine;
 	private final int isolationLevel;
+	private final TxStatsCollector connWaitStats;
+	private final HikariPoolMXBean poolMXBean;
+	private final InstrumentedDataSource dataSource;
+	private final String jdbcUrl;
+	private final String jdbcDriver;
+	private volatile PinnedConnections pinnedConnections;
+	private volatile boolean isBatchingWrites = false;
+	private volatile ExecutionMode executionMode = ExecutionMode.STATEMENTS;
+	private volatile RetryPolicy retryPolicy;
 
-	private SqlContext(Sql2o sql2o, SqlEngine sqlEngine)
+	private SqlContext(Sql2o sql2o, SqlEngine sqlEngine, TxStatsCollector connWaitStats, HikariPoolMXBean poolMXBean, InstrumentedDataSource dataSource, String jdbcUrl, String jdbcDriver)
 	{
 		super();
+		this.jdbcUrl = jdbcUrl;
+		this.jdbcDriver = jdbcDriver;
+		this.poolMXBean = poolMXBean;
+		this.dataSource = dataSource;
 		this.sql2o = sql2o;
 		this.sqlEngine = sqlEngine;
+		this.connWaitStats = connWaitStats;
 
 		if (sqlEngine == SqlEngine.MSSQL)
 		{
@@ -51,6 +74,134 @@ public class SqlContext
 		return sql2o;
 	}
 
+	/**
+	 * Begins a transaction on a pooled connection, or on the connection pinned
+	 * to the calling thread, executed through the cached prepared statements of
+	 * that connection.
+	 */
+	public DbSession beginTransaction()
+	{
+		final PinnedConnections pins = pinnedConnections;
+
+		try
+		{
+			if (pins != null)
+			{
+				return new DbSession(pins.get(), pins, isBatchingWrites);
+			}
+
+			return new DbSession(dataSource.getConnection(), null, isBatchingWrites);
+		}
+		catch (SQLException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Runs the transactions of each thread on a connection of its own, opened
+	 * with its first transaction and kept until the thread ends (or calls
+	 * {@link #releasePinnedConnection()}), instead of checking a connection out
+	 * of the pool for every transaction. The pool still serves the other
+	 * queries, e.g. the reference data loaded at start-up.
+	 */
+	public void pinConnections()
+	{
+		if (pinnedConnections == null)
+		{
+			pinnedConnections = new PinnedConnections(jdbcUrl, jdbcDriver);
+		}
+	}
+
+	/**
+	 * Sends the statements that the transactions defer (see
+	 * {@link DbSession#defer(String)}) to the server together, as one
+	 * multi-statement execution per flush. Only the PostgreSQL driver, which
+	 * the OrioleDB engine also uses, runs a multi-statement prepared statement
+	 * in one round trip. The queries whose results the transactions read still
+	 * run one blocking round trip at a time.
+	 */
+	public void enableWriteBatching()
+	{
+		if (sqlEngine != SqlEngine.POSTGRESQL && sqlEngine != SqlEngine.ORIOLEDB)
+		{
+			throw new IllegalStateException(String.format("Write batching is not supported on %s", sqlEngine));
+		}
+		isBatchingWrites = true;
+	}
+
+	public boolean isBatchingWrites()
+	{
+		return isBatchingWrites;
+	}
+
+	/**
+	 * Sets how the transactions created from now on run their frames.
+	 */
+	public void setExecutionMode(ExecutionMode executionMode)
+	{
+		this.executionMode = executionMode;
+	}
+
+	public ExecutionMode getExecutionMode()
+	{
+		return executionMode;
+	}
+
+	/**
+	 * Retries the serialization failures and deadlocks of the transactions
+	 * created from now on, with at most the given number of retries each.
+	 */
+	public void enableRetries(int maxRetries, long baseBackoffMillis)
+	{
+		retryPolicy = new RetryPolicy(sqlEngine, maxRetries, baseBackoffMillis);
+	}
+
+	/**
+	 * @return the retry policy of the transactions, or null when failed
+	 *         transactions are not retried
+	 */
+	public RetryPolicy getRetryPolicy()
+	{
+		return retryPolicy;
+	}
+
+	/**
+	 * Closes the connection pinned to the calling thread, if any.
+	 */
+	public void releasePinnedConnection()
+	{
+		final PinnedConnections pins = pinnedConnections;
+
+		if (pins != null)
+		{
+			pins.release();
+		}
+	}
+
+	/**
+	 * Closes the connections pinned to every thread.
+	 */
+	public void closePinnedConnections()
+	{
+		final PinnedConnections pins = pinnedConnections;
+
+		if (pins != null)
+		{
+			pins.closeAll();
+		}
+	}
+
+	/**
+	 * @return the number of open pinned connections, 0 unless the connections
+	 *         are pinned
+	 */
+	public int getPinnedConnections()
+	{
+		final PinnedConnections pins = pinnedConnections;
+		return (pins != null) ? pins.size() : 0;
+	}
+
 	public SqlEngine getSqlEngine()
 	{
 		return sqlEngine;
@@ -60,4 +211,30 @@ public class SqlContext
 	{
 		return this.isolationLevel;
 	}
+
+	/**
+	 * @return the time (in milliseconds) callers waited to obtain a connection
+	 *         from the pool
+	 */
+	public TxStatsCollector getConnectionWaitStats()
+	{
+		return connWaitStats;
+	}
+
+	/**
+	 * @return the active/idle/waiting gauges of the connection pool
+	 */
+	public HikariPoolMXBean getPoolMXBean()
+	{
+		return poolMXBean;
+	}
+
+	/**
+	 * @return the number of clients queued for a connection permit, before
+	 *         reaching the pool itself
+	 */
+	public int getQueuedClients()
+	{
+		return dataSource.getQueuedClients();
+	}
 }
\ No newline at end of file
@@ -0,0 +1,227 @@
+package org.oltp1.runner.db;
+
+import org.oltp1.runner.perf.TxStatsCollector;
+
+/**
+ * Attributes the elapsed time and the SQL statements (round trips) of a
+ * transaction to its frames and to the <code>*Queries</code> methods that
+ * supplied the SQL. It also splits the execution time of each transaction
+ * into connection pool wait, input generation, database time (statement
+ * execution, commit and rollback) and the remaining client time.
+ * <p>
+ * The state is kept per thread: {@link #begin(TxStatsCollector)} and
+ * {@link #end()} bracket a transaction execution, {@link #startFrame(String)}
+ * marks the start of a frame (and the end of the previous one) and the SQL
+ * text getters of the query interfaces set the label that the following
+ * statements are attributed to. Transactions can nest; a nested transaction
+ * is accounted for on its own.
+ * <p>
+ * Disabled by default; it must be enabled before the {@link SqlContext} and
+ * the transactions are created.
+ */
+public final class SqlProbe
+{
+	private static volatile boolean isEnabled = false;
+
+	private static final ThreadLocal<ProbeState> current = new ThreadLocal<>();
+
+	private SqlProbe()
+	{
+	}
+
+	public static void enable()
+	{
+		isEnabled = true;
+	}
+
+	public static boolean isEnabled()
+	{
+		return isEnabled;
+	}
+
+	public static void begin(TxStatsCollector stats)
+	{
+		if (!isEnabled)
+		{
+			return;
+		}
+
+		current.set(new ProbeState(stats, current.get()));
+	}
+
+	public static void end()
+	{
+		if (!isEnabled)
+		{
+			return;
+		}
+
+		final ProbeState state = current.get();
+		if (state == null)
+		{
+			return;
+		}
+
+		final long now = System.nanoTime();
+		state.closeFrame(now);
+
+		final long total = now - state.start;
+		final long client = total - state.poolWaitNanos - state.inputNanos - state.dbNanos - state.nestedNanos;
+		state.stats.addBreakdown(state.poolWaitNanos, state.inputNanos, state.dbNanos, Math.max(0L, client));
+
+		if (state.previous == null)
+		{
+			current.remove();
+		}
+		else
+		{
+			// the nested transaction is accounted for on its own
+			state.previous.nestedNanos += total;
+			current.set(state.previous);
+		}
+	}
+
+	public static void startFrame(String frame)
+	{
+		if (!isEnabled)
+		{
+			return;
+		}
+
+		final ProbeState state = current.get();
+		if (state == null)
+		{
+			return;
+		}
+
+		final long now = System.nanoTime();
+		state.closeFrame(now);
+		state.frame = frame;
+		state.frameStart = now;
+		state.frameStatements = 0;
+	}
+
+	/**
+	 * Sets the label (the name of the query method) of the statements that
+	 * follow.
+	 */
+	public static void query(String label)
+	{
+		final ProbeState state = current.get();
+		if (state != null)
+		{
+			state.query = label;
+		}
+	}
+
+	/**
+	 * @return the label set by {@link #query(String)}, or null when the
+	 *         calling thread is not probed
+	 */
+	static String currentQuery()
+	{
+		final ProbeState state = current.get();
+		return (state != null) ? state.query : null;
+	}
+
+	/**
+	 * Records the execution of one statement.
+	 */
+	static void statement(long elapsedNanos)
+	{
+		final ProbeState state = current.get();
+		if (state == null)
+		{
+			return;
+		}
+
+		state.frameStatements++;
+		state.dbNanos += elapsedNanos;
+		state.stats.addQueryTime(state.query, elapsedNanos);
+	}
+
+	/**
+	 * Records a round trip that is not a statement, e.g. a commit.
+	 */
+	static void roundTrip(String label, long elapsedNanos)
+	{
+		final ProbeState state = current.get();
+		if (state == null)
+		{
+			return;
+		}
+
+		state.frameStatements++;
+		state.dbNanos += elapsedNanos;
+		state.stats.addQueryTime(label, elapsedNanos);
+	}
+
+	static void poolWait(long elapsedNanos)
+	{
+		if (!isEnabled)
+		{
+			return;
+		}
+
+		final ProbeState state = current.get();
+		if (state != null)
+		{
+			state.poolWaitNanos += elapsedNanos;
+		}
+	}
+
+	/**
+	 * @return the start time of an input generation, to be passed to
+	 *         {@link #inputGenerated(long)}
+	 */
+	public static long inputStart()
+	{
+		return isEnabled ? System.nanoTime() : 0L;
+	}
+
+	public static void inputGenerated(long start)
+	{
+		if (!isEnabled)
+		{
+			return;
+		}
+
+		final ProbeState state = current.get();
+		if (state != null)
+		{
+			state.inputNanos += System.nanoTime() - start;
+		}
+	}
+
+	private static final class ProbeState
+	{
+		final TxStatsCollector stats;
+		final ProbeState previous;
+
+		String frame;
+		long frameStart;
+		int frameStatements;
+		String query = "(unnamed)";
+
+		final long start = System.nanoTime();
+		long poolWaitNanos;
+		long inputNanos;
+		long dbNanos;
+		long nestedNanos;
+
+		ProbeState(TxStatsCollector stats, ProbeState previous)
+		{
+			this.stats = stats;
+			this.previous = previous;
+		}
+
+		void closeFrame(long now)
+		{
+			if (frame != null)
+			{
+				stats.addFrameTime(frame, now - frameStart, frameStatements);
+				frame = null;
+			}
+		}
+	}
+}
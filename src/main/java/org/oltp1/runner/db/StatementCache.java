@@ -0,0 +1,132 @@
+package org.oltp1.runner.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The prepared statements of one physical database connection, keyed by
+ * their named SQL text.
+ * <p>
+ * The statements are prepared on the driver connection, underneath the pool
+ * proxy, so they are not closed when the connection goes back to the pool
+ * and the next transaction on the same connection reuses them. A connection
+ * is only used by one thread at a time, so the cache itself is not
+ * synchronized. The caches of closed connections (e.g. retired by the pool)
+ * are dropped whenever a new connection shows up.
+ * <p>
+ * The joined statements of the batches (see {@link DbSession}) are kept
+ * apart: their number depends on the data, e.g. on the number of holdings a
+ * Trade-Result touches, so only the most recently used are kept and the
+ * others are closed.
+ */
+final class StatementCache
+{
+	private static final Map<Connection, StatementCache> caches = new ConcurrentHashMap<>();
+
+	// the joined statements kept per connection
+	static final int MAX_BATCHES = 32;
+
+	private final Connection physicalConn;
+	private final Map<String, DbStatement> statements = new HashMap<>();
+	private final Map<String, DbStatement> batches = new LinkedHashMap<>(16, 0.75f, true)
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, DbStatement> eldest)
+		{
+			if (size() > MAX_BATCHES)
+			{
+				eldest.getValue().close();
+				return true;
+			}
+			return false;
+		}
+	};
+
+	private StatementCache(Connection physicalConn)
+	{
+		this.physicalConn = physicalConn;
+	}
+
+	static StatementCache of(Connection physicalConn)
+	{
+		StatementCache cache = caches.get(physicalConn);
+
+		if (cache == null)
+		{
+			purgeClosed();
+			cache = new StatementCache(physicalConn);
+			caches.put(physicalConn, cache);
+		}
+
+		return cache;
+	}
+
+	DbStatement get(String namedSql, boolean returnGeneratedKeys)
+	{
+		DbStatement stmt = statements.get(namedSql);
+
+		if (stmt == null)
+		{
+			stmt = prepare(namedSql, returnGeneratedKeys);
+			statements.put(namedSql, stmt);
+		}
+
+		return stmt;
+	}
+
+	/**
+	 * @return the joined statement of a batch, from the
+	 *         {@link #MAX_BATCHES} most recently used ones
+	 */
+	DbStatement getBatch(String namedSql)
+	{
+		DbStatement stmt = batches.get(namedSql);
+
+		if (stmt == null)
+		{
+			stmt = prepare(namedSql, false);
+			batches.put(namedSql, stmt);
+		}
+
+		return stmt;
+	}
+
+	private DbStatement prepare(String namedSql, boolean returnGeneratedKeys)
+	{
+		final NamedSql sql = NamedSql.of(namedSql);
+
+		try
+		{
+			PreparedStatement ps = returnGeneratedKeys
+					? physicalConn.prepareStatement(sql.getSql(), Statement.RETURN_GENERATED_KEYS)
+					: physicalConn.prepareStatement(sql.getSql());
+			return new DbStatement(sql, ps);
+		}
+		catch (SQLException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static void purgeClosed()
+	{
+		caches.entrySet().removeIf(e -> {
+			try
+			{
+				return e.getKey().isClosed();
+			}
+			catch (SQLException ex)
+			{
+				return true;
+			}
+		});
+	}
+}
@@ -0,0 +1,57 @@
+package org.oltp1.runner.db;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.microsoft.sqlserver.jdbc.SQLServerDataTable;
+import com.microsoft.sqlserver.jdbc.SQLServerException;
+
+/**
+ * Binds the set as a SQL Server table-valued parameter of one of the list
+ * types of the schema, whose single <code>ivalue</code> column is the
+ * primary key: duplicate values are dropped.
+ */
+final class TvpSetBinder implements SetParameterBinder
+{
+	private final String tvpName;
+	private final int sqlType;
+
+	TvpSetBinder(String tvpName, int sqlType)
+	{
+		this.tvpName = tvpName;
+		this.sqlType = sqlType;
+	}
+
+	@Override
+	public String getName()
+	{
+		return "tvp";
+	}
+
+	@Override
+	public void bind(DbSession con, DbStatement stmt, String name, Collection<?> values)
+	{
+		try
+		{
+			final SQLServerDataTable tvp = new SQLServerDataTable();
+			tvp.setTvpName(tvpName);
+			tvp.addColumnMetadata("ivalue", sqlType);
+
+			final Set<Object> seen = new HashSet<>();
+			for (Object value : values)
+			{
+				if (seen.add(value))
+				{
+					tvp.addRow(value);
+				}
+			}
+
+			stmt.bind(name, tvp);
+		}
+		catch (SQLServerException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+}
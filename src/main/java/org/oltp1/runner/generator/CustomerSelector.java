@@ -1,5 +1,6 @@
 package org.oltp1.runner.generator;
 
+import org.oltp1.common.Assert;
 import org.oltp1.runner.db.SqlContext;
 import org.oltp1.runner.model.CustomerTier;
 import org.oltp1.runner.model.RandomCustomer;
@@ -28,10 +29,11 @@ public final class CustomerSelector
 
 	private final long startFromCustomer;
 	private final long customerCount;
-	private final boolean partitionByCID;
-	private final int partitionPercent;
-	private long myStartFromCustomer;
-	private long myCustomerCount;
+	private volatile boolean partitionByCID;
+	private volatile int partitionPercent;
+	private volatile int partitionCount;
+	// the partition of the client running on the thread, if any
+	private final ThreadLocal<Partition> myPartition = new ThreadLocal<>();
 
 	/**
 	 * Constructor for non-partitioned customer selection.
@@ -59,8 +61,75 @@ public final class CustomerSelector
 
 		this.partitionByCID = false;
 		this.partitionPercent = 0;
-		this.myStartFromCustomer = 0;
-		this.myCustomerCount = 0;
+		this.partitionCount = 0;
+	}
+
+	/**
+	 * Constructor for a known customer range.
+	 */
+	CustomerSelector(long startFromCustomer, long customerCount)
+	{
+		this.startFromCustomer = startFromCustomer;
+		this.customerCount = customerCount;
+		this.partitionByCID = false;
+		this.partitionPercent = 0;
+		this.partitionCount = 0;
+	}
+
+	/**
+	 * Splits the load units of the customers into partitions, as the TPC-E
+	 * Customer Emulator does when partitioning by C_ID. A client that is
+	 * assigned a partition (see {@link #assignPartition(int)}) draws its
+	 * customers from it <code>partitionPercent</code> percent of the time, and
+	 * from the whole range otherwise.
+	 *
+	 * @param partitions
+	 *            the number of partitions, at most one per load unit
+	 */
+	public void partitionByCustomer(int partitions, int partitionPercent)
+	{
+		Assert.isInRange("partitions", partitions, 1, Integer.MAX_VALUE);
+		Assert.isInRange("partitionPercent", partitionPercent, 0, 100);
+
+		final long loadUnits = Math.max(1L, customerCount / DEFAULT_LOAD_UNIT_SIZE);
+		this.partitionCount = (int) Math.min(partitions, loadUnits);
+		this.partitionPercent = partitionPercent;
+
+		// a single partition holds every customer
+		this.partitionByCID = partitionCount > 1;
+
+		if (partitionByCID)
+		{
+			log.info("Customers split into {} partitions of about {} load units, {}% of the picks inside the partition", partitionCount, loadUnits / partitionCount, partitionPercent);
+		}
+		else
+		{
+			log.warn("Customer partitioning needs more than one load unit of {} customers, ignored", DEFAULT_LOAD_UNIT_SIZE);
+		}
+	}
+
+	/**
+	 * Assigns a partition to the client running on the calling thread, the
+	 * clients being spread evenly over the partitions.
+	 */
+	public void assignPartition(int client)
+	{
+		if (!partitionByCID)
+		{
+			return;
+		}
+
+		final long loadUnits = Math.max(1L, customerCount / DEFAULT_LOAD_UNIT_SIZE);
+		final int partition = client % partitionCount;
+		final long firstUnit = partition * loadUnits / partitionCount;
+		final long lastUnit = (partition + 1) * loadUnits / partitionCount;
+
+		// the last partition also gets the customers of an incomplete load unit
+		final long count = (partition == partitionCount - 1)
+				? customerCount - firstUnit * DEFAULT_LOAD_UNIT_SIZE
+				: (lastUnit - firstUnit) * DEFAULT_LOAD_UNIT_SIZE;
+
+		myPartition.set(new Partition(startFromCustomer + firstUnit * DEFAULT_LOAD_UNIT_SIZE, count));
 	}
 
 	/**
@@ -96,10 +165,11 @@ public final class CustomerSelector
 
 		// Uniformly select the higher portion of the C_ID (the load unit)
 		long cHigh;
-		if (partitionByCID && random.rndPercent(partitionPercent))
+		final Partition partition = partitionByCID ? myPartition.get() : null;
+		if (partition != null && random.rndPercent(partitionPercent))
 		{
 			// Generate a load unit inside the partition
-			cHigh = (random.rndInt64Range(myStartFromCustomer, myStartFromCustomer + myCustomerCount - 1) - 1) / DEFAULT_LOAD_UNIT_SIZE;
+			cHigh = (random.rndInt64Range(partition.myStartFromCustomer, partition.myStartFromCustomer + partition.myCustomerCount - 1) - 1) / DEFAULT_LOAD_UNIT_SIZE;
 		}
 		else
 		{
@@ -269,4 +339,15 @@ public final class CustomerSelector
 		return randomAccId(c);
 	}
 
-}
\ No newline at end of file
+	private static final class Partition
+	{
+		final long myStartFromCustomer;
+		final long myCustomerCount;
+
+		Partition(long myStartFromCustomer, long myCustomerCount)
+		{
+			this.myStartFromCustomer = myStartFromCustomer;
+			this.myCustomerCount = myCustomerCount;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package org.oltp1.runner.generator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import org.oltp1.common.ErrorCtx;
+import org.oltp1.runner.perf.ProducerStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates the inputs of a transaction type ahead of time on a thread of its
+ * own, keeping up to <code>lead</code> of them ready in a ring. The clients
+ * only dequeue; a client that finds the ring empty generates its own input
+ * and the miss is counted.
+ */
+public final class InputProducer<T> implements Supplier<T>
+{
+	private static final Logger log = LoggerFactory.getLogger(InputProducer.class);
+
+	// how long the producer waits for the clients when the ring is full
+	private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	private final Supplier<T> generator;
+	private final InputRing<T> ring;
+	private final ProducerStats stats;
+	private final Thread thread;
+	private volatile boolean isRunning = true;
+
+	InputProducer(String txName, Supplier<T> generator, int lead)
+	{
+		super();
+		this.generator = generator;
+		this.ring = new InputRing<>(lead);
+		this.stats = new ProducerStats(txName);
+		this.thread = Thread.ofPlatform().daemon().name("input-" + txName).unstarted(this::produce);
+	}
+
+	void start()
+	{
+		thread.start();
+	}
+
+	void stop()
+	{
+		isRunning = false;
+		LockSupport.unpark(thread);
+
+		try
+		{
+			thread.join(TimeUnit.SECONDS.toMillis(5));
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public ProducerStats getStats()
+	{
+		return stats;
+	}
+
+	@Override
+	public T get()
+	{
+		final T txInput = ring.poll();
+
+		if (txInput == null)
+		{
+			stats.incrementMisses();
+			return generator.get();
+		}
+
+		return txInput;
+	}
+
+	private void produce()
+	{
+		while (isRunning)
+		{
+			if (ring.isFull())
+			{
+				LockSupport.parkNanos(FULL_PARK_NANOS);
+				continue;
+			}
+
+			final long start = System.nanoTime();
+
+			try
+			{
+				final T txInput = generator.get();
+				stats.addGenerationTime(System.nanoTime() - start);
+				ring.offer(txInput);
+			}
+			catch (Throwable t)
+			{
+				log.error("Failed to generate the input of {}: {}", stats.getName(), new ErrorCtx(t));
+				LockSupport.parkNanos(FULL_PARK_NANOS);
+			}
+		}
+	}
+}
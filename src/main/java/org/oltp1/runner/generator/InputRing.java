@@ -0,0 +1,85 @@
+package org.oltp1.runner.generator;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.oltp1.common.Assert;
+
+/**
+ * A bounded ring of transaction inputs, filled by a single producer thread
+ * and drained by any number of clients. Neither side takes a lock: the
+ * producer publishes a slot by advancing the tail, and a client claims a
+ * slot by moving the head past it.
+ */
+final class InputRing<T>
+{
+	private final AtomicReferenceArray<T> slots;
+	private final int capacity;
+
+	// the next slot to take, moved by the clients
+	private final AtomicLong head = new AtomicLong();
+	// the next slot to fill, only written by the producer
+	private volatile long tail;
+
+	InputRing(int capacity)
+	{
+		Assert.isInRange("capacity", capacity, 1, Integer.MAX_VALUE);
+
+		this.capacity = capacity;
+		this.slots = new AtomicReferenceArray<>(capacity);
+	}
+
+	/**
+	 * Adds an input, from the producer thread only.
+	 *
+	 * @return false if the ring is full
+	 */
+	boolean offer(T item)
+	{
+		final long t = tail;
+
+		if (t - head.get() >= capacity)
+		{
+			return false;
+		}
+
+		slots.set((int) (t % capacity), item);
+		tail = t + 1;
+		return true;
+	}
+
+	/**
+	 * @return the oldest input, or null if the ring is empty
+	 */
+	T poll()
+	{
+		while (true)
+		{
+			final long h = head.get();
+
+			if (h >= tail)
+			{
+				return null;
+			}
+
+			// the slot is only refilled once the head has moved past it, in
+			// which case the claim below fails and the head is read again
+			final T item = slots.get((int) (h % capacity));
+
+			if (head.compareAndSet(h, h + 1))
+			{
+				return item;
+			}
+		}
+	}
+
+	boolean isFull()
+	{
+		return tail - head.get() >= capacity;
+	}
+
+	int size()
+	{
+		return (int) Math.max(0L, tail - head.get());
+	}
+}
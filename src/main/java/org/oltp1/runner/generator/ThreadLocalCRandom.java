@@ -1,19 +1,56 @@
 package org.oltp1.runner.generator;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.oltp1.common.Assert;
+
 /**
  * A thread-safe wrapper for the CRandom class using ThreadLocal. Each thread
- * gets its own instance of CRandom, initialized with a unique seed.
+ * gets its own instance of CRandom, positioned on a stream of its own.
+ * <p>
+ * The streams are disjoint stretches of the one CRandom sequence that starts
+ * at the run seed, reached with {@link CRandom#rndNthElement(long, long)}:
+ * stream <i>n</i> starts <i>n</i> &times; {@link #STREAM_LENGTH} draws after
+ * the seed. Client <i>k</i> draws from stream <i>k</i> whichever thread runs
+ * it, and carries on from run to run, so its sequence only depends on the
+ * seed. The MEE streams come right after those of the clients: the MEE
+ * assigns them to its tasks with {@link #assignMeeWorker(int)}, the same way
+ * whichever thread runs the task. The other threads (input producers, the
+ * scheduler of the periodic transactions) draw from the streams after those
+ * of the MEE, handed out in the order the threads first draw, so they never
+ * shift the sequences of the clients or of the MEE.
  */
 public final class ThreadLocalCRandom
 {
-	// A base seed to start the sequence for all threads.
-	// This is the default Txn Input Generator seed from RNGSeeds.h
-	private static final long BASE_SEED = 80534927L;
+	// The default Txn Input Generator seed from RNGSeeds.h
+	public static final long DEFAULT_SEED = 80534927L;
+
+	// the number of draws of each stream
+	static final long STREAM_LENGTH = 1L << 40;
+
+	// the streams that fit in the sequence before the skip-ahead overflows
+	private static final long STREAM_COUNT = Long.MAX_VALUE / STREAM_LENGTH;
+
+	static final int MAX_CLIENTS = 1 << 20;
+
+	static final int MAX_MEE_WORKERS = 1 << 20;
+
+	// the first stream of the threads that are neither clients nor MEE tasks
+	private static final long FIRST_WORKER_STREAM = MAX_CLIENTS + MAX_MEE_WORKERS;
+
+	private static volatile long baseSeed = DEFAULT_SEED;
+
+	// the streams of the clients, which outlive the threads that run them
+	private static final Map<Integer, CRandom> clientStreams = new ConcurrentHashMap<>();
 
-	// An AtomicLong to safely dispense a unique seed to each new thread.
-	private static final AtomicLong seedDispenser = new AtomicLong(BASE_SEED);
+	// the streams of the MEE, which outlive the tasks that draw from them
+	private static final Map<Integer, CRandom> meeStreams = new ConcurrentHashMap<>();
+
+	// An AtomicLong to safely dispense a stream to each thread that is not a
+	// client.
+	private static final AtomicLong workerDispenser = new AtomicLong();
 
 	// The ThreadLocal that holds a CRandom instance for each thread.
 	private static final ThreadLocal<CRandom> threadLocalRandom = new ThreadLocal<>()
@@ -21,13 +58,46 @@ public final class ThreadLocalCRandom
 		@Override
 		protected CRandom initialValue()
 		{
-			// Get a unique seed for this thread and create a new CRandom instance.
-			// getAndIncrement() is an atomic operation, ensuring no two threads get the
-			// same seed.
-			return new CRandom(seedDispenser.getAndIncrement());
+			final long worker = workerDispenser.getAndIncrement() % (STREAM_COUNT - FIRST_WORKER_STREAM);
+			return newStream(FIRST_WORKER_STREAM + worker);
 		}
 	};
 
+	/**
+	 * Sets the seed of all the streams. Must be called before any thread
+	 * draws a number.
+	 */
+	public static void setSeed(long seed)
+	{
+		baseSeed = seed;
+		clientStreams.clear();
+		meeStreams.clear();
+		workerDispenser.set(0);
+	}
+
+	/**
+	 * Switches the calling thread to the stream of the client, where the
+	 * client left it in the previous run.
+	 */
+	public static void assignClient(int client)
+	{
+		Assert.isInRange("client", client, 0, MAX_CLIENTS - 1);
+
+		threadLocalRandom.set(clientStreams.computeIfAbsent(client, c -> newStream(c)));
+	}
+
+	/**
+	 * Switches the calling thread to MEE stream <code>worker</code>, where it
+	 * was left by the previous task that drew from it. A stream must only be
+	 * assigned to one running task at a time.
+	 */
+	public static void assignMeeWorker(int worker)
+	{
+		Assert.isInRange("worker", worker, 0, MAX_MEE_WORKERS - 1);
+
+		threadLocalRandom.set(meeStreams.computeIfAbsent(worker, w -> newStream(MAX_CLIENTS + w)));
+	}
+
 	/**
 	 * Returns the CRandom instance for the current thread.
 	 *
@@ -37,4 +107,12 @@ public final class ThreadLocalCRandom
 	{
 		return threadLocalRandom.get();
 	}
-}
\ No newline at end of file
+
+	static CRandom newStream(long stream)
+	{
+		final long seed = baseSeed;
+		final CRandom random = new CRandom(seed);
+		random.setSeed(random.rndNthElement(seed, stream * STREAM_LENGTH));
+		return random;
+	}
+}
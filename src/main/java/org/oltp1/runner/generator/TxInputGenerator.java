@@ -1,6 +1,13 @@
 package org.oltp1.runner.generator;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
 import org.oltp1.runner.db.SqlContext;
+import org.oltp1.runner.db.SqlProbe;
+import org.oltp1.runner.perf.ProducerStats;
 import org.oltp1.runner.tx.broker_volume.TxBrokerVolumeInput;
 import org.oltp1.runner.tx.customer_position.TxCustomerPositionInput;
 import org.oltp1.runner.tx.data_maintenance.TxDataMaintenanceInput;
@@ -38,6 +45,18 @@ public class TxInputGenerator
 	private final TradeCleanupInputGenerator tradeCleanupInputGenerator;
 	private final DataMaintenanceInputGenerator dataMaintenanceInputGenerator;
 
+	// the sources of the inputs the clients ask for: the generators, or the
+	// producers that run them ahead of time
+	private Supplier<TxBrokerVolumeInput> brokerVolumeInputs;
+	private Supplier<TxCustomerPositionInput> customerPositionInputs;
+	private Supplier<TxMarketWatchInput> marketWatchInputs;
+	private Supplier<TxSecurityDetailInput> securityDetailInputs;
+	private Supplier<TxTradeLookupInput> tradeLookupInputs;
+	private Supplier<TxTradeStatusInput> tradeStatusInputs;
+	private Supplier<TxTradeOrderInput> tradeOrderInputs;
+	private Supplier<TxTradeUpdateInput> tradeUpdateInputs;
+	private final List<InputProducer<?>> producers = new ArrayList<>();
+
 	public TxInputGenerator(SqlContext sqlCtx)
 	{
 		super();
@@ -62,57 +81,142 @@ public class TxInputGenerator
 		tradeCleanupInputGenerator = new TradeCleanupInputGenerator(environementSelector);
 
 		dataMaintenanceInputGenerator = new DataMaintenanceInputGenerator(customerSelector, companySelector);
+
+		brokerVolumeInputs = brokerVolumeInputGenerator::generateBrokerVolumeInput;
+		customerPositionInputs = customerPositionInputGenerator::generateCustomerPositionInput;
+		marketWatchInputs = marketWatchInputGenerator::generateMarketWatchInput;
+		securityDetailInputs = securityDetailInputGenerator::generateSecurityDetailInput;
+		tradeLookupInputs = tradeLookupInputGenerator::generateTradeLookupInput;
+		tradeStatusInputs = tradeStatusInputGenerator::generateTradeStatusInput;
+		tradeOrderInputs = tradeOrderInputGenerator::generateTradeOrderInput;
+		tradeUpdateInputs = tradeUpdateInputGenerator::generateTradeUpdateInput;
+	}
+
+	/**
+	 * Gives each client a partition of the customers, drawn from
+	 * <code>partitionPercent</code> percent of the time.
+	 *
+	 * @see CustomerSelector#partitionByCustomer(int, int)
+	 */
+	public void partitionCustomers(int partitions, int partitionPercent)
+	{
+		customerSelector.partitionByCustomer(partitions, partitionPercent);
+	}
+
+	/**
+	 * Switches the calling thread to the random stream of the client it runs,
+	 * and assigns it the customer partition of the client when the customers
+	 * are partitioned.
+	 *
+	 * @see ThreadLocalCRandom#assignClient(int)
+	 */
+	public void assignClient(int client)
+	{
+		ThreadLocalCRandom.assignClient(client);
+		customerSelector.assignPartition(client);
+	}
+
+	/**
+	 * Starts one producer per transaction type, each generating the inputs of
+	 * its type on a thread of its own and keeping up to <code>lead</code> of
+	 * them ready for the clients. Data-Maintenance and Trade-Cleanup, which
+	 * run once a minute or once per run, keep generating their own inputs.
+	 * Must be called before the clients start.
+	 *
+	 * @return the statistics of the producers
+	 */
+	public List<ProducerStats> pregenerate(int lead)
+	{
+		brokerVolumeInputs = produce("Broker-Volume", brokerVolumeInputs, lead);
+		customerPositionInputs = produce("Customer-Position", customerPositionInputs, lead);
+		marketWatchInputs = produce("Market-Watch", marketWatchInputs, lead);
+		securityDetailInputs = produce("Security-Detail", securityDetailInputs, lead);
+		tradeLookupInputs = produce("Trade-Lookup", tradeLookupInputs, lead);
+		tradeStatusInputs = produce("Trade-Status", tradeStatusInputs, lead);
+		tradeOrderInputs = produce("Trade-Order", tradeOrderInputs, lead);
+		tradeUpdateInputs = produce("Trade-Update", tradeUpdateInputs, lead);
+
+		producers.forEach(InputProducer::start);
+
+		return producers.stream().map(InputProducer::getStats).collect(Collectors.toList());
+	}
+
+	/**
+	 * Stops the producers, if any.
+	 */
+	public void close()
+	{
+		producers.forEach(InputProducer::stop);
+	}
+
+	private <T> Supplier<T> produce(String txName, Supplier<T> generator, int lead)
+	{
+		final InputProducer<T> producer = new InputProducer<>(txName, generator, lead);
+		producers.add(producer);
+		return producer;
 	}
 
 	public TxBrokerVolumeInput generateBrokerVolumeInput()
 	{
-		return brokerVolumeInputGenerator.generateBrokerVolumeInput();
+		return timed(brokerVolumeInputs);
 	}
 
 	public TxCustomerPositionInput generateCustomerPositionInput()
 	{
-		return customerPositionInputGenerator.generateCustomerPositionInput();
+		return timed(customerPositionInputs);
 	}
 
 	public TxMarketWatchInput generateMarketWatchInput()
 	{
-		return marketWatchInputGenerator.generateMarketWatchInput();
+		return timed(marketWatchInputs);
 	}
 
 	public TxSecurityDetailInput generateSecurityDetailInput()
 	{
-		return securityDetailInputGenerator.generateSecurityDetailInput();
+		return timed(securityDetailInputs);
 	}
 
 	public TxTradeLookupInput generateTradeLookupInput()
 	{
-
-		return tradeLookupInputGenerator.generateTradeLookupInput();
+		return timed(tradeLookupInputs);
 	}
 
 	public TxTradeStatusInput generateTradeStatusInput()
 	{
-		return tradeStatusInputGenerator.generateTradeStatusInput();
+		return timed(tradeStatusInputs);
 	}
 
 	public TxTradeOrderInput generateTradeOrderInput()
 	{
-		return tradeOrderInputGenerator.generateTradeOrderInput();
+		return timed(tradeOrderInputs);
 	}
 
 	public TxTradeUpdateInput generateTradeUpdateInput()
 	{
-		return tradeUpdateInputGenerator.generateTradeUpdateInput();
+		return timed(tradeUpdateInputs);
 	}
 
 	public TxDataMaintenanceInput generateDataMaintenanceInput()
 	{
-		return dataMaintenanceInputGenerator.generateDataMaintenanceInput();
+		return timed(dataMaintenanceInputGenerator::generateDataMaintenanceInput);
 	}
 
 	public TxTradeCleanupInput generateTradeCleanupInput()
 	{
-		return tradeCleanupInputGenerator.generateTradeCleanupInput();
+		return timed(tradeCleanupInputGenerator::generateTradeCleanupInput);
 	}
 
+	// the generation time is reported apart from the database and client time
+	private static <T> T timed(Supplier<T> generator)
+	{
+		final long start = SqlProbe.inputStart();
+		try
+		{
+			return generator.get();
+		}
+		finally
+		{
+			SqlProbe.inputGenerated(start);
+		}
+	}
 }
\ No newline at end of file
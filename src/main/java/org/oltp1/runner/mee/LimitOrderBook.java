@@ -0,0 +1,38 @@
+package org.oltp1.runner.mee;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The pending limit orders, indexed by trade id.
+ * <p>
+ * The book does not decide when an order triggers: that is done by the
+ * Market-Feed transaction on the <code>trade_request</code> table, and an
+ * order leaves the book when a committed Market-Feed reports it as
+ * triggered. The book only keeps the time each order was submitted, for the
+ * settlement time, and the number of orders still waiting.
+ */
+public class LimitOrderBook
+{
+	private final Map<Long, MeeOrder> orders = new ConcurrentHashMap<>();
+
+	public void add(MeeOrder order)
+	{
+		orders.put(order.tradeId, order);
+	}
+
+	/**
+	 * Removes the order of the trade.
+	 *
+	 * @return the order, or null if the trade is not in the book
+	 */
+	public MeeOrder remove(long tradeId)
+	{
+		return orders.remove(tradeId);
+	}
+
+	public int getPendingOrders()
+	{
+		return orders.size();
+	}
+}
@@ -0,0 +1,366 @@
+package org.oltp1.runner.mee;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.oltp1.common.Assert;
+import org.oltp1.runner.generator.ThreadLocalCRandom;
+import org.oltp1.runner.model.Ticker;
+import org.oltp1.runner.model.TradeStatus;
+import org.oltp1.runner.model.TradeType;
+import org.oltp1.runner.perf.TxOutput;
+import org.oltp1.runner.perf.TxStatsCollector;
+import org.oltp1.runner.tx.market_feed.TradeRequestRow;
+import org.oltp1.runner.tx.market_feed.TxMarketFeed;
+import org.oltp1.runner.tx.market_feed.TxMarketFeedInput;
+import org.oltp1.runner.tx.market_feed.TxMarketFeedOutput;
+import org.oltp1.runner.tx.trade_result.TxTradeResult;
+import org.oltp1.runner.tx.trade_result.TxTradeResultInput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Market Exchange Emulator: receives the trade requests of the Trade-Order
+ * transactions and drives the Trade-Result and Market-Feed transactions.
+ * <p>
+ * Market orders are executed right away at the last trade price their
+ * Trade-Order read. Limit orders are triggered by the Market-Feed transaction,
+ * from the <code>trade_request</code> table: once a Market-Feed has
+ * committed, the requests it triggered are executed at the price of the
+ * ticker that triggered them. The {@link LimitOrderBook} only tracks the
+ * limit orders still waiting. Every trade request is reported on the ticker
+ * tape, at the current price of the {@link MeePriceBoard}; the tickers are
+ * sent to Market-Feed in batches by a {@link TickerBatcher}.
+ * <p>
+ * At most <code>capacity</code> tasks are queued or running. When the MEE is
+ * full, the submitting Trade-Order blocks until a task completes, so a
+ * database that cannot keep up slows the order flow down instead of having
+ * its backlog hidden in the client threads. The time tasks spend between
+ * submission and execution is recorded as the MEE lag, and the time from the
+ * Trade-Order commit to the end of its Trade-Result as the order settlement
+ * time (market and limit orders separately, since limit orders also wait for
+ * their trigger price).
+ * <p>
+ * With a fixed pool, the number of MEE threads follows the backlog, see
+ * {@link MeePoolSizer}.
+ * <p>
+ * Each running task draws its random numbers from an MEE stream of its own
+ * (see {@link ThreadLocalCRandom#assignMeeWorker(int)}), the most recently
+ * released one, so that the MEE never takes the streams of the clients.
+ */
+public class Mee implements Closeable
+{
+	private static Logger log = LoggerFactory.getLogger(Mee.class);
+
+	private final TxTradeResult txTradeResult;
+	private final TxMarketFeed txMarketFeed;
+	private final ExecutorService executor;
+	private final TxStatsCollector lagStats;
+	private final TxStatsCollector settlementStats;
+	private final TxStatsCollector limitSettlementStats;
+	private final ScheduledExecutorService timer;
+
+	private final Semaphore capacity;
+	private final AtomicInteger queueDepth = new AtomicInteger();
+
+	private final MeePriceBoard priceBoard = new MeePriceBoard();
+	private final LimitOrderBook orderBook = new LimitOrderBook();
+
+	private final TickerBatcher tickerTape;
+
+	// the MEE random streams not used by a running task
+	private final ConcurrentLinkedDeque<Integer> freeStreams = new ConcurrentLinkedDeque<>();
+	private final AtomicInteger streamCount = new AtomicInteger();
+
+	/**
+	 * @param capacity
+	 *            the maximum number of tasks queued or running; with adaptive
+	 *            sizing, size it for the largest pool
+	 * @param feedBatchSize
+	 *            the number of tickers sent to each Market-Feed, at most
+	 *            {@link TxMarketFeedInput#MAX_FEED_LEN}
+	 * @param feedLingerMillis
+	 *            how long tickers may wait for a batch to fill up before they
+	 *            are sent anyway; no limit when 0
+	 */
+	public Mee(TxTradeResult txTradeResult, TxMarketFeed txMarketFeed, ExecutorService executor, int capacity, int feedBatchSize, long feedLingerMillis)
+	{
+		super();
+
+		Assert.isInRange("capacity", capacity, 1, Integer.MAX_VALUE);
+		Assert.isInRange("feedBatchSize", feedBatchSize, 1, TxMarketFeedInput.MAX_FEED_LEN);
+		Assert.isInRange("feedLingerMillis", feedLingerMillis, 0, Integer.MAX_VALUE);
+
+		this.txTradeResult = txTradeResult;
+		this.txMarketFeed = txMarketFeed;
+		this.executor = executor;
+		this.capacity = new Semaphore(capacity, true);
+		this.lagStats = new TxStatsCollector("MEE-Lag");
+		this.settlementStats = new TxStatsCollector("Order-Settlement");
+		this.limitSettlementStats = new TxStatsCollector("Limit-Order-Settlement");
+		this.tickerTape = new TickerBatcher(feedBatchSize, batch -> dispatch(() -> executeMarketFeed(batch)));
+
+		// two threads: a flush blocked on a full MEE must not hold up the pool
+		// sizing
+		this.timer = Executors.newScheduledThreadPool(2, r -> {
+			Thread t = new Thread(r, "mee-timer");
+			t.setDaemon(true);
+			return t;
+		});
+
+		if (feedLingerMillis > 0)
+		{
+			timer.scheduleAtFixedRate(tickerTape::flush, feedLingerMillis, feedLingerMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Lets the number of threads of the MEE pool follow the backlog, between
+	 * <code>minThreads</code> and <code>maxThreads</code>. Has no effect on
+	 * executors other than a {@link ThreadPoolExecutor}.
+	 */
+	public void enableAdaptiveSizing(int minThreads, int maxThreads)
+	{
+		if (executor instanceof ThreadPoolExecutor tpe)
+		{
+			final MeePoolSizer sizer = new MeePoolSizer(tpe, queueDepth::get, minThreads, maxThreads);
+			timer.scheduleAtFixedRate(sizer, 1, 1, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Registers the trade request of a Trade-Order about to commit, so that a
+	 * Market-Feed that triggers a limit order right after the commit finds it
+	 * in the book. Market orders are not registered.
+	 */
+	public void registerOrder(MeeOrder order)
+	{
+		if (!order.isMarket())
+		{
+			orderBook.add(order);
+		}
+	}
+
+	/**
+	 * Withdraws a registered trade request whose Trade-Order failed to commit.
+	 */
+	public void cancelOrder(MeeOrder order)
+	{
+		orderBook.remove(order.tradeId);
+	}
+
+	/**
+	 * Submits the trade request of a committed Trade-Order. Blocks while the
+	 * MEE is full.
+	 */
+	public void submitOrder(MeeOrder order)
+	{
+		if (order.isMarket())
+		{
+			dispatch(() -> executeTrade(order, order.price, true));
+		}
+
+		tickerTape.add(new Ticker(order.symbol, priceBoard.getCurrentPrice(order.symbol), order.tradeQty));
+	}
+
+	/**
+	 * @return the MEE lag and the order settlement times
+	 */
+	public List<TxStatsCollector> getStats()
+	{
+		return List.of(lagStats, settlementStats, limitSettlementStats);
+	}
+
+	public TxStatsCollector getLagStats()
+	{
+		return lagStats;
+	}
+
+	/**
+	 * @return the current number of MEE threads, or 0 for an executor without
+	 *         a fixed pool
+	 */
+	public int getThreads()
+	{
+		return (executor instanceof ThreadPoolExecutor tpe) ? tpe.getMaximumPoolSize() : 0;
+	}
+
+	/**
+	 * @return the number of tasks submitted but not yet started
+	 */
+	public int getQueueDepth()
+	{
+		return queueDepth.get();
+	}
+
+	/**
+	 * @return the number of limit orders waiting for their trigger price
+	 */
+	public int getPendingOrders()
+	{
+		return orderBook.getPendingOrders();
+	}
+
+	public ExecutorService getExecutor()
+	{
+		return executor;
+	}
+
+	private void executeMarketFeed(List<Ticker> batch)
+	{
+		TxMarketFeedInput txMktFeedIn = new TxMarketFeedInput(
+				TradeStatus.SUBMITTED,
+				TradeType.LIMIT_BUY,
+				TradeType.LIMIT_SELL,
+				TradeType.STOP_LOSS,
+				batch,
+				batch.size());
+
+		final TxOutput txOutput = txMarketFeed.offer(txMktFeedIn);
+
+		// only the requests of a committed Market-Feed are executed
+		if (!(txOutput instanceof TxMarketFeedOutput mktFeedOut) || mktFeedOut.trade_requests == null)
+		{
+			return;
+		}
+
+		for (TradeRequestRow request : mktFeedOut.trade_requests)
+		{
+			// requests placed before the run, or by another driver, are not
+			// in the book and have no settlement time
+			final MeeOrder registered = orderBook.remove(request.tr_t_id);
+			final MeeOrder order = registered != null
+					? registered
+					: new MeeOrder(request.tr_t_id, request.tr_s_symb, request.tr_qty, TradeType.fromId(request.tr_tt_id), request.tr_bid_price);
+			final double price = getTriggerPrice(order, batch);
+
+			// never block an MEE thread on its own queue: when the MEE is
+			// full, the triggered order is executed by this thread
+			if (!tryDispatch(() -> executeTrade(order, price, registered != null)))
+			{
+				executeTrade(order, price, registered != null);
+			}
+		}
+	}
+
+	/**
+	 * @return the price of the first ticker of the batch that triggers the
+	 *         order
+	 */
+	private static double getTriggerPrice(MeeOrder order, List<Ticker> batch)
+	{
+		for (Ticker ticker : batch)
+		{
+			if (ticker.getSymbol().equals(order.symbol) && order.isTriggeredBy(ticker.getTradePrice()))
+			{
+				return ticker.getTradePrice();
+			}
+		}
+
+		// not expected, Market-Feed applies the same rule
+		return order.price;
+	}
+
+	private void executeTrade(MeeOrder order, double price, boolean timed)
+	{
+		txTradeResult.offer(new TxTradeResultInput(order.tradeId, order.symbol, order.tradeQty, order.tradeType.id, price));
+
+		if (timed)
+		{
+			final double settlementMillis = (System.nanoTime() - order.submittedNanos) / 1000000.0;
+			(order.isMarket() ? settlementStats : limitSettlementStats).addValue(settlementMillis);
+		}
+	}
+
+	private void dispatch(Runnable task)
+	{
+		final long submitted = System.nanoTime();
+		capacity.acquireUninterruptibly();
+		execute(task, submitted);
+	}
+
+	private boolean tryDispatch(Runnable task)
+	{
+		final long submitted = System.nanoTime();
+
+		if (!capacity.tryAcquire())
+		{
+			return false;
+		}
+
+		execute(task, submitted);
+		return true;
+	}
+
+	private void execute(Runnable task, long submitted)
+	{
+		queueDepth.incrementAndGet();
+
+		try
+		{
+			executor.execute(() -> {
+				queueDepth.decrementAndGet();
+				lagStats.addValue((System.nanoTime() - submitted) / 1000000.0);
+
+				final int stream = leaseStream();
+				ThreadLocalCRandom.assignMeeWorker(stream);
+
+				try
+				{
+					task.run();
+				}
+				finally
+				{
+					freeStreams.push(stream);
+					capacity.release();
+				}
+			});
+		}
+		catch (RejectedExecutionException e)
+		{
+			// only after the MEE was shut down at the end of the run
+			queueDepth.decrementAndGet();
+			capacity.release();
+			log.debug("MEE task discarded: {}", e.getMessage());
+		}
+	}
+
+	private int leaseStream()
+	{
+		final Integer stream = freeStreams.poll();
+		return stream != null ? stream : streamCount.getAndIncrement();
+	}
+
+	/**
+	 * Stops the timers and the MEE threads, waiting a few seconds for the
+	 * tasks in flight.
+	 */
+	@Override
+	public void close()
+	{
+		timer.shutdownNow();
+
+		executor.shutdown();
+		try
+		{
+			if (!executor.awaitTermination(5, TimeUnit.SECONDS))
+			{
+				executor.shutdownNow();
+			}
+		}
+		catch (InterruptedException e)
+		{
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package org.oltp1.runner.mee;
+
+import org.oltp1.runner.model.TradeType;
+
+/**
+ * A trade request submitted to the MEE by a Trade-Order transaction.
+ */
+public class MeeOrder
+{
+	public final long tradeId;
+	public final String symbol;
+	public final long tradeQty;
+	public final TradeType tradeType;
+	// the limit (or stop) price, or for a market order the last trade price it
+	// was placed at
+	public final double price;
+	public final long submittedNanos;
+
+	public MeeOrder(long tradeId, String symbol, long tradeQty, TradeType tradeType, double price)
+	{
+		super();
+		this.tradeId = tradeId;
+		this.symbol = symbol;
+		this.tradeQty = tradeQty;
+		this.tradeType = tradeType;
+		this.price = price;
+		this.submittedNanos = System.nanoTime();
+	}
+
+	public boolean isMarket()
+	{
+		return tradeType == TradeType.MARKET_BUY || tradeType == TradeType.MARKET_SELL;
+	}
+
+	/**
+	 * @return true if a ticker at the price triggers the order: a limit buy or
+	 *         a stop loss triggers at or below its limit, a limit sell at or
+	 *         above it, as in the Market-Feed transaction
+	 */
+	public boolean isTriggeredBy(double tickerPrice)
+	{
+		return tradeType == TradeType.LIMIT_SELL ? tickerPrice >= price : tickerPrice <= price;
+	}
+}
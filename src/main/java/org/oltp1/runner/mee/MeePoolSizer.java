@@ -0,0 +1,99 @@
+package org.oltp1.runner.mee;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.IntSupplier;
+
+import org.oltp1.common.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resizes the MEE thread pool from the observed backlog, once per tick.
+ * <p>
+ * The pool grows by half when more tasks are waiting than there are threads,
+ * and shrinks by a quarter after a few ticks in which nothing was waiting and
+ * fewer than half of the threads were busy. Growing is fast so that a
+ * backlog does not lower the Trade-Result rate for long; shrinking is slow to
+ * avoid oscillating under a bursty load. The maximum should not exceed the
+ * number of database connections: more threads would only queue for a
+ * connection instead of for a thread.
+ */
+class MeePoolSizer implements Runnable
+{
+	private static Logger log = LoggerFactory.getLogger(MeePoolSizer.class);
+
+	private static final int IDLE_TICKS_BEFORE_SHRINK = 5;
+
+	private final ThreadPoolExecutor pool;
+	private final IntSupplier backlog;
+	private final int minThreads;
+	private final int maxThreads;
+
+	private int idleTicks = 0;
+
+	MeePoolSizer(ThreadPoolExecutor pool, IntSupplier backlog, int minThreads, int maxThreads)
+	{
+		Assert.isInRange("minThreads", minThreads, 1, Integer.MAX_VALUE);
+		Assert.isInRange("maxThreads", maxThreads, minThreads, Integer.MAX_VALUE);
+
+		this.pool = pool;
+		this.backlog = backlog;
+		this.minThreads = minThreads;
+		this.maxThreads = maxThreads;
+	}
+
+	@Override
+	public void run()
+	{
+		try
+		{
+			resize(backlog.getAsInt(), pool.getActiveCount());
+		}
+		catch (Throwable t)
+		{
+			log.error("Failed to resize the MEE pool", t);
+		}
+	}
+
+	void resize(int waiting, int active)
+	{
+		final int threads = pool.getMaximumPoolSize();
+
+		if (waiting > threads && threads < maxThreads)
+		{
+			idleTicks = 0;
+			setThreads(Math.min(maxThreads, threads + Math.max(1, threads / 2)));
+		}
+		else if (waiting == 0 && active < threads / 2 && threads > minThreads)
+		{
+			if (++idleTicks >= IDLE_TICKS_BEFORE_SHRINK)
+			{
+				idleTicks = 0;
+				setThreads(Math.max(minThreads, threads - Math.max(1, threads / 4)));
+			}
+		}
+		else
+		{
+			idleTicks = 0;
+		}
+	}
+
+	private void setThreads(int threads)
+	{
+		final int current = pool.getMaximumPoolSize();
+
+		// the core size may never exceed the maximum size
+		if (threads > current)
+		{
+			pool.setMaximumPoolSize(threads);
+			pool.setCorePoolSize(threads);
+		}
+		else
+		{
+			pool.setCorePoolSize(threads);
+			pool.setMaximumPoolSize(threads);
+		}
+
+		log.debug("MEE pool resized: {} -> {} threads", current, threads);
+	}
+}
@@ -0,0 +1,37 @@
+package org.oltp1.runner.mee;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The current price of each security, as quoted by the MEE.
+ * <p>
+ * As in the TPC-E MEE, prices follow a triangular wave between $20.00 and
+ * $30.00 with a period of 15 minutes; each symbol starts at its own point of
+ * the wave. Moving prices are what eventually trigger the pending limit
+ * orders.
+ */
+public class MeePriceBoard
+{
+	static final double MIN_PRICE = 20.00;
+	static final double MAX_PRICE = 30.00;
+	static final long PERIOD_NANOS = TimeUnit.MINUTES.toNanos(15);
+
+	private final long startNanos = System.nanoTime();
+
+	public double getCurrentPrice(String symbol)
+	{
+		return getPrice(symbol, System.nanoTime() - startNanos);
+	}
+
+	static double getPrice(String symbol, long elapsedNanos)
+	{
+		final long phase = Math.floorMod((long) symbol.hashCode() * 1_000_003L, PERIOD_NANOS);
+		final double position = ((elapsedNanos + phase) % PERIOD_NANOS) / (double) PERIOD_NANOS;
+
+		// rising during the first half of the period, falling during the second
+		final double fraction = position < 0.5 ? position * 2 : (1.0 - position) * 2;
+		final double price = MIN_PRICE + (MAX_PRICE - MIN_PRICE) * fraction;
+
+		return Math.round(price * 100.0) / 100.0;
+	}
+}
@@ -0,0 +1,101 @@
+package org.oltp1.runner.mee;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.oltp1.common.Assert;
+import org.oltp1.runner.model.Ticker;
+
+/**
+ * Collects the tickers of the trade requests and emits them in batches, for
+ * the Market-Feed transaction.
+ * <p>
+ * Lock-free: the tickers go to a multi-producer queue and a counter of the
+ * tickers not yet claimed by a batch. The producer that takes the counter to
+ * (or past) the batch size claims a batch with a compare-and-set and drains
+ * it; the claimed tickers are always in the queue already, since producers
+ * only count a ticker after queuing it. When a ticker of the same symbol
+ * appears more than once in a batch, the latest one is kept.
+ * <p>
+ * With a linger time, {@link #flush()} is called periodically and emits the
+ * pending tickers when no full batch was emitted since the previous call, so
+ * a ticker waits at most about twice the linger time at low order rates.
+ */
+public class TickerBatcher
+{
+	private final Queue<Ticker> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pending = new AtomicInteger();
+	private final AtomicLong batches = new AtomicLong();
+	private final int batchSize;
+	private final Consumer<List<Ticker>> sink;
+
+	private long batchesAtLastFlush = 0;
+
+	public TickerBatcher(int batchSize, Consumer<List<Ticker>> sink)
+	{
+		Assert.isInRange("batchSize", batchSize, 1, Integer.MAX_VALUE);
+
+		this.batchSize = batchSize;
+		this.sink = sink;
+	}
+
+	public void add(Ticker ticker)
+	{
+		queue.offer(ticker);
+		pending.incrementAndGet();
+
+		int n;
+		while ((n = pending.get()) >= batchSize)
+		{
+			if (pending.compareAndSet(n, n - batchSize))
+			{
+				emit(batchSize);
+			}
+		}
+	}
+
+	/**
+	 * Emits the pending tickers, unless a full batch was emitted since the
+	 * previous call. Must be called by a single thread.
+	 */
+	public void flush()
+	{
+		final long emitted = batches.get();
+
+		if (emitted == batchesAtLastFlush)
+		{
+			int n;
+			while ((n = pending.get()) > 0)
+			{
+				if (pending.compareAndSet(n, 0))
+				{
+					emit(n);
+					break;
+				}
+			}
+		}
+
+		batchesAtLastFlush = batches.get();
+	}
+
+	private void emit(int count)
+	{
+		final Map<String, Ticker> bySymbol = new LinkedHashMap<>(count * 2);
+
+		for (int i = 0; i < count; i++)
+		{
+			Ticker ticker = queue.poll();
+			bySymbol.put(ticker.getSymbol(), ticker);
+		}
+
+		batches.incrementAndGet();
+		sink.accept(new ArrayList<>(bySymbol.values()));
+	}
+}
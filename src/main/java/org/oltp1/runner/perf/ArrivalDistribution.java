@@ -0,0 +1,37 @@
+package org.oltp1.runner.perf;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distribution of the inter-arrival times used by the open-loop mode.
+ */
+public enum ArrivalDistribution
+{
+	/**
+	 * Transactions arrive at a constant rate.
+	 */
+	FIXED
+	{
+		@Override
+		public long nextInterval(double meanNanos)
+		{
+			return (long) meanNanos;
+		}
+	},
+
+	/**
+	 * Transactions arrive as a Poisson process, i.e. the inter-arrival times are
+	 * exponentially distributed around the mean.
+	 */
+	POISSON
+	{
+		@Override
+		public long nextInterval(double meanNanos)
+		{
+			double u = ThreadLocalRandom.current().nextDouble();
+			return (long) (-Math.log(1.0 - u) * meanNanos);
+		}
+	};
+
+	public abstract long nextInterval(double meanNanos);
+}
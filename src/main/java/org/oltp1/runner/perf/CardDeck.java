@@ -0,0 +1,153 @@
+package org.oltp1.runner.perf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.oltp1.common.Assert;
+
+/**
+ * A deck of cards with one card per slot of the transaction mix, as in the
+ * TPC-E Customer Emulator: each item gets a number of cards proportional to
+ * its weight. Every client deals from its own shuffled copy of the deck and
+ * reshuffles it when it runs out, so the mix is exact over every deck and a
+ * pick costs an array index, with no state shared between the clients.
+ */
+public class CardDeck<T>
+{
+	/**
+	 * One card for each 0.1% of the mix, the resolution of the TPC-E mix.
+	 */
+	public static final int DEFAULT_SIZE = 1000;
+
+	private final Object[] cards;
+
+	/**
+	 * @param items
+	 *            the items with their weights, which need not add up to 1
+	 * @param size
+	 *            the number of cards the weights are spread over; an item
+	 *            with a positive weight gets at least one card, so the deck
+	 *            may hold a few more
+	 */
+	public CardDeck(List<ImmutablePair<T, Double>> items, int size)
+	{
+		super();
+
+		Assert.notEmpty("items", items);
+		Assert.isInRange("size", size, 1, Integer.MAX_VALUE);
+
+		final double weightSum = items.stream().mapToDouble(p -> p.right).sum();
+		if (!(weightSum > 0))
+		{
+			throw new IllegalArgumentException("The sum of the weights must be greater than zero");
+		}
+
+		// largest remainder: floor every share, then hand the cards left over
+		// to the items with the largest fractions
+		final int[] counts = new int[items.size()];
+		final double[] fractions = new double[items.size()];
+		int dealt = 0;
+
+		for (int i = 0; i < counts.length; i++)
+		{
+			final double share = items.get(i).right / weightSum * size;
+			counts[i] = (int) Math.floor(share);
+			fractions[i] = share - counts[i];
+			dealt += counts[i];
+		}
+
+		for (; dealt < size; dealt++)
+		{
+			int largest = 0;
+			for (int i = 1; i < fractions.length; i++)
+			{
+				if (fractions[i] > fractions[largest])
+				{
+					largest = i;
+				}
+			}
+			counts[largest]++;
+			fractions[largest] = -1.0;
+		}
+
+		final List<Object> deck = new ArrayList<>(size);
+
+		for (int i = 0; i < counts.length; i++)
+		{
+			final int count = (counts[i] == 0 && items.get(i).right > 0) ? 1 : counts[i];
+
+			for (int c = 0; c < count; c++)
+			{
+				deck.add(items.get(i).left);
+			}
+		}
+
+		this.cards = deck.toArray();
+	}
+
+	public int size()
+	{
+		return cards.length;
+	}
+
+	/**
+	 * @return the number of cards of the item
+	 */
+	public int count(T item)
+	{
+		return (int) Arrays.stream(cards).filter(c -> c.equals(item)).count();
+	}
+
+	/**
+	 * @return a dealer with its own copy of the deck, to be used by a single
+	 *         client
+	 */
+	public Dealer<T> newDealer(SplittableRandom rnd)
+	{
+		return new Dealer<>(cards.clone(), rnd);
+	}
+
+	/**
+	 * Deals the cards of a shuffled copy of the deck, one at a time. Not
+	 * thread-safe.
+	 */
+	public static final class Dealer<T>
+	{
+		private final Object[] cards;
+		private final SplittableRandom rnd;
+		private int next;
+
+		private Dealer(Object[] cards, SplittableRandom rnd)
+		{
+			this.cards = cards;
+			this.rnd = rnd;
+			this.next = cards.length;
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next()
+		{
+			if (next == cards.length)
+			{
+				shuffle();
+				next = 0;
+			}
+			return (T) cards[next++];
+		}
+
+		// Fisher-Yates
+		private void shuffle()
+		{
+			for (int i = cards.length - 1; i > 0; i--)
+			{
+				final int j = rnd.nextInt(i + 1);
+				final Object card = cards[i];
+				cards[i] = cards[j];
+				cards[j] = card;
+			}
+		}
+	}
+}
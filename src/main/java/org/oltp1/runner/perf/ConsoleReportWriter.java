@@ -68,8 +68,153 @@ public class ConsoleReportWriter implements Consumer<TxRunSummary>
 
 			});
 
+			pw.printf("(percentiles are histogram estimates, within %.2f%% of the recorded values)%n", LatencyRecorder.QUANTILE_RELATIVE_ERROR * 100.0);
+
+			if (trun.getTxStats().stream().anyMatch(t -> t.getQueueDelayCount() > 0))
+			{
+				pw.println();
+				pw.println(StringUtils.leftPad("------- Queue Delay(ms) -------", 70, " "));
+				pw.print(StringUtils.rightPad("Transaction", 20, " "));
+				pw.print(StringUtils.leftPad("Count", 10, " "));
+				pw.print(StringUtils.leftPad("Mean", 10, " "));
+				pw.print(StringUtils.leftPad("Max", 10, " "));
+				pw.print(StringUtils.leftPad("Pct90", 10, " "));
+				pw.println(StringUtils.leftPad("Pct99", 10, " "));
+
+				trun.getTxStats().stream().filter(t -> t.getQueueDelayCount() > 0).forEach(test -> {
+
+					pw.print(StringUtils.rightPad(test.getTxName(), 20, " "));
+					pw.print(StringUtils.leftPad(String.format("%s", test.getQueueDelayCount()), 10, " "));
+					pw.print(StringUtils.leftPad(String.format("%.2f", test.getQueueDelayMean()), 10, " "));
+					pw.print(StringUtils.leftPad(String.format("%.2f", test.getQueueDelayMax()), 10, " "));
+					pw.print(StringUtils.leftPad(String.format("%.2f", test.getQueueDelayQuantile(0.9)), 10, " "));
+					pw.println(StringUtils.leftPad(String.format("%.2f", test.getQueueDelayQuantile(0.99)), 10, " "));
+
+				});
+			}
+
+			if (trun.getTxStats().stream().anyMatch(t -> t.getRetriedCount() > 0))
+			{
+				pw.println();
+				pw.println(StringUtils.leftPad("------- Retried Time(ms) -------", 80, " "));
+				pw.print(StringUtils.rightPad("Transaction", 20, " "));
+				pw.print(StringUtils.leftPad("Retried", 10, " "));
+				pw.print(StringUtils.leftPad("Retries", 10, " "));
+				pw.print(StringUtils.leftPad("Mean", 10, " "));
+				pw.print(StringUtils.leftPad("Max", 10, " "));
+				pw.print(StringUtils.leftPad("Pct90", 10, " "));
+				pw.println(StringUtils.leftPad("Pct99", 10, " "));
+
+				trun.getTxStats().stream().filter(t -> t.getRetriedCount() > 0).forEach(test -> {
+
+					pw.print(StringUtils.rightPad(test.getTxName(), 20, " "));
+					pw.print(StringUtils.leftPad(String.format("%s", test.getRetriedCount()), 10, " "));
+					pw.print(StringUtils.leftPad(String.format("%s", test.getRetryCount()), 10, " "));
+					pw.print(StringUtils.leftPad(String.format("%.2f", test.getRetriedMean()), 10, " "));
+					pw.print(StringUtils.leftPad(String.format("%.2f", test.getRetriedMax()), 10, " "));
+					pw.print(StringUtils.leftPad(String.format("%.2f", test.getRetriedQuantile(0.9)), 10, " "));
+					pw.println(StringUtils.leftPad(String.format("%.2f", test.getRetriedQuantile(0.99)), 10, " "));
+
+				});
+			}
+
+			if (trun.getTxStats().stream().anyMatch(t -> t.hasBreakdown()))
+			{
+				pw.println();
+				pw.println(StringUtils.leftPad("---------------- Mean / Pct90 Time(ms) ----------------", 86, " "));
+				pw.print(StringUtils.rightPad("Transaction", 20, " "));
+				pw.print(StringUtils.leftPad("Pool Wait", 18, " "));
+				pw.print(StringUtils.leftPad("Input Gen", 18, " "));
+				pw.print(StringUtils.leftPad("Database", 18, " "));
+				pw.println(StringUtils.leftPad("Client", 18, " "));
+
+				trun.getTxStats().stream().filter(t -> t.hasBreakdown()).forEach(test -> {
+
+					pw.print(StringUtils.rightPad(test.getTxName(), 20, " "));
+					pw.print(StringUtils.leftPad(meanAndP90(test.getPoolWaitTime()), 18, " "));
+					pw.print(StringUtils.leftPad(meanAndP90(test.getInputGenerationTime()), 18, " "));
+					pw.print(StringUtils.leftPad(meanAndP90(test.getDatabaseTime()), 18, " "));
+					pw.println(StringUtils.leftPad(meanAndP90(test.getClientTime()), 18, " "));
+
+				});
+			}
+
+			if (trun.getTxStats().stream().anyMatch(t -> !t.getFrames().isEmpty() || !t.getQueries().isEmpty()))
+			{
+				pw.println();
+				pw.println(StringUtils.leftPad("--------- Time(ms) ---------", 87, " "));
+				pw.print(StringUtils.rightPad("Transaction", 20, " "));
+				pw.print(StringUtils.rightPad("Frame/Query", 36, " "));
+				pw.print(StringUtils.leftPad("Count", 10, " "));
+				pw.print(StringUtils.leftPad("Mean", 10, " "));
+				pw.print(StringUtils.leftPad("Pct90", 10, " "));
+				pw.print(StringUtils.leftPad("Max", 10, " "));
+				pw.println(StringUtils.leftPad("Stmts/exec", 12, " "));
+
+				trun.getTxStats().stream().forEach(test -> {
+
+					test.getFrames().forEach(part -> printPart(pw, test.getTxName(), part));
+					test.getQueries().forEach(part -> printPart(pw, test.getTxName(), part));
+
+				});
+			}
+
+			final TxSummary connWait = trun.getConnectionWait();
+			if (connWait != null && connWait.getCount() > 0)
+			{
+				pw.println();
+				pw.printf(
+						"Connection pool wait(ms): Mean: %.2f | Max: %.2f | Pct90: %.2f | Pct99: %.2f | Count: %d%n",
+						connWait.getMean(),
+						connWait.getMax(),
+						connWait.getQuantile(0.9),
+						connWait.getQuantile(0.99),
+						connWait.getCount());
+			}
+
+			trun.getMeeStats().stream().filter(s -> s.getCount() > 0).forEach(s -> {
+				pw.printf(
+						"%s(ms): Mean: %.2f | Max: %.2f | Pct90: %.2f | Pct99: %.2f | Count: %d%n",
+						s.getTxName(),
+						s.getMean(),
+						s.getMax(),
+						s.getQuantile(0.9),
+						s.getQuantile(0.99),
+						s.getCount());
+			});
+
+			if (trun.getProducerStats().stream().anyMatch(p -> p.getCount() > 0))
+			{
+				pw.println();
+				pw.println(StringUtils.leftPad("------- Input Producers -------", 80, " "));
+				pw.print(StringUtils.rightPad("Transaction", 20, " "));
+				pw.print(StringUtils.leftPad("Produced", 10, " "));
+				pw.print(StringUtils.leftPad("Rate/s", 10, " "));
+				pw.print(StringUtils.leftPad("Mean(ms)", 10, " "));
+				pw.print(StringUtils.leftPad("Pct99(ms)", 10, " "));
+				pw.print(StringUtils.leftPad("Capacity/s", 12, " "));
+				pw.println(StringUtils.leftPad("Misses", 8, " "));
+
+				trun.getProducerStats().stream().filter(p -> p.getCount() > 0).forEach(p -> {
+
+					pw.print(StringUtils.rightPad(p.getName(), 20, " "));
+					pw.print(StringUtils.leftPad(String.format("%s", p.getCount()), 10, " "));
+					pw.print(StringUtils.leftPad(String.format("%.2f", p.getRate()), 10, " "));
+					pw.print(StringUtils.leftPad(String.format("%.3f", p.getMean()), 10, " "));
+					pw.print(StringUtils.leftPad(String.format("%.3f", p.getQuantile(0.99)), 10, " "));
+					pw.print(StringUtils.leftPad(String.format("%.0f", p.getCapacity()), 12, " "));
+					pw.println(StringUtils.leftPad(String.format("%s", p.getMissCount()), 8, " "));
+
+				});
+			}
+
 			pw.printf("%nRun time: %.0f sec.%n", globalElapsed / 1000);
 			pw.printf("Clients: %d%n", trun.getNumClients());
+			pw.printf("Load: %s%n", trun.getLoadModel());
+			if (trun.getDroppedArrivals() >= 0)
+			{
+				pw.printf("Arrivals not started: %d%n", trun.getDroppedArrivals());
+			}
 			pw.printf("Total Tx: %d%n", totalTx);
 			pw.printf("Tx Rate: %.2f tx/sec%n", ((double) totalTx) / (globalElapsed / 1000.0));
 
@@ -80,4 +225,20 @@ public class ConsoleReportWriter implements Consumer<TxRunSummary>
 			throw new RuntimeException(tw);
 		}
 	}
+
+	private String meanAndP90(LatencyHistogram h)
+	{
+		return String.format("%.2f / %.2f", h.getMean(), h.getQuantile(0.9));
+	}
+
+	private void printPart(PrintWriter pw, String txName, TxPartSummary part)
+	{
+		pw.print(StringUtils.rightPad(txName, 20, " "));
+		pw.print(StringUtils.rightPad(StringUtils.abbreviate(part.getName(), 35), 36, " "));
+		pw.print(StringUtils.leftPad(String.format("%s", part.getCount()), 10, " "));
+		pw.print(StringUtils.leftPad(String.format("%.2f", part.getMean()), 10, " "));
+		pw.print(StringUtils.leftPad(String.format("%.2f", part.getQuantile(0.9)), 10, " "));
+		pw.print(StringUtils.leftPad(String.format("%.2f", part.getMax()), 10, " "));
+		pw.println(StringUtils.leftPad(String.format("%.2f", part.getStatementsPerExecution()), 12, " "));
+	}
 }
\ No newline at end of file
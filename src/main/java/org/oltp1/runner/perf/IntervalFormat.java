@@ -0,0 +1,29 @@
+package org.oltp1.runner.perf;
+
+/**
+ * Output format of the per-interval metrics.
+ */
+public enum IntervalFormat
+{
+	/**
+	 * One row per transaction type and interval.
+	 */
+	CSV("csv"),
+
+	/**
+	 * One JSON document per interval, holding all the transaction types.
+	 */
+	JSONL("jsonl");
+
+	private final String extension;
+
+	private IntervalFormat(String extension)
+	{
+		this.extension = extension;
+	}
+
+	public String getExtension()
+	{
+		return extension;
+	}
+}
@@ -0,0 +1,183 @@
+package org.oltp1.runner.perf;
+
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.oltp1.runner.db.SqlEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes the throughput, error and rollback counts and the latency
+ * percentiles of each transaction type for every reporting interval. The
+ * latencies come from histograms that are reset at each interval, which makes
+ * stalls in the middle of a run (checkpoints, vacuum, plan changes) visible.
+ */
+public class IntervalReporter implements Closeable
+{
+	private static Logger log = LoggerFactory.getLogger(IntervalReporter.class);
+
+	private static final String CSV_HEADER = "run,timestamp,elapsed_sec,interval_sec,transaction,count,tps,errors,rollbacks,p50_ms,p90_ms,p99_ms,max_ms";
+
+	private final String outputPath;
+	private final IntervalFormat format;
+	private final PrintWriter writer;
+	private final ObjectMapper objectMapper;
+
+	private final List<TxBase> txs = new ArrayList<>();
+	private int runNumber;
+	private long runStart;
+	private long lastReport;
+
+	public IntervalReporter(SqlEngine engine, IntervalFormat format)
+	{
+		String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+		this.outputPath = String.format("runner-%s-%s-intervals.%s", engine.toString().toLowerCase(), timestamp, format.getExtension());
+		this.format = format;
+		this.objectMapper = new ObjectMapper();
+
+		try
+		{
+			this.writer = new PrintWriter(new FileWriter(outputPath));
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("Failed to open interval report " + outputPath, e);
+		}
+
+		if (format == IntervalFormat.CSV)
+		{
+			writer.println(CSV_HEADER);
+			writer.flush();
+		}
+	}
+
+	public String getOutputPath()
+	{
+		return outputPath;
+	}
+
+	/**
+	 * Marks the start of a run (warmup or measurement). Anything recorded
+	 * before this call is left out of the first interval.
+	 */
+	public synchronized void startRun(List<TxBase> runTxs)
+	{
+		txs.clear();
+		txs.addAll(runTxs);
+		txs.forEach(TxBase::getIntervalStats);
+
+		runNumber++;
+		runStart = System.nanoTime();
+		lastReport = runStart;
+	}
+
+	/**
+	 * Writes the statistics of the interval that ends now.
+	 */
+	public synchronized void report()
+	{
+		final long now = System.nanoTime();
+		final double elapsedSec = (now - runStart) / 1_000_000_000.0;
+		final double intervalSec = (now - lastReport) / 1_000_000_000.0;
+		lastReport = now;
+
+		if (intervalSec <= 0.0)
+		{
+			return;
+		}
+
+		final String ts = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+
+		try
+		{
+			if (format == IntervalFormat.CSV)
+			{
+				for (TxBase tx : txs)
+				{
+					writeCsv(ts, elapsedSec, intervalSec, tx.getIntervalStats());
+				}
+			}
+			else
+			{
+				writeJson(ts, elapsedSec, intervalSec);
+			}
+			writer.flush();
+		}
+		catch (Throwable t)
+		{
+			log.error("Failed to write interval report", t);
+		}
+	}
+
+	private void writeCsv(String ts, double elapsedSec, double intervalSec, TxIntervalSummary s)
+	{
+		final boolean hasValues = s.getCount() > 0;
+
+		writer
+				.printf(
+						"%d,%s,%.3f,%.3f,%s,%d,%.2f,%d,%d,%s,%s,%s,%s%n",
+						runNumber,
+						ts,
+						elapsedSec,
+						intervalSec,
+						s.getTxName(),
+						s.getCount(),
+						s.getCount() / intervalSec,
+						s.getErrorCount(),
+						s.getRollbackCount(),
+						hasValues ? String.format("%.3f", s.getQuantile(0.5)) : "",
+						hasValues ? String.format("%.3f", s.getQuantile(0.9)) : "",
+						hasValues ? String.format("%.3f", s.getQuantile(0.99)) : "",
+						hasValues ? String.format("%.3f", s.getMax()) : "");
+	}
+
+	private void writeJson(String ts, double elapsedSec, double intervalSec) throws IOException
+	{
+		Map<String, Object> line = new LinkedHashMap<>();
+		line.put("run", runNumber);
+		line.put("timestamp", ts);
+		line.put("elapsed_sec", elapsedSec);
+		line.put("interval_sec", intervalSec);
+
+		Map<String, Object> transactions = new LinkedHashMap<>();
+
+		for (TxBase tx : txs)
+		{
+			TxIntervalSummary s = tx.getIntervalStats();
+			final boolean hasValues = s.getCount() > 0;
+
+			Map<String, Object> txData = new LinkedHashMap<>();
+			txData.put("count", s.getCount());
+			txData.put("tps", s.getCount() / intervalSec);
+			txData.put("errors", s.getErrorCount());
+			txData.put("rollbacks", s.getRollbackCount());
+			txData.put("p50_ms", hasValues ? s.getQuantile(0.5) : null);
+			txData.put("p90_ms", hasValues ? s.getQuantile(0.9) : null);
+			txData.put("p99_ms", hasValues ? s.getQuantile(0.99) : null);
+			txData.put("max_ms", hasValues ? s.getMax() : null);
+
+			transactions.put(s.getTxName(), txData);
+		}
+
+		line.put("transactions", transactions);
+
+		writer.println(objectMapper.writeValueAsString(line));
+	}
+
+	@Override
+	public synchronized void close()
+	{
+		writer.close();
+	}
+}
@@ -8,6 +8,7 @@ import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 
@@ -39,6 +40,33 @@ public class JsonReportWriter implements Consumer<TxRunSummary>
 		return (new BigDecimal(value).setScale(2, RoundingMode.HALF_UP)).doubleValue();
 	}
 
+	private Map<String, Object> toJson(LatencyHistogram h)
+	{
+		Map<String, Object> data = new LinkedHashMap<>();
+		data.put("mean_ms", round(h.getMean()));
+		data.put("p90_ms", round(h.getQuantile(0.9)));
+		data.put("max_ms", round(h.getMax()));
+		return data;
+	}
+
+	private Map<String, Object> toJson(List<TxPartSummary> parts)
+	{
+		Map<String, Object> partsData = new LinkedHashMap<>();
+
+		parts.forEach(part -> {
+			Map<String, Object> partData = new LinkedHashMap<>();
+			partData.put("count", part.getCount());
+			partData.put("mean_ms", round(part.getMean()));
+			partData.put("p90_ms", round(part.getQuantile(0.9)));
+			partData.put("max_ms", round(part.getMax()));
+			partData.put("total_ms", round(part.getSum()));
+			partData.put("statements_per_exec", round(part.getStatementsPerExecution()));
+			partsData.put(part.getName(), partData);
+		});
+
+		return partsData;
+	}
+
 	@Override
 	public void accept(final TxRunSummary trun)
 	{
@@ -55,8 +83,51 @@ public class JsonReportWriter implements Consumer<TxRunSummary>
 		Map<String, Object> summary = new LinkedHashMap<>();
 		summary.put("run_time_sec", round(globalElapsed / 1000));
 		summary.put("clients", trun.getNumClients());
+		summary.put("load_model", trun.getLoadModel());
+		if (trun.getDroppedArrivals() >= 0)
+		{
+			summary.put("dropped_arrivals", trun.getDroppedArrivals());
+		}
 		summary.put("total_transactions", totalTx);
+		summary.put("percentile_relative_error", LatencyRecorder.QUANTILE_RELATIVE_ERROR);
 		summary.put("transaction_rate_per_sec", round(((double) totalTx) / (globalElapsed / 1000.0)));
+		final TxSummary connWait = trun.getConnectionWait();
+		if (connWait != null && connWait.getCount() > 0)
+		{
+			Map<String, Object> poolWait = new LinkedHashMap<>();
+			poolWait.put("count", connWait.getCount());
+			poolWait.put("mean_ms", round(connWait.getMean()));
+			poolWait.put("max_ms", round(connWait.getMax()));
+			poolWait.put("p90_ms", round(connWait.getQuantile(0.9)));
+			poolWait.put("p99_ms", round(connWait.getQuantile(0.99)));
+			summary.put("connection_wait", poolWait);
+		}
+		trun.getMeeStats().stream().filter(s -> s.getCount() > 0).forEach(s -> {
+			Map<String, Object> meeData = new LinkedHashMap<>();
+			meeData.put("count", s.getCount());
+			meeData.put("mean_ms", round(s.getMean()));
+			meeData.put("max_ms", round(s.getMax()));
+			meeData.put("p90_ms", round(s.getQuantile(0.9)));
+			meeData.put("p99_ms", round(s.getQuantile(0.99)));
+			summary.put(s.getTxName().toLowerCase().replace('-', '_'), meeData);
+		});
+
+		if (trun.getProducerStats().stream().anyMatch(p -> p.getCount() > 0))
+		{
+			Map<String, Object> producers = new LinkedHashMap<>();
+			trun.getProducerStats().stream().filter(p -> p.getCount() > 0).forEach(p -> {
+				Map<String, Object> producerData = new LinkedHashMap<>();
+				producerData.put("count", p.getCount());
+				producerData.put("rate_per_sec", round(p.getRate()));
+				producerData.put("mean_ms", round(p.getMean()));
+				producerData.put("p99_ms", round(p.getQuantile(0.99)));
+				producerData.put("capacity_per_sec", round(p.getCapacity()));
+				producerData.put("misses", p.getMissCount());
+				producers.put(p.getName(), producerData);
+			});
+			summary.put("input_producers", producers);
+		}
+
 		report.put("summary", summary);
 
 		Map<String, Object> transactions = new LinkedHashMap<>();
@@ -81,11 +152,55 @@ public class JsonReportWriter implements Consumer<TxRunSummary>
 			responseTime.put("p99_ms", round(txStat.getQuantile(0.99)));
 			txData.put("response_time", responseTime);
 
+			if (txStat.getQueueDelayCount() > 0)
+			{
+				Map<String, Object> queueDelay = new LinkedHashMap<>();
+				queueDelay.put("count", txStat.getQueueDelayCount());
+				queueDelay.put("mean_ms", round(txStat.getQueueDelayMean()));
+				queueDelay.put("max_ms", round(txStat.getQueueDelayMax()));
+				queueDelay.put("p90_ms", round(txStat.getQueueDelayQuantile(0.9)));
+				queueDelay.put("p99_ms", round(txStat.getQueueDelayQuantile(0.99)));
+				txData.put("queue_delay", queueDelay);
+			}
+
+			if (txStat.getRetriedCount() > 0)
+			{
+				Map<String, Object> retried = new LinkedHashMap<>();
+				retried.put("count", txStat.getRetriedCount());
+				retried.put("retries", txStat.getRetryCount());
+				retried.put("mean_ms", round(txStat.getRetriedMean()));
+				retried.put("max_ms", round(txStat.getRetriedMax()));
+				retried.put("p90_ms", round(txStat.getRetriedQuantile(0.9)));
+				retried.put("p99_ms", round(txStat.getRetriedQuantile(0.99)));
+				txData.put("retried", retried);
+			}
+
+			if (txStat.hasBreakdown())
+			{
+				Map<String, Object> breakdown = new LinkedHashMap<>();
+				breakdown.put("pool_wait", toJson(txStat.getPoolWaitTime()));
+				breakdown.put("input_generation", toJson(txStat.getInputGenerationTime()));
+				breakdown.put("database", toJson(txStat.getDatabaseTime()));
+				breakdown.put("client", toJson(txStat.getClientTime()));
+				txData.put("breakdown", breakdown);
+			}
+
+			if (!txStat.getFrames().isEmpty())
+			{
+				txData.put("frames", toJson(txStat.getFrames()));
+			}
+
+			if (!txStat.getQueries().isEmpty())
+			{
+				txData.put("queries", toJson(txStat.getQueries()));
+			}
+
 			Map<String, Object> counts = new LinkedHashMap<>();
 			counts.put("total", txStat.getCount());
 			counts.put("warnings", txStat.getWarningCount());
 			counts.put("errors", txStat.getErroCount());
 			counts.put("rollbacks", txStat.getRollbackCount());
+			counts.put("retries", txStat.getRetryCount());
 			txData.put("counts", counts);
 
 			transactions.put(txStat.getTxName(), txData);
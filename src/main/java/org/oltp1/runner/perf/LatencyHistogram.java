@@ -0,0 +1,132 @@
+package org.oltp1.runner.perf;
+
+/**
+ * Immutable snapshot of a {@link LatencyRecorder}. All the values are
+ * returned in milliseconds.
+ */
+public class LatencyHistogram
+{
+	private final long[] counts;
+	private final long bucketTotal;
+	private final long count;
+	private final long sumNanos;
+	private final double sumSq;
+	private final long minNanos;
+	private final long maxNanos;
+
+	LatencyHistogram(long[] counts, long count, long sumNanos, double sumSq, long minNanos, long maxNanos)
+	{
+		super();
+		this.counts = counts;
+		this.count = count;
+		this.sumNanos = sumNanos;
+		this.sumSq = sumSq;
+		this.minNanos = minNanos;
+		this.maxNanos = maxNanos;
+
+		long total = 0;
+		for (long c : counts)
+		{
+			total += c;
+		}
+		this.bucketTotal = total;
+	}
+
+	public long getCount()
+	{
+		return count;
+	}
+
+	public double getMin()
+	{
+		return (count == 0) ? Double.NaN : minNanos / 1000000.0;
+	}
+
+	public double getMax()
+	{
+		return (count == 0) ? Double.NaN : maxNanos / 1000000.0;
+	}
+
+	public double getSum()
+	{
+		return sumNanos / 1000000.0;
+	}
+
+	public double getMean()
+	{
+		return (count == 0) ? Double.NaN : getSum() / count;
+	}
+
+	/**
+	 * @return the sample standard deviation, as computed by commons-math
+	 *         SummaryStatistics
+	 */
+	public double getStdDev()
+	{
+		if (count == 0)
+		{
+			return Double.NaN;
+		}
+		if (count == 1)
+		{
+			return 0.0;
+		}
+
+		final double sum = getSum();
+		final double variance = (sumSq - (sum * sum / count)) / (count - 1);
+		return Math.sqrt(Math.max(0.0, variance));
+	}
+
+	/**
+	 * @return the number of values at or below the given bound (in
+	 *         milliseconds), with the resolution of the histogram buckets
+	 */
+	public long getCountAtOrBelow(double millis)
+	{
+		final double boundNanos = millis * 1000000.0;
+		long total = 0;
+
+		for (int i = 0; i < counts.length; i++)
+		{
+			if (LatencyRecorder.bucketLowerBound(i) + (LatencyRecorder.bucketWidth(i) - 1) / 2.0 > boundNanos)
+			{
+				break;
+			}
+			total += counts[i];
+		}
+
+		return total;
+	}
+
+	/**
+	 * @param q
+	 *            quantile, between 0 and 1
+	 * @return the value at the quantile, i.e. the midpoint of the bucket that
+	 *         holds it, clamped to the exact minimum and maximum; within
+	 *         {@link LatencyRecorder#QUANTILE_RELATIVE_ERROR} of the recorded
+	 *         value
+	 */
+	public double getQuantile(double q)
+	{
+		if (bucketTotal == 0)
+		{
+			return Double.NaN;
+		}
+
+		final long rank = Math.max(1L, (long) Math.ceil(q * bucketTotal));
+		long seen = 0;
+
+		for (int i = 0; i < counts.length; i++)
+		{
+			seen += counts[i];
+			if (seen >= rank)
+			{
+				double mid = LatencyRecorder.bucketLowerBound(i) + (LatencyRecorder.bucketWidth(i) - 1) / 2.0;
+				mid = Math.max(minNanos, Math.min(maxNanos, mid));
+				return mid / 1000000.0;
+			}
+		}
+
+		return getMax();
+	}
+}
@@ -0,0 +1,314 @@
+package org.oltp1.runner.perf;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free latency recorder.
+ * <p>
+ * Values are recorded into one of several stripes, chosen by the id of the
+ * recording thread, so that concurrent clients rarely touch the same memory.
+ * Each stripe keeps a log-linear histogram of the values in nanoseconds (128
+ * sub-buckets per power of two, i.e. a relative error below 0.4% once the
+ * bucket midpoint is used) plus the exact count, sum, sum of squares, minimum
+ * and maximum. Recording never takes a lock and, once a stripe is in use,
+ * never allocates. Stripes are only merged when a {@link LatencyHistogram}
+ * snapshot is requested.
+ * <p>
+ * A recorder made by {@link #newIntervalRecorder()} can also be swapped for a
+ * fresh one by {@link #snapshotAndReset()} while the clients keep recording:
+ * each stripe then counts the writers recording into it, and the swap waits
+ * for the writers of the previous stripes, so that every value ends up in
+ * exactly one interval.
+ */
+public class LatencyRecorder
+{
+	static final int SUB_BUCKET_BITS = 7;
+	static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	// values above 2^40 ns (~18 minutes) share the last octave
+	static final int MAX_MSB = 40;
+	static final int BUCKET_COUNT = (MAX_MSB - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+	/**
+	 * The largest relative error of a quantile, half a sub-bucket: the
+	 * quantiles are bucket midpoints, not recorded values.
+	 */
+	public static final double QUANTILE_RELATIVE_ERROR = 1.0 / (2 * SUB_BUCKETS);
+
+	private static final int DEFAULT_STRIPE_COUNT = defaultStripeCount();
+
+	private final int stripeCount;
+	private final boolean isSwappable;
+	private volatile AtomicReferenceArray<Stripe> stripes;
+
+	public LatencyRecorder()
+	{
+		this(DEFAULT_STRIPE_COUNT);
+	}
+
+	/**
+	 * @param stripeCount
+	 *            the maximum number of stripes, a power of two; each stripe in
+	 *            use takes about 35KB
+	 */
+	public LatencyRecorder(int stripeCount)
+	{
+		this(stripeCount, false);
+	}
+
+	private LatencyRecorder(int stripeCount, boolean isSwappable)
+	{
+		if (stripeCount < 1 || Integer.bitCount(stripeCount) != 1)
+		{
+			throw new IllegalArgumentException("'stripeCount' must be a power of two");
+		}
+		this.stripeCount = stripeCount;
+		this.isSwappable = isSwappable;
+		this.stripes = new AtomicReferenceArray<>(stripeCount);
+	}
+
+	/**
+	 * @return a recorder whose values can be taken interval by interval with
+	 *         {@link #snapshotAndReset()}, at the cost of two more atomic
+	 *         operations per value
+	 */
+	public static LatencyRecorder newIntervalRecorder()
+	{
+		return new LatencyRecorder(DEFAULT_STRIPE_COUNT, true);
+	}
+
+	/**
+	 * Records a value in milliseconds.
+	 */
+	public void record(double millis)
+	{
+		recordNanos(Math.round(millis * 1000000.0));
+	}
+
+	public void recordNanos(long nanos)
+	{
+		final long v = Math.max(0L, nanos);
+
+		if (!isSwappable)
+		{
+			stripe(stripes).record(v);
+			return;
+		}
+
+		while (true)
+		{
+			final AtomicReferenceArray<Stripe> current = stripes;
+			final Stripe s = stripe(current);
+
+			s.writers.incrementAndGet();
+			try
+			{
+				// Once the writer is counted, either it sees the swap and
+				// records into the new stripes, or the swap waits for it.
+				if (current == stripes)
+				{
+					s.record(v);
+					return;
+				}
+			}
+			finally
+			{
+				s.writers.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Discards all the recorded values. Values recorded concurrently with the
+	 * reset may be lost.
+	 */
+	public void reset()
+	{
+		stripes = new AtomicReferenceArray<>(stripeCount);
+	}
+
+	public LatencyHistogram snapshot()
+	{
+		return merge(stripes);
+	}
+
+	/**
+	 * Returns the values recorded since the previous reset and starts over.
+	 * Meant for a single consumer, e.g. a periodic reporter; a value recorded
+	 * concurrently with the swap ends up in either interval, never in both and
+	 * never lost. Only supported by the recorders made by
+	 * {@link #newIntervalRecorder()}.
+	 */
+	public LatencyHistogram snapshotAndReset()
+	{
+		if (!isSwappable)
+		{
+			throw new IllegalStateException("The recorder cannot be reset while recording, use newIntervalRecorder()");
+		}
+
+		final AtomicReferenceArray<Stripe> previous = stripes;
+		stripes = new AtomicReferenceArray<>(stripeCount);
+
+		// a stripe created after this loop went past it is only used by
+		// writers that see the new stripes
+		for (int i = 0; i < previous.length(); i++)
+		{
+			final Stripe s = previous.get(i);
+			while (s != null && s.writers.get() != 0)
+			{
+				Thread.onSpinWait();
+			}
+		}
+
+		return merge(previous);
+	}
+
+	private static LatencyHistogram merge(final AtomicReferenceArray<Stripe> current)
+	{
+		final long[] counts = new long[BUCKET_COUNT];
+		long count = 0;
+		long sum = 0;
+		double sumSq = 0.0;
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+
+		for (int i = 0; i < current.length(); i++)
+		{
+			final Stripe s = current.get(i);
+			if (s == null)
+			{
+				continue;
+			}
+
+			for (int b = 0; b < BUCKET_COUNT; b++)
+			{
+				counts[b] += s.counts.get(b);
+			}
+			count += s.count.get();
+			sum += s.sum.get();
+			sumSq += Double.longBitsToDouble(s.sumSq.get());
+			min = Math.min(min, s.min.get());
+			max = Math.max(max, s.max.get());
+		}
+
+		return new LatencyHistogram(counts, count, sum, sumSq, min, max);
+	}
+
+	static int bucketIndex(long v)
+	{
+		if (v < SUB_BUCKETS)
+		{
+			return (int) v;
+		}
+
+		final int msb = Math.min(63 - Long.numberOfLeadingZeros(v), MAX_MSB);
+		if (msb == MAX_MSB && (v >>> MAX_MSB) > 1)
+		{
+			return BUCKET_COUNT - 1;
+		}
+
+		final int subBucket = (int) ((v >>> (msb - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+		return ((msb - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+	}
+
+	/**
+	 * @return the lowest value that maps to the bucket
+	 */
+	static long bucketLowerBound(int index)
+	{
+		if (index < SUB_BUCKETS)
+		{
+			return index;
+		}
+
+		final int msb = (index >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+		final long subBucket = index & (SUB_BUCKETS - 1);
+		return (SUB_BUCKETS + subBucket) << (msb - SUB_BUCKET_BITS);
+	}
+
+	/**
+	 * @return the width of the bucket, in nanoseconds
+	 */
+	static long bucketWidth(int index)
+	{
+		if (index < SUB_BUCKETS)
+		{
+			return 1L;
+		}
+
+		final int msb = (index >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+		return 1L << (msb - SUB_BUCKET_BITS);
+	}
+
+	private Stripe stripe(final AtomicReferenceArray<Stripe> current)
+	{
+		final int idx = stripeIndex(Thread.currentThread().threadId()) & (stripeCount - 1);
+
+		Stripe s = current.get(idx);
+		if (s == null)
+		{
+			current.compareAndSet(idx, null, new Stripe());
+			s = current.get(idx);
+		}
+		return s;
+	}
+
+	private static int stripeIndex(long threadId)
+	{
+		// spread sequential thread ids (virtual threads included) over the stripes
+		long h = threadId * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 32);
+	}
+
+	private static int defaultStripeCount()
+	{
+		int cpus = Runtime.getRuntime().availableProcessors();
+		int n = Integer.highestOneBit(Math.max(1, cpus * 2) - 1) << 1;
+		return Math.max(4, Math.min(n, 64));
+	}
+
+	private static final class Stripe
+	{
+		final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+		final AtomicLong count = new AtomicLong();
+		final AtomicLong sum = new AtomicLong();
+		final AtomicLong sumSq = new AtomicLong(Double.doubleToRawLongBits(0.0));
+		final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+		final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+		// the writers recording into the stripe, only counted by the interval
+		// recorders
+		final AtomicInteger writers = new AtomicInteger();
+
+		void record(long v)
+		{
+			counts.incrementAndGet(bucketIndex(v));
+			sum.addAndGet(v);
+
+			final double ms = v / 1000000.0;
+			final double sq = ms * ms;
+			long prev;
+			do
+			{
+				prev = sumSq.get();
+			}
+			while (!sumSq.compareAndSet(prev, Double.doubleToRawLongBits(Double.longBitsToDouble(prev) + sq)));
+
+			long m;
+			while (v < (m = min.get()) && !min.compareAndSet(m, v))
+			{
+				// retry
+			}
+			while (v > (m = max.get()) && !max.compareAndSet(m, v))
+			{
+				// retry
+			}
+
+			// a snapshot racing with this method may see the bucket but not the
+			// count; LatencyHistogram uses the bucket total for the quantiles
+			count.incrementAndGet();
+		}
+	}
+}
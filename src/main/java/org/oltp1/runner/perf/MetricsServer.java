@@ -0,0 +1,283 @@
+package org.oltp1.runner.perf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+import org.oltp1.runner.db.SqlContext;
+import org.oltp1.runner.mee.Mee;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Serves live driver metrics in the OpenMetrics text format on
+ * <code>/metrics</code>, using the HTTP server built into the JDK.
+ * <p>
+ * The transaction counters are cleared at the start of the measurement run,
+ * which scrapers see as a regular counter reset.
+ */
+public class MetricsServer
+{
+	private static Logger log = LoggerFactory.getLogger(MetricsServer.class);
+
+	private static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+	// latency histogram buckets, in seconds; the TPC-E response time limits
+	// (1s, 2s and 3s) are bucket bounds
+	private static final double[] LATENCY_BUCKETS = { 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.0, 3.0, 5.0, 10.0 };
+
+	private final HttpServer server;
+	private final Supplier<List<TxSummary>> txStats;
+	private final SqlContext sqlCtx;
+	private Mee mee;
+
+	public MetricsServer(int port, Supplier<List<TxSummary>> txStats, SqlContext sqlCtx)
+	{
+		this.txStats = txStats;
+		this.sqlCtx = sqlCtx;
+
+		try
+		{
+			this.server = HttpServer.create(new InetSocketAddress(port), 0);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException(String.format("Failed to bind the metrics endpoint to port %s", port), e);
+		}
+
+		server.createContext("/metrics", this::handle);
+		server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "metrics-http");
+			t.setDaemon(true);
+			return t;
+		}));
+	}
+
+	/**
+	 * Sets the MEE, to expose its queue depth and its pending limit orders.
+	 */
+	public void setMee(Mee mee)
+	{
+		this.mee = mee;
+	}
+
+	public void start()
+	{
+		server.start();
+		log.info("Metrics available at http://localhost:{}/metrics", server.getAddress().getPort());
+	}
+
+	public void stop()
+	{
+		server.stop(0);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException
+	{
+		boolean isHeaderSent = false;
+
+		try
+		{
+			byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+
+			exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+			exchange.sendResponseHeaders(200, body.length);
+			isHeaderSent = true;
+
+			try (OutputStream out = exchange.getResponseBody())
+			{
+				out.write(body);
+			}
+		}
+		catch (Throwable t)
+		{
+			log.error("Failed to serve metrics", t);
+
+			// once the 200 is out, closing the exchange is all that is left;
+			// the client sees a short body
+			if (!isHeaderSent)
+			{
+				exchange.sendResponseHeaders(500, -1);
+			}
+		}
+		finally
+		{
+			exchange.close();
+		}
+	}
+
+	private String scrape()
+	{
+		StringBuilder sb = new StringBuilder(16 * 1024);
+
+		writeTransactions(sb);
+		writePool(sb);
+		writeMee(sb);
+		writeJvm(sb);
+
+		sb.append("# EOF\n");
+		return sb.toString();
+	}
+
+	private void writeTransactions(StringBuilder sb)
+	{
+		final List<TxSummary> stats = txStats.get();
+
+		header(sb, "oltp1_transactions", "counter", "Completed transactions");
+		stats.forEach(s -> sample(sb, "oltp1_transactions_total", tx(s), s.getCount()));
+
+		header(sb, "oltp1_transaction_errors", "counter", "Transactions that ended with an error");
+		stats.forEach(s -> sample(sb, "oltp1_transaction_errors_total", tx(s), s.getErroCount()));
+
+		header(sb, "oltp1_transaction_warnings", "counter", "Transactions that ended with a warning");
+		stats.forEach(s -> sample(sb, "oltp1_transaction_warnings_total", tx(s), s.getWarningCount()));
+
+		header(sb, "oltp1_transaction_rollbacks", "counter", "Transactions rolled back");
+		stats.forEach(s -> sample(sb, "oltp1_transaction_rollbacks_total", tx(s), s.getRollbackCount()));
+
+		header(sb, "oltp1_transaction_retries", "counter", "Retries after serialization failures and deadlocks");
+		stats.forEach(s -> sample(sb, "oltp1_transaction_retries_total", tx(s), s.getRetryCount()));
+
+		header(sb, "oltp1_transaction_latency_seconds", "histogram", "Transaction response time");
+		stats.forEach(s -> {
+			final long count = s.getCount();
+			for (double le : LATENCY_BUCKETS)
+			{
+				long c = Math.min(count, s.getCountAtOrBelow(le * 1000.0));
+				sample(sb, "oltp1_transaction_latency_seconds_bucket", tx(s) + ",le=\"" + Double.toString(le) + "\"", c);
+			}
+			sample(sb, "oltp1_transaction_latency_seconds_bucket", tx(s) + ",le=\"+Inf\"", count);
+			sample(sb, "oltp1_transaction_latency_seconds_count", tx(s), count);
+			sample(sb, "oltp1_transaction_latency_seconds_sum", tx(s), s.getSum() / 1000.0);
+		});
+	}
+
+	private void writePool(StringBuilder sb)
+	{
+		if (sqlCtx == null)
+		{
+			return;
+		}
+
+		HikariPoolMXBean pool = sqlCtx.getPoolMXBean();
+
+		if (pool != null)
+		{
+			header(sb, "oltp1_pool_connections_active", "gauge", "Connections in use");
+			sample(sb, "oltp1_pool_connections_active", null, pool.getActiveConnections());
+
+			header(sb, "oltp1_pool_connections_idle", "gauge", "Idle connections");
+			sample(sb, "oltp1_pool_connections_idle", null, pool.getIdleConnections());
+
+			header(sb, "oltp1_pool_connections", "gauge", "Total connections");
+			sample(sb, "oltp1_pool_connections", null, pool.getTotalConnections());
+
+			header(sb, "oltp1_pool_threads_waiting", "gauge", "Threads waiting inside the pool for a connection");
+			sample(sb, "oltp1_pool_threads_waiting", null, pool.getThreadsAwaitingConnection());
+		}
+
+		header(sb, "oltp1_pool_clients_queued", "gauge", "Clients queued for a connection permit");
+		sample(sb, "oltp1_pool_clients_queued", null, sqlCtx.getQueuedClients());
+
+		header(sb, "oltp1_pinned_connections", "gauge", "Connections pinned to a client or MEE thread");
+		sample(sb, "oltp1_pinned_connections", null, sqlCtx.getPinnedConnections());
+	}
+
+	private void writeMee(StringBuilder sb)
+	{
+		if (mee == null)
+		{
+			return;
+		}
+
+		header(sb, "oltp1_mee_queue_depth", "gauge", "Trade-Result and Market-Feed tasks waiting in the MEE queue");
+		sample(sb, "oltp1_mee_queue_depth", null, mee.getQueueDepth());
+
+		if (mee.getExecutor() instanceof ThreadPoolExecutor tpe)
+		{
+			header(sb, "oltp1_mee_active_tasks", "gauge", "MEE tasks being executed");
+			sample(sb, "oltp1_mee_active_tasks", null, tpe.getActiveCount());
+
+			header(sb, "oltp1_mee_threads", "gauge", "Threads of the MEE pool");
+			sample(sb, "oltp1_mee_threads", null, mee.getThreads());
+		}
+
+		header(sb, "oltp1_mee_pending_limit_orders", "gauge", "Limit orders waiting for their trigger price");
+		sample(sb, "oltp1_mee_pending_limit_orders", null, mee.getPendingOrders());
+
+		final TxSummary lag = mee.getLagStats().getStats();
+		header(sb, "oltp1_mee_lag_seconds", "summary", "Time MEE tasks waited between submission and execution");
+		sample(sb, "oltp1_mee_lag_seconds_count", null, lag.getCount());
+		sample(sb, "oltp1_mee_lag_seconds_sum", null, lag.getSum() / 1000.0);
+	}
+
+	private void writeJvm(StringBuilder sb)
+	{
+		final List<GarbageCollectorMXBean> gcs = ManagementFactory.getGarbageCollectorMXBeans();
+
+		header(sb, "jvm_gc_collections", "counter", "Garbage collections");
+		gcs.forEach(gc -> sample(sb, "jvm_gc_collections_total", "gc=\"" + escape(gc.getName()) + "\"", gc.getCollectionCount()));
+
+		header(sb, "jvm_gc_collection_seconds", "counter", "Time spent in garbage collection");
+		gcs.forEach(gc -> sample(sb, "jvm_gc_collection_seconds_total", "gc=\"" + escape(gc.getName()) + "\"", gc.getCollectionTime() / 1000.0));
+
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean tmx && tmx.isThreadAllocatedMemoryEnabled())
+		{
+			header(sb, "jvm_allocated_bytes", "counter", "Bytes allocated by live and terminated platform threads");
+			sample(sb, "jvm_allocated_bytes_total", null, tmx.getTotalThreadAllocatedBytes());
+		}
+
+		final MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+
+		header(sb, "jvm_heap_used_bytes", "gauge", "Used heap memory");
+		sample(sb, "jvm_heap_used_bytes", null, heap.getUsed());
+	}
+
+	private static String tx(TxSummary s)
+	{
+		return "tx=\"" + escape(s.getTxName()) + "\"";
+	}
+
+	private static void header(StringBuilder sb, String name, String type, String help)
+	{
+		sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+		sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+	}
+
+	private static void sample(StringBuilder sb, String name, String labels, double value)
+	{
+		sb.append(name);
+		if (labels != null)
+		{
+			sb.append('{').append(labels).append('}');
+		}
+		sb.append(' ').append(fmt(value)).append('\n');
+	}
+
+	private static String fmt(double v)
+	{
+		if (v == Math.rint(v) && !Double.isInfinite(v) && Math.abs(v) < 1e15)
+		{
+			return Long.toString((long) v);
+		}
+		return String.format(Locale.ROOT, "%s", v);
+	}
+
+	private static String escape(String value)
+	{
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+}
@@ -6,6 +6,12 @@ public class MixParameters
 	public int clients;
 	public boolean isPacingEnabled;
 	public int tps;
+	public boolean isOpenLoop;
+	public ArrivalDistribution arrival;
+	public boolean useVirtualThreads;
+	public long thinkTimeMillis;
+	// the seed of the decks the clients deal their transactions from
+	public long seed;
 
 	public MixParameters(String sutInfo, int clients, boolean isPacingEnabled, int tps)
 	{
@@ -14,5 +20,18 @@ public class MixParameters
 		this.clients = clients;
 		this.isPacingEnabled = isPacingEnabled;
 		this.tps = tps;
+		this.isOpenLoop = false;
+		this.arrival = ArrivalDistribution.FIXED;
+	}
+
+	public MixParameters(String sutInfo, int clients, int tps, ArrivalDistribution arrival)
+	{
+		super();
+		this.sutInfo = sutInfo;
+		this.clients = clients;
+		this.isPacingEnabled = false;
+		this.tps = tps;
+		this.isOpenLoop = true;
+		this.arrival = arrival;
 	}
 }
\ No newline at end of file
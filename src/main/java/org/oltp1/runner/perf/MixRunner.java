@@ -1,19 +1,22 @@
 package org.oltp1.runner.perf;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentNavigableMap;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.RandomUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.oltp1.common.Assert;
 import org.slf4j.Logger;
@@ -23,35 +26,94 @@ public class MixRunner
 {
 	private static Logger log = LoggerFactory.getLogger(MixRunner.class);
 
-	private final RandomUtils rnd = RandomUtils.insecure();
+	private static final long MAX_ARRIVAL_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
 
 	private final List<ImmutablePair<TxBase, Double>> txMix;
 	private final List<PeriodicTx> txPeriodic;
-	private final TxRunSummary runSummary;
-	private final int numClients;
+	private final String sutInfo;
+	private TxRunSummary runSummary;
+	private int numClients;
 	private final AtomicLong transactionCounter = new AtomicLong(0);
+	// the scheduled arrivals of the run that were never started, see
+	// TxRunSummary#getDroppedArrivals()
+	private final AtomicLong droppedArrivals = new AtomicLong(0);
 
 	private final boolean isPacingEnabled;
-	private final long interTransactionDelayNanos;
+	private long interTransactionDelayNanos;
+
+	private final boolean useVirtualThreads;
+	private final double meanThinkTimeNanos;
+	private final long seed;
+	private int runNumber;
+	private TxStatsCollector connWaitStats;
+	private IntConsumer clientStartHook;
+	private Runnable clientExitHook;
+	private final List<TxStatsCollector> meeStats = new ArrayList<>();
+	private final List<ProducerStats> producerStats = new ArrayList<>();
+	private IntervalReporter intervalReporter;
+	private long reportIntervalSec;
+
+	private final boolean isOpenLoop;
+	private final ArrivalDistribution arrival;
+	private double meanInterArrivalNanos;
+
+	private TxInputRecorder inputRecorder;
+	private TxInputReplay replay;
+	private double replaySpeed;
 
 	public MixRunner(MixParameters params)
 	{
 		super();
 		this.txMix = new ArrayList<>();
 		this.txPeriodic = new ArrayList<>();
-		this.numClients = params.clients;
-		this.runSummary = new TxRunSummary(params.sutInfo, numClients);
-
+		this.sutInfo = params.sutInfo;
 		this.isPacingEnabled = params.isPacingEnabled;
+		this.useVirtualThreads = params.useVirtualThreads;
+		this.meanThinkTimeNanos = TimeUnit.MILLISECONDS.toNanos(params.thinkTimeMillis);
+		this.isOpenLoop = params.isOpenLoop;
+		this.arrival = params.arrival;
+		this.seed = params.seed;
+
+		setLoad(params.clients, params.tps);
+	}
+
+	/**
+	 * Changes the number of clients and the target rate for the next runs.
+	 * Starts a new run summary.
+	 */
+	public void setLoad(int clients, int tps)
+	{
+		Assert.isInRange("clients", clients, 1, Integer.MAX_VALUE);
+
+		this.numClients = clients;
+		this.runSummary = new TxRunSummary(sutInfo, numClients);
+
 		if (isPacingEnabled)
 		{
-			double targetTpsPerClient = (double) params.tps / numClients;
+			double targetTpsPerClient = (double) tps / numClients;
 			this.interTransactionDelayNanos = (long) (1_000_000_000.0 / targetTpsPerClient);
 		}
 		else
 		{
 			this.interTransactionDelayNanos = 0;
 		}
+
+		if (replay != null)
+		{
+			this.meanInterArrivalNanos = 0;
+			this.runSummary.setLoadModel(String.format("replay of a recorded input stream at %sx", replaySpeed));
+		}
+		else if (isOpenLoop)
+		{
+			Assert.isInRange("tps", tps, 1, Integer.MAX_VALUE);
+			this.meanInterArrivalNanos = 1_000_000_000.0 / tps;
+			this.runSummary.setLoadModel(String.format("open-loop, %s arrivals at %,d tx/s", arrival, tps));
+		}
+		else
+		{
+			this.meanInterArrivalNanos = 0;
+			this.runSummary.setLoadModel("closed-loop");
+		}
 	}
 
 	public void addPeriodic(PeriodicTx tx)
@@ -59,6 +121,90 @@ public class MixRunner
 		txPeriodic.add(tx);
 	}
 
+	/**
+	 * Sets the collector with the connection pool wait times, cleared at the
+	 * start of each run and reported with the run summary.
+	 */
+	public void setConnectionWaitStats(TxStatsCollector connWaitStats)
+	{
+		this.connWaitStats = connWaitStats;
+	}
+
+	/**
+	 * Sets a hook that each client runs on its own thread before its loop
+	 * starts, with the number of the client, e.g. to assign the client a
+	 * partition of the customers.
+	 */
+	public void setClientStartHook(IntConsumer clientStartHook)
+	{
+		this.clientStartHook = clientStartHook;
+	}
+
+	/**
+	 * Sets a hook that each client runs on its own thread when its loop ends,
+	 * e.g. to close the connection pinned to the client.
+	 */
+	public void setClientExitHook(Runnable clientExitHook)
+	{
+		this.clientExitHook = clientExitHook;
+	}
+
+	/**
+	 * Adds the collectors of the MEE (lag and settlement times), cleared at the
+	 * start of each run and reported with the run summary.
+	 */
+	public void addMeeStats(List<TxStatsCollector> stats)
+	{
+		meeStats.addAll(stats);
+	}
+
+	/**
+	 * Adds the statistics of the producers of pre-generated inputs, cleared at
+	 * the start of each run and reported with the run summary.
+	 */
+	public void addProducerStats(List<ProducerStats> stats)
+	{
+		producerStats.addAll(stats);
+	}
+
+	/**
+	 * Enables the per-interval metrics, written by the reporter every
+	 * <code>intervalSec</code> seconds while the mix is running.
+	 */
+	public void setIntervalReporter(IntervalReporter intervalReporter, long intervalSec)
+	{
+		Assert.isInRange("intervalSec", intervalSec, 1, Integer.MAX_VALUE);
+		this.intervalReporter = intervalReporter;
+		this.reportIntervalSec = intervalSec;
+	}
+
+	/**
+	 * Records the inputs of the transactions of the mix, with their scheduled
+	 * start, in every run.
+	 */
+	public void setInputRecorder(TxInputRecorder inputRecorder)
+	{
+		this.inputRecorder = inputRecorder;
+	}
+
+	/**
+	 * Replaces the mix with a recorded input stream: the clients run the
+	 * recorded transactions, with their recorded inputs, on the recorded
+	 * schedule compressed by <code>speed</code>, instead of dealing them from
+	 * the mix. A run ends at its deadline or at the end of the recorded run,
+	 * whichever comes first. Starts a new run summary.
+	 */
+	public void setReplay(TxInputReplay replay, double speed)
+	{
+		Assert.notNull("replay", replay);
+		Assert.isInRange("speed", speed, 0.01, 1000.0);
+
+		this.replay = replay;
+		this.replaySpeed = speed;
+
+		setLoad(numClients, 1);
+	}
+
 	public void addTx(TxBase tx, double mixPct)
 	{
 		txMix.add(ImmutablePair.of(tx, mixPct));
@@ -66,71 +212,155 @@ public class MixRunner
 
 	public void runTxMix(final long runDuration)
 	{
-		final double factor = getPctFactor();
+		// fails when the mix adds up to more than 100%
+		getPctFactor();
 
 		txMix.forEach(pair -> pair.left.clearStats());
 		txPeriodic.forEach(t -> t.getTx().clearStats());
+		if (connWaitStats != null)
+		{
+			connWaitStats.clearStats();
+		}
+		meeStats.forEach(s -> s.clearStats());
+		producerStats.forEach(s -> s.clearStats());
 
-		final ConcurrentNavigableMap<Double, TxBase> txMixRange = new ConcurrentSkipListMap<Double, TxBase>();
+		if (inputRecorder != null)
+		{
+			txMix.forEach(pair -> pair.left.setInputRecorder(inputRecorder));
+			inputRecorder.startRun(runDuration);
+		}
 
-		// populate a "range" map for the transactions
-		txMix.forEach(p -> {
-			TxBase tx = p.left;
-			double mixPct = p.right * factor;
-			Entry<Double, TxBase> lastTx = txMixRange.lastEntry();
+		// the deck scales a mix that adds up to less than 100%
+		final CardDeck<TxBase> txDeck = txMix.isEmpty() ? null : new CardDeck<>(txMix, CardDeck.DEFAULT_SIZE);
 
-			if (lastTx == null)
-			{
-				txMixRange.put(mixPct, tx);
-			}
-			else
-			{
-				double nextKey = lastTx.getKey() + mixPct;
-				txMixRange.put(nextKey, tx);
-			}
-		});
+		final AtomicBoolean isRunning = new AtomicBoolean(true);
 
-		final Runnable clientTx = () -> {
+		// Each simulated client is a closed loop: pick a transaction, run it,
+		// optionally wait, repeat until the run is over.
+		final int run = runNumber++;
 
-			long startTime = 0;
-			if (isPacingEnabled)
-			{
-				startTime = System.nanoTime();
-			}
+		final IntConsumer clientLoop = clientNumber -> {
 
-			// pick the nearest tx with a key > than a random number
-			final double p = rnd.randomDouble(0.0, 1.0);
-			final TxBase tx = txMixRange.ceilingEntry(p).getValue();
-			tx.execute();
-			transactionCounter.incrementAndGet();
+			final CardDeck.Dealer<TxBase> dealer = txDeck.newDealer(newClientRandom(run, clientNumber));
 
-			if (isPacingEnabled)
+			while (isRunning.get())
 			{
-				long endTime = System.nanoTime();
-				long transactionDurationNanos = endTime - startTime;
-				long waitTimeNanos = interTransactionDelayNanos - transactionDurationNanos;
+				long startTime = 0;
+				if (isPacingEnabled)
+				{
+					startTime = System.nanoTime();
+				}
+
+				final TxBase tx = dealer.next();
+				tx.execute();
+				transactionCounter.incrementAndGet();
 
-				if (waitTimeNanos > 0)
+				if (isPacingEnabled)
 				{
-					try
+					long endTime = System.nanoTime();
+					long transactionDurationNanos = endTime - startTime;
+					long waitTimeNanos = interTransactionDelayNanos - transactionDurationNanos;
+
+					if (waitTimeNanos > 0)
 					{
-						long waitMillis = waitTimeNanos / 1_000_000;
-						int waitNanos = (int) (waitTimeNanos % 1_000_000);
-						Thread.sleep(waitMillis, waitNanos);
+						try
+						{
+							long waitMillis = waitTimeNanos / 1_000_000;
+							int waitNanos = (int) (waitTimeNanos % 1_000_000);
+							Thread.sleep(waitMillis, waitNanos);
+						}
+						catch (InterruptedException e)
+						{
+							Thread.currentThread().interrupt();
+							return;
+						}
 					}
-					catch (InterruptedException e)
+				}
+
+				if (meanThinkTimeNanos > 0)
+				{
+					// negative exponential think time around the configured mean
+					long thinkNanos = ArrivalDistribution.POISSON.nextInterval(meanThinkTimeNanos);
+					if (!awaitArrival(System.nanoTime() + thinkNanos, isRunning))
 					{
-						Thread.currentThread().interrupt();
+						return;
 					}
 				}
 			}
 		};
 
+		// In open-loop mode the clients do not decide when to start a
+		// transaction. Arrivals follow a schedule that is independent of how
+		// fast the system responds; a client claims the next scheduled slot,
+		// waits for it and, if it is already late, starts right away. The
+		// response time is measured from the scheduled start.
+		final AtomicLong nextArrival = new AtomicLong(System.nanoTime());
+		final long runDeadline = nextArrival.get() + TimeUnit.SECONDS.toNanos(runDuration);
+
+		final IntConsumer openLoopClient = clientNumber -> {
+
+			final CardDeck.Dealer<TxBase> dealer = txDeck.newDealer(newClientRandom(run, clientNumber));
+
+			while (isRunning.get())
+			{
+				final long intendedStart = nextArrival.getAndAdd(arrival.nextInterval(meanInterArrivalNanos));
+
+				if (!awaitArrival(intendedStart, isRunning))
+				{
+					countDropped(intendedStart, runDeadline);
+					return;
+				}
+
+				final TxBase tx = dealer.next();
+				tx.execute(intendedStart);
+				transactionCounter.incrementAndGet();
+			}
+		};
+
+		// A replay follows the recorded schedule: the clients take the
+		// recorded inputs in order and start each one at its recorded offset
+		// from the start of the run, or right away when they are late, like
+		// the open-loop clients.
+		final Map<String, TxBase> txByName = new HashMap<>();
+		txMix.forEach(pair -> txByName.put(pair.left.name(), pair.left));
+		final long replayStart = System.nanoTime();
+
+		final IntConsumer replayClient = clientNumber -> {
+
+			while (isRunning.get())
+			{
+				final RecordedInput recorded = replay.next();
+
+				if (recorded == null)
+				{
+					return;
+				}
+
+				final TxBase tx = txByName.get(recorded.txName);
+
+				if (tx == null)
+				{
+					continue;
+				}
+
+				final long intendedStart = replayStart + (long) (recorded.offsetNanos / replaySpeed);
+
+				if (!awaitArrival(intendedStart, isRunning))
+				{
+					countDropped(intendedStart, runDeadline);
+					return;
+				}
+
+				tx.replay(intendedStart, recorded.txInput);
+				transactionCounter.incrementAndGet();
+			}
+		};
+
 		final ScheduledExecutorService schedExec = Executors.newScheduledThreadPool(1);
-		final AtomicBoolean isRunning = new AtomicBoolean(true);
 
 		schedExec.schedule(() -> isRunning.set(false), runDuration, TimeUnit.SECONDS);
 		transactionCounter.set(0); // Reset counter for the run
+		droppedArrivals.set(0);
 		final long startTime = System.currentTimeMillis();
 		final long totalDurationMs = runDuration * 1000;
 
@@ -165,31 +395,166 @@ public class MixRunner
 
 		});
 
-		final ExecutorService clients = ThreadPoolBuilder.newThreadPool(numClients, "run-loader");
+		if (intervalReporter != null)
+		{
+			List<TxBase> runTxs = new ArrayList<>();
+			txMix.forEach(p -> runTxs.add(p.left));
+			txPeriodic.forEach(t -> runTxs.add(t.getTx()));
+
+			intervalReporter.startRun(runTxs);
+			schedExec.scheduleAtFixedRate(intervalReporter::report, reportIntervalSec, reportIntervalSec, TimeUnit.SECONDS);
+		}
+
+		final ExecutorService clients = useVirtualThreads ? ThreadPoolBuilder.newVirtualThreadPool("run-client") : ThreadPoolBuilder.newClientPool(numClients, "run-client");
 
-		if (txMixRange.size() > 0)
+		try
 		{
-			while (isRunning.get())
+			if (txDeck != null)
 			{
-				clients.execute(clientTx);
+				final List<Future<?>> clientLoops = new ArrayList<>(numClients);
+				final IntConsumer client = (replay != null) ? replayClient : (isOpenLoop ? openLoopClient : clientLoop);
+				final IntConsumer startHook = clientStartHook;
+				final Runnable exitHook = clientExitHook;
+
+				for (int i = 0; i < numClients; i++)
+				{
+					final int clientNumber = i;
+
+					clientLoops.add(clients.submit(() -> {
+						try
+						{
+							if (startHook != null)
+							{
+								startHook.accept(clientNumber);
+							}
+							client.accept(clientNumber);
+						}
+						finally
+						{
+							if (exitHook != null)
+							{
+								exitHook.run();
+							}
+						}
+					}));
+				}
+
+				// The client loops only return after the deadline, when "isRunning" is
+				// cleared and the transaction in flight completes.
+				for (Future<?> loop : clientLoops)
+				{
+					awaitClientLoop(loop);
+				}
+				System.out.println("");
+
+				// the arrivals that were due before the deadline but that no
+				// client got to claim: the backlog of the run
+				if (replay != null)
+				{
+					RecordedInput recorded;
+					while ((recorded = replay.next()) != null && countDropped(replayStart + (long) (recorded.offsetNanos / replaySpeed), runDeadline))
+					{
+					}
+				}
+				else if (isOpenLoop)
+				{
+					long intendedStart = nextArrival.get();
+					while (countDropped(intendedStart, runDeadline))
+					{
+						intendedStart += arrival.nextInterval(meanInterArrivalNanos);
+					}
+				}
+
+				if (droppedArrivals.get() > 0)
+				{
+					log.warn("{} scheduled transactions were not started before the end of the run", droppedArrivals.get());
+				}
 			}
-			System.out.println("");
+			else
+			{
+				log.warn("No transaction in the mix");
+			}
+
+			if (intervalReporter != null)
+			{
+				// stop the periodic reports and write the last (partial) interval
+				schedExec.shutdown();
+				intervalReporter.report();
+			}
+
+			// Print a final 100% line to ensure it's complete
+			progressReporter.run();
+			System.out.println(); // Move to the next line after the progress bar is done
 		}
-		else
+		finally
 		{
-			log.warn("No transaction in the mix");
+			isRunning.set(false);
+			schedExec.shutdown();
+			clients.shutdown();
 		}
+	}
 
-		schedExec.shutdown();
-		clients.shutdown();
+	/**
+	 * @return the random generator of the deck of a client, which only depends
+	 *         on the seed, the run and the client, so that every client deals
+	 *         the same transactions in the same order from one execution of the
+	 *         benchmark to the next
+	 */
+	private SplittableRandom newClientRandom(int run, int clientNumber)
+	{
+		return new SplittableRandom(seed + ((long) run << 32) + clientNumber);
+	}
 
-		try
+	/**
+	 * Counts a scheduled arrival that was not started, if it was due before the
+	 * end of the run.
+	 *
+	 * @return false if the arrival was not due
+	 */
+	private boolean countDropped(long intendedStart, long runDeadline)
+	{
+		if (intendedStart - runDeadline > 0)
 		{
-			clients.awaitTermination(runDuration, TimeUnit.SECONDS);
+			return false;
+		}
 
-			// Print a final 100% line to ensure it's complete
-			progressReporter.run();
-			System.out.println(); // Move to the next line after the progress bar is done
+		droppedArrivals.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Parks the calling thread until the scheduled arrival (or end of think)
+	 * time.
+	 *
+	 * @return false if the run ended (or the thread was interrupted) before the
+	 *         arrival time was reached
+	 */
+	private boolean awaitArrival(long intendedStart, AtomicBoolean isRunning)
+	{
+		long waitNanos = intendedStart - System.nanoTime();
+
+		while (waitNanos > 0)
+		{
+			if (!isRunning.get() || Thread.currentThread().isInterrupted())
+			{
+				return false;
+			}
+			LockSupport.parkNanos(Math.min(waitNanos, MAX_ARRIVAL_PARK_NANOS));
+			waitNanos = intendedStart - System.nanoTime();
+		}
+
+		return isRunning.get();
+	}
+
+	private void awaitClientLoop(Future<?> clientLoop)
+	{
+		try
+		{
+			clientLoop.get();
+		}
+		catch (ExecutionException ee)
+		{
+			log.error("Client loop terminated abnormally", ee.getCause());
 		}
 		catch (InterruptedException ie)
 		{
@@ -211,6 +576,18 @@ public class MixRunner
 		return factor;
 	}
 
+	/**
+	 * @return a snapshot of the statistics of every transaction, safe to call
+	 *         while the mix is running
+	 */
+	public List<TxSummary> getLiveStats()
+	{
+		List<TxSummary> stats = new ArrayList<>();
+		txMix.forEach(p -> stats.add(p.left.getStats()));
+		txPeriodic.forEach(t -> stats.add(t.getTx().getStats()));
+		return stats;
+	}
+
 	public TxRunSummary buildSummary()
 	{
 		runSummary.clearSummary();
@@ -238,6 +615,16 @@ public class MixRunner
 			runSummary.addTxSummary(t);
 		});
 
+		if (connWaitStats != null)
+		{
+			runSummary.setConnectionWait(connWaitStats.getStats());
+		}
+
+		runSummary.setDroppedArrivals((isOpenLoop || replay != null) ? droppedArrivals.get() : -1);
+
+		meeStats.forEach(s -> runSummary.addMeeSummary(s.getStats()));
+		producerStats.forEach(s -> runSummary.addProducerSummary(s.getSummary()));
+
 		return runSummary;
 	}
 }
@@ -0,0 +1,58 @@
+package org.oltp1.runner.perf;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.oltp1.common.Assert;
+
+/**
+ * Decides which transactions keep their full output payload, the result
+ * lists that are only ever printed when a transaction logs an error or a
+ * warning.
+ * <p>
+ * By default every transaction keeps its payload. In discard mode only a
+ * sampled fraction of the transactions does; the others stream through
+ * their result sets, validating the row counts required by the
+ * specification without building the lists. The decision is taken once per
+ * transaction, when its {@link TxOutput} is created.
+ */
+public final class OutputSampler
+{
+	private static volatile double sampleRate = 1.0;
+
+	private OutputSampler()
+	{
+	}
+
+	/**
+	 * Enables the discard mode.
+	 *
+	 * @param rate
+	 *            the fraction of the transactions that still keep their
+	 *            payload, between 0 and 1
+	 */
+	public static void discard(double rate)
+	{
+		Assert.isInRange("output sample rate", rate, 0.0, 1.0);
+		sampleRate = rate;
+	}
+
+	public static boolean isDiscarding()
+	{
+		return sampleRate < 1.0;
+	}
+
+	static boolean sample()
+	{
+		final double rate = sampleRate;
+
+		if (rate >= 1.0)
+		{
+			return true;
+		}
+		if (rate <= 0.0)
+		{
+			return false;
+		}
+		return ThreadLocalRandom.current().nextDouble() < rate;
+	}
+}
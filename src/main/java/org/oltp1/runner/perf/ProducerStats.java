@@ -0,0 +1,51 @@
+package org.oltp1.runner.perf;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the statistics of a background producer of transaction inputs:
+ * the time it takes to generate each input, and the number of times a client
+ * found no input ready and had to generate its own.
+ */
+public class ProducerStats
+{
+	private final String name;
+	// a single producer thread records the generation times
+	private final LatencyRecorder generationTimes = new LatencyRecorder(1);
+	private final LongAdder misses = new LongAdder();
+	private volatile long startNanos = System.nanoTime();
+
+	public ProducerStats(String name)
+	{
+		super();
+		this.name = name;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public final void addGenerationTime(long nanos)
+	{
+		generationTimes.recordNanos(nanos);
+	}
+
+	public final void incrementMisses()
+	{
+		misses.increment();
+	}
+
+	public final void clearStats()
+	{
+		generationTimes.reset();
+		misses.reset();
+		startNanos = System.nanoTime();
+	}
+
+	public final ProducerSummary getSummary()
+	{
+		final double elapsedSec = (System.nanoTime() - startNanos) / 1000000000.0;
+		return new ProducerSummary(name, generationTimes.snapshot(), misses.sum(), elapsedSec);
+	}
+}
@@ -0,0 +1,71 @@
+package org.oltp1.runner.perf;
+
+/**
+ * Statistics of a background producer of transaction inputs over a run.
+ */
+public class ProducerSummary
+{
+	private final String name;
+	private final LatencyHistogram histo;
+	private final long missCount;
+	private final double elapsedSec;
+
+	protected ProducerSummary(String name, LatencyHistogram histo, long missCount, double elapsedSec)
+	{
+		super();
+		this.name = name;
+		this.histo = histo;
+		this.missCount = missCount;
+		this.elapsedSec = elapsedSec;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * @return the number of inputs generated by the producer
+	 */
+	public long getCount()
+	{
+		return histo.getCount();
+	}
+
+	/**
+	 * @return the number of inputs generated per second, which follows the
+	 *         demand of the clients as long as the producer keeps up
+	 */
+	public double getRate()
+	{
+		return (elapsedSec > 0) ? getCount() / elapsedSec : 0.0;
+	}
+
+	/**
+	 * @return the number of inputs per second the producer could generate if
+	 *         it never waited for the clients
+	 */
+	public double getCapacity()
+	{
+		return (getCount() > 0 && histo.getMean() > 0) ? 1000.0 / histo.getMean() : 0.0;
+	}
+
+	/**
+	 * @return the number of times a client found no input ready and generated
+	 *         its own, zero unless the producer is a bottleneck
+	 */
+	public long getMissCount()
+	{
+		return missCount;
+	}
+
+	public double getMean()
+	{
+		return histo.getMean();
+	}
+
+	public double getQuantile(double q)
+	{
+		return histo.getQuantile(q);
+	}
+}
@@ -0,0 +1,20 @@
+package org.oltp1.runner.perf;
+
+/**
+ * A transaction input read back from a recording, with its scheduled start
+ * relative to the start of its run.
+ */
+public final class RecordedInput
+{
+	public final String txName;
+	public final long offsetNanos;
+	public final Object txInput;
+
+	public RecordedInput(String txName, long offsetNanos, Object txInput)
+	{
+		super();
+		this.txName = txName;
+		this.offsetNanos = offsetNanos;
+		this.txInput = txInput;
+	}
+}
@@ -1,15 +1,75 @@
 package org.oltp1.runner.perf;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ThreadPoolBuilder
 {
+	// the task queue of the fixed pools holds this many tasks per thread
+	public static final int QUEUE_FACTOR = 50;
+
+	/**
+	 * Creates a fixed pool with a bounded task queue. Submissions beyond the
+	 * queue capacity are rejected: callers are expected to bound the number of
+	 * tasks in flight themselves.
+	 */
 	public static ThreadPoolExecutor newThreadPool(int maxThreads, String threadPrefix)
 	{
-		// ThreadFactory tf = new DefaultThreadFactory(threadPrefix);
-		ThreadPoolExecutor exec_srv = new ThreadPoolExecutor(maxThreads, maxThreads, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(50 * maxThreads), new ThreadPoolExecutor.CallerRunsPolicy());
+		return newThreadPool(maxThreads, maxThreads, threadPrefix);
+	}
+
+	/**
+	 * Creates a fixed pool of <code>threads</code> threads whose size may later
+	 * be raised up to <code>maxThreads</code>. The task queue is sized for
+	 * <code>maxThreads</code>, since it cannot grow with the pool.
+	 */
+	public static ThreadPoolExecutor newThreadPool(int threads, int maxThreads, String threadPrefix)
+	{
+		ThreadFactory tf = new NamedThreadFactory(threadPrefix);
+		ThreadPoolExecutor exec_srv = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(QUEUE_FACTOR * maxThreads), tf, new ThreadPoolExecutor.AbortPolicy());
 		return exec_srv;
 	}
+
+	/**
+	 * Creates a pool with exactly one thread per simulated client. The pool has
+	 * no task queue worth mentioning: each client submits a single long-lived
+	 * loop that only returns when the run is over.
+	 */
+	public static ExecutorService newClientPool(int clients, String threadPrefix)
+	{
+		return Executors.newFixedThreadPool(clients, new NamedThreadFactory(threadPrefix));
+	}
+
+	/**
+	 * Creates an executor that starts a new virtual thread for each task. Used
+	 * instead of the fixed pools when simulating very large numbers of clients,
+	 * most of whom are idle in think time at any given moment.
+	 */
+	public static ExecutorService newVirtualThreadPool(String threadPrefix)
+	{
+		ThreadFactory tf = Thread.ofVirtual().name(threadPrefix + "-", 1).factory();
+		return Executors.newThreadPerTaskExecutor(tf);
+	}
+
+	private static class NamedThreadFactory implements ThreadFactory
+	{
+		private final AtomicInteger threadCounter = new AtomicInteger();
+		private final String threadPrefix;
+
+		public NamedThreadFactory(String threadPrefix)
+		{
+			this.threadPrefix = threadPrefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			return new Thread(r, String.format("%s-%d", threadPrefix, threadCounter.incrementAndGet()));
+		}
+	}
 }
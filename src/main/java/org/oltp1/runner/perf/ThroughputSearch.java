@@ -0,0 +1,245 @@
+package org.oltp1.runner.perf;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.oltp1.common.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Searches for the highest load at which every transaction type still meets
+ * its 90th percentile response time limit.
+ * <p>
+ * The load (number of clients, or arrival rate in open-loop mode) is doubled
+ * until a step fails, then the interval between the last passing and the
+ * first failing step is bisected until it is narrower than 5% of the load.
+ * Each step lets the system settle at the new load before measuring. The
+ * same {@link MixRunner}, and therefore the same input generators, are used
+ * for every step.
+ */
+public class ThroughputSearch
+{
+	private static Logger log = LoggerFactory.getLogger(ThroughputSearch.class);
+
+	// TPC-E 90th percentile response time limits, in milliseconds
+	private static final Map<String, Double> P90_LIMITS = Map
+			.of(
+					"Broker-Volume", 3000.0,
+					"Customer-Position", 3000.0,
+					"Market-Feed", 2000.0,
+					"Market-Watch", 3000.0,
+					"Security-Detail", 3000.0,
+					"Trade-Lookup", 3000.0,
+					"Trade-Order", 2000.0,
+					"Trade-Result", 2000.0,
+					"Trade-Status", 1000.0,
+					"Trade-Update", 3000.0);
+
+	// open-loop steps must deliver at least this fraction of the offered rate
+	private static final double MIN_ACHIEVED_RATE = 0.95;
+
+	private static final double RESOLUTION = 0.05;
+
+	public static class Step
+	{
+		public final int load;
+		public final double txRate;
+		public final boolean isPassed;
+		public final String reason;
+		public final TxRunSummary summary;
+
+		public Step(int load, double txRate, boolean isPassed, String reason, TxRunSummary summary)
+		{
+			super();
+			this.load = load;
+			this.txRate = txRate;
+			this.isPassed = isPassed;
+			this.reason = reason;
+			this.summary = summary;
+		}
+	}
+
+	private final MixRunner runner;
+	private final boolean isOpenLoop;
+	private final int startLoad;
+	private final int maxLoad;
+	private final int tps;
+	private final int clients;
+	private final long settleSec;
+	private final long measureSec;
+	private final List<Step> steps = new ArrayList<>();
+
+	/**
+	 * @param runner
+	 *            the mix runner, with all the transactions added
+	 * @param params
+	 *            the mix parameters; <code>clients</code> (closed-loop) or
+	 *            <code>tps</code> (open-loop) is the starting load
+	 * @param maxLoad
+	 *            the highest load to try
+	 * @param stepSec
+	 *            the measurement time of each step, in seconds
+	 */
+	public ThroughputSearch(MixRunner runner, MixParameters params, int maxLoad, long stepSec)
+	{
+		this.runner = runner;
+		this.isOpenLoop = params.isOpenLoop;
+		this.tps = params.tps;
+		this.clients = params.clients;
+		this.startLoad = isOpenLoop ? params.tps : params.clients;
+		this.maxLoad = maxLoad;
+		this.measureSec = stepSec;
+		this.settleSec = Math.max(5, stepSec / 4);
+
+		Assert.isInRange("maxLoad", maxLoad, startLoad, Integer.MAX_VALUE);
+		Assert.isInRange("stepSec", stepSec, 5, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return the highest passing step, or null if the starting load already
+	 *         fails
+	 */
+	public Step run()
+	{
+		Step lastPass = null;
+		Step firstFail = null;
+
+		int load = startLoad;
+
+		while (true)
+		{
+			Step step = runStep(load);
+
+			if (step.isPassed)
+			{
+				lastPass = step;
+				if (load >= maxLoad)
+				{
+					break;
+				}
+				load = (int) Math.min((long) load * 2, maxLoad);
+			}
+			else
+			{
+				firstFail = step;
+				break;
+			}
+		}
+
+		if (lastPass == null || firstFail == null)
+		{
+			return lastPass;
+		}
+
+		int lo = lastPass.load;
+		int hi = firstFail.load;
+
+		while ((hi - lo) > Math.max(1, (int) (lo * RESOLUTION)))
+		{
+			int mid = lo + (hi - lo) / 2;
+			Step step = runStep(mid);
+
+			if (step.isPassed)
+			{
+				lo = mid;
+				lastPass = step;
+			}
+			else
+			{
+				hi = mid;
+			}
+		}
+
+		return lastPass;
+	}
+
+	public List<Step> getSteps()
+	{
+		return Collections.unmodifiableList(steps);
+	}
+
+	private Step runStep(int load)
+	{
+		if (isOpenLoop)
+		{
+			runner.setLoad(clients, load);
+		}
+		else
+		{
+			runner.setLoad(load, tps);
+		}
+
+		log.info("Search step: {} {} (settle: {}s, measure: {}s)", load, loadUnit(), settleSec, measureSec);
+
+		runner.runTxMix(settleSec);
+		runner.runTxMix(measureSec);
+
+		TxRunSummary summary = runner.buildSummary();
+		Step step = evaluate(load, summary);
+		steps.add(step);
+
+		log.info("Search step: {} {} -> {} tx/s, {}", load, loadUnit(), String.format("%.2f", step.txRate), step.isPassed ? "PASS" : "FAIL (" + step.reason + ")");
+
+		return step;
+	}
+
+	private Step evaluate(int load, TxRunSummary summary)
+	{
+		final long minTs = summary.getTxStats().stream().mapToLong(t -> t.getMinTs()).min().orElse(0L);
+		final long maxTs = summary.getTxStats().stream().mapToLong(t -> t.getMaxTs()).max().orElse(0L);
+		final long totalTx = summary.getTxStats().stream().mapToLong(t -> t.getCount()).sum();
+		final double elapsedSec = (maxTs - minTs) / 1_000_000_000.0;
+		final double txRate = (elapsedSec > 0) ? totalTx / elapsedSec : 0.0;
+
+		for (TxSummary tx : summary.getTxStats())
+		{
+			Double limit = P90_LIMITS.get(tx.getTxName());
+			if (limit == null || tx.getCount() == 0)
+			{
+				continue;
+			}
+
+			double p90 = tx.getQuantile(0.9);
+			if (p90 > limit)
+			{
+				return new Step(load, txRate, false, String.format("%s p90 %.0fms > %.0fms", tx.getTxName(), p90, limit), summary);
+			}
+		}
+
+		if (isOpenLoop && txRate < load * MIN_ACHIEVED_RATE)
+		{
+			return new Step(load, txRate, false, String.format("achieved %.0f of %d tx/s", txRate, load), summary);
+		}
+
+		return new Step(load, txRate, true, "", summary);
+	}
+
+	private String loadUnit()
+	{
+		return isOpenLoop ? "tx/s offered" : "clients";
+	}
+
+	public void printSteps(PrintWriter pw)
+	{
+		pw.println();
+		pw.println("Throughput search");
+		pw.print(StringUtils.leftPad(isOpenLoop ? "Offered(tx/s)" : "Clients", 14, " "));
+		pw.print(StringUtils.leftPad("Rate(tx/sec)", 14, " "));
+		pw.print(StringUtils.leftPad("Result", 8, " "));
+		pw.println("  Reason");
+
+		steps.forEach(step -> {
+			pw.print(StringUtils.leftPad(String.valueOf(step.load), 14, " "));
+			pw.print(StringUtils.leftPad(String.format("%.2f", step.txRate), 14, " "));
+			pw.print(StringUtils.leftPad(step.isPassed ? "PASS" : "FAIL", 8, " "));
+			pw.println("  " + step.reason);
+		});
+
+		pw.flush();
+	}
+}
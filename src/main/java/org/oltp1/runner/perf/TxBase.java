@@ -1,7 +1,16 @@
 package org.oltp1.runner.perf;
 
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
 import org.oltp1.common.Assert;
 import org.oltp1.common.ErrorCtx;
+import org.oltp1.runner.db.DbSession;
+import org.oltp1.runner.db.DbStatement;
+import org.oltp1.runner.db.RetryPolicy;
+import org.oltp1.runner.db.SqlProbe;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,11 +18,19 @@ public abstract class TxBase implements Tx
 {
 	private static Logger log = LoggerFactory.getLogger(TxBase.class);
 
+	private static final String[] FRAME_NAMES = { "Frame-0", "Frame-1", "Frame-2", "Frame-3", "Frame-4", "Frame-5", "Frame-6" };
+
 	private boolean isLoggingEnabled;
 
 	private final String txName;
 	private final TxStatsCollector statCollector;
 
+	private RetryPolicy retryPolicy;
+	private volatile TxInputRecorder inputRecorder;
+	// the input of the transaction being executed, kept for its retries and
+	// its recording, or given by a replay
+	private final ThreadLocal<Object> retainedInput = new ThreadLocal<>();
+
 	public TxBase(TxStatsCollector statCollector)
 	{
 		this(statCollector, true);
@@ -44,19 +61,79 @@ public abstract class TxBase implements Tx
 		}
 
 		final long start = System.nanoTime();
-		statCollector.offerMinTs(start);
+		return execute(start, start);
+	}
+
+	/**
+	 * Executes the transaction on behalf of an open-loop schedule. The response
+	 * time is measured from the time the transaction was supposed to start, so
+	 * that any time spent waiting for a free client is not hidden from the
+	 * results. That waiting time is also recorded on its own as queue delay.
+	 *
+	 * @param intendedStart
+	 *            the {@link System#nanoTime()} at which the transaction was
+	 *            scheduled to start
+	 */
+	public final TxOutput execute(long intendedStart)
+	{
+		if (this instanceof TxVoid)
+		{
+			return run();
+		}
+
+		final long start = System.nanoTime();
+		statCollector.addQueueDelay(Math.max(0L, start - intendedStart) / 1000000.0);
+
+		return execute(intendedStart, start);
+	}
+
+	/**
+	 * Executes the transaction with a recorded input instead of one taken from
+	 * its source (see {@link TxInputReplay}), on behalf of an open-loop
+	 * schedule.
+	 */
+	public final TxOutput replay(long intendedStart, Object txInput)
+	{
+		if (this instanceof TxVoid)
+		{
+			return run();
+		}
+
+		retainedInput.set(txInput);
+		return execute(intendedStart);
+	}
+
+	private TxOutput execute(final long intendedStart, final long start)
+	{
+		statCollector.offerMinTs(intendedStart);
 
 		try
 		{
-			TxOutput txOut = run();
+			TxOutput txOut = runProbed();
+			int retries = 0;
+
+			while (isRetried(txOut, retries + 1))
+			{
+				retries++;
+				if (!backoff(retries))
+				{
+					break;
+				}
+				txOut = runProbed();
+			}
 
 			final long stop = System.nanoTime();
-			double txTime = (stop - start) / 1000000.0;
+			double txTime = (stop - intendedStart) / 1000000.0;
 			txOut.setTxTime(txTime);
 
 			statCollector.offerMaxTs(stop);
 			statCollector.addValue(txOut.getTxTime());
 
+			if (retries > 0)
+			{
+				statCollector.addRetried(retries, txOut.getTxTime());
+			}
+
 			if (txOut.getStatus() < 0)
 			{
 				statCollector.incrementErrors();
@@ -80,7 +157,7 @@ public abstract class TxBase implements Tx
 		catch (Throwable t)
 		{
 			final long stop = System.nanoTime();
-			final double elapsed = stop - start;
+			final double elapsed = (stop - intendedStart) / 1000000.0;
 
 			statCollector.incrementErrors();
 			statCollector.offerMaxTs(stop);
@@ -99,10 +176,148 @@ public abstract class TxBase implements Tx
 
 			return txError;
 		}
+		finally
+		{
+			final Object txInput = retainedInput.get();
+			retainedInput.remove();
+
+			// after the stop time, so that the recording is not part of the
+			// response time
+			final TxInputRecorder recorder = inputRecorder;
+			if (recorder != null && txInput != null)
+			{
+				recorder.record(txName, intendedStart, txInput);
+			}
+		}
+	}
+
+	private boolean isRetried(TxOutput txOut, int attempts)
+	{
+		return retryPolicy != null && txOut.getStatus() < 0 && retryPolicy.shouldRetry(txOut.getFailure(), attempts);
+	}
+
+	/**
+	 * Waits before a retry.
+	 *
+	 * @return false if the thread was interrupted, and the retry abandoned
+	 */
+	private boolean backoff(int retry)
+	{
+		final long millis = retryPolicy.backoffMillis(retry);
+
+		if (millis > 0)
+		{
+			try
+			{
+				Thread.sleep(millis);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private TxOutput runProbed()
+	{
+		SqlProbe.begin(statCollector);
+		try
+		{
+			return run();
+		}
+		finally
+		{
+			SqlProbe.end();
+		}
 	}
 
 	protected abstract TxOutput run();
 
+	/**
+	 * Retries the transaction when it fails with an error that the policy
+	 * deems retryable. Failed transactions are not retried when null.
+	 */
+	protected final void setRetryPolicy(RetryPolicy retryPolicy)
+	{
+		this.retryPolicy = retryPolicy;
+	}
+
+	/**
+	 * Records the input of every execution of the transaction. Nothing is
+	 * recorded when null.
+	 */
+	public final void setInputRecorder(TxInputRecorder inputRecorder)
+	{
+		this.inputRecorder = inputRecorder;
+	}
+
+	/**
+	 * Takes the input of the transaction from the source, except on a retry
+	 * where the input of the failed attempt is used again, and on a replay
+	 * where the input is the recorded one. The transaction must not change the
+	 * input: the retries and the recording see it as it was generated.
+	 */
+	protected final <I> I input(Supplier<I> source)
+	{
+		@SuppressWarnings("unchecked")
+		I txInput = (I) retainedInput.get();
+
+		if (txInput == null)
+		{
+			txInput = source.get();
+			retainedInput.set(txInput);
+		}
+
+		return txInput;
+	}
+
+	/**
+	 * Marks the start of a transaction frame, and the end of the previous one.
+	 * Only has an effect when frame statistics are enabled.
+	 */
+	protected final void frame(int frameNumber)
+	{
+		SqlProbe.startFrame(FRAME_NAMES[frameNumber]);
+	}
+
+	/**
+	 * Marks the start of a frame of a transaction that defers statements (see
+	 * {@link DbSession#defer(String)}). When frame statistics are enabled, the
+	 * statements deferred by the previous frame are executed first, so that
+	 * they are charged to the frame that issued them rather than to the next
+	 * one; they are then not batched with the statements of the next frame.
+	 */
+	protected final void frame(DbSession session, int frameNumber)
+	{
+		if (SqlProbe.isEnabled())
+		{
+			session.flush();
+		}
+		frame(frameNumber);
+	}
+
+	/**
+	 * Executes a query whose rows are only part of the output payload. The
+	 * rows are handed to the payload consumer when the transaction keeps its
+	 * payload, otherwise they are only counted (see {@link OutputSampler}).
+	 *
+	 * @return the number of rows
+	 */
+	protected static int fetchPayload(DbStatement query, TxOutput txOutput, Consumer<List<Map<String, Object>>> payload)
+	{
+		if (txOutput.isPayloadKept())
+		{
+			final List<Map<String, Object>> rows = query.fetchMaps();
+			payload.accept(rows);
+			return rows.size();
+		}
+
+		return query.fetchCount();
+	}
+
 	public void clearStats()
 	{
 		statCollector.clearStats();
@@ -113,6 +328,11 @@ public abstract class TxBase implements Tx
 		return statCollector.getStats();
 	}
 
+	public TxIntervalSummary getIntervalStats()
+	{
+		return statCollector.getIntervalStats();
+	}
+
 	public void incrementErrors()
 	{
 		statCollector.incrementErrors();
@@ -1,17 +1,16 @@
 package org.oltp1.runner.perf;
 
 import org.oltp1.common.ErrorAnalyser;
+import org.oltp1.runner.db.DbSession;
 import org.oltp1.runner.db.SqlContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.sql2o.Connection;
-import org.sql2o.Sql2o;
 
 public class TxBaseLine extends TxBase
 {
 	private static Logger log = LoggerFactory.getLogger(TxBaseLine.class);
 
-	private final Sql2o sql2o;
+	private final SqlContext sqlCtx;
 	private final String baselineQuery;
 
 	public TxBaseLine(SqlContext sqlCtx)
@@ -22,16 +21,19 @@ public class TxBaseLine extends TxBase
 	public TxBaseLine(SqlContext sqlCtx, String txName)
 	{
 		super(new TxStatsCollector(txName));
-		sql2o = sqlCtx.getSql2o();
+		this.sqlCtx = sqlCtx;
 		baselineQuery = sqlCtx.getSqlEngine().getBaselineQuery();
 	}
 
 	@Override
 	public TxOutput run()
 	{
-		try (Connection con = sql2o.open())
+		// the same session as the other transactions, so that the baseline
+		// runs on the connection pinned to the client when there is one
+		try (DbSession session = sqlCtx.beginTransaction())
 		{
-			int ret = con.createQuery(baselineQuery).executeScalar(Integer.class);
+			int ret = session.prepare(baselineQuery).fetchScalar(Integer.class);
+			session.commit();
 			return new TxBaseLineOutput(ret);
 		}
 		catch (Throwable t)
@@ -0,0 +1,28 @@
+package org.oltp1.runner.perf;
+
+/**
+ * Records the inputs of the transactions of the mix, with the time each
+ * transaction was scheduled to start, so that a run can be replayed with the
+ * same input stream (see {@link TxInputReplay}).
+ */
+public interface TxInputRecorder
+{
+	/**
+	 * Marks the start of a run of the mix; the start times of the inputs
+	 * recorded until the next run are relative to this call.
+	 *
+	 * @param runDurationSec
+	 *            the planned duration of the run
+	 */
+	public void startRun(long runDurationSec);
+
+	/**
+	 * Records the input of a transaction. Called by the client thread once the
+	 * transaction is complete, so it must not throw and must be cheap.
+	 *
+	 * @param intendedStart
+	 *            the {@link System#nanoTime()} at which the transaction was
+	 *            scheduled to start
+	 */
+	public void record(String txName, long intendedStart, Object txInput);
+}
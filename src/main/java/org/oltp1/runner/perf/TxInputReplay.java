@@ -0,0 +1,23 @@
+package org.oltp1.runner.perf;
+
+/**
+ * A stream of recorded transaction inputs (see {@link TxInputRecorder}),
+ * split into the runs of the recording. Shared by all the clients, which take
+ * the inputs in their recorded order.
+ */
+public interface TxInputReplay
+{
+	/**
+	 * Moves to the next recorded run, skipping what is left of the current
+	 * one.
+	 *
+	 * @return the planned duration of the run in seconds, or -1 when there is
+	 *         no run left
+	 */
+	public long nextRun();
+
+	/**
+	 * @return the next input of the current run, or null at its end
+	 */
+	public RecordedInput next();
+}
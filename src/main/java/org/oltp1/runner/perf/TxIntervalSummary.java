@@ -0,0 +1,51 @@
+package org.oltp1.runner.perf;
+
+/**
+ * Statistics of a transaction type over a single reporting interval.
+ */
+public class TxIntervalSummary
+{
+	private final String txName;
+	private final LatencyHistogram histo;
+	private final long errorCount;
+	private final long rollbackCount;
+
+	protected TxIntervalSummary(String txName, LatencyHistogram histo, long errorCount, long rollbackCount)
+	{
+		super();
+		this.txName = txName;
+		this.histo = histo;
+		this.errorCount = errorCount;
+		this.rollbackCount = rollbackCount;
+	}
+
+	public String getTxName()
+	{
+		return txName;
+	}
+
+	public long getCount()
+	{
+		return histo.getCount();
+	}
+
+	public long getErrorCount()
+	{
+		return errorCount;
+	}
+
+	public long getRollbackCount()
+	{
+		return rollbackCount;
+	}
+
+	public double getMax()
+	{
+		return histo.getMax();
+	}
+
+	public double getQuantile(double q)
+	{
+		return histo.getQuantile(q);
+	}
+}
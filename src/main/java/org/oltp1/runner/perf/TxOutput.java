@@ -7,6 +7,8 @@ public class TxOutput
 	private int status;
 	private String statusMessage;
 	private double txTime;
+	private Throwable failure;
+	private final boolean isPayloadKept = OutputSampler.sample();
 
 	public TxOutput(int status)
 	{
@@ -31,6 +33,15 @@ public class TxOutput
 		}
 	}
 
+	/**
+	 * @return true when the transaction builds its full result lists, false
+	 *         when it only counts the rows (see {@link OutputSampler})
+	 */
+	public boolean isPayloadKept()
+	{
+		return isPayloadKept;
+	}
+
 	public double getTxTime()
 	{
 		return (txTime);
@@ -50,4 +61,18 @@ public class TxOutput
 	{
 		this.txTime = txTime;
 	}
+
+	/**
+	 * @return the exception that made the transaction fail, if any, used to
+	 *         decide whether it is retried
+	 */
+	public Throwable getFailure()
+	{
+		return failure;
+	}
+
+	public void setFailure(Throwable failure)
+	{
+		this.failure = failure;
+	}
 }
\ No newline at end of file
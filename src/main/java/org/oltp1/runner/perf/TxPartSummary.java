@@ -0,0 +1,63 @@
+package org.oltp1.runner.perf;
+
+/**
+ * Statistics of a part of a transaction: a frame or the statements issued
+ * for a query.
+ */
+public class TxPartSummary
+{
+	private final String name;
+	private final LatencyHistogram histo;
+	private final long statementCount;
+
+	protected TxPartSummary(String name, LatencyHistogram histo, long statementCount)
+	{
+		super();
+		this.name = name;
+		this.histo = histo;
+		this.statementCount = statementCount;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public long getCount()
+	{
+		return histo.getCount();
+	}
+
+	/**
+	 * @return the number of SQL statements (round trips) executed in this part
+	 */
+	public long getStatementCount()
+	{
+		return statementCount;
+	}
+
+	public double getStatementsPerExecution()
+	{
+		return (getCount() == 0) ? 0.0 : ((double) statementCount) / getCount();
+	}
+
+	public double getMean()
+	{
+		return histo.getMean();
+	}
+
+	public double getMax()
+	{
+		return histo.getMax();
+	}
+
+	public double getSum()
+	{
+		return histo.getSum();
+	}
+
+	public double getQuantile(double q)
+	{
+		return histo.getQuantile(q);
+	}
+}
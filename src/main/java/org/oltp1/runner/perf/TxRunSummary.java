@@ -8,6 +8,11 @@ public class TxRunSummary
 	private final int numClients;
 	private final List<TxSummary> txStats;
 	private final String sutInfo;
+	private String loadModel;
+	private TxSummary connectionWait;
+	private long droppedArrivals = -1;
+	private final List<TxSummary> meeStats = new ArrayList<>();
+	private final List<ProducerSummary> producerStats = new ArrayList<>();
 
 	public TxRunSummary(String sutInfo, int numClients)
 	{
@@ -36,8 +41,79 @@ public class TxRunSummary
 		return sutInfo;
 	}
 
+	public String getLoadModel()
+	{
+		return loadModel;
+	}
+
+	public void setLoadModel(String loadModel)
+	{
+		this.loadModel = loadModel;
+	}
+
+	/**
+	 * @return the time clients waited for a pooled connection, or null if it
+	 *         was not collected
+	 */
+	public TxSummary getConnectionWait()
+	{
+		return connectionWait;
+	}
+
+	public void setConnectionWait(TxSummary connectionWait)
+	{
+		this.connectionWait = connectionWait;
+	}
+
+	/**
+	 * @return the number of transactions scheduled to start before the end of
+	 *         an open-loop (or replayed) run that were never started, or -1 in
+	 *         closed-loop mode
+	 */
+	public long getDroppedArrivals()
+	{
+		return droppedArrivals;
+	}
+
+	public void setDroppedArrivals(long droppedArrivals)
+	{
+		this.droppedArrivals = droppedArrivals;
+	}
+
+	/**
+	 * @return the MEE lag and order settlement times, empty if they were not
+	 *         collected
+	 */
+	public List<TxSummary> getMeeStats()
+	{
+		return meeStats;
+	}
+
+	public void addMeeSummary(TxSummary meeSummary)
+	{
+		meeStats.add(meeSummary);
+	}
+
+	/**
+	 * @return the statistics of the producers of pre-generated inputs, empty
+	 *         if the inputs were generated by the clients
+	 */
+	public List<ProducerSummary> getProducerStats()
+	{
+		return producerStats;
+	}
+
+	public void addProducerSummary(ProducerSummary producerSummary)
+	{
+		producerStats.add(producerSummary);
+	}
+
 	public void clearSummary()
 	{
+		connectionWait = null;
+		droppedArrivals = -1;
+		meeStats.clear();
+		producerStats.clear();
 
 		txStats.clear();
 	}
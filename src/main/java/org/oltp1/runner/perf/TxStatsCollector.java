@@ -1,21 +1,36 @@
 package org.oltp1.runner.perf;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
-
-import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
-
-import com.tdunning.math.stats.TDigest;
+import java.util.concurrent.atomic.LongAdder;
 
 public class TxStatsCollector
 {
 	private final AtomicLong errorCounter = new AtomicLong();
 	private final AtomicLong warningCounter = new AtomicLong();
 	private final AtomicLong rollbackCounter = new AtomicLong();
-	private AtomicLong minTs = new AtomicLong(Long.MAX_VALUE);
-	private AtomicLong maxTs = new AtomicLong(Long.MIN_VALUE);
-	private final Object mutex = new Object();
-	private final SummaryStatistics stats = new SummaryStatistics();
-	private TDigest histogram;
+	private final AtomicLong retryCounter = new AtomicLong();
+	private final AtomicLong minTs = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong maxTs = new AtomicLong(Long.MIN_VALUE);
+	private final LatencyRecorder latencies = new LatencyRecorder();
+	private final LatencyRecorder queueDelays = new LatencyRecorder();
+	private final LatencyRecorder retriedLatencies = new LatencyRecorder();
+	// only recorded once a reporter asks for the interval stats
+	private volatile LatencyRecorder intervalLatencies;
+	// frames and queries are many, keep their recorders small
+	private static final int PART_STRIPES = 4;
+
+	private final ConcurrentHashMap<String, PartStats> frames = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, PartStats> queries = new ConcurrentHashMap<>();
+	private final LatencyRecorder poolWaitTimes = new LatencyRecorder(PART_STRIPES);
+	private final LatencyRecorder inputTimes = new LatencyRecorder(PART_STRIPES);
+	private final LatencyRecorder dbTimes = new LatencyRecorder(PART_STRIPES);
+	private final LatencyRecorder clientTimes = new LatencyRecorder(PART_STRIPES);
+	private long intervalErrorMark;
+	private long intervalRollbackMark;
 
 	private final String txName;
 
@@ -23,17 +38,6 @@ public class TxStatsCollector
 	{
 		super();
 		this.txName = txName;
-		this.histogram = TDigest.createDigest(100);
-	}
-
-	public TxStatsCollector(AtomicLong minTs, AtomicLong maxTs, TDigest histo, String txName, double mixPct)
-	{
-		super();
-		this.minTs = minTs;
-		this.maxTs = maxTs;
-		this.histogram = histo;
-		this.txName = txName;
-
 	}
 
 	public void offerMinTs(long ts)
@@ -76,26 +80,101 @@ public class TxStatsCollector
 		return rollbackCounter.get();
 	}
 
+	public final long getRetryCount()
+	{
+		return retryCounter.get();
+	}
+
 	public final void addValue(double v)
 	{
-		synchronized (mutex)
+		latencies.record(v);
+
+		final LatencyRecorder interval = intervalLatencies;
+		if (interval != null)
 		{
-			stats.addValue(v);
-			histogram.add(v);
+			interval.record(v);
 		}
 	}
 
+	/**
+	 * Records the time (in milliseconds) an open-loop transaction spent waiting
+	 * for a free client after its scheduled start time.
+	 */
+	public final void addQueueDelay(double v)
+	{
+		queueDelays.record(v);
+	}
+
+	/**
+	 * Records a transaction that was retried after serialization failures or
+	 * deadlocks, with its number of retries and its response time (in
+	 * milliseconds) including the failed attempts and the backoff.
+	 */
+	public final void addRetried(int retries, double v)
+	{
+		retryCounter.addAndGet(retries);
+		retriedLatencies.record(v);
+	}
+
+	/**
+	 * Records the elapsed time of a transaction frame and the number of SQL
+	 * statements executed in it.
+	 */
+	public final void addFrameTime(String frame, long elapsedNanos, int statements)
+	{
+		PartStats part = frames.computeIfAbsent(frame, k -> new PartStats());
+		part.latencies.recordNanos(elapsedNanos);
+		part.statements.add(statements);
+	}
+
+	/**
+	 * Records the execution time of a SQL statement issued for a query.
+	 */
+	public final void addQueryTime(String query, long elapsedNanos)
+	{
+		PartStats part = queries.computeIfAbsent(query, k -> new PartStats());
+		part.latencies.recordNanos(elapsedNanos);
+		part.statements.increment();
+	}
+
+	/**
+	 * Records how the execution time of a transaction splits into connection
+	 * pool wait, input generation, database and client time.
+	 */
+	public final void addBreakdown(long poolWaitNanos, long inputNanos, long dbNanos, long clientNanos)
+	{
+		poolWaitTimes.recordNanos(poolWaitNanos);
+		inputTimes.recordNanos(inputNanos);
+		dbTimes.recordNanos(dbNanos);
+		clientTimes.recordNanos(clientNanos);
+	}
+
 	public final void clearStats()
 	{
-		synchronized (mutex)
+		minTs.set(Long.MAX_VALUE);
+		maxTs.set(Long.MIN_VALUE);
+		latencies.reset();
+		queueDelays.reset();
+		retriedLatencies.reset();
+		final LatencyRecorder interval = intervalLatencies;
+		if (interval != null)
 		{
-			minTs.set(Long.MAX_VALUE);
-			maxTs.set(Long.MIN_VALUE);
-			stats.clear();
-			histogram = TDigest.createDigest(100);
-			errorCounter.set(0l);
-			warningCounter.set(0l);
-			rollbackCounter.set(0l);
+			interval.reset();
+		}
+		frames.clear();
+		queries.clear();
+		poolWaitTimes.reset();
+		inputTimes.reset();
+		dbTimes.reset();
+		clientTimes.reset();
+		errorCounter.set(0l);
+		warningCounter.set(0l);
+		rollbackCounter.set(0l);
+		retryCounter.set(0l);
+		synchronized (this)
+		{
+			intervalErrorMark = 0l;
+			intervalRollbackMark = 0l;
 		}
 	}
 
@@ -106,11 +185,44 @@ public class TxStatsCollector
 
 	public final TxSummary getStats()
 	{
-		synchronized (mutex)
+		TxSummary txSummary = new TxSummary(txName, minTs.get(), maxTs.get(), getWarningCount(), getErrorCount(), getRollBacksCount(), latencies.snapshot());
+		txSummary.setQueueDelay(queueDelays.snapshot());
+		txSummary.setRetries(getRetryCount(), retriedLatencies.snapshot());
+		txSummary.setBreakdown(poolWaitTimes.snapshot(), inputTimes.snapshot(), dbTimes.snapshot(), clientTimes.snapshot());
+		txSummary.setFrames(summarize(frames, Comparator.comparing(TxPartSummary::getName)));
+		txSummary.setQueries(summarize(queries, Comparator.comparingDouble(TxPartSummary::getSum).reversed()));
+		return txSummary;
+	}
+
+	/**
+	 * @return the values recorded since the previous call (or since the stats
+	 *         were cleared); the interval latencies are only recorded from the
+	 *         first call on, i.e. once an {@link IntervalReporter} is attached
+	 */
+	public final synchronized TxIntervalSummary getIntervalStats()
+	{
+		final long errors = getErrorCount();
+		final long rollbacks = getRollBacksCount();
+
+		if (intervalLatencies == null)
 		{
-			TxSummary txSummary = new TxSummary(txName, stats.getN(), minTs.get(), maxTs.get(), getWarningCount(), getErrorCount(), getRollBacksCount(), stats.getMin(), stats.getMax(), stats.getMean(), stats.getSum(), stats.getStandardDeviation(), histogram);
-			return txSummary;
+			intervalLatencies = LatencyRecorder.newIntervalRecorder();
 		}
+
+		TxIntervalSummary interval = new TxIntervalSummary(txName, intervalLatencies.snapshotAndReset(), errors - intervalErrorMark, rollbacks - intervalRollbackMark);
+
+		intervalErrorMark = errors;
+		intervalRollbackMark = rollbacks;
+
+		return interval;
+	}
+
+	private static List<TxPartSummary> summarize(ConcurrentHashMap<String, PartStats> parts, Comparator<TxPartSummary> order)
+	{
+		List<TxPartSummary> summaries = new ArrayList<>(parts.size());
+		parts.forEach((name, part) -> summaries.add(new TxPartSummary(name, part.latencies.snapshot(), part.statements.sum())));
+		summaries.sort(order);
+		return summaries;
 	}
 
 	@Override
@@ -118,4 +230,10 @@ public class TxStatsCollector
 	{
 		return String.format("TxStatsCollector [txSummary=%s]", getStats());
 	}
+
+	private static final class PartStats
+	{
+		final LatencyRecorder latencies = new LatencyRecorder(PART_STRIPES);
+		final LongAdder statements = new LongAdder();
+	}
 }
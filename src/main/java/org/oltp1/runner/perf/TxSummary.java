@@ -1,6 +1,7 @@
 package org.oltp1.runner.perf;
 
-import com.tdunning.math.stats.TDigest;
+import java.util.Collections;
+import java.util.List;
 
 public class TxSummary
 {
@@ -12,30 +13,29 @@ public class TxSummary
 	private final long warningCount;
 	private final long erroCount;
 	private final long rollbackCount;
-	private final double min;
-	private final double max;
-	private final double mean;
-	private final double sum;
-	private final double stdDev;
-	private final TDigest histo;
+	private final LatencyHistogram histo;
 	private double elapsedTime;
+	private LatencyHistogram queueDelayHisto;
+	private long retryCount;
+	private LatencyHistogram retriedHisto;
+	private LatencyHistogram poolWaitHisto;
+	private LatencyHistogram inputHisto;
+	private LatencyHistogram dbHisto;
+	private LatencyHistogram clientHisto;
+	private List<TxPartSummary> frames = Collections.emptyList();
+	private List<TxPartSummary> queries = Collections.emptyList();
 
-	protected TxSummary(String txName, long count, long minTs, long maxTs, long warningCount, long erroCount, long rollbackCount, double min, double max, double mean, double sum, double stdDev, TDigest histo)
+	protected TxSummary(String txName, long minTs, long maxTs, long warningCount, long erroCount, long rollbackCount, LatencyHistogram histo)
 	{
 		super();
 		this.txName = txName;
-		this.count = count;
+		this.count = histo.getCount();
 		this.minTs = minTs;
 		this.maxTs = maxTs;
 		this.warningCount = warningCount;
 		this.erroCount = erroCount;
 		this.rollbackCount = rollbackCount;
 		this.elapsedTime = ((double) (maxTs - minTs) / 1000000.0);
-		this.min = min;
-		this.max = max;
-		this.mean = mean;
-		this.sum = sum;
-		this.stdDev = stdDev;
 		this.histo = histo;
 	}
 
@@ -91,32 +91,37 @@ public class TxSummary
 
 	public double getMin()
 	{
-		return min;
+		return histo.getMin();
 	}
 
 	public double getMax()
 	{
-		return max;
+		return histo.getMax();
 	}
 
 	public double getMean()
 	{
-		return mean;
+		return histo.getMean();
 	}
 
 	public double getSum()
 	{
-		return sum;
+		return histo.getSum();
 	}
 
 	public double getQuantile(double q)
 	{
-		return histo.quantile(q);
+		return histo.getQuantile(q);
+	}
+
+	public long getCountAtOrBelow(double millis)
+	{
+		return histo.getCountAtOrBelow(millis);
 	}
 
 	public double getStdDev()
 	{
-		return stdDev;
+		return histo.getStdDev();
 	}
 
 	public void setTargetMixPct(double d)
@@ -124,6 +129,146 @@ public class TxSummary
 		targetMixPct = d;
 	}
 
+	/**
+	 * @return the number of transactions with a recorded queue delay, only
+	 *         greater than zero for open-loop runs
+	 */
+	public long getQueueDelayCount()
+	{
+		return (queueDelayHisto == null) ? 0 : queueDelayHisto.getCount();
+	}
+
+	public double getQueueDelayMean()
+	{
+		return queueDelayHisto.getMean();
+	}
+
+	public double getQueueDelayMax()
+	{
+		return queueDelayHisto.getMax();
+	}
+
+	public double getQueueDelayQuantile(double q)
+	{
+		return queueDelayHisto.getQuantile(q);
+	}
+
+	protected void setQueueDelay(LatencyHistogram histo)
+	{
+		this.queueDelayHisto = histo;
+	}
+
+	/**
+	 * @return the number of retries, after serialization failures or
+	 *         deadlocks, of all the transactions
+	 */
+	public long getRetryCount()
+	{
+		return retryCount;
+	}
+
+	/**
+	 * @return the number of transactions that were retried at least once
+	 */
+	public long getRetriedCount()
+	{
+		return (retriedHisto == null) ? 0 : retriedHisto.getCount();
+	}
+
+	/**
+	 * @return the response time of the retried transactions, including the
+	 *         failed attempts and the backoff between them
+	 */
+	public double getRetriedMean()
+	{
+		return retriedHisto.getMean();
+	}
+
+	public double getRetriedMax()
+	{
+		return retriedHisto.getMax();
+	}
+
+	public double getRetriedQuantile(double q)
+	{
+		return retriedHisto.getQuantile(q);
+	}
+
+	protected void setRetries(long retryCount, LatencyHistogram histo)
+	{
+		this.retryCount = retryCount;
+		this.retriedHisto = histo;
+	}
+
+	/**
+	 * @return true if the latency breakdown (pool wait, input generation,
+	 *         database and client time) was collected
+	 */
+	public boolean hasBreakdown()
+	{
+		return dbHisto != null && dbHisto.getCount() > 0;
+	}
+
+	public LatencyHistogram getPoolWaitTime()
+	{
+		return poolWaitHisto;
+	}
+
+	public LatencyHistogram getInputGenerationTime()
+	{
+		return inputHisto;
+	}
+
+	public LatencyHistogram getDatabaseTime()
+	{
+		return dbHisto;
+	}
+
+	/**
+	 * @return the time spent in the driver itself, e.g. building parameters and
+	 *         materializing results
+	 */
+	public LatencyHistogram getClientTime()
+	{
+		return clientHisto;
+	}
+
+	protected void setBreakdown(LatencyHistogram poolWait, LatencyHistogram input, LatencyHistogram db, LatencyHistogram client)
+	{
+		this.poolWaitHisto = poolWait;
+		this.inputHisto = input;
+		this.dbHisto = db;
+		this.clientHisto = client;
+	}
+
+	/**
+	 * @return the statistics of each frame, empty unless frame statistics are
+	 *         enabled
+	 */
+	public List<TxPartSummary> getFrames()
+	{
+		return frames;
+	}
+
+	/**
+	 * @return the statistics of the statements issued for each query, by total
+	 *         time, empty unless frame statistics are enabled
+	 */
+	public List<TxPartSummary> getQueries()
+	{
+		return queries;
+	}
+
+	protected void setFrames(List<TxPartSummary> frames)
+	{
+		this.frames = frames;
+	}
+
+	protected void setQueries(List<TxPartSummary> queries)
+	{
+		this.queries = queries;
+	}
+
 	@Override
 	public String toString()
 	{
@@ -0,0 +1,296 @@
+package org.oltp1.runner.replay;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.oltp1.runner.model.TradeType;
+import org.oltp1.runner.tx.broker_volume.TxBrokerVolumeInput;
+import org.oltp1.runner.tx.customer_position.TxCustomerPositionInput;
+import org.oltp1.runner.tx.market_watch.TxMarketWatchInput;
+import org.oltp1.runner.tx.security_detail.TxSecurityDetailInput;
+import org.oltp1.runner.tx.trade_lookup.TxTradeLookupInput;
+import org.oltp1.runner.tx.trade_order.TxTradeOrderInput;
+import org.oltp1.runner.tx.trade_status.TxTradeStatusInput;
+import org.oltp1.runner.tx.trade_update.TxTradeUpdateInput;
+
+/**
+ * The binary encoding of each recordable transaction input, field by field.
+ * The inputs of Trade-Result and Market-Feed are not recorded: the MEE derives
+ * them from the Trade-Orders, so they follow the replayed Trade-Orders.
+ * <p>
+ * The code of a type is written in every record: new types are added at the
+ * end, and a change to the fields of a type needs a new log version.
+ */
+enum InputCodec
+{
+	BROKER_VOLUME(1, "Broker-Volume", TxBrokerVolumeInput.class)
+	{
+		@Override
+		void encode(Object txInput, RecordBuffer out)
+		{
+			final TxBrokerVolumeInput in = (TxBrokerVolumeInput) txInput;
+			out.writeStrings(in.broker_list);
+			out.writeString(in.sector_name);
+		}
+
+		@Override
+		Object decode(RecordReader in) throws IOException
+		{
+			final TxBrokerVolumeInput txInput = new TxBrokerVolumeInput();
+			txInput.broker_list = in.readStrings();
+			txInput.sector_name = in.readString();
+			return txInput;
+		}
+	},
+
+	CUSTOMER_POSITION(2, "Customer-Position", TxCustomerPositionInput.class)
+	{
+		@Override
+		void encode(Object txInput, RecordBuffer out)
+		{
+			final TxCustomerPositionInput in = (TxCustomerPositionInput) txInput;
+			out.writeVarInt(in.acct_id_idx);
+			out.writeVarLong(in.cust_id);
+			out.writeBoolean(in.get_history);
+			out.writeString(in.tax_id);
+		}
+
+		@Override
+		Object decode(RecordReader in) throws IOException
+		{
+			final TxCustomerPositionInput txInput = new TxCustomerPositionInput();
+			txInput.acct_id_idx = in.readVarInt();
+			txInput.cust_id = in.readVarLong();
+			txInput.get_history = in.readBoolean();
+			txInput.tax_id = in.readString();
+			return txInput;
+		}
+	},
+
+	MARKET_WATCH(3, "Market-Watch", TxMarketWatchInput.class)
+	{
+		@Override
+		void encode(Object txInput, RecordBuffer out)
+		{
+			final TxMarketWatchInput in = (TxMarketWatchInput) txInput;
+			out.writeVarLong(in.acct_id);
+			out.writeVarLong(in.c_id);
+			out.writeVarLong(in.starting_co_id);
+			out.writeVarLong(in.ending_co_id);
+			out.writeDate(in.start_day);
+			out.writeString(in.industry_name);
+		}
+
+		@Override
+		Object decode(RecordReader in) throws IOException
+		{
+			final TxMarketWatchInput txInput = new TxMarketWatchInput();
+			txInput.acct_id = in.readVarLong();
+			txInput.c_id = in.readVarLong();
+			txInput.starting_co_id = in.readVarLong();
+			txInput.ending_co_id = in.readVarLong();
+			txInput.start_day = in.readDate();
+			txInput.industry_name = in.readString();
+			return txInput;
+		}
+	},
+
+	SECURITY_DETAIL(4, "Security-Detail", TxSecurityDetailInput.class)
+	{
+		@Override
+		void encode(Object txInput, RecordBuffer out)
+		{
+			final TxSecurityDetailInput in = (TxSecurityDetailInput) txInput;
+			out.writeBoolean(in.access_lob_flag);
+			out.writeVarInt(in.max_rows_to_return);
+			out.writeDate(in.start_day);
+			out.writeString(in.symbol);
+		}
+
+		@Override
+		Object decode(RecordReader in) throws IOException
+		{
+			final TxSecurityDetailInput txInput = new TxSecurityDetailInput();
+			txInput.access_lob_flag = in.readBoolean();
+			txInput.max_rows_to_return = in.readVarInt();
+			txInput.start_day = in.readDate();
+			txInput.symbol = in.readString();
+			return txInput;
+		}
+	},
+
+	TRADE_LOOKUP(5, "Trade-Lookup", TxTradeLookupInput.class)
+	{
+		@Override
+		void encode(Object txInput, RecordBuffer out)
+		{
+			final TxTradeLookupInput in = (TxTradeLookupInput) txInput;
+			out.writeVarInt(in.frame_to_execute);
+			out.writeLongs(in.trade_id);
+			out.writeVarLong(in.acct_id);
+			out.writeVarLong(in.max_acct_id);
+			out.writeVarInt(in.max_trades);
+			out.writeDateTime(in.start_trade_dts);
+			out.writeDateTime(in.end_trade_dts);
+			out.writeString(in.symbol);
+		}
+
+		@Override
+		Object decode(RecordReader in) throws IOException
+		{
+			final TxTradeLookupInput txInput = new TxTradeLookupInput();
+			txInput.frame_to_execute = in.readVarInt();
+			txInput.trade_id = in.readLongs();
+			txInput.acct_id = in.readVarLong();
+			txInput.max_acct_id = in.readVarLong();
+			txInput.max_trades = in.readVarInt();
+			txInput.start_trade_dts = in.readDateTime();
+			txInput.end_trade_dts = in.readDateTime();
+			txInput.symbol = in.readString();
+			return txInput;
+		}
+	},
+
+	TRADE_STATUS(6, "Trade-Status", TxTradeStatusInput.class)
+	{
+		@Override
+		void encode(Object txInput, RecordBuffer out)
+		{
+			out.writeVarLong(((TxTradeStatusInput) txInput).acct_id);
+		}
+
+		@Override
+		Object decode(RecordReader in) throws IOException
+		{
+			return new TxTradeStatusInput(in.readVarLong());
+		}
+	},
+
+	TRADE_ORDER(7, "Trade-Order", TxTradeOrderInput.class)
+	{
+		@Override
+		void encode(Object txInput, RecordBuffer out)
+		{
+			final TxTradeOrderInput in = (TxTradeOrderInput) txInput;
+			out.writeDouble(in.requested_price);
+			out.writeVarLong(in.acct_id);
+			out.writeBoolean(in.is_lifo);
+			out.writeBoolean(in.roll_it_back);
+			out.writeVarLong(in.trade_qty);
+			out.writeBoolean(in.type_is_margin);
+			out.writeVarLong(in.trade_id);
+			out.writeString(in.co_name);
+			out.writeString(in.exec_f_name);
+			out.writeString(in.exec_l_name);
+			out.writeString(in.exec_tax_id);
+			out.writeString(in.issue);
+			out.writeString(in.st_pending_id);
+			out.writeString(in.st_submitted_id);
+			out.writeString(in.symbol);
+			out.writeString(in.trade_type == null ? null : in.trade_type.id);
+		}
+
+		@Override
+		Object decode(RecordReader in) throws IOException
+		{
+			final TxTradeOrderInput txInput = new TxTradeOrderInput();
+			txInput.requested_price = in.readDouble();
+			txInput.acct_id = in.readVarLong();
+			txInput.is_lifo = in.readBoolean();
+			txInput.roll_it_back = in.readBoolean();
+			txInput.trade_qty = in.readVarLong();
+			txInput.type_is_margin = in.readBoolean();
+			txInput.trade_id = in.readVarLong();
+			txInput.co_name = in.readString();
+			txInput.exec_f_name = in.readString();
+			txInput.exec_l_name = in.readString();
+			txInput.exec_tax_id = in.readString();
+			txInput.issue = in.readString();
+			txInput.st_pending_id = in.readString();
+			txInput.st_submitted_id = in.readString();
+			txInput.symbol = in.readString();
+
+			final String tradeTypeId = in.readString();
+			txInput.trade_type = (tradeTypeId == null) ? null : TradeType.fromId(tradeTypeId);
+			return txInput;
+		}
+	},
+
+	TRADE_UPDATE(8, "Trade-Update", TxTradeUpdateInput.class)
+	{
+		@Override
+		void encode(Object txInput, RecordBuffer out)
+		{
+			final TxTradeUpdateInput in = (TxTradeUpdateInput) txInput;
+			out.writeVarInt(in.frame_to_execute);
+			out.writeLongs(in.trade_id);
+			out.writeVarLong(in.acct_id);
+			out.writeVarLong(in.max_acct_id);
+			out.writeVarInt(in.max_trades);
+			out.writeVarInt(in.max_updates);
+			out.writeDateTime(in.start_trade_dts);
+			out.writeDateTime(in.end_trade_dts);
+			out.writeString(in.symbol);
+		}
+
+		@Override
+		Object decode(RecordReader in) throws IOException
+		{
+			final TxTradeUpdateInput txInput = new TxTradeUpdateInput();
+			txInput.frame_to_execute = in.readVarInt();
+			txInput.trade_id = in.readLongs();
+			txInput.acct_id = in.readVarLong();
+			txInput.max_acct_id = in.readVarLong();
+			txInput.max_trades = in.readVarInt();
+			txInput.max_updates = in.readVarInt();
+			txInput.start_trade_dts = in.readDateTime();
+			txInput.end_trade_dts = in.readDateTime();
+			txInput.symbol = in.readString();
+			return txInput;
+		}
+	};
+
+	private static final Map<Class<?>, InputCodec> BY_CLASS = new HashMap<>();
+	private static final InputCodec[] BY_CODE = new InputCodec[values().length + 1];
+
+	static
+	{
+		for (InputCodec codec : values())
+		{
+			BY_CLASS.put(codec.inputClass, codec);
+			BY_CODE[codec.code] = codec;
+		}
+	}
+
+	final int code;
+	final String txName;
+	private final Class<?> inputClass;
+
+	InputCodec(int code, String txName, Class<?> inputClass)
+	{
+		this.code = code;
+		this.txName = txName;
+		this.inputClass = inputClass;
+	}
+
+	abstract void encode(Object txInput, RecordBuffer out);
+
+	abstract Object decode(RecordReader in) throws IOException;
+
+	/**
+	 * @return the codec of the input, or null if the input is not recorded
+	 */
+	static InputCodec of(Object txInput)
+	{
+		return BY_CLASS.get(txInput.getClass());
+	}
+
+	/**
+	 * @return the codec with the code, or null if there is none
+	 */
+	static InputCodec fromCode(int code)
+	{
+		return (code > 0 && code < BY_CODE.length) ? BY_CODE[code] : null;
+	}
+}
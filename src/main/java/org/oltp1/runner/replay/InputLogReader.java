@@ -0,0 +1,158 @@
+package org.oltp1.runner.replay;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.oltp1.common.ErrorCtx;
+import org.oltp1.runner.perf.RecordedInput;
+import org.oltp1.runner.perf.TxInputReplay;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads back a log written by {@link InputLogWriter}, one run at a time. The
+ * clients share the reader and take the inputs in their recorded order. A
+ * truncated last record, as left by a run that was killed, ends the replay.
+ */
+public final class InputLogReader implements TxInputReplay, Closeable
+{
+	private static final Logger log = LoggerFactory.getLogger(InputLogReader.class);
+
+	private static final int INPUT_BUFFER_SIZE = 1 << 20;
+
+	private final Path path;
+	private final InputStream stream;
+	private final RecordReader in;
+
+	// the duration of the run whose marker ended the previous run, -1 if none
+	private long pendingRunSec = -1;
+	private boolean isInRun;
+	private boolean isEnded;
+
+	private InputLogReader(Path path, InputStream stream)
+	{
+		super();
+		this.path = path;
+		this.stream = stream;
+		this.in = new RecordReader(stream);
+	}
+
+	public static InputLogReader open(Path path) throws IOException
+	{
+		final InputStream stream = new BufferedInputStream(Files.newInputStream(path), INPUT_BUFFER_SIZE);
+
+		try
+		{
+			final DataInputStream header = new DataInputStream(stream);
+
+			if (header.readInt() != InputLogWriter.MAGIC)
+			{
+				throw new IOException("Not an input recording: " + path);
+			}
+
+			final int version = header.readUnsignedByte();
+			if (version != InputLogWriter.VERSION)
+			{
+				throw new IOException(String.format("Unsupported version %d of the input recording: %s", version, path));
+			}
+
+			log.info("Replaying the transaction inputs recorded at {} from: {}", Instant.ofEpochMilli(header.readLong()), path);
+		}
+		catch (EOFException e)
+		{
+			stream.close();
+			throw new IOException("Not an input recording: " + path, e);
+		}
+		catch (IOException e)
+		{
+			stream.close();
+			throw e;
+		}
+
+		return new InputLogReader(path, stream);
+	}
+
+	@Override
+	public synchronized long nextRun()
+	{
+		if (pendingRunSec < 0)
+		{
+			// skip what is left of the current run up to the next marker, or
+			// read the first marker of the log
+			isInRun = true;
+			while (next() != null)
+			{
+			}
+
+			if (pendingRunSec < 0)
+			{
+				return -1;
+			}
+		}
+
+		final long runSec = pendingRunSec;
+		pendingRunSec = -1;
+		isInRun = true;
+		return runSec;
+	}
+
+	@Override
+	public synchronized RecordedInput next()
+	{
+		while (isInRun && !isEnded)
+		{
+			try
+			{
+				final int code = in.readByteOrEof();
+
+				if (code < 0)
+				{
+					isEnded = true;
+				}
+				else if (code == InputLogWriter.RUN_MARKER)
+				{
+					pendingRunSec = in.readVarLong();
+					isInRun = false;
+				}
+				else
+				{
+					final InputCodec codec = InputCodec.fromCode(code);
+
+					if (codec == null)
+					{
+						throw new IOException("Unknown record type " + code);
+					}
+
+					final long offsetNanos = TimeUnit.MICROSECONDS.toNanos(in.readVarLong());
+					return new RecordedInput(codec.txName, offsetNanos, codec.decode(in));
+				}
+			}
+			catch (EOFException e)
+			{
+				log.warn("The input recording {} ends with a truncated record", path);
+				isEnded = true;
+			}
+			catch (IOException e)
+			{
+				log.error("Failed to read the input recording {}: {}", path, new ErrorCtx(e));
+				isEnded = true;
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		stream.close();
+	}
+}
@@ -0,0 +1,134 @@
+package org.oltp1.runner.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.oltp1.common.ErrorCtx;
+import org.oltp1.runner.perf.TxInputRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the inputs of the transactions, with their scheduled start, to a
+ * compact binary log that {@link InputLogReader} replays.
+ * <p>
+ * The log starts with a header (magic number, version, recording time). Each
+ * run of the mix starts with a run marker that holds the planned duration of
+ * the run; each input follows as a record made of the code of its type, its
+ * scheduled start in microseconds since the start of the run and its fields,
+ * all integers as varints. A record is encoded on the client thread into a
+ * buffer of its own, and only the copy into the output buffer is serialized
+ * between the clients.
+ */
+public final class InputLogWriter implements TxInputRecorder, Closeable
+{
+	private static final Logger log = LoggerFactory.getLogger(InputLogWriter.class);
+
+	static final int MAGIC = 0x4F4C5431; // "OLT1"
+	static final int VERSION = 1;
+	static final int RUN_MARKER = 0;
+
+	private static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+
+	private final Path path;
+	private final OutputStream out;
+	private final ThreadLocal<RecordBuffer> buffers = ThreadLocal.withInitial(RecordBuffer::new);
+	private final LongAdder recordCount = new LongAdder();
+	private volatile long runStartNanos = System.nanoTime();
+	private volatile boolean isFailed;
+
+	private InputLogWriter(Path path, OutputStream out)
+	{
+		super();
+		this.path = path;
+		this.out = out;
+	}
+
+	public static InputLogWriter create(Path path) throws IOException
+	{
+		final OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), OUTPUT_BUFFER_SIZE);
+
+		final DataOutputStream header = new DataOutputStream(out);
+		header.writeInt(MAGIC);
+		header.writeByte(VERSION);
+		header.writeLong(System.currentTimeMillis());
+
+		return new InputLogWriter(path, out);
+	}
+
+	public Path getPath()
+	{
+		return path;
+	}
+
+	@Override
+	public void startRun(long runDurationSec)
+	{
+		final RecordBuffer buf = buffers.get();
+		buf.reset();
+		buf.writeByte(RUN_MARKER);
+		buf.writeVarLong(runDurationSec);
+
+		write(buf);
+		runStartNanos = System.nanoTime();
+	}
+
+	@Override
+	public void record(String txName, long intendedStart, Object txInput)
+	{
+		final InputCodec codec = InputCodec.of(txInput);
+
+		if (codec == null || isFailed)
+		{
+			return;
+		}
+
+		final RecordBuffer buf = buffers.get();
+		buf.reset();
+		buf.writeByte(codec.code);
+		buf.writeVarLong(TimeUnit.NANOSECONDS.toMicros(Math.max(0L, intendedStart - runStartNanos)));
+		codec.encode(txInput, buf);
+
+		write(buf);
+		recordCount.increment();
+	}
+
+	private void write(RecordBuffer buf)
+	{
+		synchronized (out)
+		{
+			if (isFailed)
+			{
+				return;
+			}
+
+			try
+			{
+				buf.writeTo(out);
+			}
+			catch (IOException e)
+			{
+				// stop recording rather than failing the transactions
+				isFailed = true;
+				log.error("Failed to write the input recording {}, recording stopped: {}", path, new ErrorCtx(e));
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		synchronized (out)
+		{
+			out.close();
+		}
+		log.info("Recorded {} transaction inputs to: {}", recordCount.sum(), path);
+	}
+}
@@ -0,0 +1,151 @@
+package org.oltp1.runner.replay;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * A growable buffer that a record is encoded into before it is written to the
+ * log in one piece. Integers are written as zigzag varints, so the small
+ * values that make up most of an input take one or two bytes. Not
+ * thread-safe: each client thread encodes into a buffer of its own.
+ */
+final class RecordBuffer
+{
+	private byte[] bytes = new byte[256];
+	private int length;
+
+	void reset()
+	{
+		length = 0;
+	}
+
+	int length()
+	{
+		return length;
+	}
+
+	void writeTo(OutputStream out) throws IOException
+	{
+		out.write(bytes, 0, length);
+	}
+
+	void writeByte(int b)
+	{
+		ensureCapacity(1);
+		bytes[length++] = (byte) b;
+	}
+
+	void writeBoolean(boolean b)
+	{
+		writeByte(b ? 1 : 0);
+	}
+
+	void writeVarLong(long v)
+	{
+		long zigzag = (v << 1) ^ (v >> 63);
+
+		ensureCapacity(10);
+		while ((zigzag & ~0x7FL) != 0)
+		{
+			bytes[length++] = (byte) ((zigzag & 0x7F) | 0x80);
+			zigzag >>>= 7;
+		}
+		bytes[length++] = (byte) zigzag;
+	}
+
+	void writeVarInt(int v)
+	{
+		writeVarLong(v);
+	}
+
+	void writeDouble(double d)
+	{
+		final long bits = Double.doubleToRawLongBits(d);
+
+		ensureCapacity(8);
+		for (int shift = 56; shift >= 0; shift -= 8)
+		{
+			bytes[length++] = (byte) (bits >>> shift);
+		}
+	}
+
+	/**
+	 * Writes the length plus one, zero for null, then the UTF-8 bytes.
+	 */
+	void writeString(String s)
+	{
+		if (s == null)
+		{
+			writeVarInt(0);
+			return;
+		}
+
+		final byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(utf8.length + 1);
+		ensureCapacity(utf8.length);
+		System.arraycopy(utf8, 0, bytes, length, utf8.length);
+		length += utf8.length;
+	}
+
+	void writeStrings(String[] a)
+	{
+		if (a == null)
+		{
+			writeVarInt(0);
+			return;
+		}
+
+		writeVarInt(a.length + 1);
+		for (String s : a)
+		{
+			writeString(s);
+		}
+	}
+
+	void writeLongs(long[] a)
+	{
+		if (a == null)
+		{
+			writeVarInt(0);
+			return;
+		}
+
+		writeVarInt(a.length + 1);
+		for (long v : a)
+		{
+			writeVarLong(v);
+		}
+	}
+
+	void writeDate(LocalDate d)
+	{
+		writeBoolean(d != null);
+		if (d != null)
+		{
+			writeVarLong(d.toEpochDay());
+		}
+	}
+
+	void writeDateTime(LocalDateTime dt)
+	{
+		writeBoolean(dt != null);
+		if (dt != null)
+		{
+			writeVarLong(dt.toEpochSecond(ZoneOffset.UTC));
+			writeVarInt(dt.getNano());
+		}
+	}
+
+	private void ensureCapacity(int extra)
+	{
+		if (length + extra > bytes.length)
+		{
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+		}
+	}
+}
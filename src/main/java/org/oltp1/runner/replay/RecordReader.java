@@ -0,0 +1,145 @@
+package org.oltp1.runner.replay;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Decodes the values written by a {@link RecordBuffer}. Not thread-safe.
+ */
+final class RecordReader
+{
+	private final InputStream in;
+
+	RecordReader(InputStream in)
+	{
+		this.in = in;
+	}
+
+	/**
+	 * @return the next byte, or -1 at the end of the stream
+	 */
+	int readByteOrEof() throws IOException
+	{
+		return in.read();
+	}
+
+	int readByte() throws IOException
+	{
+		final int b = in.read();
+		if (b < 0)
+		{
+			throw new EOFException("Truncated record");
+		}
+		return b;
+	}
+
+	boolean readBoolean() throws IOException
+	{
+		return readByte() != 0;
+	}
+
+	long readVarLong() throws IOException
+	{
+		long zigzag = 0;
+
+		for (int shift = 0; shift < 64; shift += 7)
+		{
+			final int b = readByte();
+			zigzag |= (long) (b & 0x7F) << shift;
+
+			if ((b & 0x80) == 0)
+			{
+				return (zigzag >>> 1) ^ -(zigzag & 1);
+			}
+		}
+
+		throw new IOException("Malformed varint");
+	}
+
+	int readVarInt() throws IOException
+	{
+		return (int) readVarLong();
+	}
+
+	double readDouble() throws IOException
+	{
+		long bits = 0;
+		for (int i = 0; i < 8; i++)
+		{
+			bits = (bits << 8) | readByte();
+		}
+		return Double.longBitsToDouble(bits);
+	}
+
+	String readString() throws IOException
+	{
+		final int length = readVarInt() - 1;
+
+		if (length < 0)
+		{
+			return null;
+		}
+
+		final byte[] utf8 = in.readNBytes(length);
+		if (utf8.length < length)
+		{
+			throw new EOFException("Truncated record");
+		}
+		return new String(utf8, StandardCharsets.UTF_8);
+	}
+
+	String[] readStrings() throws IOException
+	{
+		final int length = readVarInt() - 1;
+
+		if (length < 0)
+		{
+			return null;
+		}
+
+		final String[] a = new String[length];
+		for (int i = 0; i < length; i++)
+		{
+			a[i] = readString();
+		}
+		return a;
+	}
+
+	long[] readLongs() throws IOException
+	{
+		final int length = readVarInt() - 1;
+
+		if (length < 0)
+		{
+			return null;
+		}
+
+		final long[] a = new long[length];
+		for (int i = 0; i < length; i++)
+		{
+			a[i] = readVarLong();
+		}
+		return a;
+	}
+
+	LocalDate readDate() throws IOException
+	{
+		return readBoolean() ? LocalDate.ofEpochDay(readVarLong()) : null;
+	}
+
+	LocalDateTime readDateTime() throws IOException
+	{
+		if (!readBoolean())
+		{
+			return null;
+		}
+
+		final long epochSecond = readVarLong();
+		return LocalDateTime.ofEpochSecond(epochSecond, readVarInt(), ZoneOffset.UTC);
+	}
+}
@@ -1,10 +1,13 @@
 package org.oltp1.runner.tx;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Supplier;
 
 import org.oltp1.runner.db.SqlEngine;
+import org.oltp1.runner.db.SqlProbe;
 import org.oltp1.runner.tx.broker_volume.BrokerVolumeQueries;
 import org.oltp1.runner.tx.broker_volume.MariaDbBrokerVolumeQueries;
 import org.oltp1.runner.tx.broker_volume.MsSqlBrokerVolumeQueries;
@@ -16,9 +19,13 @@ import org.oltp1.runner.tx.data_maintenance.DataMaintenanceQueries;
 import org.oltp1.runner.tx.data_maintenance.MariaDbDataMaintenanceQueries;
 import org.oltp1.runner.tx.data_maintenance.MsSqlDataMaintenanceQueries;
 import org.oltp1.runner.tx.data_maintenance.PgSqlDataMaintenanceQueries;
+import org.oltp1.runner.tx.market_feed.MariaDbMarketFeedProcedures;
 import org.oltp1.runner.tx.market_feed.MariaDbMarketFeedQueries;
+import org.oltp1.runner.tx.market_feed.MarketFeedProcedures;
 import org.oltp1.runner.tx.market_feed.MarketFeedQueries;
+import org.oltp1.runner.tx.market_feed.MsSqlMarketFeedProcedures;
 import org.oltp1.runner.tx.market_feed.MsSqlMarketFeedQueries;
+import org.oltp1.runner.tx.market_feed.PgSqlMarketFeedProcedures;
 import org.oltp1.runner.tx.market_feed.PgSqlMarketFeedQueries;
 import org.oltp1.runner.tx.market_watch.DefaultMarketWatchQueries;
 import org.oltp1.runner.tx.market_watch.MarketWatchQueries;
@@ -33,8 +40,16 @@ import org.oltp1.runner.tx.trade_lookup.MsSqlTradeLookupQueries;
 import org.oltp1.runner.tx.trade_lookup.PgSqlTradeLookupQueries;
 import org.oltp1.runner.tx.trade_lookup.TradeLookupQueries;
 import org.oltp1.runner.tx.trade_order.DefaultTradeOrderQueries;
+import org.oltp1.runner.tx.trade_order.MariaDbTradeOrderProcedures;
+import org.oltp1.runner.tx.trade_order.MsSqlTradeOrderProcedures;
+import org.oltp1.runner.tx.trade_order.PgSqlTradeOrderProcedures;
+import org.oltp1.runner.tx.trade_order.TradeOrderProcedures;
 import org.oltp1.runner.tx.trade_order.TradeOrderQueries;
 import org.oltp1.runner.tx.trade_result.DefaultTradeResultQueries;
+import org.oltp1.runner.tx.trade_result.MariaDbTradeResultProcedures;
+import org.oltp1.runner.tx.trade_result.MsSqlTradeResultProcedures;
+import org.oltp1.runner.tx.trade_result.PgSqlTradeResultProcedures;
+import org.oltp1.runner.tx.trade_result.TradeResultProcedures;
 import org.oltp1.runner.tx.trade_result.TradeResultQueries;
 import org.oltp1.runner.tx.trade_status.DefaultTradeStatusQueries;
 import org.oltp1.runner.tx.trade_status.TradeStatusQueries;
@@ -94,7 +109,40 @@ public class QueryFactory
 									queryInterface.getSimpleName()));
 		}
 
-		return (T) supplier.get();
+		T queries = (T) supplier.get();
+
+		if (SqlProbe.isEnabled() && queryInterface.isInterface())
+		{
+			return probed(queryInterface, queries);
+		}
+
+		return queries;
+	}
+
+	/*
+	 * Wraps the queries so that each SQL text getter labels the statements that
+	 * follow it with the name of the method, for the per-query statistics. The
+	 * other methods, e.g. the set parameter binders, do not label anything.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T probed(Class<T> queryInterface, T queries)
+	{
+		return (T) Proxy.newProxyInstance(queryInterface.getClassLoader(), new Class<?>[] { queryInterface }, (proxy, method, args) -> {
+
+			if (method.getDeclaringClass() != Object.class && method.getReturnType() == String.class)
+			{
+				SqlProbe.query(method.getName());
+			}
+
+			try
+			{
+				return method.invoke(queries, args);
+			}
+			catch (InvocationTargetException e)
+			{
+				throw e.getCause();
+			}
+		});
 	}
 
 	/*
@@ -173,6 +221,25 @@ public class QueryFactory
 				.withEngine(SqlEngine.MARIADB, DefaultTradeResultQueries::new)
 				.withEngine(SqlEngine.ORIOLEDB, DefaultTradeResultQueries::new);
 
+		// Trade Order, Trade Result and Market Feed stored procedures
+		register(TradeOrderProcedures.class)
+				.withEngine(SqlEngine.POSTGRESQL, PgSqlTradeOrderProcedures::new)
+				.withEngine(SqlEngine.MSSQL, MsSqlTradeOrderProcedures::new)
+				.withEngine(SqlEngine.MARIADB, MariaDbTradeOrderProcedures::new)
+				.withEngine(SqlEngine.ORIOLEDB, PgSqlTradeOrderProcedures::new);
+
+		register(TradeResultProcedures.class)
+				.withEngine(SqlEngine.POSTGRESQL, PgSqlTradeResultProcedures::new)
+				.withEngine(SqlEngine.MSSQL, MsSqlTradeResultProcedures::new)
+				.withEngine(SqlEngine.MARIADB, MariaDbTradeResultProcedures::new)
+				.withEngine(SqlEngine.ORIOLEDB, PgSqlTradeResultProcedures::new);
+
+		register(MarketFeedProcedures.class)
+				.withEngine(SqlEngine.POSTGRESQL, PgSqlMarketFeedProcedures::new)
+				.withEngine(SqlEngine.MSSQL, MsSqlMarketFeedProcedures::new)
+				.withEngine(SqlEngine.MARIADB, MariaDbMarketFeedProcedures::new)
+				.withEngine(SqlEngine.ORIOLEDB, PgSqlMarketFeedProcedures::new);
+
 		// Trade Status (uses default for all engines)
 		register(TradeStatusQueries.class)
 				.withEngine(SqlEngine.POSTGRESQL, DefaultTradeStatusQueries::new)
@@ -1,11 +1,19 @@
 package org.oltp1.runner.tx.broker_volume;
 
+import org.oltp1.runner.db.SetParameterBinder;
+
 /**
  * Defines the contract for supplying SQL queries for the Broker-Volume
  * transaction.
  */
 public interface BrokerVolumeQueries
 {
+	/**
+	 * @return the binder of the :broker_list set, matching the SQL of
+	 *         {@link #getVolume()}
+	 */
+	SetParameterBinder getBrokerListBinder();
+
 	/**
 	 * Returns the SQL query to calculate the total volume for a list of brokers in
 	 * a specific sector.
@@ -1,11 +1,20 @@
 package org.oltp1.runner.tx.broker_volume;
 
+import org.oltp1.runner.db.SetParameterBinder;
+import org.oltp1.runner.db.SetParameterBinders;
+
 /**
  * Provides the Microsoft SQL Server-specific SQL queries for the Broker-Volume
  * transaction.
  */
 public class MariaDbBrokerVolumeQueries implements BrokerVolumeQueries
 {
+	@Override
+	public SetParameterBinder getBrokerListBinder()
+	{
+		return SetParameterBinders.JSON;
+	}
+
 	@Override
 	public String getVolume()
 	{
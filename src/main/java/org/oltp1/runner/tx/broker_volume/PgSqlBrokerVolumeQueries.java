@@ -1,11 +1,20 @@
 package org.oltp1.runner.tx.broker_volume;
 
+import org.oltp1.runner.db.SetParameterBinder;
+import org.oltp1.runner.db.SetParameterBinders;
+
 /**
  * Provides the PostgreSQL-specific SQL queries for the Broker-Volume
  * transaction.
  */
 public class PgSqlBrokerVolumeQueries implements BrokerVolumeQueries
 {
+	@Override
+	public SetParameterBinder getBrokerListBinder()
+	{
+		return SetParameterBinders.ARRAY_VARCHAR;
+	}
+
 	@Override
 	public String getVolume()
 	{
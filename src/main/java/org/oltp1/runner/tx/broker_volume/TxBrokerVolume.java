@@ -1,31 +1,22 @@
 package org.oltp1.runner.tx.broker_volume;
 
-import java.sql.Array;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 
-import org.apache.commons.lang3.StringUtils;
 import org.oltp1.common.ErrorCtx;
 import org.oltp1.runner.db.SqlContext;
-import org.oltp1.runner.db.SqlEngine;
 import org.oltp1.runner.generator.TxInputGenerator;
 import org.oltp1.runner.perf.TxBase;
 import org.oltp1.runner.perf.TxOutput;
 import org.oltp1.runner.perf.TxStatsCollector;
 import org.oltp1.runner.tx.QueryFactory;
-import org.sql2o.Connection;
-import org.sql2o.Query;
-import org.sql2o.Sql2o;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.oltp1.runner.db.DbSession;
+import org.oltp1.runner.db.DbStatement;
 
 public class TxBrokerVolume extends TxBase
 {
 	private static final int max_broker_list_len = 40;
 
-	private final ObjectMapper json = new ObjectMapper();
-	private SqlContext sqlCtx;
-	private final Sql2o sql2o;
+	private final SqlContext sqlCtx;
 	private final TxInputGenerator txInputGen;
 	private final BrokerVolumeQueries sql;
 
@@ -34,17 +25,17 @@ public class TxBrokerVolume extends TxBase
 		super(new TxStatsCollector("Broker-Volume"));
 		this.txInputGen = txInputGen;
 		this.sqlCtx = sqlCtx;
-		this.sql2o = sqlCtx.getSql2o();
+		setRetryPolicy(sqlCtx.getRetryPolicy());
 		this.sql = QueryFactory.getQueries(BrokerVolumeQueries.class, sqlCtx.getSqlEngine());
 	}
 
 	@Override
 	protected final TxOutput run()
 	{
-		final TxBrokerVolumeInput txInput = txInputGen.generateBrokerVolumeInput();
+		final TxBrokerVolumeInput txInput = input(txInputGen::generateBrokerVolumeInput);
 		final TxBrokerVolumeOutput txOutput = new TxBrokerVolumeOutput();
 
-		try (Connection con = sql2o.beginTransaction())
+		try (DbSession con = sqlCtx.beginTransaction())
 		{
 			executeFrame1(con, txInput, txOutput);
 
@@ -53,6 +44,7 @@ public class TxBrokerVolume extends TxBase
 		catch (Throwable t)
 		{
 			ErrorCtx ectx = new ErrorCtx(t);
+			txOutput.setFailure(t);
 			txOutput.setStatus(-1);
 			txOutput.setStatusMessage(ectx.toString());
 		}
@@ -60,50 +52,20 @@ public class TxBrokerVolume extends TxBase
 		return txOutput;
 	}
 
-	private void executeFrame1(final Connection con, final TxBrokerVolumeInput txInput, final TxBrokerVolumeOutput txOutput) throws Exception
+	private void executeFrame1(final DbSession con, final TxBrokerVolumeInput txInput, final TxBrokerVolumeOutput txOutput)
 	{
-		Query txQ = con
-				.createQuery(sql.getVolume());
-
-		if (sqlCtx.getSqlEngine() == SqlEngine.POSTGRESQL || sqlCtx.getSqlEngine() == SqlEngine.ORIOLEDB)
-		{
-			Array brokerArr = con.getJdbcConnection().createArrayOf("varchar", txInput.broker_list);
-
-			txQ
-					.addParameter("broker_list", brokerArr)
-					.addParameter("sector_name", txInput.sector_name);
-		}
-		else if (sqlCtx.getSqlEngine() == SqlEngine.MSSQL)
-		{
-			String brokerLstCsv = StringUtils.join(txInput.broker_list, ",");
+		DbStatement txQ = con
+				.prepare(sql.getVolume())
+				.bind("sector_name", txInput.sector_name);
 
-			txQ
-					.addParameter("broker_list", brokerLstCsv)
-					.addParameter("sector_name", txInput.sector_name);
-		}
-		else if (sqlCtx.getSqlEngine() == SqlEngine.MARIADB)
-		{
-			String brokerLstJsonArr = json.writeValueAsString(txInput.broker_list);
-
-			txQ
-					.addParameter("broker_list", brokerLstJsonArr)
-					.addParameter("sector_name", txInput.sector_name);
-		}
-		else
-		{
-			throw new UnsupportedOperationException("Unsupported Database for this operation");
-		}
+		sql.getBrokerListBinder().bind(con, txQ, "broker_list", Arrays.asList(txInput.broker_list));
 
-		final List<Map<String, Object>> lstBrokerVolume = txQ
-				.executeAndFetchTable()
-				.asList();
+		txOutput.list_len = fetchPayload(txQ, txOutput, l -> txOutput.volume = l);
 
 		// row_count will frequently be zero near the start of a Test Run when
 		// TRADE_REQUEST table is mostly empty
-		final int status = (lstBrokerVolume.size() > max_broker_list_len) ? -111 : 0;
+		final int status = (txOutput.list_len > max_broker_list_len) ? -111 : 0;
 
-		txOutput.volume = lstBrokerVolume;
-		txOutput.list_len = lstBrokerVolume.size();
 		txOutput.setStatus(status);
 	}
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package org.oltp1.runner.tx.customer_position;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.oltp1.common.ErrorCtx;
@@ -12,15 +13,15 @@ import org.oltp1.runner.tx.QueryFactory;
 import org.oltp1.runner.perf.TxBase;
 import org.oltp1.runner.perf.TxOutput;
 import org.oltp1.runner.perf.TxStatsCollector;
-import org.sql2o.Connection;
-import org.sql2o.Sql2o;
+import org.oltp1.runner.db.DbSession;
+import org.oltp1.runner.db.DbStatement;
 
 public class TxCustomerPosition extends TxBase
 {
 	private static final int max_acct_len = 10;
 	private static final int max_hist_len = 30;
 
-	private final Sql2o sql2o;
+	private final SqlContext sqlCtx;
 	private final TxInputGenerator txInputGen;
 	private final CustomerPositionQueries sql;
 
@@ -28,29 +29,33 @@ public class TxCustomerPosition extends TxBase
 	{
 		super(new TxStatsCollector("Customer-Position"));
 		this.txInputGen = txInputGen;
-		this.sql2o = sqlCtx.getSql2o();
+		this.sqlCtx = sqlCtx;
+		setRetryPolicy(sqlCtx.getRetryPolicy());
 		this.sql = QueryFactory.getQueries(CustomerPositionQueries.class, sqlCtx.getSqlEngine());
 	}
 
 	@Override
 	protected final TxOutput run()
 	{
-		final TxCustomerPositionInput txInput = txInputGen.generateCustomerPositionInput();
+		final TxCustomerPositionInput txInput = input(txInputGen::generateCustomerPositionInput);
 
 		final TxCustomerPositionOutput txOutput = new TxCustomerPositionOutput();
 
-		try (Connection con = sql2o.beginTransaction())
+		try (DbSession con = sqlCtx.beginTransaction())
 		{
-			executeFrame1(con, txInput, txOutput);
+			frame(1);
+			final List<Long> acctIds = executeFrame1(con, txInput, txOutput);
 
 			if (txOutput.getStatus() > -1)
 			{
 				if (txInput.get_history)
 				{
-					executeFrame2(con, txInput, txOutput);
+					frame(2);
+					executeFrame2(con, acctIds.get(txInput.acct_id_idx), txOutput);
 				}
 				else
 				{
+					frame(3);
 					executeFrame3(con);
 				}
 			}
@@ -62,6 +67,7 @@ public class TxCustomerPosition extends TxBase
 		catch (Throwable t)
 		{
 			ErrorCtx lctx = new ErrorCtx(t);
+			txOutput.setFailure(t);
 			txOutput.setStatus(-1);
 			txOutput.setStatusMessage(lctx.toString());
 		}
@@ -69,58 +75,67 @@ public class TxCustomerPosition extends TxBase
 		return txOutput;
 	}
 
-	private void executeFrame1(final Connection con, final TxCustomerPositionInput frm1Input, final TxCustomerPositionOutput txOutput)
+	/**
+	 * @return the ids of the customer accounts
+	 */
+	private List<Long> executeFrame1(final DbSession con, final TxCustomerPositionInput frm1Input, final TxCustomerPositionOutput txOutput)
 	{
 		long customerId = getCustomerId(con, frm1Input);
 
 		Map<String, Object> customer = con
-				.createQuery(sql.getCustomerByCid())
-				.addParameter("cust_id", customerId)
-				.executeAndFetchTable()
-				.asList()
+				.prepare(sql.getCustomerByCid())
+				.bind("cust_id", customerId)
+				.fetchMaps()
 				.stream()
 				.findFirst()
 				.orElse(null);
 
-		List<Map<String, Object>> customerAccounts;
+		List<Long> acctIds;
 
 		if (customer != null)
 		{
 			txOutput.customer = customer;
 
-			customerAccounts = con
-					.createQuery(sql.getCustomerAccounts())
-					.addParameter("cust_id", customer.get("cust_id"))
-					.executeAndFetchTable()
-					.asList();
+			DbStatement accountsQuery = con
+					.prepare(sql.getCustomerAccounts())
+					.bind("cust_id", customer.get("cust_id"));
+
+			if (txOutput.isPayloadKept())
+			{
+				txOutput.customer_accounts = accountsQuery.fetchMaps();
+				acctIds = txOutput.customer_accounts
+						.stream()
+						.map(a -> ((Number) a.get("acct_id")).longValue())
+						.collect(Collectors.toList());
+			}
+			else
+			{
+				acctIds = accountsQuery.fetchList(rs -> rs.getLong("acct_id"));
+			}
 		}
 		else
 		{
-			customerAccounts = Collections.emptyList();
+			acctIds = Collections.emptyList();
 		}
 
-		txOutput.customer_accounts = customerAccounts;
-		txOutput.acct_len = customerAccounts.size();
+		txOutput.acct_len = acctIds.size();
 
 		if ((txOutput.acct_len < 1) || (txOutput.acct_len > max_acct_len))
 		{
 			txOutput.setStatus(-221);
 			txOutput.setStatusMessage("(acct_len  < 1) || (acct_len  > max_acct_len)");
 		}
+
+		return acctIds;
 	}
 
-	private void executeFrame2(final Connection con, final TxCustomerPositionInput txInput, final TxCustomerPositionOutput txOutput)
+	private void executeFrame2(final DbSession con, final long acctId, final TxCustomerPositionOutput txOutput)
 	{
-		Map<String, Object> customerAsset = txOutput.customer_accounts.get(txInput.acct_id_idx);
-
-		List<Map<String, Object>> tradeHistory = con
-				.createQuery(sql.getTradeHistory())
-				.addParameter("acct_id", (Long) customerAsset.get("acct_id"))
-				.executeAndFetchTable()
-				.asList();
+		DbStatement historyQuery = con
+				.prepare(sql.getTradeHistory())
+				.bind("acct_id", acctId);
 
-		txOutput.trade_history = tradeHistory;
-		txOutput.hist_len = tradeHistory.size();
+		txOutput.hist_len = fetchPayload(historyQuery, txOutput, l -> txOutput.trade_history = l);
 
 		if ((txOutput.hist_len < 10) || (txOutput.hist_len > max_hist_len))
 		{
@@ -131,12 +146,12 @@ public class TxCustomerPosition extends TxBase
 		con.commit();
 	}
 
-	private void executeFrame3(final Connection con)
+	private void executeFrame3(final DbSession con)
 	{
 		con.commit();
 	}
 
-	private long getCustomerId(final Connection con, final TxCustomerPositionInput frm1Input)
+	private long getCustomerId(final DbSession con, final TxCustomerPositionInput frm1Input)
 	{
 		if (frm1Input.cust_id > 0)
 		{
@@ -145,9 +160,9 @@ public class TxCustomerPosition extends TxBase
 		else if (StringUtils.isNotBlank(frm1Input.tax_id))
 		{
 			Long oCid = con
-					.createQuery(sql.getCustomerByTaxid())
-					.addParameter("tax_id", frm1Input.tax_id)
-					.executeScalar(Long.class);
+					.prepare(sql.getCustomerByTaxid())
+					.bind("tax_id", frm1Input.tax_id)
+					.fetchScalar(Long.class);
 
 			return oCid != null ? oCid.longValue() : -1;
 		}
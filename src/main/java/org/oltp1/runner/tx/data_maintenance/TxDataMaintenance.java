@@ -14,13 +14,12 @@ import org.oltp1.runner.tx.QueryFactory;
 import org.oltp1.runner.perf.TxBase;
 import org.oltp1.runner.perf.TxOutput;
 import org.oltp1.runner.perf.TxStatsCollector;
-import org.sql2o.Connection;
-import org.sql2o.Sql2o;
-import org.sql2o.data.Row;
+import org.oltp1.runner.db.DbSession;
+import org.oltp1.runner.db.DbRow;
 
 public class TxDataMaintenance extends TxBase
 {
-	private final Sql2o sql2o;
+	private final SqlContext sqlCtx;
 	private final TxInputGenerator txInputGen;
 	private final DataMaintenanceQueries sql;
 
@@ -29,17 +28,18 @@ public class TxDataMaintenance extends TxBase
 		super(new TxStatsCollector("Data-Maintenance"));
 
 		this.txInputGen = txInputGen;
-		this.sql2o = sqlCtx.getSql2o();
+		this.sqlCtx = sqlCtx;
+		setRetryPolicy(sqlCtx.getRetryPolicy());
 		this.sql = QueryFactory.getQueries(DataMaintenanceQueries.class, sqlCtx.getSqlEngine());
 	}
 
 	@Override
 	protected TxOutput run()
 	{
-		final TxDataMaintenanceInput txInput = txInputGen.generateDataMaintenanceInput();
+		final TxDataMaintenanceInput txInput = input(txInputGen::generateDataMaintenanceInput);
 		final TxDataMaintenanceOutput txOutput = new TxDataMaintenanceOutput();
 
-		try (Connection con = sql2o.beginTransaction())
+		try (DbSession con = sqlCtx.beginTransaction())
 		{
 			int rowsAffected = 0;
 
@@ -47,33 +47,30 @@ public class TxDataMaintenance extends TxBase
 			{
 			case "ACCOUNT_PERMISSION":
 				String currentAcl = con
-						.createQuery(sql.getApAcl())
-						.addParameter("acct_id", txInput.acct_id)
-						.executeScalar(String.class);
+						.prepare(sql.getApAcl())
+						.bind("acct_id", txInput.acct_id)
+						.fetchScalar(String.class);
 				if (currentAcl != null)
 				{
 					String newAcl = "1111".equals(currentAcl) ? "0011" : "1111";
 					rowsAffected = con
-							.createQuery(sql.updateApAcl())
-							.addParameter("acct_id", txInput.acct_id)
-							.addParameter("ap_acl", newAcl)
-							.executeUpdate()
-							.getResult();
+							.prepare(sql.updateApAcl())
+							.bind("acct_id", txInput.acct_id)
+							.bind("ap_acl", newAcl)
+							.executeUpdate();
 				}
 				break;
 			case "ADDRESS":
-				Row addressInfo = (txInput.c_id != 0)
+				DbRow addressInfo = (txInput.c_id != 0)
 						? con
-								.createQuery(sql.getCustomerAddress())
-								.addParameter("c_id", txInput.c_id)
-								.executeAndFetchTable()
-								.rows()
+								.prepare(sql.getCustomerAddress())
+								.bind("c_id", txInput.c_id)
+								.fetchRows()
 								.getFirst()
 						: con
-								.createQuery(sql.getCompanyAddress())
-								.addParameter("co_id", txInput.co_id)
-								.executeAndFetchTable()
-								.rows()
+								.prepare(sql.getCompanyAddress())
+								.bind("co_id", txInput.co_id)
+								.fetchRows()
 								.getFirst();
 
 				if (addressInfo != null)
@@ -81,52 +78,49 @@ public class TxDataMaintenance extends TxBase
 					String currentLine2 = addressInfo.getString("ad_line2");
 					String newLine2 = "Apt. 10C".equals(currentLine2) ? "Apt. 22" : "Apt. 10C";
 					rowsAffected = con
-							.createQuery(sql.updateAddressLine2())
-							.addParameter("ad_id", addressInfo.getLong("ad_id"))
-							.addParameter("ad_line2", newLine2)
-							.executeUpdate()
-							.getResult();
+							.prepare(sql.updateAddressLine2())
+							.bind("ad_id", addressInfo.getLong("ad_id"))
+							.bind("ad_line2", newLine2)
+							.executeUpdate();
 				}
 				break;
 			case "COMPANY":
 				String currentSpRate = con
-						.createQuery(sql.getCompanySpRate())
-						.addParameter("co_id", txInput.co_id)
-						.executeScalar(String.class);
+						.prepare(sql.getCompanySpRate())
+						.bind("co_id", txInput.co_id)
+						.fetchScalar(String.class);
 
 				if (currentSpRate != null)
 				{
 					String newSpRate = "ABA".equals(currentSpRate) ? "AAA" : "ABA";
 					rowsAffected = con
-							.createQuery(sql.updateCompanySpRate())
-							.addParameter("co_id", txInput.co_id)
-							.addParameter("sp_rate", newSpRate)
-							.executeUpdate()
-							.getResult();
+							.prepare(sql.updateCompanySpRate())
+							.bind("co_id", txInput.co_id)
+							.bind("sp_rate", newSpRate)
+							.executeUpdate();
 				}
 				break;
 			case "CUSTOMER":
 				String currentEmail2 = con
-						.createQuery(sql.getCustomerEmail2())
-						.addParameter("c_id", txInput.c_id)
-						.executeScalar(String.class);
+						.prepare(sql.getCustomerEmail2())
+						.bind("c_id", txInput.c_id)
+						.fetchScalar(String.class);
 				if (currentEmail2 != null)
 				{
 					String[] emailParts = currentEmail2.split("@");
 					String newEmail2 = emailParts[0] + (emailParts.length > 1 && "mindspring.com".equals(emailParts[1]) ? "@earthlink.com" : "@mindspring.com");
 					rowsAffected = con
-							.createQuery(sql.updateCustomerEmail2())
-							.addParameter("c_id", txInput.c_id)
-							.addParameter("c_email_2", newEmail2)
-							.executeUpdate()
-							.getResult();
+							.prepare(sql.updateCustomerEmail2())
+							.bind("c_id", txInput.c_id)
+							.bind("c_email_2", newEmail2)
+							.executeUpdate();
 				}
 				break;
 			case "CUSTOMER_TAXRATE":
 				List<String> currentTaxRates = con
-						.createQuery(sql.getCustomerTaxrateIds())
-						.addParameter("c_id", txInput.c_id)
-						.executeScalarList(String.class);
+						.prepare(sql.getCustomerTaxrateIds())
+						.bind("c_id", txInput.c_id)
+						.fetchScalars(String.class);
 				for (String tx_id : currentTaxRates)
 				{
 					List<String> usRates = Arrays.asList("US1", "US2", "US3", "US4", "US5");
@@ -138,26 +132,24 @@ public class TxDataMaintenance extends TxBase
 						new_tx_id = cnRates.get((cnRates.indexOf(tx_id) + 1) % cnRates.size());
 					if (new_tx_id != null)
 						rowsAffected += con
-								.createQuery(sql.updateCustomerTaxrate())
-								.addParameter("c_id", txInput.c_id)
-								.addParameter("old_tx_id", tx_id)
-								.addParameter("new_tx_id", new_tx_id)
-								.executeUpdate()
-								.getResult();
+								.prepare(sql.updateCustomerTaxrate())
+								.bind("c_id", txInput.c_id)
+								.bind("old_tx_id", tx_id)
+								.bind("new_tx_id", new_tx_id)
+								.executeUpdate();
 				}
 				break;
 			case "DAILY_MARKET":
 				rowsAffected = con
-						.createQuery(sql.updateDailyMarketVol())
-						.addParameter("symbol", txInput.symbol)
-						.addParameter("day_of_month", txInput.day_of_month)
-						.addParameter("vol_incr", txInput.vol_incr)
-						.executeUpdate()
-						.getResult();
+						.prepare(sql.updateDailyMarketVol())
+						.bind("symbol", txInput.symbol)
+						.bind("day_of_month", txInput.day_of_month)
+						.bind("vol_incr", txInput.vol_incr)
+						.executeUpdate();
 				break;
 			case "EXCHANGE":
-				List<Row> exchanges = con.createQuery(sql.getAllExchanges()).executeAndFetchTable().rows();
-				for (Row exchange : exchanges)
+				List<DbRow> exchanges = con.prepare(sql.getAllExchanges()).fetchRows();
+				for (DbRow exchange : exchanges)
 				{
 					String ex_id = exchange.getString("ex_id");
 					String currentDesc = exchange.getString("ex_desc");
@@ -170,86 +162,78 @@ public class TxDataMaintenance extends TxBase
 					else
 						newDesc = currentDesc + " " + updateString;
 					rowsAffected += con
-							.createQuery(sql.updateExchangeDesc())
-							.addParameter("ex_id", ex_id)
-							.addParameter("ex_desc", newDesc)
-							.executeUpdate()
-							.getResult();
+							.prepare(sql.updateExchangeDesc())
+							.bind("ex_id", ex_id)
+							.bind("ex_desc", newDesc)
+							.executeUpdate();
 				}
 				break;
 			case "FINANCIAL":
 				long count = con
-						.createQuery(sql.countFinancialOnFirstOfMonth())
-						.addParameter("co_id", txInput.co_id)
-						.executeScalar(Long.class);
+						.prepare(sql.countFinancialOnFirstOfMonth())
+						.bind("co_id", txInput.co_id)
+						.fetchScalar(Long.class);
 
 				if (count > 0)
 					rowsAffected = con
-							.createQuery(sql.updateFinancialQtrStartDateAdd())
-							.addParameter("co_id", txInput.co_id)
-							.executeUpdate()
-							.getResult();
+							.prepare(sql.updateFinancialQtrStartDateAdd())
+							.bind("co_id", txInput.co_id)
+							.executeUpdate();
 				else
 					rowsAffected = con
-							.createQuery(sql.updateFinancialQtrStartDateSubtract())
-							.addParameter("co_id", txInput.co_id)
-							.executeUpdate()
-							.getResult();
+							.prepare(sql.updateFinancialQtrStartDateSubtract())
+							.bind("co_id", txInput.co_id)
+							.executeUpdate();
 				break;
 			case "NEWS_ITEM":
 				rowsAffected = con
-						.createQuery(sql.updateNewsItemDts())
-						.addParameter("co_id", txInput.co_id)
-						.executeUpdate()
-						.getResult();
+						.prepare(sql.updateNewsItemDts())
+						.bind("co_id", txInput.co_id)
+						.executeUpdate();
 				break;
 			case "SECURITY":
 				rowsAffected = con
-						.createQuery(sql.updateSecurityExchDate())
-						.addParameter("symbol", txInput.symbol)
-						.executeUpdate()
-						.getResult();
+						.prepare(sql.updateSecurityExchDate())
+						.bind("symbol", txInput.symbol)
+						.executeUpdate();
 				break;
 			case "TAXRATE":
 				String currentTxName = con
-						.createQuery(sql.getTaxrateName())
-						.addParameter("tx_id", txInput.tx_id)
-						.executeScalar(String.class);
+						.prepare(sql.getTaxrateName())
+						.bind("tx_id", txInput.tx_id)
+						.fetchScalar(String.class);
 
 				if (currentTxName != null)
 				{
 					String newTxName = currentTxName.contains("Tax") ? currentTxName.replace("Tax", "tax") : currentTxName.replace("tax", "Tax");
 					rowsAffected = con
-							.createQuery(sql.updateTaxrateName())
-							.addParameter("tx_id", txInput.tx_id)
-							.addParameter("tx_name", newTxName)
-							.executeUpdate()
-							.getResult();
+							.prepare(sql.updateTaxrateName())
+							.bind("tx_id", txInput.tx_id)
+							.bind("tx_name", newTxName)
+							.executeUpdate();
 				}
 				break;
 			case "WATCH_ITEM":
-				List<Row> watchList = con
-						.createQuery(sql.getWatchListItems())
-						.addParameter("c_id", txInput.c_id)
-						.executeAndFetchTable()
-						.rows();
+				List<DbRow> watchList = con
+						.prepare(sql.getWatchListItems())
+						.bind("c_id", txInput.c_id)
+						.fetchRows();
 				if (watchList.size() > 0)
 				{
 					int middleIndex = watchList.size() / 2;
 					String symbolToReplace = watchList.get(middleIndex).getString("wi_s_symb");
 					long wl_id = watchList.get(middleIndex).getLong("wi_wl_id");
 					String newSymbol = con
-							.createQuery(sql.getNextSecurityForWatchList())
-							.addParameter("wl_id", wl_id)
-							.executeScalar(String.class);
+							.prepare(sql.getNextSecurityForWatchList())
+							.bind("wl_id", wl_id)
+							.fetchScalar(String.class);
 					if (newSymbol != null)
 						rowsAffected = con
-								.createQuery(sql.updateWatchItem())
-								.addParameter("wl_id", wl_id)
-								.addParameter("old_symbol", symbolToReplace)
-								.addParameter("new_symbol", newSymbol)
-								.executeUpdate()
-								.getResult();
+								.prepare(sql.updateWatchItem())
+								.bind("wl_id", wl_id)
+								.bind("old_symbol", symbolToReplace)
+								.bind("new_symbol", newSymbol)
+								.executeUpdate();
 				}
 				break;
 			}
@@ -261,6 +245,7 @@ public class TxDataMaintenance extends TxBase
 		catch (Throwable t)
 		{
 			ErrorCtx ectx = new ErrorCtx(t);
+			txOutput.setFailure(t);
 			String fullMsg = String.format("Data-Maintenance transaction failed for table '%s' -> ", txInput.table_name, ectx.toString());
 			txOutput.setStatus(-1);
 			txOutput.setStatusMessage(fullMsg);
@@ -0,0 +1,23 @@
+package org.oltp1.runner.tx.market_feed;
+
+/**
+ * Provides the MariaDB-specific stored procedure call for the Market-Feed
+ * transaction.
+ */
+public class MariaDbMarketFeedProcedures implements MarketFeedProcedures
+{
+	@Override
+	public String callFrame1()
+	{
+		return """
+				CALL market_feed_frame1
+				(
+					:tickers
+					, :status_submitted
+					, :tt_buy
+					, :tt_sell
+					, :tt_stop
+				);
+				""";
+	}
+}
@@ -1,11 +1,20 @@
 package org.oltp1.runner.tx.market_feed;
 
+import org.oltp1.runner.db.SetParameterBinder;
+import org.oltp1.runner.db.SetParameterBinders;
+
 /**
  * MariaDB specific implementation of the Market-Feed query strategy.
  */
 public class MariaDbMarketFeedQueries implements MarketFeedQueries
 {
 
+	@Override
+	public SetParameterBinder getTradeListBinder()
+	{
+		return SetParameterBinders.JSON;
+	}
+
 	@Override
 	public String updateLastTrade()
 	{
@@ -0,0 +1,12 @@
+package org.oltp1.runner.tx.market_feed;
+
+/**
+ * Defines the contract for supplying the stored procedure call of the
+ * Market-Feed transaction, for the procedure execution mode. The procedure is
+ * installed by initdb.
+ */
+public interface MarketFeedProcedures
+{
+	// Frame 1
+	String callFrame1();
+}
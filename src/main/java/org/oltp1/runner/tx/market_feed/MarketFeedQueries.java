@@ -1,11 +1,19 @@
 package org.oltp1.runner.tx.market_feed;
 
+import org.oltp1.runner.db.SetParameterBinder;
+
 /**
  * Strategy interface for providing SQL queries for the Market-Feed transaction.
  */
 public interface MarketFeedQueries
 {
 
+	/**
+	 * Binder of the :trade_lst set of trade ids, matching the SQL of the
+	 * trade and trade request statements.
+	 */
+	SetParameterBinder getTradeListBinder();
+
 	/**
 	 * SQL to update the last_trade table with new ticker data.
 	 */
@@ -0,0 +1,21 @@
+package org.oltp1.runner.tx.market_feed;
+
+/**
+ * Provides the Microsoft SQL Server-specific stored procedure call for the
+ * Market-Feed transaction.
+ */
+public class MsSqlMarketFeedProcedures implements MarketFeedProcedures
+{
+	@Override
+	public String callFrame1()
+	{
+		return """
+				EXEC market_feed_frame1
+					@tickers = :tickers
+					, @status_submitted = :status_submitted
+					, @tt_buy = :tt_buy
+					, @tt_sell = :tt_sell
+					, @tt_stop = :tt_stop;
+				""";
+	}
+}
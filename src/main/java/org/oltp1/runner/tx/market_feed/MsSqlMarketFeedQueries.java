@@ -1,5 +1,8 @@
 package org.oltp1.runner.tx.market_feed;
 
+import org.oltp1.runner.db.SetParameterBinder;
+import org.oltp1.runner.db.SetParameterBinders;
+
 /**
  * Microsoft SQL Server-specific implementation of the Market-Feed query
  * strategy.
@@ -7,6 +10,12 @@ package org.oltp1.runner.tx.market_feed;
 public class MsSqlMarketFeedQueries implements MarketFeedQueries
 {
 
+	@Override
+	public SetParameterBinder getTradeListBinder()
+	{
+		return SetParameterBinders.CSV;
+	}
+
 	@Override
 	public String updateLastTrade()
 	{
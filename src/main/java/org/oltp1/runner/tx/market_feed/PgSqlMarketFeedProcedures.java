@@ -0,0 +1,23 @@
+package org.oltp1.runner.tx.market_feed;
+
+/**
+ * Provides the PostgreSQL-specific stored procedure call for the Market-Feed
+ * transaction.
+ */
+public class PgSqlMarketFeedProcedures implements MarketFeedProcedures
+{
+	@Override
+	public String callFrame1()
+	{
+		return """
+				SELECT * FROM market_feed_frame1
+				(
+					:tickers::jsonb
+					, :status_submitted
+					, :tt_buy
+					, :tt_sell
+					, :tt_stop
+				);
+				""";
+	}
+}
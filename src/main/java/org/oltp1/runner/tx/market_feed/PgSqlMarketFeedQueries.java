@@ -1,11 +1,20 @@
 package org.oltp1.runner.tx.market_feed;
 
+import org.oltp1.runner.db.SetParameterBinder;
+import org.oltp1.runner.db.SetParameterBinders;
+
 /**
  * PostgreSQL specific implementation of the Market-Feed query strategy.
  */
 public class PgSqlMarketFeedQueries implements MarketFeedQueries
 {
 
+	@Override
+	public SetParameterBinder getTradeListBinder()
+	{
+		return SetParameterBinders.CSV;
+	}
+
 	@Override
 	public String updateLastTrade()
 	{
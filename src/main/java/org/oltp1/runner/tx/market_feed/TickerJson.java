@@ -0,0 +1,67 @@
+package org.oltp1.runner.tx.market_feed;
+
+import java.util.Collection;
+
+import org.oltp1.runner.model.Ticker;
+
+/**
+ * Encodes the tickers of a Market-Feed batch, passed to the database as a JSON
+ * document, writing straight into a StringBuilder instead of going through an
+ * ObjectMapper for every batch.
+ */
+final class TickerJson
+{
+	private TickerJson()
+	{
+	}
+
+	/**
+	 * @return the tickers as an array of
+	 *         <code>{"symbol":..,"trade_price":..,"trade_qty":..}</code>
+	 *         objects
+	 */
+	static String toJson(Collection<Ticker> tickers)
+	{
+		final StringBuilder sb = new StringBuilder(16 + tickers.size() * 64);
+
+		sb.append('[');
+		for (Ticker ticker : tickers)
+		{
+			if (sb.length() > 1)
+			{
+				sb.append(',');
+			}
+			sb.append("{\"symbol\":");
+			appendString(sb, ticker.getSymbol());
+			sb.append(",\"trade_price\":").append(ticker.getTradePrice());
+			sb.append(",\"trade_qty\":").append(ticker.getTradeQty());
+			sb.append('}');
+		}
+		sb.append(']');
+
+		return sb.toString();
+	}
+
+	private static void appendString(StringBuilder sb, String value)
+	{
+		sb.append('"');
+		for (int i = 0; i < value.length(); i++)
+		{
+			final char c = value.charAt(i);
+
+			if (c == '"' || c == '\\')
+			{
+				sb.append('\\').append(c);
+			}
+			else if (c < 0x20)
+			{
+				sb.append(String.format("\\u%04x", (int) c));
+			}
+			else
+			{
+				sb.append(c);
+			}
+		}
+		sb.append('"');
+	}
+}
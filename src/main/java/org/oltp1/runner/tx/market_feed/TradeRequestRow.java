@@ -0,0 +1,51 @@
+package org.oltp1.runner.tx.market_feed;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * A trade request triggered by the tickers of a Market-Feed, as returned by
+ * <code>getRequestList()</code>.
+ */
+public final class TradeRequestRow
+{
+	public final long tr_t_id;
+	public final String tr_s_symb;
+	public final long tr_qty;
+	public final String tr_tt_id;
+	public final double tr_bid_price;
+
+	public TradeRequestRow(long trTId, String trSSymb, long trQty, String trTtId, double trBidPrice)
+	{
+		this.tr_t_id = trTId;
+		this.tr_s_symb = trSSymb;
+		this.tr_qty = trQty;
+		this.tr_tt_id = trTtId;
+		this.tr_bid_price = trBidPrice;
+	}
+
+	static TradeRequestRow read(ResultSet rs) throws SQLException
+	{
+		return new TradeRequestRow(
+				rs.getLong("tr_t_id"),
+				rs.getString("tr_s_symb"),
+				rs.getLong("tr_qty"),
+				rs.getString("tr_tt_id"),
+				rs.getDouble("tr_bid_price"));
+	}
+
+	@Override
+	public String toString()
+	{
+		return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+				.append("tr_t_id", tr_t_id)
+				.append("tr_s_symb", tr_s_symb)
+				.append("tr_qty", tr_qty)
+				.append("tr_tt_id", tr_tt_id)
+				.append("tr_bid_price", tr_bid_price)
+				.toString();
+	}
+}
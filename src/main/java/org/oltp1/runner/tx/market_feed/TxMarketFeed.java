@@ -1,51 +1,58 @@
 package org.oltp1.runner.tx.market_feed;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.mutable.MutableInt;
 import org.oltp1.common.ErrorCtx;
+import org.oltp1.runner.db.ExecutionMode;
 import org.oltp1.runner.db.SqlContext;
-import org.oltp1.runner.db.SqlEngine;
+import org.oltp1.runner.db.SetParameterBinder;
 import org.oltp1.runner.perf.TxBase;
 import org.oltp1.runner.perf.TxOutput;
 import org.oltp1.runner.perf.TxStatsCollector;
 import org.oltp1.runner.tx.QueryFactory;
-import org.sql2o.Connection;
-import org.sql2o.Sql2o;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import org.oltp1.runner.db.DbSession;
+import org.oltp1.runner.db.DbStatement;
 
 public class TxMarketFeed extends TxBase
 {
 	private final Queue<TxMarketFeedInput> mq = new ConcurrentLinkedQueue<>();
-	private final ObjectMapper json = new ObjectMapper();
 
 	private final SqlContext sqlCtx;
-	private final Sql2o sql2o;
-
 	private final MarketFeedQueries sql;
+	private final MarketFeedProcedures procs;
 
 	public TxMarketFeed(SqlContext sqlCtx, TxStatsCollector mktFeedStats)
 	{
 		super(mktFeedStats);
 		this.sqlCtx = sqlCtx;
+		setRetryPolicy(sqlCtx.getRetryPolicy());
 
-		// json.enable(SerializationFeature.INDENT_OUTPUT);
-		json.setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
-
-		this.sql2o = sqlCtx.getSql2o();
 		this.sql = QueryFactory.getQueries(MarketFeedQueries.class, sqlCtx.getSqlEngine());
+		this.procs = (sqlCtx.getExecutionMode() == ExecutionMode.PROCEDURES)
+				? QueryFactory.getQueries(MarketFeedProcedures.class, sqlCtx.getSqlEngine())
+				: null;
 	}
 
-	public void offer(TxMarketFeedInput txIn)
+	/**
+	 * Runs a Market-Feed for the tickers.
+	 *
+	 * @return the output of the transaction; its trade requests are only set
+	 *         if it committed
+	 */
+	public TxOutput offer(TxMarketFeedInput txIn)
 	{
 		mq.offer(txIn);
-		super.execute();
+		return super.execute();
 	}
 
 	@Override
@@ -53,7 +60,7 @@ public class TxMarketFeed extends TxBase
 	{
 		final TxMarketFeedOutput txOutput = new TxMarketFeedOutput();
 
-		final TxMarketFeedInput txInput = mq.poll();
+		final TxMarketFeedInput txInput = input(mq::poll);
 
 		if (txInput == null)
 		{
@@ -66,74 +73,48 @@ public class TxMarketFeed extends TxBase
 		int num_updated = 0;
 		int unique_symbols = txInput.unique_symbols;
 
-		try (Connection con = sql2o.beginTransaction())
+		try (DbSession con = sqlCtx.beginTransaction())
 		{
-			String tickerJson = json.writeValueAsString(txInput.tickers);
-
-			num_updated = con
-					.createQuery(sql.updateLastTrade())
-					.addParameter("tickers", tickerJson)
-					.executeUpdate()
-					.getResult();
-
-			List<Map<String, Object>> tradeRequests = con
-					.createQuery(sql.getRequestList())
-					.addParameter("tickers", tickerJson)
-					.addParameter("tt_buy", txInput.type_limit_buy.id)
-					.addParameter("tt_sell", txInput.type_limit_sell.id)
-					.addParameter("tt_stop", txInput.type_stop_loss.id)
-					.executeAndFetchTable()
-					.asList();
-
-			// collect the trade_id values from the requested list
-			List<String> tradeIds = tradeRequests
-					.stream()
-					.map(r -> ((Number) r.get("tr_t_id")).toString())
-					.distinct()
-					.collect(Collectors.toList());
-
-			if (tradeIds.size() > 0)
-			{
-				String tradeIdsLst;
-
-				if (sqlCtx.getSqlEngine() == SqlEngine.MARIADB)
-				{
-					tradeIdsLst = json.writeValueAsString(tradeIds);
-				}
-				else
-				{
-					tradeIdsLst = StringUtils.join(tradeIds, ",");
-				}
-
-				// Update trade status to 'submitted'
-				con
-						.createQuery(sql.updateTrade())
-						.addParameter("status_submitted", txInput.status_submitted)
-						.addParameter("trade_lst", tradeIdsLst)
-						.executeUpdate();
+			String tickerJson = TickerJson.toJson(txInput.tickers);
 
-				// Delete the trade_request
-				con
-						.createQuery(sql.deleteTradeRequest())
-						.addParameter("trade_lst", tradeIdsLst)
-						.executeUpdate();
+			final List<TradeRequestRow> requests;
 
-				// Insert into trade_history
-				con
-						.createQuery(sql.insertTradeHistory())
-						.addParameter("status_submitted", txInput.status_submitted)
-						.addParameter("trade_lst", tradeIdsLst)
-						.executeUpdate();
+			if (procs != null)
+			{
+				final MutableInt numUpdated = new MutableInt();
+
+				requests = con
+						.prepare(procs.callFrame1())
+						.bind("tickers", tickerJson)
+						.bind("status_submitted", txInput.status_submitted)
+						.bind("tt_buy", txInput.type_limit_buy.id)
+						.bind("tt_sell", txInput.type_limit_sell.id)
+						.bind("tt_stop", txInput.type_stop_loss.id)
+						.fetchList(rs -> readProcedureRow(rs, numUpdated))
+						.stream()
+						.filter(Objects::nonNull)
+						.collect(Collectors.toList());
+
+				num_updated = numUpdated.intValue();
 			}
+			else
+			{
+				num_updated = con
+						.prepare(sql.updateLastTrade())
+						.bind("tickers", tickerJson)
+						.executeUpdate();
 
-			txOutput.trade_requests = tradeRequests;
+				requests = submitTriggeredRequests(con, txInput, tickerJson);
+			}
 
 			con.commit();
 			txOutput.num_trades = txInput.tickers.size();
+			txOutput.trade_requests = requests;
 		}
 		catch (Throwable t)
 		{
 			ErrorCtx ectx = new ErrorCtx(t);
+			txOutput.setFailure(t);
 			txOutput.setStatus(-1);
 			txOutput.setStatusMessage(ectx.toString());
 		}
@@ -146,4 +127,69 @@ public class TxMarketFeed extends TxBase
 
 		return txOutput;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Reads the trade requests that the tickers trigger and marks them as
+	 * submitted.
+	 */
+	private List<TradeRequestRow> submitTriggeredRequests(DbSession con, TxMarketFeedInput txInput, String tickerJson)
+	{
+		DbStatement requestQuery = con
+				.prepare(sql.getRequestList())
+				.bind("tickers", tickerJson)
+				.bind("tt_buy", txInput.type_limit_buy.id)
+				.bind("tt_sell", txInput.type_limit_sell.id)
+				.bind("tt_stop", txInput.type_stop_loss.id);
+
+		// a request appears once for each of the tickers of its symbol
+		// that trigger it
+		List<TradeRequestRow> requests = new ArrayList<>(requestQuery
+				.fetchList(TradeRequestRow::read)
+				.stream()
+				.collect(Collectors.toMap(r -> r.tr_t_id, Function.identity(), (r1, r2) -> r1, LinkedHashMap::new))
+				.values());
+
+		List<Long> tradeIds = requests
+				.stream()
+				.map(r -> r.tr_t_id)
+				.collect(Collectors.toList());
+
+		if (tradeIds.size() > 0)
+		{
+			final SetParameterBinder binder = sql.getTradeListBinder();
+
+			// Update trade status to 'submitted'
+			DbStatement updateTrade = con
+					.prepare(sql.updateTrade())
+					.bind("status_submitted", txInput.status_submitted);
+			binder.bind(con, updateTrade, "trade_lst", tradeIds);
+			updateTrade.executeUpdate();
+
+			// Delete the trade_request
+			DbStatement deleteRequest = con.prepare(sql.deleteTradeRequest());
+			binder.bind(con, deleteRequest, "trade_lst", tradeIds);
+			deleteRequest.executeUpdate();
+
+			// Insert into trade_history
+			DbStatement insertHistory = con
+					.prepare(sql.insertTradeHistory())
+					.bind("status_submitted", txInput.status_submitted);
+			binder.bind(con, insertHistory, "trade_lst", tradeIds);
+			insertHistory.executeUpdate();
+		}
+
+		return requests;
+	}
+
+	/**
+	 * Reads a row of the market_feed_frame1 procedure: one per triggered
+	 * request, or a single row without a request.
+	 */
+	private static TradeRequestRow readProcedureRow(ResultSet rs, MutableInt numUpdated) throws SQLException
+	{
+		numUpdated.setValue(rs.getInt("num_updated"));
+		rs.getLong("tr_t_id");
+
+		return rs.wasNull() ? null : TradeRequestRow.read(rs);
+	}
+}
@@ -10,6 +10,10 @@ import org.oltp1.runner.model.TradeType;
 
 public class TxMarketFeedInput
 {
+	// The maximum number of tickers of a Market-Feed (max_feed_len in the
+	// TPC-E specification)
+	public static final int MAX_FEED_LEN = 20;
+
 	// Status type for submitted trades
 	public final String status_submitted;
 	// Trade type ID for limit buy orders.
@@ -1,7 +1,6 @@
 package org.oltp1.runner.tx.market_feed;
 
 import java.util.List;
-import java.util.Map;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
@@ -10,7 +9,9 @@ import org.oltp1.runner.perf.TxOutput;
 public class TxMarketFeedOutput extends TxOutput
 {
 	public int num_trades;
-	public List<Map<String, Object>> trade_requests;
+	// the trade requests triggered by the tickers, set once the transaction
+	// has committed
+	public List<TradeRequestRow> trade_requests;
 
 	public TxMarketFeedOutput()
 	{
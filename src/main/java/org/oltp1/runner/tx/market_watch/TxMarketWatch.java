@@ -8,13 +8,12 @@ import org.oltp1.runner.tx.QueryFactory;
 import org.oltp1.runner.perf.TxBase;
 import org.oltp1.runner.perf.TxOutput;
 import org.oltp1.runner.perf.TxStatsCollector;
-import org.sql2o.Connection;
-import org.sql2o.Sql2o;
+import org.oltp1.runner.db.DbSession;
 
 public class TxMarketWatch extends TxBase
 {
 	private final MarketWatchQueries sql;
-	private final Sql2o sql2o;
+	private final SqlContext sqlCtx;
 
 	private final TxInputGenerator txInputGen;
 
@@ -23,7 +22,8 @@ public class TxMarketWatch extends TxBase
 		super(new TxStatsCollector("Market-Watch"));
 		this.txInputGen = txInputGen;
 		this.sql = QueryFactory.getQueries(MarketWatchQueries.class, sqlCtx.getSqlEngine());
-		this.sql2o = sqlCtx.getSql2o();
+		this.sqlCtx = sqlCtx;
+		setRetryPolicy(sqlCtx.getRetryPolicy());
 	}
 
 	@Override
@@ -31,7 +31,7 @@ public class TxMarketWatch extends TxBase
 	{
 		TxMarketWatchOutput txOutput = new TxMarketWatchOutput();
 
-		final TxMarketWatchInput txInput = txInputGen.generateMarketWatchInput();
+		final TxMarketWatchInput txInput = input(txInputGen::generateMarketWatchInput);
 
 		if ((txInput.acct_id == 0) && (txInput.c_id == 0) && StringUtils.isBlank(txInput.industry_name))
 		{
@@ -39,7 +39,7 @@ public class TxMarketWatch extends TxBase
 			return txOutput;
 		}
 
-		try (Connection con = sql2o.beginTransaction())
+		try (DbSession con = sqlCtx.beginTransaction())
 		{
 			executeFrame1(con, txInput, txOutput);
 
@@ -48,6 +48,7 @@ public class TxMarketWatch extends TxBase
 		catch (Throwable t)
 		{
 			ErrorCtx ectx = new ErrorCtx(t);
+			txOutput.setFailure(t);
 			txOutput.setStatus(-1);
 			txOutput.setStatusMessage(ectx.toString());
 		}
@@ -55,35 +56,35 @@ public class TxMarketWatch extends TxBase
 		return txOutput;
 	}
 
-	private void executeFrame1(final Connection con, final TxMarketWatchInput txInput, final TxMarketWatchOutput txOutput)
+	private void executeFrame1(final DbSession con, final TxMarketWatchInput txInput, final TxMarketWatchOutput txOutput)
 	{
 		double pct_change;
 
 		if (txInput.c_id != 0)
 		{
 			pct_change = con
-					.createQuery(sql.getPctChangeByCustomer())
-					.addParameter("cust_id", txInput.c_id)
-					.addParameter("start_date", txInput.start_day)
-					.executeScalar(Double.class);
+					.prepare(sql.getPctChangeByCustomer())
+					.bind("cust_id", txInput.c_id)
+					.bind("start_date", txInput.start_day)
+					.fetchScalar(Double.class);
 		}
 		else if (StringUtils.isNotBlank(txInput.industry_name))
 		{
 			pct_change = con
-					.createQuery(sql.getPctChangeByIndustry())
-					.addParameter("industry_name", txInput.industry_name)
-					.addParameter("start_date", txInput.start_day)
-					.addParameter("starting_co_id", txInput.starting_co_id)
-					.addParameter("ending_co_id", txInput.ending_co_id)
-					.executeScalar(Double.class);
+					.prepare(sql.getPctChangeByIndustry())
+					.bind("industry_name", txInput.industry_name)
+					.bind("start_date", txInput.start_day)
+					.bind("starting_co_id", txInput.starting_co_id)
+					.bind("ending_co_id", txInput.ending_co_id)
+					.fetchScalar(Double.class);
 		}
 		else if (txInput.acct_id != 0)
 		{
 			pct_change = con
-					.createQuery(sql.getPctChangeByAccount())
-					.addParameter("acct_id", txInput.acct_id)
-					.addParameter("start_date", txInput.start_day)
-					.executeScalar(Double.class);
+					.prepare(sql.getPctChangeByAccount())
+					.bind("acct_id", txInput.acct_id)
+					.bind("start_date", txInput.start_day)
+					.fetchScalar(Double.class);
 		}
 		else
 		{
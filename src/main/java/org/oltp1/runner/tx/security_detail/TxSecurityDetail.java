@@ -1,7 +1,6 @@
 package org.oltp1.runner.tx.security_detail;
 
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 
 import org.oltp1.common.ErrorCtx;
@@ -11,8 +10,8 @@ import org.oltp1.runner.tx.QueryFactory;
 import org.oltp1.runner.perf.TxBase;
 import org.oltp1.runner.perf.TxOutput;
 import org.oltp1.runner.perf.TxStatsCollector;
-import org.sql2o.Connection;
-import org.sql2o.Sql2o;
+import org.oltp1.runner.db.DbSession;
+import org.oltp1.runner.db.DbStatement;
 
 public class TxSecurityDetail extends TxBase
 {
@@ -21,7 +20,7 @@ public class TxSecurityDetail extends TxBase
 	private static final int max_fin_len = 20;
 	private static final int max_news_len = 2;
 
-	private final Sql2o sql2o;
+	private final SqlContext sqlCtx;
 
 	private final TxInputGenerator txInputGen;
 	private final SecurityDetailQueries sql;
@@ -31,7 +30,8 @@ public class TxSecurityDetail extends TxBase
 		super(new TxStatsCollector("Security-Detail"));
 
 		this.txInputGen = txInputGen;
-		this.sql2o = sqlCtx.getSql2o();
+		this.sqlCtx = sqlCtx;
+		setRetryPolicy(sqlCtx.getRetryPolicy());
 		this.sql = QueryFactory.getQueries(SecurityDetailQueries.class, sqlCtx.getSqlEngine());
 	}
 
@@ -40,9 +40,9 @@ public class TxSecurityDetail extends TxBase
 	{
 		TxSecurityDetailOutput txOutput = new TxSecurityDetailOutput();
 
-		final TxSecurityDetailInput txInput = txInputGen.generateSecurityDetailInput();
+		final TxSecurityDetailInput txInput = input(txInputGen::generateSecurityDetailInput);
 
-		try (Connection con = sql2o.beginTransaction())
+		try (DbSession con = sqlCtx.beginTransaction())
 		{
 			executeFrame1(con, txInput, txOutput);
 
@@ -51,6 +51,7 @@ public class TxSecurityDetail extends TxBase
 		catch (Throwable t)
 		{
 			ErrorCtx ectx = new ErrorCtx(t);
+			txOutput.setFailure(t);
 			txOutput.setStatus(-1);
 			txOutput.setStatusMessage(ectx.toString());
 		}
@@ -58,16 +59,12 @@ public class TxSecurityDetail extends TxBase
 		return txOutput;
 	}
 
-	private void executeFrame1(final Connection con, final TxSecurityDetailInput txInput, final TxSecurityDetailOutput txOutput)
+	private void executeFrame1(final DbSession con, final TxSecurityDetailInput txInput, final TxSecurityDetailOutput txOutput)
 	{
 		Map<String, Object> sdInfo1 = con
-				.createQuery(sql.getInfo1())
-				.addParameter("symbol", txInput.symbol)
-				.executeAndFetchTable()
-				.asList()
-				.stream()
-				.findFirst()
-				.orElse(Collections.emptyMap());
+				.prepare(sql.getInfo1())
+				.bind("symbol", txInput.symbol)
+				.fetchFirstMap();
 
 		if (sdInfo1.isEmpty())
 		{
@@ -75,67 +72,55 @@ public class TxSecurityDetail extends TxBase
 			return;
 		}
 
-		List<Map<String, Object>> lstSdInfo2 = con
-				.createQuery(sql.getInfo2())
-				.addParameter("co_id", sdInfo1.get("co_id"))
-				.executeAndFetchTable()
-				.asList();
-
-		List<Map<String, Object>> lstSdInfo3 = con
-				.createQuery(sql.getInfo3())
-				.addParameter("co_id", sdInfo1.get("co_id"))
-				.executeAndFetchTable()
-				.asList();
-
-		List<Map<String, Object>> lstSdInfo4 = con
-				.createQuery(sql.getInfo4())
-				.addParameter("max_rows_to_return", txInput.max_rows_to_return)
-				.addParameter("symbol", txInput.symbol)
-				.addParameter("start_day", txInput.start_day)
-				.executeAndFetchTable()
-				.asList();
+		final Object coId = sdInfo1.get("co_id");
+
+		DbStatement info2 = con
+				.prepare(sql.getInfo2())
+				.bind("co_id", coId);
+
+		DbStatement info3 = con
+				.prepare(sql.getInfo3())
+				.bind("co_id", coId);
+
+		DbStatement info4 = con
+				.prepare(sql.getInfo4())
+				.bind("max_rows_to_return", txInput.max_rows_to_return)
+				.bind("symbol", txInput.symbol)
+				.bind("start_day", txInput.start_day);
+
+		fetchPayload(info2, txOutput, l -> txOutput.lst_sd_info_2 = l);
+		int fin_len = fetchPayload(info3, txOutput, l -> txOutput.lst_sd_info_3 = l);
+		int day_len = fetchPayload(info4, txOutput, l -> txOutput.lst_sd_info_4 = l);
 
 		Map<String, Object> sdInfo5 = con
-				.createQuery(sql.getInfo5())
-				.addParameter("symbol", txInput.symbol)
-				.executeAndFetchTable()
-				.asList()
+				.prepare(sql.getInfo5())
+				.bind("symbol", txInput.symbol)
+				.fetchMaps()
 				.get(0);
 
-		List<Map<String, Object>> lstSdInfo6;
-		List<Map<String, Object>> lstSdInfo7;
+		txOutput.sd_info_1 = sdInfo1;
+		txOutput.sd_info_5 = sdInfo5;
+		txOutput.lst_sd_info_6 = Collections.emptyList();
+		txOutput.lst_sd_info_7 = Collections.emptyList();
+
+		int news_len;
 
 		if (txInput.access_lob_flag)
 		{
-			lstSdInfo6 = con
-					.createQuery(sql.getInfo6())
-					.addParameter("co_id", sdInfo1.get("co_id"))
-					.executeAndFetchTable()
-					.asList();
+			DbStatement info6 = con
+					.prepare(sql.getInfo6())
+					.bind("co_id", coId);
 
-			lstSdInfo7 = Collections.emptyList();
+			news_len = fetchPayload(info6, txOutput, l -> txOutput.lst_sd_info_6 = l);
 		}
 		else
 		{
-			lstSdInfo6 = Collections.emptyList();
-			lstSdInfo7 = con
-					.createQuery(sql.getInfo7())
-					.addParameter("co_id", sdInfo1.get("co_id"))
-					.executeAndFetchTable()
-					.asList();
-		}
-
-		txOutput.sd_info_1 = sdInfo1;
-		txOutput.lst_sd_info_2 = lstSdInfo2;
-		txOutput.lst_sd_info_3 = lstSdInfo3;
-		txOutput.lst_sd_info_4 = lstSdInfo4;
-		txOutput.sd_info_5 = sdInfo5;
-		txOutput.lst_sd_info_6 = lstSdInfo6;
-		txOutput.lst_sd_info_7 = lstSdInfo7;
+			DbStatement info7 = con
+					.prepare(sql.getInfo7())
+					.bind("co_id", coId);
 
-		int day_len = lstSdInfo4.size();
-		int fin_len = lstSdInfo3.size();
-		int news_len = lstSdInfo6.size() + lstSdInfo7.size();
+			news_len = fetchPayload(info7, txOutput, l -> txOutput.lst_sd_info_7 = l);
+		}
 
 		if ((day_len < min_day_len) || (day_len > max_day_len))
 		{
@@ -7,12 +7,11 @@ import org.oltp1.runner.tx.QueryFactory;
 import org.oltp1.runner.perf.TxBase;
 import org.oltp1.runner.perf.TxOutput;
 import org.oltp1.runner.perf.TxStatsCollector;
-import org.sql2o.Connection;
-import org.sql2o.Sql2o;
+import org.oltp1.runner.db.DbSession;
 
 public class TxTradeCleanup extends TxBase
 {
-	private final Sql2o sql2o;
+	private final SqlContext sqlCtx;
 	private final TxInputGenerator txInputGen;
 	private final TradeCleanupQueries sql;
 
@@ -20,56 +19,53 @@ public class TxTradeCleanup extends TxBase
 	{
 		super(new TxStatsCollector("Trade-Cleanup"));
 		this.txInputGen = txInputGen;
-		this.sql2o = sqlCtx.getSql2o();
+		this.sqlCtx = sqlCtx;
+		setRetryPolicy(sqlCtx.getRetryPolicy());
 		this.sql = QueryFactory.getQueries(TradeCleanupQueries.class, sqlCtx.getSqlEngine());
 	}
 
 	@Override
 	protected TxOutput run()
 	{
-		TxTradeCleanupInput txInput = txInputGen.generateTradeCleanupInput();
+		TxTradeCleanupInput txInput = input(txInputGen::generateTradeCleanupInput);
 		TxTradeCleanupOutput txOutput = new TxTradeCleanupOutput();
 
-		try (Connection con = sql2o.beginTransaction())
+		try (DbSession con = sqlCtx.beginTransaction())
 		{
 
 			con
-					.createQuery(sql.insertTradeHistory1())
-					.addParameter("st_id", txInput.st_submitted_id)
+					.prepare(sql.insertTradeHistory1())
+					.bind("st_id", txInput.st_submitted_id)
 					.executeUpdate();
 
 			con
-					.createQuery(sql.updateTrade1())
-					.addParameter("st_canceled_id", txInput.st_canceled_id)
+					.prepare(sql.updateTrade1())
+					.bind("st_canceled_id", txInput.st_canceled_id)
 					.executeUpdate();
 
 			con
-					.createQuery(sql.insertTradeHistory1())
-					.addParameter("st_id", txInput.st_canceled_id)
+					.prepare(sql.insertTradeHistory1())
+					.bind("st_id", txInput.st_canceled_id)
 					.executeUpdate();
 
-			con
-					.createQuery(sql.deleteTradeRequest())
+			int cleanedCount = con
+					.prepare(sql.deleteTradeRequest())
 					.executeUpdate();
 
-			int cleanedCount = con.getResult();
-
 			con
-					.createQuery(sql.updateTrade2())
-					.addParameter("start_trade_id", txInput.start_trade_id)
-					.addParameter("st_submitted_id", txInput.st_submitted_id)
-					.addParameter("st_canceled_id", txInput.st_canceled_id)
+					.prepare(sql.updateTrade2())
+					.bind("start_trade_id", txInput.start_trade_id)
+					.bind("st_submitted_id", txInput.st_submitted_id)
+					.bind("st_canceled_id", txInput.st_canceled_id)
 					.executeUpdate();
 
-			con
-					.createQuery(sql.insertTradeHistory2())
-					.addParameter("start_trade_id", txInput.start_trade_id)
-					.addParameter("st_submitted_id", txInput.st_submitted_id)
-					.addParameter("st_canceled_id", txInput.st_canceled_id)
+			cleanedCount += con
+					.prepare(sql.insertTradeHistory2())
+					.bind("start_trade_id", txInput.start_trade_id)
+					.bind("st_submitted_id", txInput.st_submitted_id)
+					.bind("st_canceled_id", txInput.st_canceled_id)
 					.executeUpdate();
 
-			cleanedCount += con.getResult();
-
 			txOutput.trades_cleaned_up = cleanedCount;
 
 			con.commit();
@@ -78,6 +74,7 @@ public class TxTradeCleanup extends TxBase
 		catch (Throwable t)
 		{
 			ErrorCtx ectx = new ErrorCtx(t);
+			txOutput.setFailure(t);
 			txOutput.setStatus(-1);
 			txOutput.setStatusMessage(ectx.toString());
 		}
@@ -1,5 +1,8 @@
 package org.oltp1.runner.tx.trade_lookup;
 
+import org.oltp1.runner.db.SetParameterBinder;
+import org.oltp1.runner.db.SetParameterBinders;
+
 /**
  * Provides the PostgreSQL-specific SQL queries for the Trade-Lookup
  * transaction.
@@ -7,6 +10,12 @@ package org.oltp1.runner.tx.trade_lookup;
 public class PgSqlTradeLookupQueries extends DefaultTradeLookupQueries
 {
 
+	@Override
+	public SetParameterBinder getTradeIdsBinder()
+	{
+		return SetParameterBinders.ARRAY_BIGINT;
+	}
+
 	@Override
 	public String getTradeInfoFrame1()
 	{
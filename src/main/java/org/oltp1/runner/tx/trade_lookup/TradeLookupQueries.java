@@ -1,11 +1,19 @@
 package org.oltp1.runner.tx.trade_lookup;
 
+import org.oltp1.runner.db.SetParameterBinder;
+
 /**
  * Defines the contract for supplying SQL queries for the Trade-Lookup
  * transaction.
  */
 public interface TradeLookupQueries
 {
+	/**
+	 * @return the binder of the :trade_ids set, matching the SQL of
+	 *         {@link #getTradeInfoFrame1()} and {@link #getTradeHistory()}
+	 */
+	SetParameterBinder getTradeIdsBinder();
+
 	String getTradeInfoFrame1();
 
 	String getTradeHistory();
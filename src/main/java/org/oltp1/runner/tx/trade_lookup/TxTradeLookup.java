@@ -1,70 +1,67 @@
 package org.oltp1.runner.tx.trade_lookup;
 
-import java.sql.Array;
-import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.ArrayUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.oltp1.common.ErrorCtx;
 import org.oltp1.runner.db.SqlContext;
-import org.oltp1.runner.db.SqlEngine;
 import org.oltp1.runner.generator.TxInputGenerator;
 import org.oltp1.runner.perf.TxBase;
 import org.oltp1.runner.perf.TxOutput;
 import org.oltp1.runner.perf.TxStatsCollector;
 import org.oltp1.runner.tx.QueryFactory;
-import org.sql2o.Connection;
-import org.sql2o.Query;
-import org.sql2o.Sql2o;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.oltp1.runner.db.DbSession;
+import org.oltp1.runner.db.DbStatement;
+import org.oltp1.runner.db.RowMapper;
 
 public class TxTradeLookup extends TxBase
 {
-	private final ObjectMapper json = new ObjectMapper();
 	private final SqlContext sqlCtx;
-	private final Sql2o sql2o;
-
 	private final TxInputGenerator txInputGen;
 	private final TradeLookupQueries sql;
 
+	private static final RowMapper<Long> TRADE_ID = rs -> rs.getLong("t_id");
+
 	public TxTradeLookup(TxInputGenerator txInputGen, SqlContext sqlCtx)
 	{
 		super(new TxStatsCollector("Trade-Lookup"));
 
 		this.txInputGen = txInputGen;
 		this.sqlCtx = sqlCtx;
-		this.sql2o = sqlCtx.getSql2o();
+		setRetryPolicy(sqlCtx.getRetryPolicy());
 		this.sql = QueryFactory.getQueries(TradeLookupQueries.class, sqlCtx.getSqlEngine());
 	}
 
 	@Override
 	protected final TxOutput run()
 	{
-		final TxTradeLookupInput txInput = txInputGen.generateTradeLookupInput();
+		final TxTradeLookupInput txInput = input(txInputGen::generateTradeLookupInput);
 		final TxTradeLookupOutput txOutput = new TxTradeLookupOutput();
 
 		txOutput.frame_executed = txInput.frame_to_execute;
 
-		try (Connection con = sql2o.beginTransaction())
+		try (DbSession con = sqlCtx.beginTransaction())
 		{
 			if (txInput.frame_to_execute == 1)
 			{
+				frame(1);
 				executeFrame1(con, txInput, txOutput);
 			}
 			else if (txInput.frame_to_execute == 2)
 			{
+				frame(2);
 				executeFrame2(txOutput, txInput, con);
 			}
 			else if (txInput.frame_to_execute == 3)
 			{
+				frame(3);
 				executeFrame3(con, txInput, txOutput);
 			}
 			else
 			{
+				frame(4);
 				executeFrame4(con, txInput, txOutput);
 			}
 
@@ -73,6 +70,7 @@ public class TxTradeLookup extends TxBase
 		catch (Throwable t)
 		{
 			ErrorCtx ectx = new ErrorCtx(t);
+			txOutput.setFailure(t);
 			txOutput.setStatus(-1);
 			txOutput.setStatusMessage(ectx.toString());
 		}
@@ -80,36 +78,18 @@ public class TxTradeLookup extends TxBase
 		return txOutput;
 	}
 
-	private void executeFrame1(final Connection con, final TxTradeLookupInput txInput, final TxTradeLookupOutput txOutput) throws Exception
+	private void executeFrame1(final DbSession con, final TxTradeLookupInput txInput, final TxTradeLookupOutput txOutput)
 	{
-		Query frm1Query = con.createQuery(sql.getTradeInfoFrame1());
+		DbStatement frm1Query = con.prepare(sql.getTradeInfoFrame1());
 
-		if (sqlCtx.getSqlEngine() == SqlEngine.POSTGRESQL)
-		{
-			Array tradeIds = con
-					.getJdbcConnection()
-					.createArrayOf("bigint", ArrayUtils.toObject(txInput.trade_id));
+		sql.getTradeIdsBinder().bind(con, frm1Query, "trade_ids", Arrays.stream(txInput.trade_id).boxed().toList());
 
-			frm1Query.addParameter("trade_ids", tradeIds);
+		frm1Query.bind("max_trades", txInput.max_trades);
 
-		}
-		else if (sqlCtx.getSqlEngine() == SqlEngine.MSSQL)
-		{
-			String tradeIdsCsv = StringUtils.join(txInput.trade_id, ',');
-			frm1Query.addParameter("trade_ids", tradeIdsCsv);
-		}
-		else if (sqlCtx.getSqlEngine() == SqlEngine.MARIADB)
-		{
-			String tradeIdsJson = json.writeValueAsString(txInput.trade_id);
-			frm1Query.addParameter("trade_ids", tradeIdsJson);
-		}
-
-		List<Map<String, Object>> lstTrades = frm1Query
-				.addParameter("max_trades", txInput.max_trades)
-				.executeAndFetchTable()
-				.asList();
+		final List<Map<String, Object>> lstTrades = fetchTrades(frm1Query, txOutput);
+		final List<Long> tradeIds = (lstTrades != null) ? getTradeIds(lstTrades) : frm1Query.fetchList(TRADE_ID);
 
-		txOutput.num_found = lstTrades.size();
+		txOutput.num_found = tradeIds.size();
 
 		if (txOutput.num_found != txInput.max_trades)
 		{
@@ -119,22 +99,22 @@ public class TxTradeLookup extends TxBase
 
 		txOutput.lst_trades_frm1 = lstTrades;
 
-		List<Map<String, Object>> historyTrades = fetchTradeHistory(con, lstTrades);
-		txOutput.lst_trades_history = historyTrades;
+		fetchTradeHistory(con, tradeIds, txOutput);
 	}
 
-	private void executeFrame2(final TxTradeLookupOutput txOutput, final TxTradeLookupInput txInput, final Connection con) throws SQLException
+	private void executeFrame2(final TxTradeLookupOutput txOutput, final TxTradeLookupInput txInput, final DbSession con)
 	{
-		List<Map<String, Object>> lstTrades = con
-				.createQuery(sql.getFrame2())
-				.addParameter("ca_id", txInput.acct_id)
-				.addParameter("start_dts", txInput.start_trade_dts)
-				.addParameter("end_dts", txInput.end_trade_dts)
-				.addParameter("max_trades", txInput.max_trades)
-				.executeAndFetchTable()
-				.asList();
+		final DbStatement frm2Query = con
+				.prepare(sql.getFrame2())
+				.bind("ca_id", txInput.acct_id)
+				.bind("start_dts", txInput.start_trade_dts)
+				.bind("end_dts", txInput.end_trade_dts)
+				.bind("max_trades", txInput.max_trades);
 
-		txOutput.num_found = lstTrades.size();
+		final List<Map<String, Object>> lstTrades = fetchTrades(frm2Query, txOutput);
+		final List<Long> tradeIds = (lstTrades != null) ? getTradeIds(lstTrades) : frm2Query.fetchList(TRADE_ID);
+
+		txOutput.num_found = tradeIds.size();
 
 		if (txOutput.num_found > txInput.max_trades)
 		{
@@ -149,22 +129,22 @@ public class TxTradeLookup extends TxBase
 
 		txOutput.lst_trades_frm2 = lstTrades;
 
-		List<Map<String, Object>> historyTrades = fetchTradeHistory(con, lstTrades);
-		txOutput.lst_trades_history = historyTrades;
+		fetchTradeHistory(con, tradeIds, txOutput);
 	}
 
-	private void executeFrame3(final Connection con, final TxTradeLookupInput txInput, final TxTradeLookupOutput txOutput) throws SQLException
+	private void executeFrame3(final DbSession con, final TxTradeLookupInput txInput, final TxTradeLookupOutput txOutput)
 	{
-		List<Map<String, Object>> lstTrades = con
-				.createQuery(sql.getFrame3())
-				.addParameter("symbol", txInput.symbol)
-				.addParameter("start_dts", txInput.start_trade_dts)
-				.addParameter("end_dts", txInput.end_trade_dts)
-				.addParameter("max_trades", txInput.max_trades)
-				.executeAndFetchTable()
-				.asList();
+		final DbStatement frm3Query = con
+				.prepare(sql.getFrame3())
+				.bind("symbol", txInput.symbol)
+				.bind("start_dts", txInput.start_trade_dts)
+				.bind("end_dts", txInput.end_trade_dts)
+				.bind("max_trades", txInput.max_trades);
+
+		final List<Map<String, Object>> lstTrades = fetchTrades(frm3Query, txOutput);
+		final List<Long> tradeIds = (lstTrades != null) ? getTradeIds(lstTrades) : frm3Query.fetchList(TRADE_ID);
 
-		txOutput.num_found = lstTrades.size();
+		txOutput.num_found = tradeIds.size();
 
 		if ((txOutput.num_found > txInput.max_trades))
 		{
@@ -179,20 +159,19 @@ public class TxTradeLookup extends TxBase
 
 		txOutput.lst_trades_frm3 = lstTrades;
 
-		List<Map<String, Object>> historyTrades = fetchTradeHistory(con, lstTrades);
-		txOutput.lst_trades_history = historyTrades;
+		fetchTradeHistory(con, tradeIds, txOutput);
 	}
 
-	private void executeFrame4(final Connection con, final TxTradeLookupInput txInput, final TxTradeLookupOutput txOutput)
+	private void executeFrame4(final DbSession con, final TxTradeLookupInput txInput, final TxTradeLookupOutput txOutput)
 	{
-		List<Map<String, Object>> lstTrades = con
-				.createQuery(sql.getFrame4())
-				.addParameter("ca_id", txInput.acct_id)
-				.addParameter("start_dts", txInput.start_trade_dts)
-				.executeAndFetchTable()
-				.asList();
+		final DbStatement frm4Query = con
+				.prepare(sql.getFrame4())
+				.bind("ca_id", txInput.acct_id)
+				.bind("start_dts", txInput.start_trade_dts);
+
+		final List<Map<String, Object>> lstTrades = fetchTrades(frm4Query, txOutput);
 
-		txOutput.num_found = lstTrades.size();
+		txOutput.num_found = (lstTrades != null) ? lstTrades.size() : frm4Query.fetchCount();
 
 		if ((txOutput.num_found < 1) || (txOutput.num_found > 20))
 		{
@@ -203,46 +182,37 @@ public class TxTradeLookup extends TxBase
 		txOutput.lst_trades_frm4 = lstTrades;
 	}
 
-	private List<Map<String, Object>> fetchTradeHistory(final Connection con, final List<Map<String, Object>> lstTrades) throws SQLException
+	/**
+	 * @return the trades, or null when the output payload is discarded and
+	 *         the caller only needs the trade ids or the count
+	 */
+	private static List<Map<String, Object>> fetchTrades(final DbStatement query, final TxTradeLookupOutput txOutput)
 	{
-		Query thQuery = con.createQuery(sql.getTradeHistory());
-
-		if (sqlCtx.getSqlEngine() == SqlEngine.POSTGRESQL)
-		{
-			Long[] tids = lstTrades
-					.stream()
-					.map(m -> ((Long) m.get("t_id")).longValue())
-					.toArray(Long[]::new);
+		return txOutput.isPayloadKept() ? query.fetchMaps() : null;
+	}
 
-			Array tradeIds = con.getJdbcConnection().createArrayOf("bigint", tids);
-			thQuery.addParameter("trade_ids", tradeIds);
-		}
-		else if (sqlCtx.getSqlEngine() == SqlEngine.MSSQL)
-		{
-			String tradeIds = lstTrades
-					.stream()
-					.map(m -> ((Long) m.get("t_id")).toString())
-					.collect(Collectors.joining(","));
+	private static List<Long> getTradeIds(final List<Map<String, Object>> lstTrades)
+	{
+		return lstTrades
+				.stream()
+				.map(m -> ((Number) m.get("t_id")).longValue())
+				.collect(Collectors.toList());
+	}
 
-			thQuery.addParameter("trade_ids", tradeIds);
-		}
-		else if (sqlCtx.getSqlEngine() == SqlEngine.MARIADB)
-		{
-			String tradeIds = lstTrades
-					.stream()
-					.map(m -> ((Long) m.get("t_id")).toString())
-					.collect(Collectors.joining(","));
+	private void fetchTradeHistory(final DbSession con, final List<Long> tradeIds, final TxTradeLookupOutput txOutput)
+	{
+		DbStatement thQuery = con.prepare(sql.getTradeHistory());
 
-			String tradeIdsJson = String.format("[%s]", tradeIds);
+		sql.getTradeIdsBinder().bind(con, thQuery, "trade_ids", tradeIds);
 
-			thQuery.addParameter("trade_ids", tradeIdsJson);
+		if (txOutput.isPayloadKept())
+		{
+			txOutput.lst_trades_history = thQuery.fetchMaps();
 		}
 		else
 		{
-			throw new UnsupportedOperationException("Unsupported Database for this operation");
+			thQuery.fetchCount();
 		}
-
-		return thQuery.executeAndFetchTable().asList();
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package org.oltp1.runner.tx.trade_order;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A holding of the account in the security, as returned by
+ * <code>getHoldingAsc()</code> and <code>getHoldingDesc()</code>.
+ */
+final class HoldingRow
+{
+	final int h_qty;
+	final double h_price;
+
+	private HoldingRow(int hQty, double hPrice)
+	{
+		this.h_qty = hQty;
+		this.h_price = hPrice;
+	}
+
+	static HoldingRow read(ResultSet rs) throws SQLException
+	{
+		return new HoldingRow(rs.getInt("h_qty"), rs.getDouble("h_price"));
+	}
+}
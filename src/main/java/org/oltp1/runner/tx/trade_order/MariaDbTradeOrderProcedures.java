@@ -0,0 +1,54 @@
+package org.oltp1.runner.tx.trade_order;
+
+/**
+ * Provides the MariaDB-specific stored procedure calls for the Trade-Order
+ * transaction.
+ */
+public class MariaDbTradeOrderProcedures implements TradeOrderProcedures
+{
+	@Override
+	public String callFrame3()
+	{
+		return """
+				CALL trade_order_frame3
+				(
+					:acct_id
+					, :cust_id
+					, :cust_tier
+					, :tax_status
+					, :symbol
+					, :co_name
+					, :issue
+					, :trade_type_id
+					, :trade_qty
+					, :requested_price
+					, :is_lifo
+					, :type_is_margin
+				);
+				""";
+	}
+
+	@Override
+	public String callFrame4()
+	{
+		return """
+				CALL trade_order_frame4
+				(
+					:trade_dts
+					, :status_id
+					, :trade_type_id
+					, :is_cash
+					, :symbol
+					, :trade_qty
+					, :requested_price
+					, :acct_id
+					, :exec_name
+					, :charge_amount
+					, :comm_amount
+					, :is_lifo
+					, :is_limit
+					, :broker_id
+				);
+				""";
+	}
+}
@@ -0,0 +1,50 @@
+package org.oltp1.runner.tx.trade_order;
+
+/**
+ * Provides the Microsoft SQL Server-specific stored procedure calls for the
+ * Trade-Order transaction.
+ */
+public class MsSqlTradeOrderProcedures implements TradeOrderProcedures
+{
+	@Override
+	public String callFrame3()
+	{
+		return """
+				EXEC trade_order_frame3
+					@acct_id = :acct_id
+					, @cust_id = :cust_id
+					, @cust_tier = :cust_tier
+					, @tax_status = :tax_status
+					, @symbol = :symbol
+					, @co_name = :co_name
+					, @issue = :issue
+					, @trade_type_id = :trade_type_id
+					, @trade_qty = :trade_qty
+					, @requested_price = :requested_price
+					, @is_lifo = :is_lifo
+					, @type_is_margin = :type_is_margin;
+				""";
+	}
+
+	@Override
+	public String callFrame4()
+	{
+		return """
+				EXEC trade_order_frame4
+					@trade_dts = :trade_dts
+					, @status_id = :status_id
+					, @trade_type_id = :trade_type_id
+					, @is_cash = :is_cash
+					, @symbol = :symbol
+					, @trade_qty = :trade_qty
+					, @requested_price = :requested_price
+					, @acct_id = :acct_id
+					, @exec_name = :exec_name
+					, @charge_amount = :charge_amount
+					, @comm_amount = :comm_amount
+					, @is_lifo = :is_lifo
+					, @is_limit = :is_limit
+					, @broker_id = :broker_id;
+				""";
+	}
+}
@@ -0,0 +1,16 @@
+package org.oltp1.runner.tx.trade_order;
+
+/**
+ * Defines the contract for supplying the stored procedure calls of the
+ * Trade-Order transaction, for the procedure execution mode: one call for each
+ * frame that runs more than one statement. The procedures are installed by
+ * initdb.
+ */
+public interface TradeOrderProcedures
+{
+	// Frame 3
+	String callFrame3();
+
+	// Frame 4
+	String callFrame4();
+}
@@ -1,12 +1,115 @@
 package org.oltp1.runner.tx.trade_order;
 
-import org.oltp1.runner.perf.TxSession;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 
-public class TradeOrderSession extends TxSession
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * The state carried between the frames of a Trade-Order transaction. The
+ * frames read their results straight into the fields.
+ */
+public class TradeOrderSession
 {
+	public long trade_qty;
+
+	// Frame 1
+	public long broker_id;
+	public long cust_id;
+	public String acct_name;
+	public int tax_status;
+	public String cust_l_name;
+	public String cust_f_name;
+	public String tax_id;
+	public int cust_tier;
+	public String broker_name;
+
+	// Frame 2
+	public String ap_acl;
+
+	// Frame 3
+	public long co_id;
+	public String exch_id;
+	public String s_name;
+	public String symbol;
+	public String co_name;
+	public double requested_price;
+	public double buy_value;
+	public double charge_amount;
+	public double comm_rate;
+	public double acct_assets;
+	public double market_price;
+	public double sell_value;
+	public String status_id;
+	public double tax_amount;
+	public boolean type_is_market;
+	public boolean type_is_sell;
+
+	// Frame 4
+	public double comm_amount;
+	public String exec_name;
+	public boolean is_cash;
+	public long t_id;
+
+	// Frame 6
+	public String status;
+
+	TradeOrderSession readCustomerInfo(ResultSet rs) throws SQLException
+	{
+		broker_id = rs.getLong("broker_id");
+		cust_id = rs.getLong("cust_id");
+		acct_name = rs.getString("acct_name");
+		tax_status = rs.getInt("tax_status");
+		cust_l_name = rs.getString("cust_l_name");
+		cust_f_name = rs.getString("cust_f_name");
+		tax_id = rs.getString("tax_id");
+		cust_tier = rs.getInt("cust_tier");
+		broker_name = rs.getString("broker_name");
+		return this;
+	}
+
+	TradeOrderSession readSecurityInfo(ResultSet rs) throws SQLException
+	{
+		co_id = rs.getLong("co_id");
+		exch_id = rs.getString("exch_id");
+		s_name = rs.getString("s_name");
+		symbol = rs.getString("symbol");
+		return this;
+	}
+
+	TradeOrderSession readTradeType(ResultSet rs) throws SQLException
+	{
+		type_is_market = rs.getBoolean("type_is_market");
+		type_is_sell = rs.getBoolean("type_is_sell");
+		return this;
+	}
+
+	TradeOrderSession readFees(ResultSet rs) throws SQLException
+	{
+		charge_amount = rs.getDouble("charge_amount");
+		comm_rate = rs.getDouble("comm_rate");
+		return this;
+	}
+
+	// the row of the trade_order_frame3 procedure
+	TradeOrderSession readFrame3(ResultSet rs) throws SQLException
+	{
+		readSecurityInfo(rs);
+		readTradeType(rs);
+		readFees(rs);
+		market_price = rs.getDouble("market_price");
+		requested_price = rs.getDouble("requested_price");
+		buy_value = rs.getDouble("buy_value");
+		sell_value = rs.getDouble("sell_value");
+		tax_amount = rs.getDouble("tax_amount");
+		acct_assets = rs.getDouble("acct_assets");
+		return this;
+	}
+
 	@Override
 	public String toString()
 	{
-		return String.format("TradeOrderSession [%n%s%n]", getSessionData());
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.MULTI_LINE_STYLE);
 	}
-}
\ No newline at end of file
+}
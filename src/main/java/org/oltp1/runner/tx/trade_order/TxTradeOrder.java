@@ -1,54 +1,35 @@
 package org.oltp1.runner.tx.trade_order;
 
 import java.time.LocalDateTime;
-import java.util.Collections;
 import java.util.EnumSet;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ExecutorService;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
 import org.apache.commons.lang3.mutable.MutableDouble;
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.oltp1.common.ErrorCtx;
+import org.oltp1.runner.db.ExecutionMode;
 import org.oltp1.runner.db.SqlContext;
 import org.oltp1.runner.generator.TxInputGenerator;
-import org.oltp1.runner.model.Ticker;
-import org.oltp1.runner.model.TradeStatus;
+import org.oltp1.runner.mee.Mee;
+import org.oltp1.runner.mee.MeeOrder;
 import org.oltp1.runner.model.TradeType;
 import org.oltp1.runner.tx.QueryFactory;
-import org.oltp1.runner.tx.market_feed.TxMarketFeed;
-import org.oltp1.runner.tx.market_feed.TxMarketFeedInput;
-import org.oltp1.runner.tx.trade_result.TxTradeResult;
 import org.oltp1.runner.perf.TxBase;
 import org.oltp1.runner.perf.TxOutput;
 import org.oltp1.runner.perf.TxStatsCollector;
-import org.sql2o.Connection;
-import org.sql2o.Sql2o;
-import org.sql2o.data.Row;
+import org.oltp1.runner.db.DbSession;
 
 public class TxTradeOrder extends TxBase
 {
-	private static final String MEE_ACTION_PROCESS_ORDER = "eMEEProcessOrder";
-	private static final String MEE_ACTION_SET_LIMIT_ORDER_TRIGGER = "eMEESetLimitOrderTrigger";
-
-	private static final int max_feed_len = 20;
-
-	private final Sql2o sql2o;
+	private final SqlContext sqlCtx;
 
 	private final TxInputGenerator txInputGen;
 	private final TradeOrderQueries sql;
+	private final TradeOrderProcedures procs;
 
-	private final TxTradeResult txTradeResult;
-	private final TxMarketFeed txMarketFeed;
-
-	private final Set<Ticker> tickers = new HashSet<Ticker>();
-
-	private final ExecutorService mee;
+	private final Mee mee;
 
 	private final EnumSet<TradeType> isLimit = EnumSet
 			.of(
@@ -56,18 +37,20 @@ public class TxTradeOrder extends TxBase
 					TradeType.LIMIT_BUY,
 					TradeType.STOP_LOSS);
 
-	public TxTradeOrder(TxInputGenerator txInputGen, SqlContext sqlCtx, TxStatsCollector tradeResultStats, TxStatsCollector mktFeedStats, ExecutorService mee)
+	public TxTradeOrder(TxInputGenerator txInputGen, SqlContext sqlCtx, Mee mee)
 	{
 		super(new TxStatsCollector("Trade-Order"));
 
 		this.txInputGen = txInputGen;
 
-		this.txTradeResult = new TxTradeResult(sqlCtx, tradeResultStats);
-		this.txMarketFeed = new TxMarketFeed(sqlCtx, mktFeedStats);
 		this.sql = QueryFactory.getQueries(TradeOrderQueries.class, sqlCtx.getSqlEngine());
+		this.procs = (sqlCtx.getExecutionMode() == ExecutionMode.PROCEDURES)
+				? QueryFactory.getQueries(TradeOrderProcedures.class, sqlCtx.getSqlEngine())
+				: null;
 		this.mee = mee;
 
-		sql2o = sqlCtx.getSql2o();
+		this.sqlCtx = sqlCtx;
+		setRetryPolicy(sqlCtx.getRetryPolicy());
 	}
 
 	@Override
@@ -75,13 +58,17 @@ public class TxTradeOrder extends TxBase
 	{
 		TxTradeOrderOutput txOutput = new TxTradeOrderOutput();
 
-		final TxTradeOrderInput txInput = txInputGen.generateTradeOrderInput();
+		final TxTradeOrderInput txInput = input(txInputGen::generateTradeOrderInput);
 		final TradeOrderSession session = new TradeOrderSession();
 
-		session.put("trade_qty", txInput.trade_qty);
+		session.trade_qty = txInput.trade_qty;
 
-		try (Connection con = sql2o.beginTransaction())
+		MeeOrder meeOrder = null;
+		boolean committed = false;
+
+		try (DbSession con = sqlCtx.beginTransaction())
 		{
+			frame(con, 1);
 			executeFrame1(con, txInput, txOutput, session);
 
 			if (txOutput.getStatus() < 0)
@@ -89,10 +76,11 @@ public class TxTradeOrder extends TxBase
 				return txOutput;
 			}
 
-			if (notEquals(txInput.exec_l_name, session.getAsString("cust_l_name"))
-					|| notEquals(txInput.exec_f_name, session.getAsString("cust_f_name"))
-					|| notEquals(txInput.exec_tax_id, session.getAsString("tax_id")))
+			if (notEquals(txInput.exec_l_name, session.cust_l_name)
+					|| notEquals(txInput.exec_f_name, session.cust_f_name)
+					|| notEquals(txInput.exec_tax_id, session.tax_id))
 			{
+				frame(con, 2);
 				executeFrame2(con, txInput, txOutput, session);
 
 				if (txOutput.getStatus() < 0)
@@ -101,131 +89,89 @@ public class TxTradeOrder extends TxBase
 				}
 			}
 
+			frame(con, 3);
 			executeFrame3(con, txInput, txOutput, session);
 
-			double commRate = session.getAsDouble("comm_rate");
+			double commRate = session.comm_rate;
 			long tradeQty = txInput.trade_qty;
-			double requestedPrice = txInput.requested_price;
+			double requestedPrice = session.requested_price;
 
 			double commAmount = (commRate / 100) * tradeQty * requestedPrice;
 			String execName = StringUtils.trim(txInput.exec_f_name + " " + txInput.exec_l_name);
 			boolean isCash = !txInput.type_is_margin;
 
-			session.put("comm_amount", commAmount);
-			session.put("exec_name", execName);
-			session.put("is_cash", isCash);
+			session.comm_amount = commAmount;
+			session.exec_name = execName;
+			session.is_cash = isCash;
 
+			frame(con, 4);
 			executeFrame4(con, txInput, txOutput, session);
 
 			if (txInput.roll_it_back)
 			{
+				frame(con, 5);
 				executeFrame5(con);
-				txOutput.output = Collections.singletonMap("is_rollback", true);
 				txOutput.is_rollback = true;
 			}
 			else
 			{
-				executeFrame6(con, txInput, txOutput, session);
+				// registered before the commit: a Market-Feed may trigger a
+				// limit order as soon as it is committed
+				meeOrder = new MeeOrder(session.t_id, session.symbol, txInput.trade_qty, txInput.trade_type, session.requested_price);
+				mee.registerOrder(meeOrder);
 
-				Runnable tradeResultAction = new Runnable()
-				{
-					public void run()
-					{
-						Map<String, Object> meeMsg = new HashMap<>();
-
-						meeMsg.put("requested_price", session.get("market_price"));
-						meeMsg.put("symbol", session.get("symbol"));
-						meeMsg.put("trade_id", session.get("t_id"));
-						meeMsg.put("trade_qty", session.get("trade_qty"));
-						meeMsg.put("trade_type_id", txInput.trade_type.id);
-
-						if (session.getAsBoolean("type_is_market"))
-						{
-							meeMsg.put("eAction", MEE_ACTION_PROCESS_ORDER);
-						}
-						else
-						{
-							meeMsg.put("eAction", MEE_ACTION_SET_LIMIT_ORDER_TRIGGER);
-						}
-
-						txTradeResult.offer(meeMsg);
-					}
-				};
-
-				mee.execute(tradeResultAction);
-
-				Runnable mktFeedAction = new Runnable()
-				{
-					public void run()
-					{
-						String t_symbol = session.getAsString("symbol");
-						long t_trade_qty = session.getAsLong("trade_qty");
-						double t_trade_price = session.getAsDouble("market_price");
-
-						synchronized (tickers)
-						{
-							tickers.add(new Ticker(t_symbol, t_trade_price, t_trade_qty));
-
-							if (tickers.size() >= Math.min(10, max_feed_len))
-							{
-								TxMarketFeedInput txMktFeedIn = new TxMarketFeedInput(
-										TradeStatus.SUBMITTED,
-										TradeType.LIMIT_BUY,
-										TradeType.LIMIT_SELL,
-										TradeType.STOP_LOSS,
-										tickers,
-										tickers.size());
-								txMarketFeed.offer(txMktFeedIn);
-								tickers.clear();
-							}
-						}
-					}
-				};
-
-				mee.execute(mktFeedAction);
+				frame(con, 6);
+				executeFrame6(con, txInput, txOutput, session);
+				committed = true;
 			}
 		}
 		catch (Throwable t)
 		{
 			ErrorCtx ectx = new ErrorCtx(t);
+			txOutput.setFailure(t);
 			txOutput.setStatus(-1);
 			txOutput.setStatusMessage(ectx.toString());
 		}
 
+		// submitted after the connection is returned to the pool: the MEE
+		// blocks when it is full
+		if (committed)
+		{
+			mee.submitOrder(meeOrder);
+		}
+		else if (meeOrder != null)
+		{
+			mee.cancelOrder(meeOrder);
+		}
+
 		return txOutput;
 	}
 
-	private void executeFrame1(final Connection con, final TxTradeOrderInput txInput, final TxTradeOrderOutput txOutput, final TradeOrderSession session)
+	private void executeFrame1(final DbSession con, final TxTradeOrderInput txInput, final TxTradeOrderOutput txOutput, final TradeOrderSession session)
 	{
-		Map<String, Object> customerInfo = con
-				.createQuery(sql.getCustomerInfo())
-				.addParameter("acct_id", txInput.acct_id)
-				.executeAndFetchTable()
-				.asList()
-				.stream()
-				.findFirst()
-				.orElse(Collections.emptyMap());
+		TradeOrderSession customerInfo = con
+				.prepare(sql.getCustomerInfo())
+				.bind("acct_id", txInput.acct_id)
+				.fetchFirst(session::readCustomerInfo);
 
-		txOutput.num_found = customerInfo.size() > 0 ? 1 : 0;
+		txOutput.num_found = customerInfo != null ? 1 : 0;
 
 		if (txOutput.num_found != 1)
 		{
 			txOutput.setStatus(-711);
 			txOutput.setStatusMessage("(num_found != 1)");
 		}
-
-		session.putAll(customerInfo);
 	}
 
-	private void executeFrame2(final Connection con, final TxTradeOrderInput txInput, final TxTradeOrderOutput txOutput, final TradeOrderSession session)
+	private void executeFrame2(final DbSession con, final TxTradeOrderInput txInput, final TxTradeOrderOutput txOutput, final TradeOrderSession session)
 	{
 		String acl = con
-				.createQuery(sql.getAccountPermissions())
-				.addParameter("acct_id", txInput.acct_id)
-				.addParameter("exec_l_name", txInput.exec_l_name)
-				.addParameter("exec_f_name", txInput.exec_f_name)
-				.addParameter("exec_tax_id", txInput.exec_tax_id)
-				.executeScalar(String.class);
+				.prepare(sql.getAccountPermissions())
+				.bind("acct_id", txInput.acct_id)
+				.bind("exec_l_name", txInput.exec_l_name)
+				.bind("exec_f_name", txInput.exec_f_name)
+				.bind("exec_tax_id", txInput.exec_tax_id)
+				.fetchScalar(String.class);
 
 		if (StringUtils.isBlank(acl))
 		{
@@ -234,78 +180,94 @@ public class TxTradeOrder extends TxBase
 		}
 		else
 		{
-			session.put("ap_acl", acl);
+			session.ap_acl = acl;
 		}
 	}
 
-	private void executeFrame3(final Connection con, final TxTradeOrderInput txInput, final TxTradeOrderOutput txOutput, final TradeOrderSession session)
+	private void executeFrame3(final DbSession con, final TxTradeOrderInput txInput, final TxTradeOrderOutput txOutput, final TradeOrderSession session)
 	{
-		Map<String, Object> securityInfo;
+		if (procs != null)
+		{
+			con
+					.prepare(procs.callFrame3())
+					.bind("acct_id", txInput.acct_id)
+					.bind("cust_id", session.cust_id)
+					.bind("cust_tier", session.cust_tier)
+					.bind("tax_status", session.tax_status)
+					.bind("symbol", StringUtils.defaultString(txInput.symbol))
+					.bind("co_name", StringUtils.defaultString(txInput.co_name))
+					.bind("issue", StringUtils.defaultString(txInput.issue))
+					.bind("trade_type_id", txInput.trade_type.id)
+					.bind("trade_qty", txInput.trade_qty)
+					.bind("requested_price", txInput.requested_price)
+					.bind("is_lifo", txInput.is_lifo)
+					.bind("type_is_margin", txInput.type_is_margin)
+					.fetchFirst(session::readFrame3);
+		}
+		else
+		{
+			estimateTrade(con, txInput, session);
+		}
 
+		checkTrade(txInput, txOutput, session);
+	}
+
+	/**
+	 * Reads the security, its price, the holdings, the tax, the fees and the
+	 * assets of frame 3, one statement at a time.
+	 */
+	private void estimateTrade(final DbSession con, final TxTradeOrderInput txInput, final TradeOrderSession session)
+	{
 		// Get information on the security
 		if (StringUtils.isBlank(txInput.symbol))
 		{
-			securityInfo = con
-					.createQuery(sql.getSecurityInfoByCoName())
-					.addParameter("co_name", txInput.co_name)
-					.addParameter("issue", txInput.issue)
-					.executeAndFetchTable()
-					.asList()
-					.stream()
-					.findFirst()
-					.orElse(Collections.emptyMap());
+			con
+					.prepare(sql.getSecurityInfoByCoName())
+					.bind("co_name", txInput.co_name)
+					.bind("issue", txInput.issue)
+					.fetchFirst(session::readSecurityInfo);
 		}
 		else
 		{
-			securityInfo = con
-					.createQuery(sql.getSecurityInfoBySymbol())
-					.addParameter("symbol", txInput.symbol)
-					.executeAndFetchTable()
-					.asList()
-					.stream()
-					.findFirst()
-					.orElse(Collections.emptyMap());
+			con
+					.prepare(sql.getSecurityInfoBySymbol())
+					.bind("symbol", txInput.symbol)
+					.fetchFirst(session::readSecurityInfo);
 		}
 
-		session.putAll(securityInfo);
-
 		// Get current pricing information for the security
 		double marketPrice = con
-				.createQuery(sql.getLastTrade())
-				.addParameter("symbol", securityInfo.get("symbol"))
-				.executeScalar(Double.class);
+				.prepare(sql.getLastTrade())
+				.bind("symbol", session.symbol)
+				.fetchScalar(Double.class);
 
 		// Set trade characteristics based on the type of trade.
-		Row tt = con
-				.createQuery(sql.getTradeType())
-				.addParameter("trade_type_id", txInput.trade_type.id)
-				.executeAndFetchTable()
-				.rows()
-				.get(0);
+		con
+				.prepare(sql.getTradeType())
+				.bind("trade_type_id", txInput.trade_type.id)
+				.fetchFirst(session::readTradeType);
 
-		boolean isMarket = tt.getBoolean("type_is_market");
-		boolean isSell = tt.getBoolean("type_is_sell");
+		boolean isMarket = session.type_is_market;
+		boolean isSell = session.type_is_sell;
 
 		// If this is a limit-order, then the requestedPrice was passed in to the frame,
 		// but if this a market-order, then the requestedPrice needs to be set to the
-		// current market price.
-		if (isMarket)
-		{
-			txInput.requested_price = marketPrice;
-		}
+		// current market price. The input is left as generated: it is retried and
+		// recorded as is.
+		session.requested_price = isMarket ? marketPrice : txInput.requested_price;
 
 		// Local frame variables used when estimating impact of this trade on
 		// any current holdings of the same security.
 		final MutableDouble buyValue = new MutableDouble();
 		final MutableDouble sellValue = new MutableDouble();
-		final MutableDouble requestedPrice = new MutableDouble(txInput.requested_price);
+		final MutableDouble requestedPrice = new MutableDouble(session.requested_price);
 		final MutableInt neededQty = new MutableInt(txInput.trade_qty);
 
 		int hsQty = con
-				.createQuery(sql.getHoldingSummary())
-				.addParameter("acct_id", txInput.acct_id)
-				.addParameter("symbol", securityInfo.get("symbol"))
-				.executeAndFetch(Integer.class)
+				.prepare(sql.getHoldingSummary())
+				.bind("acct_id", txInput.acct_id)
+				.bind("symbol", session.symbol)
+				.fetchScalars(Integer.class)
 				.stream()
 				.findFirst()
 				.orElse(0);
@@ -320,14 +282,14 @@ public class TxTradeOrder extends TxBase
 				// by selling current holdings for this security. The customer may have
 				// multiple holdings at different prices for this security (representing
 				// multiple purchases different times).
-				List<Row> holdingList = getHoldingList(con, txInput);
+				List<HoldingRow> holdingList = getHoldingList(con, txInput, session);
 
 				holdingList.forEach(r -> {
 
 					if (neededQty.intValue() != 0)
 					{
-						int holdQty = r.getInteger("h_qty");
-						double holdPrice = r.getBigDecimal("h_price").doubleValue();
+						int holdQty = r.h_qty;
+						double holdPrice = r.h_price;
 
 						if (holdQty > neededQty.intValue())
 						{
@@ -365,14 +327,14 @@ public class TxTradeOrder extends TxBase
 				// by covering short positions currently held for this security. The customer
 				// may have multiple holdings at different prices for this security
 				// (representing multiple purchases at different times).
-				List<Row> holdingList = getHoldingList(con, txInput);
+				List<HoldingRow> holdingList = getHoldingList(con, txInput, session);
 
 				holdingList.forEach(r -> {
 
 					if (neededQty.intValue() != 0)
 					{
-						int holdQty = r.getInteger("h_qty");
-						double holdPrice = r.getBigDecimal("h_price").doubleValue();
+						int holdQty = r.h_qty;
+						double holdPrice = r.h_price;
 
 						if (holdQty + neededQty.intValue() < 0)
 						{
@@ -404,61 +366,60 @@ public class TxTradeOrder extends TxBase
 		// Estimate any capital gains tax that would be incurred as a result of this
 		// transaction.
 
-		int taxStatus = session.getAsInt("tax_status");
+		int taxStatus = session.tax_status;
 
 		double taxAmount = 0.0;
 		if ((sellValue.doubleValue() > buyValue.doubleValue()) && (taxStatus == 1 || taxStatus == 2))
 		{
 			double taxRate = con
-					.createQuery(sql.getTaxRate())
-					.addParameter("cust_id", session.getAsLong("cust_id"))
-					.executeScalar(Double.class);
+					.prepare(sql.getTaxRate())
+					.bind("cust_id", session.cust_id)
+					.fetchScalar(Double.class);
 
 			taxAmount = (sellValue.doubleValue() - buyValue.doubleValue()) * taxRate;
 		}
 
 		// Get administrative fees (e.g. trading charge, commission rate)
-		Row frow = con
-				.createQuery(sql.getFees())
-				.addParameter("cust_tier", session.get("cust_tier"))
-				.addParameter("trade_type_id", txInput.trade_type.id)
-				.addParameter("exch_id", securityInfo.get("exch_id"))
-				.addParameter("f_trade_qty", txInput.trade_qty)
-				.addParameter("t_trade_qty", txInput.trade_qty)
-				.executeAndFetchTable()
-				.rows()
-				.get(0);
-
-		double commissionRate = frow.getBigDecimal("comm_rate").doubleValue();
-		double chargeAmount = frow.getBigDecimal("charge_amount").doubleValue();
+		con
+				.prepare(sql.getFees())
+				.bind("cust_tier", session.cust_tier)
+				.bind("trade_type_id", txInput.trade_type.id)
+				.bind("exch_id", session.exch_id)
+				.bind("f_trade_qty", txInput.trade_qty)
+				.bind("t_trade_qty", txInput.trade_qty)
+				.fetchFirst(session::readFees);
 
 		// Compute assets on margin trades
 		double accountAssets = 0.0;
 		if (txInput.type_is_margin)
 		{
 			accountAssets = con
-					.createQuery(sql.getCustomerAssets())
-					.addParameter("acct_id", txInput.acct_id)
-					.executeScalar(Double.class);
+					.prepare(sql.getCustomerAssets())
+					.bind("acct_id", txInput.acct_id)
+					.fetchScalar(Double.class);
 		}
 
-		String statusId = isMarket ? txInput.st_submitted_id : txInput.st_pending_id;
+		session.buy_value = buyValue.doubleValue();
+		session.acct_assets = accountAssets;
+		session.market_price = marketPrice;
+		session.sell_value = sellValue.doubleValue();
+		session.tax_amount = taxAmount;
+	}
+
+	private void checkTrade(final TxTradeOrderInput txInput, final TxTradeOrderOutput txOutput, final TradeOrderSession session)
+	{
+		String statusId = session.type_is_market ? txInput.st_submitted_id : txInput.st_pending_id;
+
+		session.co_name = StringUtils.trimToEmpty(txInput.co_name);
+		session.status_id = statusId;
 
-		session.put("co_name", StringUtils.trimToEmpty(txInput.co_name));
-		session.put("requested_price", txInput.requested_price);
-		session.put("buy_value", buyValue.doubleValue());
-		session.put("charge_amount", chargeAmount);
-		session.put("comm_rate", commissionRate);
-		session.put("acct_assets", accountAssets);
-		session.put("market_price", marketPrice);
-		session.put("sell_value", sellValue.doubleValue());
-		session.put("status_id", statusId);
-		session.put("tax_amount", taxAmount);
-		session.put("type_is_market", isMarket);
-		session.put("type_is_sell", isSell);
+		int taxStatus = session.tax_status;
+		double taxAmount = session.tax_amount;
+		double commissionRate = session.comm_rate;
+		double chargeAmount = session.charge_amount;
 
-		double buy_value = buyValue.doubleValue();
-		double sell_value = buyValue.doubleValue();
+		double buy_value = session.buy_value;
+		double sell_value = session.buy_value;
 
 		if ((sell_value > buy_value) &&
 				((taxStatus == 1) || (taxStatus == 2)) &&
@@ -480,72 +441,91 @@ public class TxTradeOrder extends TxBase
 
 	}
 
-	private void executeFrame4(final Connection con, final TxTradeOrderInput txInput, final TxTradeOrderOutput txOutput, final TradeOrderSession session)
+	private void executeFrame4(final DbSession con, final TxTradeOrderInput txInput, final TxTradeOrderOutput txOutput, final TradeOrderSession session)
 	{
-		long tid = ((Number) con
-				.createQuery(sql.insertTrade(), true)
-				.addParameter("trade_dts", LocalDateTime.now())
-				.addParameter("status_id", session.get("status_id"))
-				.addParameter("trade_type_id", txInput.trade_type.id)
-				.addParameter("is_cash", session.get("is_cash"))
-				.addParameter("symbol", session.get("symbol"))
-				.addParameter("trade_qty", txInput.trade_qty)
-				.addParameter("requested_price", txInput.requested_price)
-				.addParameter("acct_id", txInput.acct_id)
-				.addParameter("exec_name", session.get("exec_name"))
-				.addParameter("charge_amount", session.get("charge_amount"))
-				.addParameter("comm_amount", session.get("comm_amount"))
-				.addParameter("is_lifo", txInput.is_lifo)
-				.executeUpdate()
-				.getKey()).longValue();
-
-		// boolean isMarket = session.getAsBoolean("type_is_market");
+		if (procs != null)
+		{
+			session.t_id = con
+					.prepare(procs.callFrame4())
+					.bind("trade_dts", LocalDateTime.now())
+					.bind("status_id", session.status_id)
+					.bind("trade_type_id", txInput.trade_type.id)
+					.bind("is_cash", session.is_cash)
+					.bind("symbol", session.symbol)
+					.bind("trade_qty", txInput.trade_qty)
+					.bind("requested_price", session.requested_price)
+					.bind("acct_id", txInput.acct_id)
+					.bind("exec_name", session.exec_name)
+					.bind("charge_amount", session.charge_amount)
+					.bind("comm_amount", session.comm_amount)
+					.bind("is_lifo", txInput.is_lifo)
+					.bind("is_limit", isLimit.contains(txInput.trade_type))
+					.bind("broker_id", session.broker_id)
+					.fetchScalar(Long.class);
+			return;
+		}
+
+		long tid = con
+				.prepare(sql.insertTrade(), true)
+				.bind("trade_dts", LocalDateTime.now())
+				.bind("status_id", session.status_id)
+				.bind("trade_type_id", txInput.trade_type.id)
+				.bind("is_cash", session.is_cash)
+				.bind("symbol", session.symbol)
+				.bind("trade_qty", txInput.trade_qty)
+				.bind("requested_price", session.requested_price)
+				.bind("acct_id", txInput.acct_id)
+				.bind("exec_name", session.exec_name)
+				.bind("charge_amount", session.charge_amount)
+				.bind("comm_amount", session.comm_amount)
+				.bind("is_lifo", txInput.is_lifo)
+				.executeInsert();
+
+		// boolean isMarket = session.type_is_market;
 		// if (!isMarket)
 		TradeType tradeType = txInput.trade_type;
 		if (isLimit.contains(tradeType))
 		{
 			con
-					.createQuery(sql.insertTradeRequest())
-					.addParameter("t_id", tid)
-					.addParameter("trade_type_id", txInput.trade_type.id)
-					.addParameter("symbol", session.get("symbol"))
-					.addParameter("trade_qty", txInput.trade_qty)
-					.addParameter("requested_price", txInput.requested_price)
-					.addParameter("broker_id", session.get("broker_id"))
-					.executeUpdate();
+					.defer(sql.insertTradeRequest())
+					.bind("t_id", tid)
+					.bind("trade_type_id", txInput.trade_type.id)
+					.bind("symbol", session.symbol)
+					.bind("trade_qty", txInput.trade_qty)
+					.bind("requested_price", session.requested_price)
+					.bind("broker_id", session.broker_id);
 		}
 
 		con
-				.createQuery(sql.insertTradeHistory())
-				.addParameter("t_id", tid)
-				.addParameter("trade_dts", LocalDateTime.now())
-				.addParameter("status_id", session.get("status_id"))
-				.executeUpdate();
+				.defer(sql.insertTradeHistory())
+				.bind("t_id", tid)
+				.bind("trade_dts", LocalDateTime.now())
+				.bind("status_id", session.status_id);
 
-		session.put("t_id", tid);
+		session.t_id = tid;
 	}
 
-	private void executeFrame5(final Connection con)
+	private void executeFrame5(final DbSession con)
 	{
+		// the rolled back statements still run, as the specification requires
+		con.flush();
 		con.rollback();
 		incrementRollBacks();
 	}
 
-	private void executeFrame6(final Connection con, final TxTradeOrderInput txInput, final TxTradeOrderOutput txOutput, final TradeOrderSession session)
+	private void executeFrame6(final DbSession con, final TxTradeOrderInput txInput, final TxTradeOrderOutput txOutput, final TradeOrderSession session)
 	{
 		con.commit();
 
-		Map<String, Object> tradeOrder = new HashMap<>();
-		tradeOrder.put("buy_value", session.get("buy_value"));
-		tradeOrder.put("sell_value", session.get("sell_value"));
-		session.put("status", session.get("status_id"));
-		tradeOrder.put("tax_amount", session.get("tax_amount"));
-		tradeOrder.put("trade_id", session.get("t_id"));
+		session.status = session.status_id;
 
-		txOutput.output = tradeOrder;
+		txOutput.buy_value = session.buy_value;
+		txOutput.sell_value = session.sell_value;
+		txOutput.tax_amount = session.tax_amount;
+		txOutput.trade_id = session.t_id;
 	}
 
-	private List<Row> getHoldingList(final Connection con, final TxTradeOrderInput txInput)
+	private List<HoldingRow> getHoldingList(final DbSession con, final TxTradeOrderInput txInput, final TradeOrderSession session)
 	{
 		String holdingQStmt;
 		if (txInput.is_lifo)
@@ -562,11 +542,10 @@ public class TxTradeOrder extends TxBase
 		}
 
 		return con
-				.createQuery(holdingQStmt)
-				.addParameter("acct_id", txInput.acct_id)
-				.addParameter("symbol", txInput.symbol)
-				.executeAndFetchTable()
-				.rows();
+				.prepare(holdingQStmt)
+				.bind("acct_id", txInput.acct_id)
+				.bind("symbol", session.symbol)
+				.fetchList(HoldingRow::read);
 	}
 
 	private static boolean notEquals(CharSequence a, CharSequence b)
@@ -1,14 +1,17 @@
 package org.oltp1.runner.tx.trade_order;
 
-import java.util.Map;
-
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 import org.oltp1.runner.perf.TxOutput;
 
 public class TxTradeOrderOutput extends TxOutput
 {
-	public Map<String, Object> output;
+	// Frame 6, unset when the order is rolled back
+	public double buy_value;
+	public double sell_value;
+	public double tax_amount;
+	public long trade_id;
+
 	public int num_found;
 	public boolean is_rollback;
 
@@ -27,7 +30,10 @@ public class TxTradeOrderOutput extends TxOutput
 	public String toString()
 	{
 		return new ToStringBuilder(this, ToStringStyle.MULTI_LINE_STYLE)
-				.append("output", output)
+				.append("buy_value", buy_value)
+				.append("sell_value", sell_value)
+				.append("tax_amount", tax_amount)
+				.append("trade_id", trade_id)
 				.append("is_rollback", is_rollback)
 				.append("tx_status", getStatus())
 				.append("tx_status_message", getStatusMessage())
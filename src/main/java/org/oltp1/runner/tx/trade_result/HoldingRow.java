@@ -0,0 +1,27 @@
+package org.oltp1.runner.tx.trade_result;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A holding of the account in the traded security, as returned by
+ * <code>getHoldingAsc()</code> and <code>getHoldingDesc()</code>.
+ */
+final class HoldingRow
+{
+	final long hold_id;
+	final int hold_qty;
+	final double hold_price;
+
+	private HoldingRow(long holdId, int holdQty, double holdPrice)
+	{
+		this.hold_id = holdId;
+		this.hold_qty = holdQty;
+		this.hold_price = holdPrice;
+	}
+
+	static HoldingRow read(ResultSet rs) throws SQLException
+	{
+		return new HoldingRow(rs.getLong("hold_id"), rs.getInt("hold_qty"), rs.getDouble("hold_price"));
+	}
+}
@@ -0,0 +1,75 @@
+package org.oltp1.runner.tx.trade_result;
+
+/**
+ * Provides the MariaDB-specific stored procedure calls for the Trade-Result
+ * transaction.
+ */
+public class MariaDbTradeResultProcedures implements TradeResultProcedures
+{
+	@Override
+	public String callFrame2()
+	{
+		return """
+				CALL trade_result_frame2
+				(
+					:trade_id
+					, :acct_id
+					, :symbol
+					, :trade_qty
+					, :hs_qty
+					, :type_is_sell
+					, :is_lifo
+					, :trade_price
+					, :trade_dts
+				);
+				""";
+	}
+
+	@Override
+	public String callFrame3()
+	{
+		return """
+				CALL trade_result_frame3
+				(
+					:trade_id
+					, :cust_id
+					, :buy_value
+					, :sell_value
+				);
+				""";
+	}
+
+	@Override
+	public String callFrame5()
+	{
+		return """
+				CALL trade_result_frame5
+				(
+					:trade_id
+					, :trade_dts
+					, :st_completed_id
+					, :trade_price
+					, :comm_amount
+					, :broker_id
+				);
+				""";
+	}
+
+	@Override
+	public String callFrame6()
+	{
+		return """
+				CALL trade_result_frame6
+				(
+					:trade_id
+					, :acct_id
+					, :trade_dts
+					, :due_date
+					, :cash_type
+					, :se_amount
+					, :trade_is_cash
+					, :ct_name
+				);
+				""";
+	}
+}
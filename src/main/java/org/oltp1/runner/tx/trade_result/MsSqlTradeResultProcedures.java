@@ -0,0 +1,67 @@
+package org.oltp1.runner.tx.trade_result;
+
+/**
+ * Provides the Microsoft SQL Server-specific stored procedure calls for the
+ * Trade-Result transaction.
+ */
+public class MsSqlTradeResultProcedures implements TradeResultProcedures
+{
+	@Override
+	public String callFrame2()
+	{
+		return """
+				EXEC trade_result_frame2
+					@trade_id = :trade_id
+					, @acct_id = :acct_id
+					, @symbol = :symbol
+					, @trade_qty = :trade_qty
+					, @hs_qty = :hs_qty
+					, @type_is_sell = :type_is_sell
+					, @is_lifo = :is_lifo
+					, @trade_price = :trade_price
+					, @trade_dts = :trade_dts;
+				""";
+	}
+
+	@Override
+	public String callFrame3()
+	{
+		return """
+				EXEC trade_result_frame3
+					@trade_id = :trade_id
+					, @cust_id = :cust_id
+					, @buy_value = :buy_value
+					, @sell_value = :sell_value;
+				""";
+	}
+
+	@Override
+	public String callFrame5()
+	{
+		return """
+				EXEC trade_result_frame5
+					@trade_id = :trade_id
+					, @trade_dts = :trade_dts
+					, @st_completed_id = :st_completed_id
+					, @trade_price = :trade_price
+					, @comm_amount = :comm_amount
+					, @broker_id = :broker_id;
+				""";
+	}
+
+	@Override
+	public String callFrame6()
+	{
+		return """
+				EXEC trade_result_frame6
+					@trade_id = :trade_id
+					, @acct_id = :acct_id
+					, @trade_dts = :trade_dts
+					, @due_date = :due_date
+					, @cash_type = :cash_type
+					, @se_amount = :se_amount
+					, @trade_is_cash = :trade_is_cash
+					, @ct_name = :ct_name;
+				""";
+	}
+}
@@ -0,0 +1,22 @@
+package org.oltp1.runner.tx.trade_result;
+
+/**
+ * Defines the contract for supplying the stored procedure calls of the
+ * Trade-Result transaction, for the procedure execution mode: one call for each
+ * frame that runs more than one statement. The procedures are installed by
+ * initdb.
+ */
+public interface TradeResultProcedures
+{
+	// Frame 2
+	String callFrame2();
+
+	// Frame 3
+	String callFrame3();
+
+	// Frame 5
+	String callFrame5();
+
+	// Frame 6
+	String callFrame6();
+}
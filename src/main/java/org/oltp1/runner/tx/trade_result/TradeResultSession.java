@@ -1,12 +1,106 @@
 package org.oltp1.runner.tx.trade_result;
 
-import org.oltp1.runner.perf.TxSession;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
 
-public class TradeResultSession extends TxSession
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * The state carried between the frames of a Trade-Result transaction. The
+ * frames read their results straight into the fields.
+ */
+public class TradeResultSession
 {
+	// MEE input
+	public final long trade_id;
+	public final double requested_price;
+
+	// Frame 1
+	public long acct_id;
+	public double charge;
+	public int hs_qty;
+	public String symbol;
+	public boolean trade_is_cash;
+	public int trade_qty;
+	public String type_id;
+	public boolean type_is_market;
+	public boolean type_is_sell;
+	public String type_name;
+	public boolean is_lifo;
+
+	// Frame 2
+	public long broker_id;
+	public long cust_id;
+	public int tax_status;
+	public double buy_value;
+	public double sell_value;
+	public LocalDateTime trade_dts;
+
+	// Frame 3
+	public double tax_amount;
+
+	// Frame 4
+	public String s_name;
+	public double comm_rate;
+
+	// Frame 5
+	public double comm_amount;
+
+	// Frame 6
+	public double acct_bal;
+
+	public TradeResultSession(TxTradeResultInput txInput)
+	{
+		this.trade_id = txInput.trade_id;
+		this.requested_price = txInput.requested_price;
+	}
+
+	TradeResultSession readTradeInfo(ResultSet rs) throws SQLException
+	{
+		acct_id = rs.getLong("acct_id");
+		charge = rs.getDouble("charge");
+		hs_qty = rs.getInt("hs_qty");
+		symbol = rs.getString("symbol");
+		trade_is_cash = rs.getBoolean("trade_is_cash");
+		trade_qty = rs.getInt("trade_qty");
+		type_id = rs.getString("type_id");
+		type_is_market = rs.getBoolean("type_is_market");
+		type_is_sell = rs.getBoolean("type_is_sell");
+		type_name = rs.getString("type_name");
+		is_lifo = rs.getBoolean("is_lifo");
+		return this;
+	}
+
+	TradeResultSession readCustomerAccount(ResultSet rs) throws SQLException
+	{
+		broker_id = rs.getLong("broker_id");
+		cust_id = rs.getLong("cust_id");
+		tax_status = rs.getInt("tax_status");
+		return this;
+	}
+
+	TradeResultSession readFrame2(ResultSet rs) throws SQLException
+	{
+		broker_id = rs.getLong("broker_id");
+		cust_id = rs.getLong("cust_id");
+		tax_status = rs.getInt("tax_status");
+		buy_value = rs.getDouble("buy_value");
+		sell_value = rs.getDouble("sell_value");
+		return this;
+	}
+
+	TradeResultSession readCommissionRate(ResultSet rs) throws SQLException
+	{
+		s_name = rs.getString("s_name");
+		comm_rate = rs.getDouble("comm_rate");
+		return this;
+	}
+
 	@Override
 	public String toString()
 	{
-		return String.format("TradeResultSession [%n%s%n]", getSessionData());
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.MULTI_LINE_STYLE);
 	}
-}
\ No newline at end of file
+}
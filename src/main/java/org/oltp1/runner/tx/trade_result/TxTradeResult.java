@@ -1,44 +1,44 @@
 package org.oltp1.runner.tx.trade_result;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.oltp1.common.ErrorCtx;
+import org.oltp1.runner.db.ExecutionMode;
 import org.oltp1.runner.db.SqlContext;
 import org.oltp1.runner.model.TradeStatus;
 import org.oltp1.runner.tx.QueryFactory;
 import org.oltp1.runner.perf.TxBase;
 import org.oltp1.runner.perf.TxOutput;
 import org.oltp1.runner.perf.TxStatsCollector;
-import org.sql2o.Connection;
-import org.sql2o.Sql2o;
-import org.sql2o.data.Row;
+import org.oltp1.runner.db.DbSession;
 
 public class TxTradeResult extends TxBase
 {
-	private final Queue<Map<String, Object>> mq = new ConcurrentLinkedQueue<>();
+	private final Queue<TxTradeResultInput> mq = new ConcurrentLinkedQueue<>();
 
-	private final Sql2o sql2o;
+	private final SqlContext sqlCtx;
 	private final TradeResultQueries sql;
+	private final TradeResultProcedures procs;
 
 	public TxTradeResult(SqlContext sqlCtx, TxStatsCollector stats)
 	{
 		super(stats);
 
-		this.sql2o = sqlCtx.getSql2o();
+		this.sqlCtx = sqlCtx;
+		setRetryPolicy(sqlCtx.getRetryPolicy());
 		this.sql = QueryFactory.getQueries(TradeResultQueries.class, sqlCtx.getSqlEngine());
+		this.procs = (sqlCtx.getExecutionMode() == ExecutionMode.PROCEDURES)
+				? QueryFactory.getQueries(TradeResultProcedures.class, sqlCtx.getSqlEngine())
+				: null;
 	}
 
-	public void offer(Map<String, Object> meeMsg)
+	public void offer(TxTradeResultInput txIn)
 	{
-		mq.offer(meeMsg);
+		mq.offer(txIn);
 		super.execute();
 	}
 
@@ -47,7 +47,7 @@ public class TxTradeResult extends TxBase
 	{
 		TxTradeResultOutput txOutput = new TxTradeResultOutput();
 
-		Map<String, Object> txInput = mq.poll();
+		TxTradeResultInput txInput = input(mq::poll);
 
 		if (txInput == null)
 		{
@@ -56,12 +56,12 @@ public class TxTradeResult extends TxBase
 			return txOutput;
 		}
 
-		final TradeResultSession session = new TradeResultSession();
-		session.putAll(txInput);
+		final TradeResultSession session = new TradeResultSession(txInput);
 
 		// try (Connection con = sql2o.beginTransaction(sqlCtx.getIsolationLevel()))
-		try (Connection con = sql2o.beginTransaction())
+		try (DbSession con = sqlCtx.beginTransaction())
 		{
+			frame(con, 1);
 			executeFrame1(con, txOutput, session);
 
 			if (txOutput.getStatus() < 0)
@@ -69,17 +69,19 @@ public class TxTradeResult extends TxBase
 				return txOutput;
 			}
 
+			frame(con, 2);
 			executeFrame2(con, txOutput, session);
 
-			int tax_status = session.getAsInt("tax_status");
-			double sell_value = session.getAsDouble("sell_value");
-			double buy_value = session.getAsDouble("buy_value");
+			int tax_status = session.tax_status;
+			double sell_value = session.sell_value;
+			double buy_value = session.buy_value;
 
 			if ((tax_status == 1 || tax_status == 2) && (sell_value > buy_value))
 			{
+				frame(con, 3);
 				executeFrame3(con, txOutput, session);
 
-				if (session.getAsDouble("tax_amount") <= 0.00)
+				if (session.tax_amount <= 0.00)
 				{
 					txOutput.setStatus(-831);
 					txOutput.setStatusMessage("tax_amount <= 0.00");
@@ -87,29 +89,30 @@ public class TxTradeResult extends TxBase
 				}
 			}
 
+			frame(con, 4);
 			executeFrame4(con, txOutput, session);
 
-			if (session.getAsDouble("comm_rate") <= 0)
+			if (session.comm_rate <= 0)
 			{
 				txOutput.setStatus(-841);
 				txOutput.setStatusMessage("comm_rate <= 0.00");
 				return txOutput;
 			}
 
+			frame(con, 5);
 			executeFrame5(con, txOutput, session);
 
+			frame(con, 6);
 			executeFrame6(con, txOutput, session);
 
-			Map<String, Object> out = new HashMap<>();
-			out.put("acct_id", session.get("acct_id"));
-			out.put("acct_bal", session.get("acct_bal"));
-			out.put("status", TradeStatus.COMPLETED.id);
-
-			txOutput.output = out;
+			txOutput.acct_id = session.acct_id;
+			txOutput.acct_bal = session.acct_bal;
+			txOutput.status = TradeStatus.COMPLETED.id;
 		}
 		catch (Throwable t)
 		{
 			ErrorCtx ectx = new ErrorCtx(t);
+			txOutput.setFailure(t);
 			txOutput.setStatus(-1);
 			txOutput.setStatusMessage(ectx.toString());
 		}
@@ -117,39 +120,34 @@ public class TxTradeResult extends TxBase
 		return txOutput;
 	}
 
-	private void executeFrame1(final Connection con, final TxOutput txOutput, final TradeResultSession session)
+	private void executeFrame1(final DbSession con, final TxOutput txOutput, final TradeResultSession session)
 	{
-		List<Map<String, Object>> tradeInfo = con
-				.createQuery(sql.getTradeInfo())
-				.addParameter("trade_id", session.get("trade_id"))
-				.executeAndFetchTable()
-				.asList();
+		// the trade must be found exactly once
+		List<TradeResultSession> tradeInfo = con
+				.prepare(sql.getTradeInfo())
+				.bind("trade_id", session.trade_id)
+				.fetchList(session::readTradeInfo);
 
 		if (tradeInfo.size() != 1)
 		{
 			txOutput.setStatus(-811);
 		}
-		else
-		{
-			session.put("num_found", tradeInfo.size());
-			session.putAll(tradeInfo.get(0));
-		}
 	}
 
-	private void executeFrame2(final Connection con, final TxOutput txOutput, final TradeResultSession session)
+	private void executeFrame2(final DbSession con, final TxOutput txOutput, final TradeResultSession session)
 	{
-		Map<String, Object> customerAccount = con
-				.createQuery(sql.getCustomerAccount())
-				.addParameter("acct_id", session.get("acct_id"))
-				.executeAndFetchTable()
-				.asList()
-				.stream()
-				.findFirst()
-				.orElse(Collections.emptyMap());
-
-		session.putAll(customerAccount);
-
-		if (session.getAsBoolean("type_is_sell"))
+		if (procs != null)
+		{
+			callFrame2(con, session);
+			return;
+		}
+
+		con
+				.prepare(sql.getCustomerAccount())
+				.bind("acct_id", session.acct_id)
+				.fetchFirst(session::readCustomerAccount);
+
+		if (session.type_is_sell)
 		{
 			processSellTrade(con, session);
 		}
@@ -159,84 +157,102 @@ public class TxTradeResult extends TxBase
 		}
 	}
 
-	private void executeFrame3(final Connection con, final TxOutput txOutput, final TradeResultSession session)
+	private void executeFrame3(final DbSession con, final TxOutput txOutput, final TradeResultSession session)
 	{
+		if (procs != null)
+		{
+			session.tax_amount = con
+					.prepare(procs.callFrame3())
+					.bind("trade_id", session.trade_id)
+					.bind("cust_id", session.cust_id)
+					.bind("buy_value", session.buy_value)
+					.bind("sell_value", session.sell_value)
+					.fetchScalar(Double.class);
+			return;
+		}
+
 		double taxRate = con
-				.createQuery(sql.getTaxRate())
-				.addParameter("cust_id", session.get("cust_id"))
-				.executeScalar(Double.class);
+				.prepare(sql.getTaxRate())
+				.bind("cust_id", session.cust_id)
+				.fetchScalar(Double.class);
 
-		double capitalGain = session.getAsDouble("sell_value") - session.getAsDouble("buy_value");
+		double capitalGain = session.sell_value - session.buy_value;
 		double taxAmount = capitalGain > 0 ? capitalGain * taxRate : 0;
 
 		con
-				.createQuery(sql.updateTradeTax())
-				.addParameter("trade_id", session.get("trade_id"))
-				.addParameter("tax_amount", taxAmount)
-				.executeUpdate();
+				.defer(sql.updateTradeTax())
+				.bind("trade_id", session.trade_id)
+				.bind("tax_amount", taxAmount);
 
-		session.put("tax_amount", taxAmount);
+		session.tax_amount = taxAmount;
 	}
 
-	private void executeFrame4(final Connection con, final TxOutput txOutput, final TradeResultSession session)
+	private void executeFrame4(final DbSession con, final TxOutput txOutput, final TradeResultSession session)
 	{
-		Map<String, Object> cmr = con
-				.createQuery(sql.getCommissionRate())
-				.addParameter("cust_id", session.get("cust_id"))
-				.addParameter("symbol", session.get("symbol"))
-				.addParameter("trade_qty", session.get("trade_qty"))
-				.addParameter("type_id", session.get("type_id"))
-				.executeAndFetchTable()
-				.asList()
-				.stream()
-				.findFirst()
-				.orElse(Collections.emptyMap());
-
-		session.putAll(cmr);
+		con
+				.prepare(sql.getCommissionRate())
+				.bind("cust_id", session.cust_id)
+				.bind("symbol", session.symbol)
+				.bind("trade_qty", session.trade_qty)
+				.bind("type_id", session.type_id)
+				.fetchFirst(session::readCommissionRate);
 	}
 
-	private void executeFrame5(final Connection con, final TxOutput txOutput, final TradeResultSession session)
+	private void executeFrame5(final DbSession con, final TxOutput txOutput, final TradeResultSession session)
 	{
-		double commAmount = (session.getAsDouble("comm_rate") / 100) * (session.getAsInt("trade_qty") * session.getAsDouble("requested_price"));
+		double commAmount = (session.comm_rate / 100) * (session.trade_qty * session.requested_price);
+
+		if (procs != null)
+		{
+			con
+					.prepare(procs.callFrame5())
+					.bind("trade_id", session.trade_id)
+					.bind("trade_dts", session.trade_dts)
+					.bind("st_completed_id", TradeStatus.COMPLETED.id)
+					.bind("trade_price", session.requested_price)
+					.bind("comm_amount", commAmount)
+					.bind("broker_id", session.broker_id)
+					.executeUpdate();
+
+			session.comm_amount = commAmount;
+			return;
+		}
 
 		con
-				.createQuery(sql.updateTrade())
-				.addParameter("comm_amount", commAmount)
-				.addParameter("trade_dts", session.get("trade_dts"))
-				.addParameter("st_completed_id", TradeStatus.COMPLETED.id)
-				.addParameter("trade_price", session.get("requested_price"))
-				.addParameter("trade_id", session.get("trade_id"))
-				.executeUpdate();
+				.defer(sql.updateTrade())
+				.bind("comm_amount", commAmount)
+				.bind("trade_dts", session.trade_dts)
+				.bind("st_completed_id", TradeStatus.COMPLETED.id)
+				.bind("trade_price", session.requested_price)
+				.bind("trade_id", session.trade_id);
 
 		con
-				.createQuery(sql.insertTradeHistory())
-				.addParameter("trade_id", session.get("trade_id"))
-				.addParameter("trade_dts", session.get("trade_dts"))
-				.addParameter("st_completed_id", TradeStatus.COMPLETED.id)
-				.executeUpdate();
+				.defer(sql.insertTradeHistory())
+				.bind("trade_id", session.trade_id)
+				.bind("trade_dts", session.trade_dts)
+				.bind("st_completed_id", TradeStatus.COMPLETED.id);
 
 		con
-				.createQuery(sql.updateBroker())
-				.addParameter("comm_amount", commAmount)
-				.addParameter("broker_id", session.get("broker_id"))
-				.executeUpdate();
+				.defer(sql.updateBroker())
+				.bind("comm_amount", commAmount)
+				.bind("broker_id", session.broker_id);
 
-		session.put("comm_amount", commAmount);
+		session.comm_amount = commAmount;
 	}
 
-	private void executeFrame6(final Connection con, final TxOutput txOutput, final TradeResultSession session)
+	private void executeFrame6(final DbSession con, final TxOutput txOutput, final TradeResultSession session)
 	{
-		LocalDateTime dueDate = ((LocalDateTime) session.get("trade_dts")).plus(2, ChronoUnit.DAYS);
+		LocalDateTime dueDate = session.trade_dts.plus(2, ChronoUnit.DAYS);
 
-		boolean tradeIsCash = session.getAsBoolean("trade_is_cash");
-		boolean tradeIsSell = session.getAsBoolean("type_is_sell");
-		double tradePrice = session.getAsDouble("requested_price");
-		int tradeQty = session.getAsInt("trade_qty");
-		double charge = session.getAsDouble("charge");
+		boolean tradeIsCash = session.trade_is_cash;
+		boolean tradeIsSell = session.type_is_sell;
+		double tradePrice = session.requested_price;
+		int tradeQty = session.trade_qty;
+		double charge = session.charge;
 
-		double taxAmount = session.get("tax_amount") == null ? 0.0 : session.getAsDouble("tax_amount");
-		double commAmount = session.getAsDouble("comm_amount");
-		int taxStatus = session.getAsInt("tax_status");
+		double taxAmount = session.tax_amount;
+		double commAmount = session.comm_amount;
+		int taxStatus = session.tax_status;
 
 		double seAmount;
 
@@ -255,101 +271,132 @@ public class TxTradeResult extends TxBase
 		}
 
 		String cashType = tradeIsCash ? "Cash Account" : "Margin";
+		String ctName = tradeIsCash ? String.format("%s %d shares of %s", session.type_name, tradeQty, session.s_name) : null;
+
+		if (procs != null)
+		{
+			session.acct_bal = con
+					.prepare(procs.callFrame6())
+					.bind("trade_id", session.trade_id)
+					.bind("acct_id", session.acct_id)
+					.bind("trade_dts", session.trade_dts)
+					.bind("due_date", dueDate)
+					.bind("cash_type", cashType)
+					.bind("se_amount", seAmount)
+					.bind("trade_is_cash", tradeIsCash)
+					.bind("ct_name", ctName)
+					.fetchScalar(Double.class);
+			return;
+		}
 
 		con
-				.createQuery(sql.insertSettlement())
-				.addParameter("trade_id", session.get("trade_id"))
-				.addParameter("cash_type", cashType)
-				.addParameter("due_date", dueDate)
-				.addParameter("se_amount", seAmount)
-				.executeUpdate();
+				.defer(sql.insertSettlement())
+				.bind("trade_id", session.trade_id)
+				.bind("cash_type", cashType)
+				.bind("due_date", dueDate)
+				.bind("se_amount", seAmount);
 
 		if (tradeIsCash)
 		{
 			con
-					.createQuery(sql.updateCustomerAccount())
-					.addParameter("acct_id", session.get("acct_id"))
-					.addParameter("se_amount", seAmount)
-					.executeUpdate();
+					.defer(sql.updateCustomerAccount())
+					.bind("acct_id", session.acct_id)
+					.bind("se_amount", seAmount);
 
 			con
-					.createQuery(sql.insertCashTransaction())
-					.addParameter("trade_id", session.get("trade_id"))
-					.addParameter("trade_dts", session.get("trade_dts"))
-					.addParameter("se_amount", seAmount)
-					.addParameter("ct_name", String.format("%s %d shares of %s", session.getAsString("type_name"), tradeQty, session.getAsString("s_name")))
-					.executeUpdate();
+					.defer(sql.insertCashTransaction())
+					.bind("trade_id", session.trade_id)
+					.bind("trade_dts", session.trade_dts)
+					.bind("se_amount", seAmount)
+					.bind("ct_name", ctName);
 		}
 
 		double balance = con
-				.createQuery(sql.getAccountBalance())
-				.addParameter("acct_id", session.get("acct_id"))
-				.executeScalar(BigDecimal.class)
-				.doubleValue();
+				.prepare(sql.getAccountBalance())
+				.bind("acct_id", session.acct_id)
+				.fetchScalar(Double.class);
+
+		session.acct_bal = balance;
+	}
+
+	/*
+	 * The holdings are processed by the procedure, with the trade time taken
+	 * here as in processSellTrade() and processBuyTrade().
+	 */
+	private void callFrame2(final DbSession con, final TradeResultSession session)
+	{
+		session.trade_dts = LocalDateTime.now();
 
-		session.put("acct_bal", balance);
+		con
+				.prepare(procs.callFrame2())
+				.bind("trade_id", session.trade_id)
+				.bind("acct_id", session.acct_id)
+				.bind("symbol", session.symbol)
+				.bind("trade_qty", session.trade_qty)
+				.bind("hs_qty", session.hs_qty)
+				.bind("type_is_sell", session.type_is_sell)
+				.bind("is_lifo", session.is_lifo)
+				.bind("trade_price", session.requested_price)
+				.bind("trade_dts", session.trade_dts)
+				.fetchFirst(session::readFrame2);
 	}
 
-	private void processSellTrade(final Connection con, final TradeResultSession session)
+	private void processSellTrade(final DbSession con, final TradeResultSession session)
 	{
 		double buyValue = 0;
 		double sellValue = 0;
 
-		int neededQty = session.getAsInt("trade_qty");
-		int hsQty = session.getAsInt("hs_qty");
-		double tradePrice = session.getAsDouble("requested_price");
-		int tradeQty = session.getAsInt("trade_qty");
+		int neededQty = session.trade_qty;
+		int hsQty = session.hs_qty;
+		double tradePrice = session.requested_price;
+		int tradeQty = session.trade_qty;
 		LocalDateTime tradeDts = LocalDateTime.now();
 
 		if (hsQty == 0)
 		{
 			con
-					.createQuery(sql.insertHoldingSummary())
-					.addParameter("acct_id", session.get("acct_id"))
-					.addParameter("symbol", session.get("symbol"))
-					.addParameter("trade_qty", tradeQty)
-					.executeUpdate();
+					.defer(sql.insertHoldingSummary())
+					.bind("acct_id", session.acct_id)
+					.bind("symbol", session.symbol)
+					.bind("trade_qty", tradeQty);
 		}
-		else if (hsQty != session.getAsInt("trade_qty"))
+		else if (hsQty != session.trade_qty)
 		{
 			con
-					.createQuery(sql.updateHoldingSummary())
-					.addParameter("hs_qty", session.get("hs_qty"))
-					.addParameter("acct_id", session.get("acct_id"))
-					.addParameter("symbol", session.get("symbol"))
-					.addParameter("trade_qty", tradeQty)
-					.executeUpdate();
+					.defer(sql.updateHoldingSummary())
+					.bind("hs_qty", session.hs_qty)
+					.bind("acct_id", session.acct_id)
+					.bind("symbol", session.symbol)
+					.bind("trade_qty", tradeQty);
 		}
 
 		if (hsQty > 0)
 		{
-			List<Row> holdingList = populateHoldingList(con, session);
-			for (Row holdingItem : holdingList)
+			List<HoldingRow> holdingList = populateHoldingList(con, session);
+			for (HoldingRow holdingItem : holdingList)
 			{
 				if (neededQty <= 0)
 				{
 					break;
 				}
 
-				long holdId = holdingItem.getLong("hold_id");
-				int holdQty = holdingItem.getInteger("hold_qty");
-				double holdPrice = holdingItem.getBigDecimal("hold_price").doubleValue();
+				long holdId = holdingItem.hold_id;
+				int holdQty = holdingItem.hold_qty;
+				double holdPrice = holdingItem.hold_price;
 
 				if (holdQty > neededQty)
 				{
 					con
-							.createQuery(sql.insertHoldingHistory())
-							.addParameter("hold_id", holdId)
-							.addParameter("trade_id", session.get("trade_id"))
-							.addParameter("hold_qty", holdQty)
-							.addParameter("after_qty", holdQty - neededQty)
-							.executeUpdate();
+							.defer(sql.insertHoldingHistory())
+							.bind("hold_id", holdId)
+							.bind("trade_id", session.trade_id)
+							.bind("hold_qty", holdQty)
+							.bind("after_qty", holdQty - neededQty);
 
 					con
-							.createQuery(sql.updateHolding())
-							.addParameter("qty", holdQty - neededQty)
-							.addParameter("hold_id", holdId)
-							.executeUpdate();
+							.defer(sql.updateHolding())
+							.bind("qty", holdQty - neededQty)
+							.bind("hold_id", holdId);
 
 					buyValue += neededQty * holdPrice;
 					sellValue += neededQty * tradePrice;
@@ -358,17 +405,15 @@ public class TxTradeResult extends TxBase
 				else
 				{
 					con
-							.createQuery(sql.insertHoldingHistory())
-							.addParameter("hold_id", holdId)
-							.addParameter("trade_id", session.get("trade_id"))
-							.addParameter("hold_qty", holdQty)
-							.addParameter("after_qty", 0)
-							.executeUpdate();
+							.defer(sql.insertHoldingHistory())
+							.bind("hold_id", holdId)
+							.bind("trade_id", session.trade_id)
+							.bind("hold_qty", holdQty)
+							.bind("after_qty", 0);
 
 					con
-							.createQuery(sql.deleteHolding())
-							.addParameter("hold_id", holdId)
-							.executeUpdate();
+							.defer(sql.deleteHolding())
+							.bind("hold_id", holdId);
 
 					buyValue += holdQty * holdPrice;
 					sellValue += holdQty * tradePrice;
@@ -381,100 +426,93 @@ public class TxTradeResult extends TxBase
 		if (neededQty > 0)
 		{
 			con
-					.createQuery(sql.insertHoldingHistory())
-					.addParameter("hold_id", session.get("trade_id"))
-					.addParameter("trade_id", session.get("trade_id"))
-					.addParameter("hold_qty", 0)
-					.addParameter("after_qty", -neededQty)
-					.executeUpdate();
+					.defer(sql.insertHoldingHistory())
+					.bind("hold_id", session.trade_id)
+					.bind("trade_id", session.trade_id)
+					.bind("hold_qty", 0)
+					.bind("after_qty", -neededQty);
 
 			con
-					.createQuery(sql.insertHolding())
-					.addParameter("trade_id", session.get("trade_id"))
-					.addParameter("acct_id", session.get("acct_id"))
-					.addParameter("symbol", session.get("symbol"))
-					.addParameter("trade_dts", tradeDts)
-					.addParameter("trade_price", tradePrice)
-					.addParameter("qty", -neededQty)
-					.executeUpdate();
+					.defer(sql.insertHolding())
+					.bind("trade_id", session.trade_id)
+					.bind("acct_id", session.acct_id)
+					.bind("symbol", session.symbol)
+					.bind("trade_dts", tradeDts)
+					.bind("trade_price", tradePrice)
+					.bind("qty", -neededQty);
 
 		}
 		else if (hsQty == tradeQty)
 		{
 			con
-					.createQuery(sql.deleteHoldingSummary())
-					.addParameter("acct_id", session.get("acct_id"))
-					.addParameter("symbol", session.get("symbol"))
-					.executeUpdate();
+					.defer(sql.deleteHoldingSummary())
+					.bind("acct_id", session.acct_id)
+					.bind("symbol", session.symbol);
 		}
 
-		session.put("buy_value", buyValue);
-		session.put("sell_value", sellValue);
-		session.put("trade_dts", tradeDts);
+		session.buy_value = buyValue;
+		session.sell_value = sellValue;
+		session.trade_dts = tradeDts;
 	}
 
-	private void processBuyTrade(Connection con, TradeResultSession session)
+	private void processBuyTrade(DbSession con, TradeResultSession session)
 	{
 		double buyValue = 0;
 		double sellValue = 0;
 
-		int neededQty = session.getAsInt("trade_qty");
-		int hsQty = session.getAsInt("hs_qty");
-		double tradePrice = session.getAsDouble("requested_price");
-		int tradeQty = session.getAsInt("trade_qty");
+		int neededQty = session.trade_qty;
+		int hsQty = session.hs_qty;
+		double tradePrice = session.requested_price;
+		int tradeQty = session.trade_qty;
 		LocalDateTime tradeDts = LocalDateTime.now();
 
 		if (hsQty == 0)
 		{
 			con
-					.createQuery(sql.insertHoldingSummary())
-					.addParameter("acct_id", session.get("acct_id"))
-					.addParameter("symbol", session.get("symbol"))
-					.addParameter("trade_qty", tradeQty)
-					.executeUpdate();
+					.defer(sql.insertHoldingSummary())
+					.bind("acct_id", session.acct_id)
+					.bind("symbol", session.symbol)
+					.bind("trade_qty", tradeQty);
 
 		}
 		else if (-hsQty != tradeQty)
 		{
 			con
-					.createQuery(sql.updateHoldingSummary())
-					.addParameter("hs_qty", session.get("hs_qty"))
-					.addParameter("acct_id", session.get("acct_id"))
-					.addParameter("symbol", session.get("symbol"))
-					.addParameter("trade_qty", hsQty + tradeQty)
-					.executeUpdate();
+					.defer(sql.updateHoldingSummary())
+					.bind("hs_qty", session.hs_qty)
+					.bind("acct_id", session.acct_id)
+					.bind("symbol", session.symbol)
+					.bind("trade_qty", hsQty + tradeQty);
 
 		}
 
 		if (hsQty < 0)
 		{
-			List<Row> holdingList = populateHoldingList(con, session);
-			for (Row holdingItem : holdingList)
+			List<HoldingRow> holdingList = populateHoldingList(con, session);
+			for (HoldingRow holdingItem : holdingList)
 			{
 				if (neededQty <= 0)
 				{
 					break;
 				}
 
-				long holdId = holdingItem.getLong("hold_id");
-				int holdQty = holdingItem.getInteger("hold_qty");
-				double holdPrice = holdingItem.getBigDecimal("hold_price").doubleValue();
+				long holdId = holdingItem.hold_id;
+				int holdQty = holdingItem.hold_qty;
+				double holdPrice = holdingItem.hold_price;
 
 				if (holdQty + neededQty < 0)
 				{
 					con
-							.createQuery(sql.insertHoldingHistory())
-							.addParameter("hold_id", holdId)
-							.addParameter("trade_id", session.get("trade_id"))
-							.addParameter("hold_qty", holdQty)
-							.addParameter("after_qty", holdQty + neededQty)
-							.executeUpdate();
+							.defer(sql.insertHoldingHistory())
+							.bind("hold_id", holdId)
+							.bind("trade_id", session.trade_id)
+							.bind("hold_qty", holdQty)
+							.bind("after_qty", holdQty + neededQty);
 
 					con
-							.createQuery(sql.updateHolding())
-							.addParameter("qty", holdQty + neededQty)
-							.addParameter("hold_id", holdId)
-							.executeUpdate();
+							.defer(sql.updateHolding())
+							.bind("qty", holdQty + neededQty)
+							.bind("hold_id", holdId);
 
 					sellValue += neededQty * holdPrice;
 					buyValue += neededQty * tradePrice;
@@ -483,17 +521,15 @@ public class TxTradeResult extends TxBase
 				else
 				{
 					con
-							.createQuery(sql.insertHoldingHistory())
-							.addParameter("hold_id", holdId)
-							.addParameter("trade_id", session.get("trade_id"))
-							.addParameter("hold_qty", holdQty)
-							.addParameter("after_qty", 0)
-							.executeUpdate();
+							.defer(sql.insertHoldingHistory())
+							.bind("hold_id", holdId)
+							.bind("trade_id", session.trade_id)
+							.bind("hold_qty", holdQty)
+							.bind("after_qty", 0);
 
 					con
-							.createQuery(sql.deleteHolding())
-							.addParameter("hold_id", holdId)
-							.executeUpdate();
+							.defer(sql.deleteHolding())
+							.bind("hold_id", holdId);
 
 					holdQty = -holdQty;
 					sellValue += holdQty * holdPrice;
@@ -509,42 +545,39 @@ public class TxTradeResult extends TxBase
 		if (neededQty > 0)
 		{
 			con
-					.createQuery(sql.insertHoldingHistory())
-					.addParameter("hold_id", session.get("trade_id"))
-					.addParameter("trade_id", session.get("trade_id"))
-					.addParameter("hold_qty", 0)
-					.addParameter("after_qty", neededQty)
-					.executeUpdate();
+					.defer(sql.insertHoldingHistory())
+					.bind("hold_id", session.trade_id)
+					.bind("trade_id", session.trade_id)
+					.bind("hold_qty", 0)
+					.bind("after_qty", neededQty);
 
 			con
-					.createQuery(sql.insertHolding())
-					.addParameter("trade_id", session.get("trade_id"))
-					.addParameter("acct_id", session.get("acct_id"))
-					.addParameter("symbol", session.get("symbol"))
-					.addParameter("trade_dts", tradeDts)
-					.addParameter("trade_price", tradePrice)
-					.addParameter("qty", neededQty)
-					.executeUpdate();
+					.defer(sql.insertHolding())
+					.bind("trade_id", session.trade_id)
+					.bind("acct_id", session.acct_id)
+					.bind("symbol", session.symbol)
+					.bind("trade_dts", tradeDts)
+					.bind("trade_price", tradePrice)
+					.bind("qty", neededQty);
 
 		}
 		else if (-hsQty == tradeQty)
 		{
 			con
-					.createQuery(sql.deleteHoldingSummary())
-					.addParameter("acct_id", session.get("acct_id"))
-					.addParameter("symbol", session.get("symbol"))
-					.executeUpdate();
+					.defer(sql.deleteHoldingSummary())
+					.bind("acct_id", session.acct_id)
+					.bind("symbol", session.symbol);
 		}
 
-		session.put("buy_value", buyValue);
-		session.put("sell_value", sellValue);
-		session.put("trade_dts", tradeDts);
+		session.buy_value = buyValue;
+		session.sell_value = sellValue;
+		session.trade_dts = tradeDts;
 	}
 
-	private List<Row> populateHoldingList(final Connection con, final TradeResultSession session)
+	private List<HoldingRow> populateHoldingList(final DbSession con, final TradeResultSession session)
 	{
 		String holdingQStmt;
-		if (session.getAsBoolean("is_lifo"))
+		if (session.is_lifo)
 		{
 			// Estimates will be based on closing most recently acquired holdings
 			// Could return 0, 1 or many rows
@@ -558,11 +591,10 @@ public class TxTradeResult extends TxBase
 		}
 
 		return con
-				.createQuery(holdingQStmt)
-				.addParameter("acct_id", session.get("acct_id"))
-				.addParameter("symbol", session.get("symbol"))
-				.executeAndFetchTable()
-				.rows();
+				.prepare(holdingQStmt)
+				.bind("acct_id", session.acct_id)
+				.bind("symbol", session.symbol)
+				.fetchList(HoldingRow::read);
 
 	}
 
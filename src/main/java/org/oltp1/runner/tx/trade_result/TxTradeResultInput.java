@@ -1,6 +1,35 @@
 package org.oltp1.runner.tx.trade_result;
 
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
 public class TxTradeResultInput
 {
+	public final long trade_id;
+	public final String symbol;
+	public final long trade_qty;
+	public final String trade_type_id;
+	// The price at which the MEE executed the trade.
+	public final double requested_price;
+
+	public TxTradeResultInput(long tradeId, String symbol, long tradeQty, String tradeTypeId, double requestedPrice)
+	{
+		this.trade_id = tradeId;
+		this.symbol = symbol;
+		this.trade_qty = tradeQty;
+		this.trade_type_id = tradeTypeId;
+		this.requested_price = requestedPrice;
+	}
 
+	@Override
+	public String toString()
+	{
+		return new ToStringBuilder(this, ToStringStyle.MULTI_LINE_STYLE)
+				.append("trade_id", trade_id)
+				.append("symbol", symbol)
+				.append("trade_qty", trade_qty)
+				.append("trade_type_id", trade_type_id)
+				.append("requested_price", requested_price)
+				.toString();
+	}
 }
@@ -1,14 +1,14 @@
 package org.oltp1.runner.tx.trade_result;
 
-import java.util.Map;
-
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 import org.oltp1.runner.perf.TxOutput;
 
 public class TxTradeResultOutput extends TxOutput
 {
-	public Map<String, Object> output;
+	public long acct_id;
+	public double acct_bal;
+	public String status;
 
 	public TxTradeResultOutput()
 	{
@@ -24,7 +24,9 @@ public class TxTradeResultOutput extends TxOutput
 	public String toString()
 	{
 		return new ToStringBuilder(this, ToStringStyle.MULTI_LINE_STYLE)
-				.append("output", output)
+				.append("acct_id", acct_id)
+				.append("acct_bal", acct_bal)
+				.append("status", status)
 				.append("tx_status", getStatus())
 				.append("tx_status_message", getStatusMessage())
 				.toString();
@@ -1,7 +1,5 @@
 package org.oltp1.runner.tx.trade_status;
 
-import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 
 import org.oltp1.common.ErrorCtx;
@@ -11,12 +9,12 @@ import org.oltp1.runner.tx.QueryFactory;
 import org.oltp1.runner.perf.TxBase;
 import org.oltp1.runner.perf.TxOutput;
 import org.oltp1.runner.perf.TxStatsCollector;
-import org.sql2o.Connection;
-import org.sql2o.Sql2o;
+import org.oltp1.runner.db.DbSession;
+import org.oltp1.runner.db.DbStatement;
 
 public class TxTradeStatus extends TxBase
 {
-	private final Sql2o sql2o;
+	private final SqlContext sqlCtx;
 
 	private final TxInputGenerator txInputGen;
 	private final TradeStatusQueries sql;
@@ -26,7 +24,8 @@ public class TxTradeStatus extends TxBase
 		super(new TxStatsCollector("Trade-Status"));
 
 		this.txInputGen = txInputGen;
-		this.sql2o = sqlCtx.getSql2o();
+		this.sqlCtx = sqlCtx;
+		setRetryPolicy(sqlCtx.getRetryPolicy());
 		this.sql = QueryFactory.getQueries(TradeStatusQueries.class, sqlCtx.getSqlEngine());
 	}
 
@@ -35,9 +34,9 @@ public class TxTradeStatus extends TxBase
 	{
 		TxTradeStatusOutput txOutput = new TxTradeStatusOutput();
 
-		final TxTradeStatusInput txInput = txInputGen.generateTradeStatusInput();
+		final TxTradeStatusInput txInput = input(txInputGen::generateTradeStatusInput);
 
-		try (Connection con = sql2o.beginTransaction())
+		try (DbSession con = sqlCtx.beginTransaction())
 		{
 			executeFrame1(con, txInput, txOutput);
 
@@ -46,6 +45,7 @@ public class TxTradeStatus extends TxBase
 		catch (Throwable t)
 		{
 			ErrorCtx ectx = new ErrorCtx(t);
+			txOutput.setFailure(t);
 			txOutput.setStatus(-1);
 			txOutput.setStatusMessage(ectx.toString());
 		}
@@ -53,25 +53,19 @@ public class TxTradeStatus extends TxBase
 		return txOutput;
 	}
 
-	private void executeFrame1(final Connection con, final TxTradeStatusInput txInput, final TxTradeStatusOutput txOutput)
+	private void executeFrame1(final DbSession con, final TxTradeStatusInput txInput, final TxTradeStatusOutput txOutput)
 	{
-		List<Map<String, Object>> tradeStatus = con
-				.createQuery(sql.getTradeStatus())
-				.addParameter("acct_id", txInput.acct_id)
-				.executeAndFetchTable()
-				.asList();
+		DbStatement statusQuery = con
+				.prepare(sql.getTradeStatus())
+				.bind("acct_id", txInput.acct_id);
+
+		txOutput.num_found = fetchPayload(statusQuery, txOutput, l -> txOutput.trade_status = l);
 
 		Map<String, Object> tradeName = con
-				.createQuery(sql.getTradeName())
-				.addParameter("acct_id", txInput.acct_id)
-				.executeAndFetchTable()
-				.asList()
-				.stream()
-				.findFirst()
-				.orElse(Collections.emptyMap());
+				.prepare(sql.getTradeName())
+				.bind("acct_id", txInput.acct_id)
+				.fetchFirstMap();
 
 		txOutput.trade_name = tradeName;
-		txOutput.trade_status = tradeStatus;
-		txOutput.num_found = tradeStatus.size();
 	}
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package org.oltp1.runner.tx.trade_update;
 
+import org.oltp1.runner.db.SetParameterBinder;
+import org.oltp1.runner.db.SetParameterBinders;
+
 /**
  * Provides the MariaDB specific SQL queries for the Trade-Update
  * transaction.
@@ -7,6 +10,12 @@ package org.oltp1.runner.tx.trade_update;
 public class MariaDbTradeUpdateQueries extends DefaultTradeUpdateQueries
 {
 
+	@Override
+	public SetParameterBinder getTradeListBinder()
+	{
+		return SetParameterBinders.JSON;
+	}
+
 	@Override
 	public String updateTradesFrame1()
 	{
@@ -1,11 +1,20 @@
 package org.oltp1.runner.tx.trade_update;
 
+import org.oltp1.runner.db.SetParameterBinder;
+import org.oltp1.runner.db.SetParameterBinders;
+
 /**
  * Provides the Microsoft SQL Server-specific SQL queries for the Trade-Update
  * transaction.
  */
 public class MsSqlTradeUpdateQueries extends DefaultTradeUpdateQueries
 {
+	@Override
+	public SetParameterBinder getTradeListBinder()
+	{
+		return SetParameterBinders.CSV;
+	}
+
 	@Override
 	public String updateTradesFrame1()
 	{
@@ -1,5 +1,8 @@
 package org.oltp1.runner.tx.trade_update;
 
+import org.oltp1.runner.db.SetParameterBinder;
+import org.oltp1.runner.db.SetParameterBinders;
+
 /**
  * Provides the PostgreSQL-specific SQL queries for the Trade-Update
  * transaction.
@@ -7,6 +10,12 @@ package org.oltp1.runner.tx.trade_update;
 public class PgSqlTradeUpdateQueries extends DefaultTradeUpdateQueries
 {
 
+	@Override
+	public SetParameterBinder getTradeListBinder()
+	{
+		return SetParameterBinders.CSV;
+	}
+
 	@Override
 	public String updateTradesFrame1()
 	{
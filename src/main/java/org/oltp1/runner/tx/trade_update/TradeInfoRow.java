@@ -0,0 +1,112 @@
+package org.oltp1.runner.tx.trade_update;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * A trade as returned by <code>getTradesFrame2()</code>,
+ * <code>getTradesFrame3()</code> or <code>getTradeInfo()</code>. Each query
+ * reads its own columns; the columns it does not return are left unset.
+ */
+public final class TradeInfoRow
+{
+	// every query
+	public long trade_id;
+	public boolean t_is_cash;
+	public String t_exec_name;
+
+	// frames 2 and 3
+	public Double t_trade_price;
+
+	// frame 2
+	public Double t_bid_price;
+
+	// frame 3
+	public long t_ca_id;
+	public int t_qty;
+	public LocalDateTime t_dts;
+	public String t_tt_id;
+	public String s_name;
+
+	// frame 3 and getTradeInfo()
+	public String tt_name;
+
+	// getTradeInfo()
+	public String t_st_id;
+
+	private TradeInfoRow()
+	{
+	}
+
+	static TradeInfoRow readFrame2(ResultSet rs) throws SQLException
+	{
+		final TradeInfoRow row = readCommon(rs);
+		row.t_bid_price = getDouble(rs, "t_bid_price");
+		row.t_trade_price = getDouble(rs, "t_trade_price");
+		return row;
+	}
+
+	static TradeInfoRow readFrame3(ResultSet rs) throws SQLException
+	{
+		final TradeInfoRow row = readCommon(rs);
+		row.t_ca_id = rs.getLong("t_ca_id");
+		row.t_trade_price = getDouble(rs, "t_trade_price");
+		row.t_qty = rs.getInt("t_qty");
+
+		final Timestamp dts = rs.getTimestamp("t_dts");
+		row.t_dts = (dts == null) ? null : dts.toLocalDateTime();
+
+		row.t_tt_id = rs.getString("t_tt_id");
+		row.tt_name = rs.getString("tt_name");
+		row.s_name = rs.getString("s_name");
+		return row;
+	}
+
+	static TradeInfoRow readTradeInfo(ResultSet rs) throws SQLException
+	{
+		final TradeInfoRow row = readCommon(rs);
+		row.t_st_id = rs.getString("t_st_id");
+		row.tt_name = rs.getString("tt_name");
+		return row;
+	}
+
+	private static TradeInfoRow readCommon(ResultSet rs) throws SQLException
+	{
+		final TradeInfoRow row = new TradeInfoRow();
+		row.trade_id = rs.getLong("trade_id");
+		row.t_is_cash = rs.getBoolean("t_is_cash");
+		row.t_exec_name = rs.getString("t_exec_name");
+		return row;
+	}
+
+	// the trade price is null until the trade is completed
+	private static Double getDouble(ResultSet rs, String label) throws SQLException
+	{
+		final double value = rs.getDouble(label);
+		return rs.wasNull() ? null : value;
+	}
+
+	@Override
+	public String toString()
+	{
+		return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+				.append("trade_id", trade_id)
+				.append("t_is_cash", t_is_cash)
+				.append("t_exec_name", t_exec_name)
+				.append("t_trade_price", t_trade_price)
+				.append("t_bid_price", t_bid_price)
+				.append("t_ca_id", t_ca_id)
+				.append("t_qty", t_qty)
+				.append("t_dts", t_dts)
+				.append("t_tt_id", t_tt_id)
+				.append("tt_name", tt_name)
+				.append("s_name", s_name)
+				.append("t_st_id", t_st_id)
+				.toString();
+	}
+}
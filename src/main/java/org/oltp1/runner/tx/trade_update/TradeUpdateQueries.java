@@ -1,11 +1,19 @@
 package org.oltp1.runner.tx.trade_update;
 
+import org.oltp1.runner.db.SetParameterBinder;
+
 /**
  * Defines the contract for supplying SQL queries for the Trade-Update
  * transaction.
  */
 public interface TradeUpdateQueries
 {
+	/**
+	 * @return the binder of the :trade_lst set of trade ids, matching the SQL
+	 *         of every statement that takes one
+	 */
+	SetParameterBinder getTradeListBinder();
+
 	// Frame 1
 	String updateTradesFrame1();
 
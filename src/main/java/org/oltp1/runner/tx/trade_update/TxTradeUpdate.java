@@ -2,25 +2,18 @@ package org.oltp1.runner.tx.trade_update;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.StringUtils;
 import org.oltp1.common.ErrorCtx;
 import org.oltp1.runner.db.SqlContext;
-import org.oltp1.runner.db.SqlEngine;
+import org.oltp1.runner.db.SetParameterBinder;
 import org.oltp1.runner.generator.TxInputGenerator;
 import org.oltp1.runner.tx.QueryFactory;
 import org.oltp1.runner.perf.TxBase;
 import org.oltp1.runner.perf.TxOutput;
 import org.oltp1.runner.perf.TxStatsCollector;
-import org.sql2o.Connection;
-import org.sql2o.Sql2o;
-
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import org.oltp1.runner.db.DbSession;
+import org.oltp1.runner.db.DbStatement;
 
 public class TxTradeUpdate extends TxBase
 {
@@ -28,12 +21,7 @@ public class TxTradeUpdate extends TxBase
 
 	private static final int max_updates = 20;
 
-	private final ObjectMapper json = new ObjectMapper();
-	private final Set<String> keysToKeep = Set.of("trade_id", "t_qty", "tt_name", "s_name");
-
 	private final SqlContext sqlCtx;
-	private final Sql2o sql2o;
-
 	private final TxInputGenerator txInputGen;
 	private final TradeUpdateQueries sql;
 
@@ -43,10 +31,8 @@ public class TxTradeUpdate extends TxBase
 
 		this.txInputGen = txInputGen;
 		this.sqlCtx = sqlCtx;
-		this.sql2o = sqlCtx.getSql2o();
+		setRetryPolicy(sqlCtx.getRetryPolicy());
 		this.sql = QueryFactory.getQueries(TradeUpdateQueries.class, sqlCtx.getSqlEngine());
-		this.json.setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
-
 	}
 
 	@Override
@@ -54,20 +40,23 @@ public class TxTradeUpdate extends TxBase
 	{
 		TxTradeUpdateOutput txOutput = new TxTradeUpdateOutput();
 
-		final TxTradeUpdateInput txInput = txInputGen.generateTradeUpdateInput();
+		final TxTradeUpdateInput txInput = input(txInputGen::generateTradeUpdateInput);
 
-		try (Connection con = sql2o.beginTransaction())
+		try (DbSession con = sqlCtx.beginTransaction())
 		{
 			if (txInput.frame_to_execute == 1)
 			{
+				frame(1);
 				executeFrame1(con, txInput, txOutput);
 			}
 			else if (txInput.frame_to_execute == 2)
 			{
+				frame(2);
 				executeFrame2(con, txInput, txOutput);
 			}
 			else
 			{
+				frame(3);
 				executeFrame3(con, txInput, txOutput);
 			}
 
@@ -76,6 +65,7 @@ public class TxTradeUpdate extends TxBase
 		catch (Throwable t)
 		{
 			ErrorCtx ectx = new ErrorCtx(t);
+			txOutput.setFailure(t);
 			txOutput.setStatus(-1);
 			txOutput.setStatusMessage(ectx.toString());
 		}
@@ -83,7 +73,7 @@ public class TxTradeUpdate extends TxBase
 		return txOutput;
 	}
 
-	private void executeFrame1(final Connection con, final TxTradeUpdateInput txInput, final TxTradeUpdateOutput txOutput) throws Exception
+	private void executeFrame1(final DbSession con, final TxTradeUpdateInput txInput, final TxTradeUpdateOutput txOutput)
 	{
 		txOutput.frame_executed = 1;
 		int num_found = 0;
@@ -96,26 +86,9 @@ public class TxTradeUpdate extends TxBase
 
 		num_found = tradeIds.size();
 
-		if (sqlCtx.getSqlEngine() == SqlEngine.MARIADB)
-		{
-			String tradesJsonArr = json.writeValueAsString(tradeIds);
-
-			con
-					.createQuery(sql.updateTradesFrame1())
-					.addParameter("trade_lst", tradesJsonArr)
-					.executeUpdate();
-		}
-		else
-		{
-			String tradesCsv = getCsv(tradeIds);
-
-			con
-					.createQuery(sql.updateTradesFrame1())
-					.addParameter("trade_lst", tradesCsv)
-					.executeUpdate();
-		}
-
-		num_updated = con.getResult();
+		DbStatement updateQuery = con.prepare(sql.updateTradesFrame1());
+		sql.getTradeListBinder().bind(con, updateQuery, "trade_lst", tradeIds);
+		num_updated = updateQuery.executeUpdate();
 
 		populateFullTradeInfo(con, tradeIds, txOutput);
 
@@ -132,20 +105,19 @@ public class TxTradeUpdate extends TxBase
 		}
 	}
 
-	private void executeFrame2(final Connection con, final TxTradeUpdateInput txInput, final TxTradeUpdateOutput txOutput)
+	private void executeFrame2(final DbSession con, final TxTradeUpdateInput txInput, final TxTradeUpdateOutput txOutput)
 	{
 		txOutput.frame_executed = 2;
 		int num_found = 0;
 		int num_updated = 0;
 
-		List<Map<String, Object>> tradeInfo = con
-				.createQuery(sql.getTradesFrame2())
-				.addParameter("acct_id", txInput.acct_id)
-				.addParameter("start_trade_dts", txInput.start_trade_dts)
-				.addParameter("end_trade_dts", txInput.end_trade_dts)
-				.addParameter("limit", max_trades)
-				.executeAndFetchTable()
-				.asList();
+		List<TradeInfoRow> tradeInfo = con
+				.prepare(sql.getTradesFrame2())
+				.bind("acct_id", txInput.acct_id)
+				.bind("start_trade_dts", txInput.start_trade_dts)
+				.bind("end_trade_dts", txInput.end_trade_dts)
+				.bind("limit", max_trades)
+				.fetchList(TradeInfoRow::readFrame2);
 
 		num_found = tradeInfo.size();
 
@@ -155,29 +127,12 @@ public class TxTradeUpdate extends TxBase
 		{
 			List<Long> tradeIds = tradeInfo
 					.stream()
-					.map(t -> (Long) t.get("trade_id"))
+					.map(t -> t.trade_id)
 					.collect(Collectors.toList());
 
-			String tradesCsv = getCsv(tradeIds);
-
-			if (sqlCtx.getSqlEngine() == SqlEngine.MARIADB)
-			{
-				String tradesJsonArr = String.format("[%s]", tradesCsv);
-
-				con
-						.createQuery(sql.updateTradesFrame2())
-						.addParameter("trade_lst", tradesJsonArr)
-						.executeUpdate();
-			}
-			else
-			{
-				con
-						.createQuery(sql.updateTradesFrame2())
-						.addParameter("trade_lst", tradesCsv)
-						.executeUpdate();
-			}
-
-			num_updated = con.getResult();
+			DbStatement updateQuery = con.prepare(sql.updateTradesFrame2());
+			sql.getTradeListBinder().bind(con, updateQuery, "trade_lst", tradeIds);
+			num_updated = updateQuery.executeUpdate();
 
 			populateFullTradeInfo(con, tradeIds, txOutput);
 		}
@@ -200,60 +155,45 @@ public class TxTradeUpdate extends TxBase
 		}
 	}
 
-	private void executeFrame3(final Connection con, final TxTradeUpdateInput txInput, final TxTradeUpdateOutput txOutput) throws JsonProcessingException
+	private void executeFrame3(final DbSession con, final TxTradeUpdateInput txInput, final TxTradeUpdateOutput txOutput)
 	{
 		txOutput.frame_executed = 3;
 		int num_found = 0;
 		int num_updated = 0;
 
-		List<Map<String, Object>> tradeInfo = con
-				.createQuery(sql.getTradesFrame3())
-				.addParameter("symbol", txInput.symbol)
-				.addParameter("max_acct_id", txInput.max_acct_id)
-				.addParameter("start_trade_dts", txInput.start_trade_dts)
-				.addParameter("end_trade_dts", txInput.end_trade_dts)
-				.addParameter("limit", max_trades)
-				.executeAndFetchTable()
-				.asList();
+		List<TradeInfoRow> tradeInfo = con
+				.prepare(sql.getTradesFrame3())
+				.bind("symbol", txInput.symbol)
+				.bind("max_acct_id", txInput.max_acct_id)
+				.bind("start_trade_dts", txInput.start_trade_dts)
+				.bind("end_trade_dts", txInput.end_trade_dts)
+				.bind("limit", max_trades)
+				.fetchList(TradeInfoRow::readFrame3);
 
 		num_found = tradeInfo.size();
 
 		txOutput.trade_info = tradeInfo;
 
-		List<Map<String, Object>> cashTrades = tradeInfo
+		List<TradeInfoRow> cashTrades = tradeInfo
 				.stream()
-				.filter(t -> ((Boolean) t.get("t_is_cash")).booleanValue() == true)
-				.map(
-						m -> m
-								.entrySet()
-								.stream()
-								.filter(entry -> keysToKeep.contains(entry.getKey()))
-								.collect(
-										Collectors
-												.toMap(
-														Map.Entry::getKey,
-														Map.Entry::getValue)))
-
+				.filter(t -> t.t_is_cash)
 				.collect(Collectors.toList());
 
 		if (cashTrades.size() > 0)
 		{
+			String cashTradeJson = toCashTradeJson(cashTrades);
 
-			String cashTradeJson = json.writeValueAsString(cashTrades);
-
-			con
-					.createQuery(sql.updateTradesFrame3())
-					.addParameter("cash_trades", cashTradeJson)
+			num_updated = con
+					.prepare(sql.updateTradesFrame3())
+					.bind("cash_trades", cashTradeJson)
 					.executeUpdate();
-
-			num_updated = con.getResult();
 		}
 
 		if (tradeInfo.size() > 0)
 		{
 			List<Long> tradeIds = tradeInfo
 					.stream()
-					.map(t -> (Long) t.get("trade_id"))
+					.map(t -> t.trade_id)
 					.collect(Collectors.toList());
 
 			populateFullTradeInfo(con, tradeIds, txOutput);
@@ -278,81 +218,97 @@ public class TxTradeUpdate extends TxBase
 	/**
 	 * A helper method to retrieve all related information for a given trade_id.
 	 */
-	private void populateFullTradeInfo(final Connection con, final List<Long> tradeIds, final TxTradeUpdateOutput txOutput)
+	private void populateFullTradeInfo(final DbSession con, final List<Long> tradeIds, final TxTradeUpdateOutput txOutput)
 	{
-		String tradeLst;
-		String tradesCsv = getCsv(tradeIds);
-
-		if (sqlCtx.getSqlEngine() == SqlEngine.MARIADB)
-		{
-			tradeLst = String.format("[%s]", tradesCsv);
-		}
-		else
-		{
-			tradeLst = tradesCsv;
-		}
+		final SetParameterBinder binder = sql.getTradeListBinder();
 
 		if (txOutput.trade_info == null)
 		{
-			List<Map<String, Object>> tradeInfo = con
-					.createQuery(sql.getTradeInfo())
-					.addParameter("trade_lst", tradeLst)
-					.executeAndFetchTable()
-					.asList();
-			txOutput.trade_info = tradeInfo;
+			DbStatement tradeInfoQuery = con.prepare(sql.getTradeInfo());
+			binder.bind(con, tradeInfoQuery, "trade_lst", tradeIds);
+			txOutput.trade_info = tradeInfoQuery.fetchList(TradeInfoRow::readTradeInfo);
 		}
 
-		List<Map<String, Object>> settlementInfo = con
-				.createQuery(sql.getSettlementInfo())
-				.addParameter("trade_lst", tradeLst)
-				.executeAndFetchTable()
-				.asList();
+		DbStatement settlementQuery = con.prepare(sql.getSettlementInfo());
+		binder.bind(con, settlementQuery, "trade_lst", tradeIds);
 
-		txOutput.settlement_info = settlementInfo;
+		fetchPayload(settlementQuery, txOutput, l -> txOutput.settlement_info = l);
 
-		List<Map<String, Object>> history = con
-				.createQuery(sql.getTradeHistory())
-				.addParameter("trade_lst", tradeLst)
-				.executeAndFetchTable()
-				.asList();
+		DbStatement historyQuery = con.prepare(sql.getTradeHistory());
+		binder.bind(con, historyQuery, "trade_lst", tradeIds);
 
-		txOutput.history = history;
+		fetchPayload(historyQuery, txOutput, l -> txOutput.history = l);
 
 		// collect trade_id values where is_cash is true
-		String isCashTradeLst;
-		String isCashTradeCsv = txOutput.trade_info
+		List<Long> cashTradeIds = txOutput.trade_info
 				.stream()
-				.filter(t -> ((Boolean) t.get("t_is_cash")).booleanValue() == true)
-				.map(t -> ((Long) t.get("trade_id")).toString())
-				.collect(Collectors.joining(","));
+				.filter(t -> t.t_is_cash)
+				.map(t -> t.trade_id)
+				.collect(Collectors.toList());
 
-		if (sqlCtx.getSqlEngine() == SqlEngine.MARIADB)
-		{
-			isCashTradeLst = String.format("[%s]", isCashTradeCsv);
-		}
-		else
+		if (cashTradeIds.size() > 0)
 		{
-			isCashTradeLst = isCashTradeCsv;
+			DbStatement cashQuery = con.prepare(sql.getCashTransactionInfo());
+			binder.bind(con, cashQuery, "trade_lst", cashTradeIds);
+
+			fetchPayload(cashQuery, txOutput, l -> txOutput.cash_transaction_info = l);
 		}
+	}
 
-		if (StringUtils.isNotBlank(isCashTradeCsv))
-		{
-			List<Map<String, Object>> cashTransactionInfo = con
-					.createQuery(sql.getCashTransactionInfo())
-					.addParameter("trade_lst", isCashTradeLst)
-					.executeAndFetchTable()
-					.asList();
+	/**
+	 * @return the trade id, quantity, type name and security name of each cash
+	 *         trade, as the JSON array of objects that
+	 *         <code>updateTradesFrame3()</code> reads
+	 */
+	static String toCashTradeJson(final List<TradeInfoRow> cashTrades)
+	{
+		final StringBuilder sb = new StringBuilder(cashTrades.size() * 96);
+		sb.append('[');
 
-			txOutput.cash_transaction_info = cashTransactionInfo;
+		for (TradeInfoRow t : cashTrades)
+		{
+			if (sb.length() > 1)
+			{
+				sb.append(',');
+			}
+			sb.append("{\"trade_id\":").append(t.trade_id);
+			sb.append(",\"t_qty\":").append(t.t_qty);
+			sb.append(",\"tt_name\":");
+			appendJsonString(sb, t.tt_name);
+			sb.append(",\"s_name\":");
+			appendJsonString(sb, t.s_name);
+			sb.append('}');
 		}
+
+		return sb.append(']').toString();
 	}
 
-	private String getCsv(List<Long> tradeIds)
+	private static void appendJsonString(final StringBuilder sb, final String s)
 	{
-		String tradesCsv = tradeIds
-				.stream()
-				.map(t -> Long.valueOf(t).toString())
-				.collect(Collectors.joining(","));
-		return tradesCsv;
+		if (s == null)
+		{
+			sb.append("null");
+			return;
+		}
+
+		sb.append('"');
+		for (int i = 0; i < s.length(); i++)
+		{
+			final char c = s.charAt(i);
+
+			if (c == '"' || c == '\\')
+			{
+				sb.append('\\').append(c);
+			}
+			else if (c < 0x20)
+			{
+				sb.append(String.format("\\u%04x", (int) c));
+			}
+			else
+			{
+				sb.append(c);
+			}
+		}
+		sb.append('"');
 	}
-}
\ No newline at end of file
+}
@@ -11,7 +11,7 @@ public class TxTradeUpdateOutput extends TxOutput
 {
 	public int frame_executed;
 
-	public List<Map<String, Object>> trade_info;
+	public List<TradeInfoRow> trade_info;
 	public List<Map<String, Object>> settlement_info;
 	public List<Map<String, Object>> cash_transaction_info;
 	public List<Map<String, Object>> history;
@@ -0,0 +1,553 @@
+-- The frames of Trade-Order, Trade-Result and Market-Feed that run more than
+-- one statement, as one stored procedure each, for --mode=procedures. Each one
+-- does the same work as the statements that the client runs in the default
+-- mode. The blocks are separated by GO lines.
+
+DROP PROCEDURE IF EXISTS trade_order_frame3
+GO
+
+CREATE PROCEDURE trade_order_frame3
+(
+	IN p_acct_id BIGINT
+	, IN p_cust_id BIGINT
+	, IN p_cust_tier INT
+	, IN p_tax_status INT
+	, IN p_symbol CHAR(15)
+	, IN p_co_name VARCHAR(60)
+	, IN p_issue CHAR(6)
+	, IN p_trade_type_id CHAR(3)
+	, IN p_trade_qty INT
+	, IN p_requested_price DOUBLE
+	, IN p_is_lifo BOOLEAN
+	, IN p_type_is_margin BOOLEAN
+)
+BEGIN
+	DECLARE v_co_id BIGINT;
+	DECLARE v_exch_id CHAR(6);
+	DECLARE v_s_name VARCHAR(70);
+	DECLARE v_symbol CHAR(15);
+	DECLARE v_market_price DOUBLE;
+	DECLARE v_type_is_market BOOLEAN;
+	DECLARE v_type_is_sell BOOLEAN;
+	DECLARE v_requested_price DOUBLE;
+	DECLARE v_hs_qty INT;
+	DECLARE v_needed_qty INT DEFAULT p_trade_qty;
+	DECLARE v_buy_value DOUBLE DEFAULT 0;
+	DECLARE v_sell_value DOUBLE DEFAULT 0;
+	DECLARE v_tax_rate DOUBLE;
+	DECLARE v_tax_amount DOUBLE DEFAULT 0;
+	DECLARE v_charge_amount DOUBLE;
+	DECLARE v_comm_rate DOUBLE;
+	DECLARE v_acct_assets DOUBLE DEFAULT 0;
+	DECLARE v_hold_qty INT;
+	DECLARE v_hold_price DOUBLE;
+	DECLARE v_done BOOLEAN DEFAULT FALSE;
+
+	DECLARE hold_cursor CURSOR FOR
+		SELECT h_qty, h_price
+		FROM holding
+		WHERE h_ca_id = p_acct_id AND h_s_symb = v_symbol
+		ORDER BY
+			CASE WHEN p_is_lifo THEN h_dts END DESC
+			, CASE WHEN NOT p_is_lifo THEN h_dts END ASC;
+
+	DECLARE CONTINUE HANDLER FOR NOT FOUND SET v_done = TRUE;
+
+	IF TRIM(COALESCE(p_symbol, '')) = '' THEN
+		SELECT co_id, s_ex_id, s_name, s_symb
+		INTO v_co_id, v_exch_id, v_s_name, v_symbol
+		FROM company INNER JOIN security ON company.co_id = security.s_co_id
+		WHERE co_name = p_co_name AND s_issue = p_issue;
+	ELSE
+		SELECT co_id, s_ex_id, s_name, s_symb
+		INTO v_co_id, v_exch_id, v_s_name, v_symbol
+		FROM company INNER JOIN security ON company.co_id = security.s_co_id
+		WHERE s_symb = p_symbol;
+	END IF;
+
+	SELECT lt_price INTO v_market_price FROM last_trade WHERE lt_s_symb = v_symbol;
+
+	SELECT tt_is_mrkt, tt_is_sell
+	INTO v_type_is_market, v_type_is_sell
+	FROM trade_type
+	WHERE tt_id = p_trade_type_id;
+
+	SET v_requested_price = IF(v_type_is_market, v_market_price, p_requested_price);
+
+	SELECT hs_qty INTO v_hs_qty FROM holding_summary WHERE hs_ca_id = p_acct_id AND hs_s_symb = v_symbol;
+	SET v_hs_qty = COALESCE(v_hs_qty, 0);
+
+	-- estimate the profit of closing the long positions (sell) or covering
+	-- the short positions (buy) held in the security
+	IF (v_type_is_sell AND v_hs_qty > 0) OR (NOT v_type_is_sell AND v_hs_qty < 0) THEN
+		SET v_done = FALSE;
+		OPEN hold_cursor;
+
+		hold_loop: LOOP
+			FETCH hold_cursor INTO v_hold_qty, v_hold_price;
+
+			IF v_done OR v_needed_qty = 0 THEN
+				LEAVE hold_loop;
+			END IF;
+
+			IF v_type_is_sell THEN
+				IF v_hold_qty > v_needed_qty THEN
+					SET v_buy_value = v_buy_value + v_needed_qty * v_hold_price;
+					SET v_sell_value = v_sell_value + v_needed_qty * v_requested_price;
+					SET v_needed_qty = 0;
+				ELSE
+					SET v_buy_value = v_buy_value + v_hold_qty * v_hold_price;
+					SET v_sell_value = v_sell_value + v_hold_qty * v_requested_price;
+					SET v_needed_qty = v_needed_qty - v_hold_qty;
+				END IF;
+			ELSE
+				IF v_hold_qty + v_needed_qty < 0 THEN
+					SET v_buy_value = v_buy_value + v_needed_qty * v_requested_price;
+					SET v_sell_value = v_sell_value + v_needed_qty * v_hold_price;
+					SET v_needed_qty = 0;
+				ELSE
+					SET v_buy_value = v_buy_value - v_hold_qty * v_requested_price;
+					SET v_sell_value = v_sell_value - v_hold_qty * v_hold_price;
+					SET v_needed_qty = v_needed_qty + v_hold_qty;
+				END IF;
+			END IF;
+		END LOOP;
+
+		CLOSE hold_cursor;
+	END IF;
+
+	IF v_sell_value > v_buy_value AND p_tax_status IN (1, 2) THEN
+		SELECT SUM(tx_rate)
+		INTO v_tax_rate
+		FROM taxrate
+		WHERE tx_id IN (SELECT cx_tx_id FROM customer_taxrate WHERE cx_c_id = p_cust_id);
+
+		SET v_tax_amount = (v_sell_value - v_buy_value) * v_tax_rate;
+	END IF;
+
+	SELECT ch_chrg, cr_rate
+	INTO v_charge_amount, v_comm_rate
+	FROM commission_rate, charge
+	WHERE
+		cr_c_tier = p_cust_tier
+		AND cr_tt_id = p_trade_type_id
+		AND cr_ex_id = v_exch_id
+		AND cr_from_qty <= p_trade_qty
+		AND cr_to_qty >= p_trade_qty
+		AND ch_c_tier = cr_c_tier
+		AND ch_tt_id = cr_tt_id
+	LIMIT 1;
+
+	IF p_type_is_margin THEN
+		SELECT COALESCE(hold_asset, ca_bal)
+		INTO v_acct_assets
+		FROM
+			customer_account
+			, (
+				SELECT NULL AS hold_asset, p_acct_id AS hs_ca_id
+				UNION ALL
+				SELECT SUM(hs_qty * lt_price), hs_ca_id
+				FROM holding_summary, last_trade
+				WHERE hs_ca_id = p_acct_id AND lt_s_symb = hs_s_symb
+				GROUP BY hs_ca_id
+			) AS ha
+		WHERE ca_id = ha.hs_ca_id
+		LIMIT 1;
+	END IF;
+
+	SELECT
+		v_co_id AS co_id
+		, v_exch_id AS exch_id
+		, v_s_name AS s_name
+		, v_symbol AS symbol
+		, v_market_price AS market_price
+		, v_type_is_market AS type_is_market
+		, v_type_is_sell AS type_is_sell
+		, v_requested_price AS requested_price
+		, v_buy_value AS buy_value
+		, v_sell_value AS sell_value
+		, v_tax_amount AS tax_amount
+		, v_charge_amount AS charge_amount
+		, v_comm_rate AS comm_rate
+		, v_acct_assets AS acct_assets;
+END
+GO
+
+DROP PROCEDURE IF EXISTS trade_order_frame4
+GO
+
+CREATE PROCEDURE trade_order_frame4
+(
+	IN p_trade_dts DATETIME
+	, IN p_status_id CHAR(4)
+	, IN p_trade_type_id CHAR(3)
+	, IN p_is_cash BOOLEAN
+	, IN p_symbol CHAR(15)
+	, IN p_trade_qty INT
+	, IN p_requested_price DOUBLE
+	, IN p_acct_id BIGINT
+	, IN p_exec_name VARCHAR(49)
+	, IN p_charge_amount DOUBLE
+	, IN p_comm_amount DOUBLE
+	, IN p_is_lifo BOOLEAN
+	, IN p_is_limit BOOLEAN
+	, IN p_broker_id BIGINT
+)
+BEGIN
+	DECLARE v_t_id BIGINT;
+
+	INSERT INTO trade
+	(
+		t_dts
+		, t_st_id
+		, t_tt_id
+		, t_is_cash
+		, t_s_symb
+		, t_qty
+		, t_bid_price
+		, t_ca_id
+		, t_exec_name
+		, t_trade_price
+		, t_chrg
+		, t_comm
+		, t_tax
+		, t_lifo
+	)
+	VALUES
+	(
+		p_trade_dts
+		, p_status_id
+		, p_trade_type_id
+		, p_is_cash
+		, p_symbol
+		, p_trade_qty
+		, p_requested_price
+		, p_acct_id
+		, p_exec_name
+		, NULL
+		, p_charge_amount
+		, p_comm_amount
+		, 0
+		, p_is_lifo
+	);
+
+	SET v_t_id = LAST_INSERT_ID();
+
+	IF p_is_limit THEN
+		INSERT INTO trade_request (tr_t_id, tr_tt_id, tr_s_symb, tr_qty, tr_bid_price, tr_b_id)
+		VALUES (v_t_id, p_trade_type_id, p_symbol, p_trade_qty, p_requested_price, p_broker_id);
+	END IF;
+
+	INSERT INTO trade_history (th_t_id, th_dts, th_st_id)
+	VALUES (v_t_id, p_trade_dts, p_status_id);
+
+	SELECT v_t_id AS trade_id;
+END
+GO
+
+DROP PROCEDURE IF EXISTS trade_result_frame2
+GO
+
+CREATE PROCEDURE trade_result_frame2
+(
+	IN p_trade_id BIGINT
+	, IN p_acct_id BIGINT
+	, IN p_symbol CHAR(15)
+	, IN p_trade_qty INT
+	, IN p_hs_qty INT
+	, IN p_type_is_sell BOOLEAN
+	, IN p_is_lifo BOOLEAN
+	, IN p_trade_price DOUBLE
+	, IN p_trade_dts DATETIME
+)
+BEGIN
+	DECLARE v_broker_id BIGINT;
+	DECLARE v_cust_id BIGINT;
+	DECLARE v_tax_status INT;
+	DECLARE v_needed_qty INT DEFAULT p_trade_qty;
+	DECLARE v_buy_value DOUBLE DEFAULT 0;
+	DECLARE v_sell_value DOUBLE DEFAULT 0;
+	DECLARE v_hold_id BIGINT;
+	DECLARE v_hold_qty INT;
+	DECLARE v_hold_price DOUBLE;
+	DECLARE v_after_qty INT;
+	DECLARE v_new_qty INT;
+	DECLARE v_done BOOLEAN DEFAULT FALSE;
+
+	DECLARE hold_cursor CURSOR FOR
+		SELECT h_t_id, h_qty, h_price
+		FROM holding
+		WHERE h_ca_id = p_acct_id AND h_s_symb = p_symbol
+		ORDER BY
+			CASE WHEN p_is_lifo THEN h_dts END DESC
+			, CASE WHEN NOT p_is_lifo THEN h_dts END ASC;
+
+	DECLARE CONTINUE HANDLER FOR NOT FOUND SET v_done = TRUE;
+
+	SELECT ca_b_id, ca_c_id, ca_tax_st
+	INTO v_broker_id, v_cust_id, v_tax_status
+	FROM customer_account
+	WHERE ca_id = p_acct_id;
+
+	IF p_type_is_sell THEN
+		IF p_hs_qty = 0 THEN
+			INSERT INTO holding_summary (hs_ca_id, hs_s_symb, hs_qty)
+			VALUES (p_acct_id, p_symbol, -p_trade_qty);
+		ELSEIF p_hs_qty <> p_trade_qty THEN
+			UPDATE holding_summary
+			SET hs_qty = p_hs_qty - p_trade_qty
+			WHERE hs_ca_id = p_acct_id AND hs_s_symb = p_symbol;
+		END IF;
+	ELSE
+		IF p_hs_qty = 0 THEN
+			INSERT INTO holding_summary (hs_ca_id, hs_s_symb, hs_qty)
+			VALUES (p_acct_id, p_symbol, -p_trade_qty);
+		ELSEIF -p_hs_qty <> p_trade_qty THEN
+			UPDATE holding_summary
+			SET hs_qty = p_hs_qty - (p_hs_qty + p_trade_qty)
+			WHERE hs_ca_id = p_acct_id AND hs_s_symb = p_symbol;
+		END IF;
+	END IF;
+
+	IF (p_type_is_sell AND p_hs_qty > 0) OR (NOT p_type_is_sell AND p_hs_qty < 0) THEN
+		SET v_done = FALSE;
+		OPEN hold_cursor;
+
+		hold_loop: LOOP
+			FETCH hold_cursor INTO v_hold_id, v_hold_qty, v_hold_price;
+
+			IF v_done OR v_needed_qty <= 0 THEN
+				LEAVE hold_loop;
+			END IF;
+
+			IF (p_type_is_sell AND v_hold_qty > v_needed_qty) OR (NOT p_type_is_sell AND v_hold_qty + v_needed_qty < 0) THEN
+				SET v_after_qty = IF(p_type_is_sell, v_hold_qty - v_needed_qty, v_hold_qty + v_needed_qty);
+
+				INSERT INTO holding_history (hh_h_t_id, hh_t_id, hh_before_qty, hh_after_qty)
+				VALUES (v_hold_id, p_trade_id, v_hold_qty, v_after_qty);
+
+				UPDATE holding SET h_qty = v_after_qty WHERE h_t_id = v_hold_id;
+
+				IF p_type_is_sell THEN
+					SET v_buy_value = v_buy_value + v_needed_qty * v_hold_price;
+					SET v_sell_value = v_sell_value + v_needed_qty * p_trade_price;
+				ELSE
+					SET v_sell_value = v_sell_value + v_needed_qty * v_hold_price;
+					SET v_buy_value = v_buy_value + v_needed_qty * p_trade_price;
+				END IF;
+
+				SET v_needed_qty = 0;
+			ELSE
+				INSERT INTO holding_history (hh_h_t_id, hh_t_id, hh_before_qty, hh_after_qty)
+				VALUES (v_hold_id, p_trade_id, v_hold_qty, 0);
+
+				DELETE FROM holding WHERE h_t_id = v_hold_id;
+
+				IF p_type_is_sell THEN
+					SET v_buy_value = v_buy_value + v_hold_qty * v_hold_price;
+					SET v_sell_value = v_sell_value + v_hold_qty * p_trade_price;
+					SET v_needed_qty = v_needed_qty - v_hold_qty;
+				ELSE
+					SET v_sell_value = v_sell_value - v_hold_qty * v_hold_price;
+					SET v_buy_value = v_buy_value - v_hold_qty * p_trade_price;
+					SET v_needed_qty = v_needed_qty + v_hold_qty;
+				END IF;
+			END IF;
+		END LOOP;
+
+		CLOSE hold_cursor;
+	END IF;
+
+	-- a sell that is left with shares to sell opens a short position, a buy
+	-- that covered all the shorts opens a long one
+	IF v_needed_qty > 0 THEN
+		SET v_new_qty = IF(p_type_is_sell, -v_needed_qty, v_needed_qty);
+
+		INSERT INTO holding_history (hh_h_t_id, hh_t_id, hh_before_qty, hh_after_qty)
+		VALUES (p_trade_id, p_trade_id, 0, v_new_qty);
+
+		INSERT INTO holding (h_t_id, h_ca_id, h_s_symb, h_dts, h_price, h_qty)
+		VALUES (p_trade_id, p_acct_id, p_symbol, p_trade_dts, p_trade_price, v_new_qty);
+	ELSEIF (p_type_is_sell AND p_hs_qty = p_trade_qty) OR (NOT p_type_is_sell AND -p_hs_qty = p_trade_qty) THEN
+		DELETE FROM holding_summary WHERE hs_ca_id = p_acct_id AND hs_s_symb = p_symbol;
+	END IF;
+
+	SELECT
+		v_broker_id AS broker_id
+		, v_cust_id AS cust_id
+		, v_tax_status AS tax_status
+		, v_buy_value AS buy_value
+		, v_sell_value AS sell_value;
+END
+GO
+
+DROP PROCEDURE IF EXISTS trade_result_frame3
+GO
+
+CREATE PROCEDURE trade_result_frame3
+(
+	IN p_trade_id BIGINT
+	, IN p_cust_id BIGINT
+	, IN p_buy_value DOUBLE
+	, IN p_sell_value DOUBLE
+)
+BEGIN
+	DECLARE v_tax_rate DOUBLE;
+	DECLARE v_tax_amount DOUBLE;
+
+	SELECT COALESCE(SUM(tx_rate), 0)
+	INTO v_tax_rate
+	FROM taxrate
+	WHERE tx_id IN (SELECT cx_tx_id FROM customer_taxrate WHERE cx_c_id = p_cust_id);
+
+	SET v_tax_amount = IF(p_sell_value > p_buy_value, (p_sell_value - p_buy_value) * v_tax_rate, 0);
+
+	UPDATE trade SET t_tax = v_tax_amount WHERE t_id = p_trade_id;
+
+	SELECT v_tax_amount AS tax_amount;
+END
+GO
+
+DROP PROCEDURE IF EXISTS trade_result_frame5
+GO
+
+CREATE PROCEDURE trade_result_frame5
+(
+	IN p_trade_id BIGINT
+	, IN p_trade_dts DATETIME
+	, IN p_st_completed_id CHAR(4)
+	, IN p_trade_price DOUBLE
+	, IN p_comm_amount DOUBLE
+	, IN p_broker_id BIGINT
+)
+BEGIN
+	UPDATE trade
+	SET
+		t_comm = p_comm_amount
+		, t_dts = p_trade_dts
+		, t_st_id = p_st_completed_id
+		, t_trade_price = p_trade_price
+	WHERE t_id = p_trade_id;
+
+	INSERT INTO trade_history (th_t_id, th_dts, th_st_id)
+	VALUES (p_trade_id, p_trade_dts, p_st_completed_id);
+
+	UPDATE broker
+	SET
+		b_comm_total = b_comm_total + p_comm_amount
+		, b_num_trades = b_num_trades + 1
+	WHERE b_id = p_broker_id;
+END
+GO
+
+DROP PROCEDURE IF EXISTS trade_result_frame6
+GO
+
+CREATE PROCEDURE trade_result_frame6
+(
+	IN p_trade_id BIGINT
+	, IN p_acct_id BIGINT
+	, IN p_trade_dts DATETIME
+	, IN p_due_date DATETIME
+	, IN p_cash_type VARCHAR(40)
+	, IN p_se_amount DOUBLE
+	, IN p_trade_is_cash BOOLEAN
+	, IN p_ct_name VARCHAR(100)
+)
+BEGIN
+	INSERT INTO settlement (se_t_id, se_cash_type, se_cash_due_date, se_amt)
+	VALUES (p_trade_id, p_cash_type, p_due_date, p_se_amount);
+
+	IF p_trade_is_cash THEN
+		UPDATE customer_account SET ca_bal = ca_bal + p_se_amount WHERE ca_id = p_acct_id;
+
+		INSERT INTO cash_transaction (ct_t_id, ct_dts, ct_amt, ct_name)
+		VALUES (p_trade_id, p_trade_dts, p_se_amount, p_ct_name);
+	END IF;
+
+	SELECT CAST(ca_bal AS DOUBLE) AS acct_bal FROM customer_account WHERE ca_id = p_acct_id;
+END
+GO
+
+DROP PROCEDURE IF EXISTS market_feed_frame1
+GO
+
+CREATE PROCEDURE market_feed_frame1
+(
+	IN p_tickers LONGTEXT
+	, IN p_status_submitted CHAR(4)
+	, IN p_tt_buy CHAR(3)
+	, IN p_tt_sell CHAR(3)
+	, IN p_tt_stop CHAR(3)
+)
+BEGIN
+	DECLARE v_num_updated INT;
+
+	UPDATE last_trade lt
+	INNER JOIN
+	(
+		SELECT symbol, trade_qty, trade_price
+		FROM JSON_TABLE(
+			p_tickers
+			, '$[*]' COLUMNS (
+				symbol VARCHAR(15) PATH '$.symbol'
+				, trade_price DECIMAL(8,2) PATH '$.trade_price'
+				, trade_qty BIGINT PATH '$.trade_qty'
+			)
+		) AS x
+	) tickers ON lt.lt_s_symb = tickers.symbol
+	SET
+		lt.lt_price = tickers.trade_price
+		, lt.lt_vol = lt.lt_vol + tickers.trade_qty
+		, lt.lt_dts = CURRENT_TIMESTAMP;
+
+	SET v_num_updated = ROW_COUNT();
+
+	DROP TEMPORARY TABLE IF EXISTS market_feed_requests;
+
+	CREATE TEMPORARY TABLE market_feed_requests
+	(
+		tr_t_id BIGINT PRIMARY KEY
+		, tr_bid_price DOUBLE
+		, tr_tt_id CHAR(3)
+		, tr_qty INT
+		, tr_s_symb CHAR(15)
+	);
+
+	INSERT IGNORE INTO market_feed_requests (tr_t_id, tr_bid_price, tr_tt_id, tr_qty, tr_s_symb)
+	SELECT tr_t_id, tr_bid_price, tr_tt_id, tr_qty, tr_s_symb
+	FROM
+		trade_request
+		INNER JOIN JSON_TABLE(
+			p_tickers
+			, '$[*]' COLUMNS (
+				symbol VARCHAR(255) PATH '$.symbol'
+				, trade_price DECIMAL(20,6) PATH '$.trade_price'
+			)
+		) AS tickers ON tr_s_symb = tickers.symbol
+	WHERE
+		(tr_tt_id = p_tt_buy AND tr_bid_price >= trade_price)
+		OR (tr_tt_id = p_tt_sell AND tr_bid_price <= trade_price)
+		OR (tr_tt_id = p_tt_stop AND tr_bid_price >= trade_price);
+
+	UPDATE trade
+	SET
+		t_dts = CURRENT_TIMESTAMP
+		, t_st_id = p_status_submitted
+	WHERE t_id IN (SELECT tr_t_id FROM market_feed_requests);
+
+	DELETE FROM trade_request
+	WHERE tr_t_id IN (SELECT tr_t_id FROM market_feed_requests);
+
+	INSERT INTO trade_history (th_t_id, th_dts, th_st_id)
+	SELECT tr_t_id, CURRENT_TIMESTAMP, p_status_submitted
+	FROM market_feed_requests;
+
+	-- one row per triggered request, or a single row without a request, so
+	-- that the client always gets num_updated
+	SELECT v_num_updated AS num_updated, r.tr_t_id, r.tr_bid_price, r.tr_tt_id, r.tr_qty, r.tr_s_symb
+	FROM (SELECT 1 AS one) AS one LEFT JOIN market_feed_requests AS r ON TRUE;
+
+	DROP TEMPORARY TABLE market_feed_requests;
+END
+GO
@@ -0,0 +1,546 @@
+-- The frames of Trade-Order, Trade-Result and Market-Feed that run more than
+-- one statement, as one stored procedure each, for --mode=procedures. Each one
+-- does the same work as the statements that the client runs in the default
+-- mode. The blocks are separated by GO lines.
+
+CREATE OR ALTER PROCEDURE trade_order_frame3
+	@acct_id bigint
+	, @cust_id bigint
+	, @cust_tier int
+	, @tax_status int
+	, @symbol varchar(15)
+	, @co_name varchar(60)
+	, @issue char(6)
+	, @trade_type_id char(3)
+	, @trade_qty int
+	, @requested_price float
+	, @is_lifo bit
+	, @type_is_margin bit
+AS
+BEGIN
+	SET NOCOUNT ON;
+
+	DECLARE @co_id bigint;
+	DECLARE @exch_id char(6);
+	DECLARE @s_name varchar(70);
+	DECLARE @s_symb varchar(15);
+	DECLARE @market_price float;
+	DECLARE @type_is_market bit;
+	DECLARE @type_is_sell bit;
+	DECLARE @hs_qty int;
+	DECLARE @needed_qty int = @trade_qty;
+	DECLARE @buy_value float = 0;
+	DECLARE @sell_value float = 0;
+	DECLARE @tax_rate float;
+	DECLARE @tax_amount float = 0;
+	DECLARE @charge_amount float;
+	DECLARE @comm_rate float;
+	DECLARE @acct_assets float = 0;
+	DECLARE @hold_qty int;
+	DECLARE @hold_price float;
+
+	IF LTRIM(RTRIM(COALESCE(@symbol, ''))) = ''
+		SELECT
+			@co_id = co_id
+			, @exch_id = s_ex_id
+			, @s_name = s_name
+			, @s_symb = s_symb
+		FROM company INNER JOIN security ON company.co_id = security.s_co_id
+		WHERE co_name = @co_name AND s_issue = @issue;
+	ELSE
+		SELECT
+			@co_id = co_id
+			, @exch_id = s_ex_id
+			, @s_name = s_name
+			, @s_symb = s_symb
+		FROM company INNER JOIN security ON company.co_id = security.s_co_id
+		WHERE s_symb = @symbol;
+
+	SELECT @market_price = lt_price FROM last_trade WHERE lt_s_symb = @s_symb;
+
+	SELECT
+		@type_is_market = tt_is_mrkt
+		, @type_is_sell = tt_is_sell
+	FROM trade_type
+	WHERE tt_id = @trade_type_id;
+
+	IF @type_is_market = 1
+		SET @requested_price = @market_price;
+
+	SELECT @hs_qty = hs_qty FROM holding_summary WHERE hs_ca_id = @acct_id AND hs_s_symb = @s_symb;
+	SET @hs_qty = COALESCE(@hs_qty, 0);
+
+	-- estimate the profit of closing the long positions (sell) or covering
+	-- the short positions (buy) held in the security
+	IF (@type_is_sell = 1 AND @hs_qty > 0) OR (@type_is_sell = 0 AND @hs_qty < 0)
+	BEGIN
+		DECLARE hold_cursor CURSOR LOCAL STATIC READ_ONLY FOR
+			SELECT h_qty, h_price
+			FROM holding
+			WHERE h_ca_id = @acct_id AND h_s_symb = @s_symb
+			ORDER BY
+				CASE WHEN @is_lifo = 1 THEN h_dts END DESC
+				, CASE WHEN @is_lifo = 0 THEN h_dts END ASC;
+
+		OPEN hold_cursor;
+		FETCH NEXT FROM hold_cursor INTO @hold_qty, @hold_price;
+
+		WHILE @@FETCH_STATUS = 0 AND @needed_qty <> 0
+		BEGIN
+			IF @type_is_sell = 1
+			BEGIN
+				IF @hold_qty > @needed_qty
+				BEGIN
+					SET @buy_value = @buy_value + @needed_qty * @hold_price;
+					SET @sell_value = @sell_value + @needed_qty * @requested_price;
+					SET @needed_qty = 0;
+				END
+				ELSE
+				BEGIN
+					SET @buy_value = @buy_value + @hold_qty * @hold_price;
+					SET @sell_value = @sell_value + @hold_qty * @requested_price;
+					SET @needed_qty = @needed_qty - @hold_qty;
+				END
+			END
+			ELSE
+			BEGIN
+				IF @hold_qty + @needed_qty < 0
+				BEGIN
+					SET @buy_value = @buy_value + @needed_qty * @requested_price;
+					SET @sell_value = @sell_value + @needed_qty * @hold_price;
+					SET @needed_qty = 0;
+				END
+				ELSE
+				BEGIN
+					SET @buy_value = @buy_value - @hold_qty * @requested_price;
+					SET @sell_value = @sell_value - @hold_qty * @hold_price;
+					SET @needed_qty = @needed_qty + @hold_qty;
+				END
+			END
+
+			FETCH NEXT FROM hold_cursor INTO @hold_qty, @hold_price;
+		END
+
+		CLOSE hold_cursor;
+		DEALLOCATE hold_cursor;
+	END
+
+	IF @sell_value > @buy_value AND @tax_status IN (1, 2)
+	BEGIN
+		SELECT @tax_rate = SUM(tx_rate)
+		FROM taxrate
+		WHERE tx_id IN (SELECT cx_tx_id FROM customer_taxrate WHERE cx_c_id = @cust_id);
+
+		SET @tax_amount = (@sell_value - @buy_value) * @tax_rate;
+	END
+
+	SELECT TOP 1
+		@charge_amount = ch_chrg
+		, @comm_rate = cr_rate
+	FROM commission_rate, charge
+	WHERE
+		cr_c_tier = @cust_tier
+		AND cr_tt_id = @trade_type_id
+		AND cr_ex_id = @exch_id
+		AND cr_from_qty <= @trade_qty
+		AND cr_to_qty >= @trade_qty
+		AND ch_c_tier = cr_c_tier
+		AND ch_tt_id = cr_tt_id;
+
+	IF @type_is_margin = 1
+		SELECT TOP 1 @acct_assets = COALESCE(hold_asset, ca_bal)
+		FROM
+			customer_account
+			, (
+				SELECT CAST(NULL AS float) AS hold_asset, @acct_id AS hs_ca_id
+				UNION ALL
+				SELECT SUM(hs_qty * lt_price), hs_ca_id
+				FROM holding_summary, last_trade
+				WHERE hs_ca_id = @acct_id AND lt_s_symb = hs_s_symb
+				GROUP BY hs_ca_id
+			) AS ha
+		WHERE ca_id = ha.hs_ca_id;
+
+	SELECT
+		@co_id AS co_id
+		, @exch_id AS exch_id
+		, @s_name AS s_name
+		, @s_symb AS symbol
+		, @market_price AS market_price
+		, @type_is_market AS type_is_market
+		, @type_is_sell AS type_is_sell
+		, @requested_price AS requested_price
+		, @buy_value AS buy_value
+		, @sell_value AS sell_value
+		, @tax_amount AS tax_amount
+		, @charge_amount AS charge_amount
+		, @comm_rate AS comm_rate
+		, @acct_assets AS acct_assets;
+END
+GO
+
+CREATE OR ALTER PROCEDURE trade_order_frame4
+	@trade_dts datetime
+	, @status_id char(4)
+	, @trade_type_id char(3)
+	, @is_cash bit
+	, @symbol varchar(15)
+	, @trade_qty int
+	, @requested_price float
+	, @acct_id bigint
+	, @exec_name varchar(49)
+	, @charge_amount float
+	, @comm_amount float
+	, @is_lifo bit
+	, @is_limit bit
+	, @broker_id bigint
+AS
+BEGIN
+	SET NOCOUNT ON;
+
+	DECLARE @t_id bigint;
+
+	INSERT INTO trade
+	(
+		t_dts
+		, t_st_id
+		, t_tt_id
+		, t_is_cash
+		, t_s_symb
+		, t_qty
+		, t_bid_price
+		, t_ca_id
+		, t_exec_name
+		, t_trade_price
+		, t_chrg
+		, t_comm
+		, t_tax
+		, t_lifo
+	)
+	VALUES
+	(
+		@trade_dts
+		, @status_id
+		, @trade_type_id
+		, @is_cash
+		, @symbol
+		, @trade_qty
+		, @requested_price
+		, @acct_id
+		, @exec_name
+		, NULL
+		, @charge_amount
+		, @comm_amount
+		, 0
+		, @is_lifo
+	);
+
+	SET @t_id = SCOPE_IDENTITY();
+
+	IF @is_limit = 1
+		INSERT INTO trade_request (tr_t_id, tr_tt_id, tr_s_symb, tr_qty, tr_bid_price, tr_b_id)
+		VALUES (@t_id, @trade_type_id, @symbol, @trade_qty, @requested_price, @broker_id);
+
+	INSERT INTO trade_history (th_t_id, th_dts, th_st_id)
+	VALUES (@t_id, @trade_dts, @status_id);
+
+	SELECT @t_id AS trade_id;
+END
+GO
+
+CREATE OR ALTER PROCEDURE trade_result_frame2
+	@trade_id bigint
+	, @acct_id bigint
+	, @symbol varchar(15)
+	, @trade_qty int
+	, @hs_qty int
+	, @type_is_sell bit
+	, @is_lifo bit
+	, @trade_price float
+	, @trade_dts datetime
+AS
+BEGIN
+	SET NOCOUNT ON;
+
+	DECLARE @broker_id bigint;
+	DECLARE @cust_id bigint;
+	DECLARE @tax_status int;
+	DECLARE @needed_qty int = @trade_qty;
+	DECLARE @buy_value float = 0;
+	DECLARE @sell_value float = 0;
+	DECLARE @hold_id bigint;
+	DECLARE @hold_qty int;
+	DECLARE @hold_price float;
+	DECLARE @after_qty int;
+	DECLARE @new_qty int;
+
+	SELECT
+		@broker_id = ca_b_id
+		, @cust_id = ca_c_id
+		, @tax_status = ca_tax_st
+	FROM customer_account
+	WHERE ca_id = @acct_id;
+
+	IF @type_is_sell = 1
+	BEGIN
+		IF @hs_qty = 0
+			INSERT INTO holding_summary (hs_ca_id, hs_s_symb, hs_qty)
+			VALUES (@acct_id, @symbol, -@trade_qty);
+		ELSE IF @hs_qty <> @trade_qty
+			UPDATE holding_summary
+			SET hs_qty = @hs_qty - @trade_qty
+			WHERE hs_ca_id = @acct_id AND hs_s_symb = @symbol;
+	END
+	ELSE
+	BEGIN
+		IF @hs_qty = 0
+			INSERT INTO holding_summary (hs_ca_id, hs_s_symb, hs_qty)
+			VALUES (@acct_id, @symbol, -@trade_qty);
+		ELSE IF -@hs_qty <> @trade_qty
+			UPDATE holding_summary
+			SET hs_qty = @hs_qty - (@hs_qty + @trade_qty)
+			WHERE hs_ca_id = @acct_id AND hs_s_symb = @symbol;
+	END
+
+	IF (@type_is_sell = 1 AND @hs_qty > 0) OR (@type_is_sell = 0 AND @hs_qty < 0)
+	BEGIN
+		DECLARE hold_cursor CURSOR LOCAL STATIC READ_ONLY FOR
+			SELECT h_t_id, h_qty, h_price
+			FROM holding
+			WHERE h_ca_id = @acct_id AND h_s_symb = @symbol
+			ORDER BY
+				CASE WHEN @is_lifo = 1 THEN h_dts END DESC
+				, CASE WHEN @is_lifo = 0 THEN h_dts END ASC;
+
+		OPEN hold_cursor;
+		FETCH NEXT FROM hold_cursor INTO @hold_id, @hold_qty, @hold_price;
+
+		WHILE @@FETCH_STATUS = 0 AND @needed_qty > 0
+		BEGIN
+			IF (@type_is_sell = 1 AND @hold_qty > @needed_qty) OR (@type_is_sell = 0 AND @hold_qty + @needed_qty < 0)
+			BEGIN
+				SET @after_qty = CASE WHEN @type_is_sell = 1 THEN @hold_qty - @needed_qty ELSE @hold_qty + @needed_qty END;
+
+				INSERT INTO holding_history (hh_h_t_id, hh_t_id, hh_before_qty, hh_after_qty)
+				VALUES (@hold_id, @trade_id, @hold_qty, @after_qty);
+
+				UPDATE holding SET h_qty = @after_qty WHERE h_t_id = @hold_id;
+
+				IF @type_is_sell = 1
+				BEGIN
+					SET @buy_value = @buy_value + @needed_qty * @hold_price;
+					SET @sell_value = @sell_value + @needed_qty * @trade_price;
+				END
+				ELSE
+				BEGIN
+					SET @sell_value = @sell_value + @needed_qty * @hold_price;
+					SET @buy_value = @buy_value + @needed_qty * @trade_price;
+				END
+
+				SET @needed_qty = 0;
+			END
+			ELSE
+			BEGIN
+				INSERT INTO holding_history (hh_h_t_id, hh_t_id, hh_before_qty, hh_after_qty)
+				VALUES (@hold_id, @trade_id, @hold_qty, 0);
+
+				DELETE FROM holding WHERE h_t_id = @hold_id;
+
+				IF @type_is_sell = 1
+				BEGIN
+					SET @buy_value = @buy_value + @hold_qty * @hold_price;
+					SET @sell_value = @sell_value + @hold_qty * @trade_price;
+					SET @needed_qty = @needed_qty - @hold_qty;
+				END
+				ELSE
+				BEGIN
+					SET @sell_value = @sell_value - @hold_qty * @hold_price;
+					SET @buy_value = @buy_value - @hold_qty * @trade_price;
+					SET @needed_qty = @needed_qty + @hold_qty;
+				END
+			END
+
+			FETCH NEXT FROM hold_cursor INTO @hold_id, @hold_qty, @hold_price;
+		END
+
+		CLOSE hold_cursor;
+		DEALLOCATE hold_cursor;
+	END
+
+	-- a sell that is left with shares to sell opens a short position, a buy
+	-- that covered all the shorts opens a long one
+	IF @needed_qty > 0
+	BEGIN
+		SET @new_qty = CASE WHEN @type_is_sell = 1 THEN -@needed_qty ELSE @needed_qty END;
+
+		INSERT INTO holding_history (hh_h_t_id, hh_t_id, hh_before_qty, hh_after_qty)
+		VALUES (@trade_id, @trade_id, 0, @new_qty);
+
+		INSERT INTO holding (h_t_id, h_ca_id, h_s_symb, h_dts, h_price, h_qty)
+		VALUES (@trade_id, @acct_id, @symbol, @trade_dts, @trade_price, @new_qty);
+	END
+	ELSE IF (@type_is_sell = 1 AND @hs_qty = @trade_qty) OR (@type_is_sell = 0 AND -@hs_qty = @trade_qty)
+		DELETE FROM holding_summary WHERE hs_ca_id = @acct_id AND hs_s_symb = @symbol;
+
+	SELECT
+		@broker_id AS broker_id
+		, @cust_id AS cust_id
+		, @tax_status AS tax_status
+		, @buy_value AS buy_value
+		, @sell_value AS sell_value;
+END
+GO
+
+CREATE OR ALTER PROCEDURE trade_result_frame3
+	@trade_id bigint
+	, @cust_id bigint
+	, @buy_value float
+	, @sell_value float
+AS
+BEGIN
+	SET NOCOUNT ON;
+
+	DECLARE @tax_rate float;
+	DECLARE @tax_amount float;
+
+	SELECT @tax_rate = COALESCE(SUM(tx_rate), 0)
+	FROM taxrate
+	WHERE tx_id IN (SELECT cx_tx_id FROM customer_taxrate WHERE cx_c_id = @cust_id);
+
+	SET @tax_amount = CASE WHEN @sell_value > @buy_value THEN (@sell_value - @buy_value) * @tax_rate ELSE 0 END;
+
+	UPDATE trade SET t_tax = @tax_amount WHERE t_id = @trade_id;
+
+	SELECT @tax_amount AS tax_amount;
+END
+GO
+
+CREATE OR ALTER PROCEDURE trade_result_frame5
+	@trade_id bigint
+	, @trade_dts datetime
+	, @st_completed_id char(4)
+	, @trade_price float
+	, @comm_amount float
+	, @broker_id bigint
+AS
+BEGIN
+	SET NOCOUNT ON;
+
+	UPDATE trade
+	SET
+		t_comm = @comm_amount
+		, t_dts = @trade_dts
+		, t_st_id = @st_completed_id
+		, t_trade_price = @trade_price
+	WHERE t_id = @trade_id;
+
+	INSERT INTO trade_history (th_t_id, th_dts, th_st_id)
+	VALUES (@trade_id, @trade_dts, @st_completed_id);
+
+	UPDATE broker
+	SET
+		b_comm_total = b_comm_total + @comm_amount
+		, b_num_trades = b_num_trades + 1
+	WHERE b_id = @broker_id;
+END
+GO
+
+CREATE OR ALTER PROCEDURE trade_result_frame6
+	@trade_id bigint
+	, @acct_id bigint
+	, @trade_dts datetime
+	, @due_date datetime
+	, @cash_type varchar(40)
+	, @se_amount float
+	, @trade_is_cash bit
+	, @ct_name varchar(100)
+AS
+BEGIN
+	SET NOCOUNT ON;
+
+	INSERT INTO settlement (se_t_id, se_cash_type, se_cash_due_date, se_amt)
+	VALUES (@trade_id, @cash_type, @due_date, @se_amount);
+
+	IF @trade_is_cash = 1
+	BEGIN
+		UPDATE customer_account SET ca_bal = ca_bal + @se_amount WHERE ca_id = @acct_id;
+
+		INSERT INTO cash_transaction (ct_t_id, ct_dts, ct_amt, ct_name)
+		VALUES (@trade_id, @trade_dts, @se_amount, @ct_name);
+	END
+
+	SELECT CAST(ca_bal AS float) AS acct_bal FROM customer_account WHERE ca_id = @acct_id;
+END
+GO
+
+CREATE OR ALTER PROCEDURE market_feed_frame1
+	@tickers nvarchar(max)
+	, @status_submitted char(4)
+	, @tt_buy char(3)
+	, @tt_sell char(3)
+	, @tt_stop char(3)
+AS
+BEGIN
+	SET NOCOUNT ON;
+
+	DECLARE @num_updated int;
+	DECLARE @requests TABLE
+	(
+		tr_t_id bigint PRIMARY KEY
+		, tr_bid_price float
+		, tr_tt_id char(3)
+		, tr_qty int
+		, tr_s_symb varchar(15)
+	);
+
+	WITH tickers AS
+	(
+		SELECT symbol, trade_price, trade_qty
+		FROM OPENJSON(@tickers)
+		WITH (symbol NVARCHAR(50), trade_price DECIMAL(10,2), trade_qty INT)
+	)
+	UPDATE last_trade
+	SET
+		lt_price = tickers.trade_price
+		, lt_vol = lt_vol + tickers.trade_qty
+		, lt_dts = CURRENT_TIMESTAMP
+	FROM tickers
+	WHERE last_trade.lt_s_symb = tickers.symbol;
+
+	SET @num_updated = @@ROWCOUNT;
+
+	WITH tickers AS
+	(
+		SELECT symbol, trade_price
+		FROM OPENJSON(@tickers)
+		WITH (symbol NVARCHAR(50), trade_price DECIMAL(10,2))
+	)
+	INSERT INTO @requests (tr_t_id, tr_bid_price, tr_tt_id, tr_qty, tr_s_symb)
+	SELECT DISTINCT tr_t_id, tr_bid_price, tr_tt_id, tr_qty, tr_s_symb
+	FROM
+		trade_request
+		INNER JOIN tickers ON tr_s_symb = symbol
+	WHERE
+		(tr_tt_id = @tt_buy AND tr_bid_price >= trade_price)
+		OR (tr_tt_id = @tt_sell AND tr_bid_price <= trade_price)
+		OR (tr_tt_id = @tt_stop AND tr_bid_price >= trade_price);
+
+	UPDATE trade
+	SET
+		t_dts = CURRENT_TIMESTAMP
+		, t_st_id = @status_submitted
+	WHERE t_id IN (SELECT tr_t_id FROM @requests);
+
+	DELETE FROM trade_request
+	WHERE tr_t_id IN (SELECT tr_t_id FROM @requests);
+
+	INSERT INTO trade_history (th_t_id, th_dts, th_st_id)
+	SELECT tr_t_id, CURRENT_TIMESTAMP, @status_submitted
+	FROM @requests;
+
+	-- one row per triggered request, or a single row without a request, so
+	-- that the client always gets num_updated
+	SELECT @num_updated AS num_updated, r.tr_t_id, r.tr_bid_price, r.tr_tt_id, r.tr_qty, r.tr_s_symb
+	FROM (SELECT 1 AS one) AS one LEFT JOIN @requests AS r ON 1 = 1;
+END
+GO
@@ -0,0 +1,538 @@
+-- The frames of Trade-Order, Trade-Result and Market-Feed that run more than
+-- one statement, as one function (or procedure) each, for --mode=procedures.
+-- Each one does the same work as the statements that the client runs in the
+-- default mode. The blocks are separated by GO lines.
+
+CREATE OR REPLACE FUNCTION trade_order_frame3
+(
+	p_acct_id bigint
+	, p_cust_id bigint
+	, p_cust_tier integer
+	, p_tax_status integer
+	, p_symbol varchar
+	, p_co_name varchar
+	, p_issue varchar
+	, p_trade_type_id varchar
+	, p_trade_qty bigint
+	, p_requested_price double precision
+	, p_is_lifo boolean
+	, p_type_is_margin boolean
+)
+RETURNS TABLE
+(
+	co_id bigint
+	, exch_id varchar
+	, s_name varchar
+	, symbol varchar
+	, market_price double precision
+	, type_is_market boolean
+	, type_is_sell boolean
+	, requested_price double precision
+	, buy_value double precision
+	, sell_value double precision
+	, tax_amount double precision
+	, charge_amount double precision
+	, comm_rate double precision
+	, acct_assets double precision
+)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+	v_hs_qty integer;
+	v_needed_qty bigint := p_trade_qty;
+	v_tax_rate double precision;
+	v_hold record;
+BEGIN
+	IF COALESCE(btrim(p_symbol), '') = '' THEN
+		SELECT c.co_id, s.s_ex_id, s.s_name, s.s_symb
+		INTO co_id, exch_id, s_name, symbol
+		FROM company c INNER JOIN security s ON c.co_id = s.s_co_id
+		WHERE c.co_name = p_co_name AND s.s_issue = p_issue;
+	ELSE
+		SELECT c.co_id, s.s_ex_id, s.s_name, s.s_symb
+		INTO co_id, exch_id, s_name, symbol
+		FROM company c INNER JOIN security s ON c.co_id = s.s_co_id
+		WHERE s.s_symb = p_symbol;
+	END IF;
+
+	SELECT lt.lt_price
+	INTO market_price
+	FROM last_trade lt
+	WHERE lt.lt_s_symb = symbol;
+
+	SELECT tt.tt_is_mrkt, tt.tt_is_sell
+	INTO type_is_market, type_is_sell
+	FROM trade_type tt
+	WHERE tt.tt_id = p_trade_type_id;
+
+	requested_price := CASE WHEN type_is_market THEN market_price ELSE p_requested_price END;
+	buy_value := 0;
+	sell_value := 0;
+
+	SELECT hs.hs_qty
+	INTO v_hs_qty
+	FROM holding_summary hs
+	WHERE hs.hs_ca_id = p_acct_id AND hs.hs_s_symb = symbol;
+
+	v_hs_qty := COALESCE(v_hs_qty, 0);
+
+	-- estimate the profit of closing the long positions (sell) or covering
+	-- the short positions (buy) held in the security
+	IF (type_is_sell AND v_hs_qty > 0) OR (NOT type_is_sell AND v_hs_qty < 0) THEN
+		FOR v_hold IN
+			SELECT h.h_qty, h.h_price::double precision AS h_price
+			FROM holding h
+			WHERE h.h_ca_id = p_acct_id AND h.h_s_symb = symbol
+			ORDER BY
+				CASE WHEN p_is_lifo THEN h.h_dts END DESC
+				, CASE WHEN NOT p_is_lifo THEN h.h_dts END ASC
+		LOOP
+			EXIT WHEN v_needed_qty = 0;
+
+			IF type_is_sell THEN
+				IF v_hold.h_qty > v_needed_qty THEN
+					buy_value := buy_value + v_needed_qty * v_hold.h_price;
+					sell_value := sell_value + v_needed_qty * requested_price;
+					v_needed_qty := 0;
+				ELSE
+					buy_value := buy_value + v_hold.h_qty * v_hold.h_price;
+					sell_value := sell_value + v_hold.h_qty * requested_price;
+					v_needed_qty := v_needed_qty - v_hold.h_qty;
+				END IF;
+			ELSE
+				IF v_hold.h_qty + v_needed_qty < 0 THEN
+					buy_value := buy_value + v_needed_qty * requested_price;
+					sell_value := sell_value + v_needed_qty * v_hold.h_price;
+					v_needed_qty := 0;
+				ELSE
+					buy_value := buy_value - v_hold.h_qty * requested_price;
+					sell_value := sell_value - v_hold.h_qty * v_hold.h_price;
+					v_needed_qty := v_needed_qty + v_hold.h_qty;
+				END IF;
+			END IF;
+		END LOOP;
+	END IF;
+
+	tax_amount := 0;
+
+	IF sell_value > buy_value AND p_tax_status IN (1, 2) THEN
+		SELECT SUM(tx.tx_rate)
+		INTO v_tax_rate
+		FROM taxrate tx
+		WHERE tx.tx_id IN (SELECT cx.cx_tx_id FROM customer_taxrate cx WHERE cx.cx_c_id = p_cust_id);
+
+		tax_amount := (sell_value - buy_value) * v_tax_rate;
+	END IF;
+
+	SELECT ch.ch_chrg, cr.cr_rate
+	INTO charge_amount, comm_rate
+	FROM commission_rate cr, charge ch
+	WHERE
+		cr.cr_c_tier = p_cust_tier
+		AND cr.cr_tt_id = p_trade_type_id
+		AND cr.cr_ex_id = exch_id
+		AND cr.cr_from_qty <= p_trade_qty
+		AND cr.cr_to_qty >= p_trade_qty
+		AND ch.ch_c_tier = cr.cr_c_tier
+		AND ch.ch_tt_id = cr.cr_tt_id;
+
+	acct_assets := 0;
+
+	IF p_type_is_margin THEN
+		SELECT COALESCE(ha.hold_asset, ca.ca_bal)
+		INTO acct_assets
+		FROM
+			customer_account ca
+			, (
+				SELECT NULL::numeric AS hold_asset, p_acct_id AS hs_ca_id
+				UNION ALL
+				SELECT SUM(hs.hs_qty * lt.lt_price), hs.hs_ca_id
+				FROM holding_summary hs, last_trade lt
+				WHERE hs.hs_ca_id = p_acct_id AND lt.lt_s_symb = hs.hs_s_symb
+				GROUP BY hs.hs_ca_id
+			) AS ha
+		WHERE ca.ca_id = ha.hs_ca_id;
+	END IF;
+
+	RETURN NEXT;
+END;
+$$
+GO
+
+CREATE OR REPLACE FUNCTION trade_order_frame4
+(
+	p_trade_dts timestamp
+	, p_status_id varchar
+	, p_trade_type_id varchar
+	, p_is_cash boolean
+	, p_symbol varchar
+	, p_trade_qty bigint
+	, p_requested_price double precision
+	, p_acct_id bigint
+	, p_exec_name varchar
+	, p_charge_amount double precision
+	, p_comm_amount double precision
+	, p_is_lifo boolean
+	, p_is_limit boolean
+	, p_broker_id bigint
+)
+RETURNS TABLE (trade_id bigint)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+	v_t_id bigint;
+BEGIN
+	INSERT INTO trade
+	(
+		t_dts
+		, t_st_id
+		, t_tt_id
+		, t_is_cash
+		, t_s_symb
+		, t_qty
+		, t_bid_price
+		, t_ca_id
+		, t_exec_name
+		, t_trade_price
+		, t_chrg
+		, t_comm
+		, t_tax
+		, t_lifo
+	)
+	VALUES
+	(
+		p_trade_dts
+		, p_status_id
+		, p_trade_type_id
+		, p_is_cash
+		, p_symbol
+		, p_trade_qty
+		, p_requested_price
+		, p_acct_id
+		, p_exec_name
+		, NULL
+		, p_charge_amount
+		, p_comm_amount
+		, 0
+		, p_is_lifo
+	)
+	RETURNING t_id INTO v_t_id;
+
+	IF p_is_limit THEN
+		INSERT INTO trade_request (tr_t_id, tr_tt_id, tr_s_symb, tr_qty, tr_bid_price, tr_b_id)
+		VALUES (v_t_id, p_trade_type_id, p_symbol, p_trade_qty, p_requested_price, p_broker_id);
+	END IF;
+
+	INSERT INTO trade_history (th_t_id, th_dts, th_st_id)
+	VALUES (v_t_id, p_trade_dts, p_status_id);
+
+	RETURN QUERY SELECT v_t_id;
+END;
+$$
+GO
+
+CREATE OR REPLACE FUNCTION trade_result_frame2
+(
+	p_trade_id bigint
+	, p_acct_id bigint
+	, p_symbol varchar
+	, p_trade_qty integer
+	, p_hs_qty integer
+	, p_type_is_sell boolean
+	, p_is_lifo boolean
+	, p_trade_price double precision
+	, p_trade_dts timestamp
+)
+RETURNS TABLE (broker_id bigint, cust_id bigint, tax_status integer, buy_value double precision, sell_value double precision)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+	v_needed_qty integer := p_trade_qty;
+	v_buy_value double precision := 0;
+	v_sell_value double precision := 0;
+	v_hold record;
+BEGIN
+	SELECT ca_b_id, ca_c_id, ca_tax_st
+	INTO broker_id, cust_id, tax_status
+	FROM customer_account
+	WHERE ca_id = p_acct_id;
+
+	IF p_type_is_sell THEN
+
+		IF p_hs_qty = 0 THEN
+			INSERT INTO holding_summary (hs_ca_id, hs_s_symb, hs_qty)
+			VALUES (p_acct_id, p_symbol, -p_trade_qty);
+		ELSIF p_hs_qty <> p_trade_qty THEN
+			UPDATE holding_summary
+			SET hs_qty = p_hs_qty - p_trade_qty
+			WHERE hs_ca_id = p_acct_id AND hs_s_symb = p_symbol;
+		END IF;
+
+		IF p_hs_qty > 0 THEN
+			FOR v_hold IN
+				SELECT h_t_id, h_qty, h_price::double precision AS h_price
+				FROM holding
+				WHERE h_ca_id = p_acct_id AND h_s_symb = p_symbol
+				ORDER BY
+					CASE WHEN p_is_lifo THEN h_dts END DESC
+					, CASE WHEN NOT p_is_lifo THEN h_dts END ASC
+			LOOP
+				EXIT WHEN v_needed_qty <= 0;
+
+				IF v_hold.h_qty > v_needed_qty THEN
+					INSERT INTO holding_history (hh_h_t_id, hh_t_id, hh_before_qty, hh_after_qty)
+					VALUES (v_hold.h_t_id, p_trade_id, v_hold.h_qty, v_hold.h_qty - v_needed_qty);
+
+					UPDATE holding SET h_qty = v_hold.h_qty - v_needed_qty WHERE h_t_id = v_hold.h_t_id;
+
+					v_buy_value := v_buy_value + v_needed_qty * v_hold.h_price;
+					v_sell_value := v_sell_value + v_needed_qty * p_trade_price;
+					v_needed_qty := 0;
+				ELSE
+					INSERT INTO holding_history (hh_h_t_id, hh_t_id, hh_before_qty, hh_after_qty)
+					VALUES (v_hold.h_t_id, p_trade_id, v_hold.h_qty, 0);
+
+					DELETE FROM holding WHERE h_t_id = v_hold.h_t_id;
+
+					v_buy_value := v_buy_value + v_hold.h_qty * v_hold.h_price;
+					v_sell_value := v_sell_value + v_hold.h_qty * p_trade_price;
+					v_needed_qty := v_needed_qty - v_hold.h_qty;
+				END IF;
+			END LOOP;
+		END IF;
+
+		-- need to sell more? go short
+		IF v_needed_qty > 0 THEN
+			INSERT INTO holding_history (hh_h_t_id, hh_t_id, hh_before_qty, hh_after_qty)
+			VALUES (p_trade_id, p_trade_id, 0, -v_needed_qty);
+
+			INSERT INTO holding (h_t_id, h_ca_id, h_s_symb, h_dts, h_price, h_qty)
+			VALUES (p_trade_id, p_acct_id, p_symbol, p_trade_dts, p_trade_price, -v_needed_qty);
+		ELSIF p_hs_qty = p_trade_qty THEN
+			DELETE FROM holding_summary WHERE hs_ca_id = p_acct_id AND hs_s_symb = p_symbol;
+		END IF;
+
+	ELSE
+
+		IF p_hs_qty = 0 THEN
+			INSERT INTO holding_summary (hs_ca_id, hs_s_symb, hs_qty)
+			VALUES (p_acct_id, p_symbol, -p_trade_qty);
+		ELSIF -p_hs_qty <> p_trade_qty THEN
+			UPDATE holding_summary
+			SET hs_qty = p_hs_qty - (p_hs_qty + p_trade_qty)
+			WHERE hs_ca_id = p_acct_id AND hs_s_symb = p_symbol;
+		END IF;
+
+		IF p_hs_qty < 0 THEN
+			FOR v_hold IN
+				SELECT h_t_id, h_qty, h_price::double precision AS h_price
+				FROM holding
+				WHERE h_ca_id = p_acct_id AND h_s_symb = p_symbol
+				ORDER BY
+					CASE WHEN p_is_lifo THEN h_dts END DESC
+					, CASE WHEN NOT p_is_lifo THEN h_dts END ASC
+			LOOP
+				EXIT WHEN v_needed_qty <= 0;
+
+				IF v_hold.h_qty + v_needed_qty < 0 THEN
+					INSERT INTO holding_history (hh_h_t_id, hh_t_id, hh_before_qty, hh_after_qty)
+					VALUES (v_hold.h_t_id, p_trade_id, v_hold.h_qty, v_hold.h_qty + v_needed_qty);
+
+					UPDATE holding SET h_qty = v_hold.h_qty + v_needed_qty WHERE h_t_id = v_hold.h_t_id;
+
+					v_sell_value := v_sell_value + v_needed_qty * v_hold.h_price;
+					v_buy_value := v_buy_value + v_needed_qty * p_trade_price;
+					v_needed_qty := 0;
+				ELSE
+					INSERT INTO holding_history (hh_h_t_id, hh_t_id, hh_before_qty, hh_after_qty)
+					VALUES (v_hold.h_t_id, p_trade_id, v_hold.h_qty, 0);
+
+					DELETE FROM holding WHERE h_t_id = v_hold.h_t_id;
+
+					v_sell_value := v_sell_value - v_hold.h_qty * v_hold.h_price;
+					v_buy_value := v_buy_value - v_hold.h_qty * p_trade_price;
+					v_needed_qty := v_needed_qty + v_hold.h_qty;
+				END IF;
+			END LOOP;
+		END IF;
+
+		-- all shorts are covered? a new long is created
+		IF v_needed_qty > 0 THEN
+			INSERT INTO holding_history (hh_h_t_id, hh_t_id, hh_before_qty, hh_after_qty)
+			VALUES (p_trade_id, p_trade_id, 0, v_needed_qty);
+
+			INSERT INTO holding (h_t_id, h_ca_id, h_s_symb, h_dts, h_price, h_qty)
+			VALUES (p_trade_id, p_acct_id, p_symbol, p_trade_dts, p_trade_price, v_needed_qty);
+		ELSIF -p_hs_qty = p_trade_qty THEN
+			DELETE FROM holding_summary WHERE hs_ca_id = p_acct_id AND hs_s_symb = p_symbol;
+		END IF;
+
+	END IF;
+
+	buy_value := v_buy_value;
+	sell_value := v_sell_value;
+
+	RETURN NEXT;
+END;
+$$
+GO
+
+CREATE OR REPLACE FUNCTION trade_result_frame3
+(
+	p_trade_id bigint
+	, p_cust_id bigint
+	, p_buy_value double precision
+	, p_sell_value double precision
+)
+RETURNS TABLE (tax_amount double precision)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+	v_tax_rate double precision;
+BEGIN
+	SELECT COALESCE(SUM(tx_rate), 0)
+	INTO v_tax_rate
+	FROM taxrate
+	WHERE tx_id IN (SELECT cx_tx_id FROM customer_taxrate WHERE cx_c_id = p_cust_id);
+
+	tax_amount := CASE WHEN p_sell_value > p_buy_value THEN (p_sell_value - p_buy_value) * v_tax_rate ELSE 0 END;
+
+	UPDATE trade SET t_tax = tax_amount WHERE t_id = p_trade_id;
+
+	RETURN NEXT;
+END;
+$$
+GO
+
+CREATE OR REPLACE PROCEDURE trade_result_frame5
+(
+	p_trade_id bigint
+	, p_trade_dts timestamp
+	, p_st_completed_id varchar
+	, p_trade_price double precision
+	, p_comm_amount double precision
+	, p_broker_id bigint
+)
+LANGUAGE plpgsql
+AS $$
+BEGIN
+	UPDATE trade
+	SET
+		t_comm = p_comm_amount
+		, t_dts = p_trade_dts
+		, t_st_id = p_st_completed_id
+		, t_trade_price = p_trade_price
+	WHERE t_id = p_trade_id;
+
+	INSERT INTO trade_history (th_t_id, th_dts, th_st_id)
+	VALUES (p_trade_id, p_trade_dts, p_st_completed_id);
+
+	UPDATE broker
+	SET
+		b_comm_total = b_comm_total + p_comm_amount
+		, b_num_trades = b_num_trades + 1
+	WHERE b_id = p_broker_id;
+END;
+$$
+GO
+
+CREATE OR REPLACE FUNCTION trade_result_frame6
+(
+	p_trade_id bigint
+	, p_acct_id bigint
+	, p_trade_dts timestamp
+	, p_due_date timestamp
+	, p_cash_type varchar
+	, p_se_amount double precision
+	, p_trade_is_cash boolean
+	, p_ct_name varchar
+)
+RETURNS TABLE (acct_bal double precision)
+LANGUAGE plpgsql
+AS $$
+BEGIN
+	INSERT INTO settlement (se_t_id, se_cash_type, se_cash_due_date, se_amt)
+	VALUES (p_trade_id, p_cash_type, p_due_date, p_se_amount);
+
+	IF p_trade_is_cash THEN
+		UPDATE customer_account SET ca_bal = ca_bal + p_se_amount WHERE ca_id = p_acct_id;
+
+		INSERT INTO cash_transaction (ct_t_id, ct_dts, ct_amt, ct_name)
+		VALUES (p_trade_id, p_trade_dts, p_se_amount, p_ct_name);
+	END IF;
+
+	RETURN QUERY SELECT ca_bal::double precision FROM customer_account WHERE ca_id = p_acct_id;
+END;
+$$
+GO
+
+CREATE OR REPLACE FUNCTION market_feed_frame1
+(
+	p_tickers jsonb
+	, p_status_submitted varchar
+	, p_tt_buy varchar
+	, p_tt_sell varchar
+	, p_tt_stop varchar
+)
+RETURNS TABLE
+(
+	num_updated integer
+	, tr_t_id bigint
+	, tr_bid_price double precision
+	, tr_tt_id varchar
+	, tr_qty integer
+	, tr_s_symb varchar
+)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+	v_num_updated integer;
+	v_trade_ids bigint[];
+BEGIN
+	UPDATE last_trade lt
+	SET
+		lt_price = t.trade_price
+		, lt_vol = lt.lt_vol + t.trade_qty
+		, lt_dts = CURRENT_TIMESTAMP
+	FROM jsonb_to_recordset(p_tickers) AS t(symbol varchar(15), trade_price decimal(8,2), trade_qty bigint)
+	WHERE lt.lt_s_symb = t.symbol;
+
+	GET DIAGNOSTICS v_num_updated = ROW_COUNT;
+
+	SELECT array_agg(DISTINCT tr.tr_t_id)
+	INTO v_trade_ids
+	FROM
+		trade_request tr
+		INNER JOIN jsonb_to_recordset(p_tickers) AS t(symbol text, trade_price numeric) ON tr.tr_s_symb = t.symbol
+	WHERE
+		(tr.tr_tt_id = p_tt_buy AND tr.tr_bid_price >= t.trade_price)
+		OR (tr.tr_tt_id = p_tt_sell AND tr.tr_bid_price <= t.trade_price)
+		OR (tr.tr_tt_id = p_tt_stop AND tr.tr_bid_price >= t.trade_price);
+
+	-- one row per triggered request, or a single row without a request, so
+	-- that the client always gets num_updated
+	IF v_trade_ids IS NULL THEN
+		num_updated := v_num_updated;
+		RETURN NEXT;
+		RETURN;
+	END IF;
+
+	RETURN QUERY
+	SELECT v_num_updated, tr.tr_t_id, tr.tr_bid_price::double precision, tr.tr_tt_id::varchar, tr.tr_qty, tr.tr_s_symb::varchar
+	FROM trade_request tr
+	WHERE tr.tr_t_id = ANY (v_trade_ids);
+
+	UPDATE trade
+	SET
+		t_dts = CURRENT_TIMESTAMP
+		, t_st_id = p_status_submitted
+	WHERE t_id = ANY (v_trade_ids);
+
+	DELETE FROM trade_request tr
+	WHERE tr.tr_t_id = ANY (v_trade_ids);
+
+	INSERT INTO trade_history (th_t_id, th_dts, th_st_id)
+	SELECT unnest(v_trade_ids), CURRENT_TIMESTAMP, p_status_submitted;
+END;
+$$
+GO
@@ -0,0 +1,39 @@
+package org.oltp1.runner.db;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class DeferredStatementTest
+{
+	@Test
+	public void testJoin()
+	{
+		final DeferredStatement history = new DeferredStatement("INSERT INTO holding_history VALUES (:hold_id, :trade_id, :hold_qty, :after_qty);\n");
+		final DeferredStatement holding = new DeferredStatement("UPDATE holding SET h_qty = :qty WHERE h_t_id = :hold_id");
+
+		final String joined = DbSession.join(List.of(history, holding));
+
+		assertEquals("INSERT INTO holding_history VALUES (:hold_id, :trade_id, :hold_qty, :after_qty);\nUPDATE holding SET h_qty = :qty WHERE h_t_id = :hold_id", joined);
+
+		// the placeholders of the second statement follow those of the first
+		final NamedSql sql = NamedSql.of(joined);
+		assertEquals(history.getSql().getPlaceholderCount() + holding.getSql().getPlaceholderCount(), sql.getPlaceholderCount());
+		assertArrayEquals(new int[] { 1, 6 }, sql.getPositions(sql.indexOf("hold_id")));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testUnboundParameter()
+	{
+		new DeferredStatement("DELETE FROM holding WHERE h_t_id = :hold_id").bindTo(null, 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownParameter()
+	{
+		new DeferredStatement("DELETE FROM holding WHERE h_t_id = :hold_id").bind("trade_id", 1L);
+	}
+}
@@ -0,0 +1,43 @@
+package org.oltp1.runner.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+import org.oltp1.runner.perf.TxStatsCollector;
+
+public class InstrumentedDataSourceTest
+{
+	@Test
+	public void testPermitIsReleasedOnce() throws SQLException
+	{
+		final DataSource pool = mock(DataSource.class);
+		final Connection physical = mock(Connection.class);
+		when(pool.getConnection()).thenReturn(physical);
+
+		final TxStatsCollector waits = new TxStatsCollector("pool");
+		final InstrumentedDataSource ds = new InstrumentedDataSource(pool, 1, waits);
+
+		final Connection con = ds.getConnection();
+		con.commit();
+		con.close();
+		con.close();
+
+		verify(physical).commit();
+		verify(physical, times(2)).close();
+
+		// the single permit is back, the next caller does not wait
+		final Connection next = ds.getConnection();
+		next.close();
+		assertEquals(0, ds.getQueuedClients());
+		assertEquals(2, waits.getStats().getCount());
+	}
+}
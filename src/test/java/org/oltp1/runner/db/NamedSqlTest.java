@@ -0,0 +1,31 @@
+package org.oltp1.runner.db;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class NamedSqlTest
+{
+	@Test
+	public void testParse_RepeatedParameter()
+	{
+		NamedSql sql = NamedSql.parse("SELECT * FROM trade WHERE t_id >= :id AND t_ca_id = :acct_id AND t_id < :id + 10");
+
+		assertEquals("SELECT * FROM trade WHERE t_id >= ? AND t_ca_id = ? AND t_id < ? + 10", sql.getSql());
+		assertEquals(2, sql.getParameterCount());
+		assertArrayEquals(new int[] { 1, 3 }, sql.getPositions(sql.indexOf("id")));
+		assertArrayEquals(new int[] { 2 }, sql.getPositions(sql.indexOf("acct_id")));
+		assertEquals(-1, sql.indexOf("missing"));
+	}
+
+	@Test
+	public void testParse_SkipsCastsLiteralsAndComments()
+	{
+		NamedSql sql = NamedSql.parse("SELECT ':not_a_param', \"col:x\" -- :comment\nFROM t /* :block */ WHERE c = :val::numeric");
+
+		assertEquals("SELECT ':not_a_param', \"col:x\" -- :comment\nFROM t /* :block */ WHERE c = ?::numeric", sql.getSql());
+		assertEquals(1, sql.getParameterCount());
+		assertArrayEquals(new int[] { 1 }, sql.getPositions(sql.indexOf("val")));
+	}
+}
@@ -0,0 +1,176 @@
+package org.oltp1.runner.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class PinnedConnectionsTest
+{
+	private final PinnedConnections pins = new PinnedConnections("jdbc:fake:tpce", FakeDriver.class.getName());
+
+	@After
+	public void closeAll()
+	{
+		pins.closeAll();
+	}
+
+	@Test
+	public void testOneConnectionPerThread() throws Exception
+	{
+		final Connection con = pins.get();
+		assertSame(con, pins.get());
+
+		final AtomicReference<Connection> other = new AtomicReference<>();
+		final Thread t = new Thread(() -> {
+			try
+			{
+				other.set(pins.get());
+			}
+			catch (SQLException e)
+			{
+				throw new RuntimeException(e);
+			}
+		});
+		t.start();
+		t.join();
+
+		assertNotSame(con, other.get());
+		assertEquals(2, pins.size());
+
+		// the connection of the ended thread is closed when the next one opens
+		pins.release();
+		pins.get();
+		assertEquals(1, pins.size());
+		assertTrue(other.get().isClosed());
+	}
+
+	@Test
+	public void testReconnectAfterFailedRollback() throws Exception
+	{
+		final Connection con = pins.get();
+
+		try (DbSession session = new DbSession(con, pins))
+		{
+			FakeDriver.failRollback = true;
+		}
+		catch (RuntimeException e)
+		{
+			// the rollback failed
+		}
+		finally
+		{
+			FakeDriver.failRollback = false;
+		}
+
+		assertTrue(con.isClosed());
+		assertNotSame(con, pins.get());
+	}
+
+	@Test
+	public void testKeptAfterCommit() throws Exception
+	{
+		final Connection con = pins.get();
+
+		try (DbSession session = new DbSession(con, pins))
+		{
+			session.commit();
+		}
+
+		assertSame(con, pins.get());
+
+		try (DbSession session = new DbSession(con, pins))
+		{
+			// rolled back on close
+		}
+
+		assertSame(con, pins.get());
+		assertFalse(con.isClosed());
+	}
+
+	public static class FakeDriver implements Driver
+	{
+		static volatile boolean failRollback = false;
+
+		@Override
+		public Connection connect(String url, Properties info)
+		{
+			final boolean[] isClosed = { false };
+
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+				switch (method.getName())
+				{
+				case "close":
+					isClosed[0] = true;
+					return null;
+				case "isClosed":
+					return isClosed[0];
+				case "unwrap":
+					return proxy;
+				case "rollback":
+					if (failRollback)
+					{
+						throw new SQLException("Connection reset");
+					}
+					return null;
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "equals":
+					return proxy == args[0];
+				default:
+					return null;
+				}
+			});
+		}
+
+		@Override
+		public boolean acceptsURL(String url)
+		{
+			return url.startsWith("jdbc:fake:");
+		}
+
+		@Override
+		public DriverPropertyInfo[] getPropertyInfo(String url, Properties info)
+		{
+			return new DriverPropertyInfo[0];
+		}
+
+		@Override
+		public int getMajorVersion()
+		{
+			return 1;
+		}
+
+		@Override
+		public int getMinorVersion()
+		{
+			return 0;
+		}
+
+		@Override
+		public boolean jdbcCompliant()
+		{
+			return false;
+		}
+
+		@Override
+		public Logger getParentLogger() throws SQLFeatureNotSupportedException
+		{
+			throw new SQLFeatureNotSupportedException();
+		}
+	}
+}
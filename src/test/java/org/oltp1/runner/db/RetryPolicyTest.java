@@ -0,0 +1,57 @@
+package org.oltp1.runner.db;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+
+import org.junit.Test;
+
+public class RetryPolicyTest
+{
+	@Test
+	public void testIsRetryable_SqlState()
+	{
+		final RetryPolicy policy = new RetryPolicy(SqlEngine.POSTGRESQL, 3, 0);
+
+		assertTrue(policy.isRetryable(new SQLException("could not serialize access", "40001")));
+		assertTrue(policy.isRetryable(new SQLException("deadlock detected", "40P01")));
+		assertFalse(policy.isRetryable(new SQLException("duplicate key value", "23505")));
+		assertFalse(policy.isRetryable(new IllegalStateException("not a database error")));
+	}
+
+	@Test
+	public void testIsRetryable_VendorCode()
+	{
+		final SQLException snapshotConflict = new SQLException("Snapshot isolation transaction aborted", "S0005", 3960);
+
+		assertTrue(new RetryPolicy(SqlEngine.MSSQL, 3, 0).isRetryable(snapshotConflict));
+		assertFalse(new RetryPolicy(SqlEngine.POSTGRESQL, 3, 0).isRetryable(snapshotConflict));
+		assertTrue(new RetryPolicy(SqlEngine.MARIADB, 3, 0).isRetryable(new SQLException("Record has changed", "HY000", 1020)));
+	}
+
+	@Test
+	public void testIsRetryable_Cause()
+	{
+		final RetryPolicy policy = new RetryPolicy(SqlEngine.ORIOLEDB, 3, 0);
+
+		assertTrue(policy.isRetryable(new RuntimeException(new SQLException("could not serialize access", "40001"))));
+	}
+
+	@Test
+	public void testShouldRetry()
+	{
+		final RetryPolicy policy = new RetryPolicy(SqlEngine.POSTGRESQL, 2, 10);
+		final SQLException deadlock = new SQLException("deadlock detected", "40P01");
+
+		assertTrue(policy.shouldRetry(deadlock, 1));
+		assertTrue(policy.shouldRetry(deadlock, 2));
+		assertFalse(policy.shouldRetry(deadlock, 3));
+
+		for (int retry = 1; retry <= 10; retry++)
+		{
+			final long backoff = policy.backoffMillis(retry);
+			assertTrue(backoff >= 0 && backoff <= Math.min(1000L, 10L << (retry - 1)));
+		}
+	}
+}
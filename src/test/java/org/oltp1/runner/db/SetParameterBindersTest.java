@@ -0,0 +1,25 @@
+package org.oltp1.runner.db;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class SetParameterBindersTest
+{
+	@Test
+	public void testCsv()
+	{
+		assertEquals("200000000000001,200000000000002", CsvSetBinder.encode(List.of(200000000000001L, 200000000000002L)));
+		assertEquals("", CsvSetBinder.encode(List.of()));
+	}
+
+	@Test
+	public void testJson()
+	{
+		assertEquals("[200000000000001,200000000000002]", JsonSetBinder.encode(List.of(200000000000001L, 200000000000002L)));
+		assertEquals("[\"Broker \\\"A\\\"\",\"B\\\\C\"]", JsonSetBinder.encode(List.of("Broker \"A\"", "B\\C")));
+		assertEquals("[]", JsonSetBinder.encode(List.of()));
+	}
+}
@@ -0,0 +1,76 @@
+package org.oltp1.runner.db;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class StatementCacheTest
+{
+	@Test
+	public void testBatchesAreBounded() throws SQLException
+	{
+		final Connection con = mock(Connection.class);
+		final List<PreparedStatement> prepared = new ArrayList<>();
+		when(con.prepareStatement(anyString())).thenAnswer(inv -> {
+			final PreparedStatement ps = mock(PreparedStatement.class);
+			prepared.add(ps);
+			return ps;
+		});
+
+		final StatementCache cache = StatementCache.of(con);
+		final int batches = StatementCache.MAX_BATCHES + 8;
+
+		for (int i = 0; i < batches; i++)
+		{
+			cache.getBatch(batch(i));
+		}
+
+		// the oldest batches are closed, the most recent ones kept
+		for (int i = 0; i < 8; i++)
+		{
+			verify(prepared.get(i)).close();
+		}
+		for (int i = 8; i < batches; i++)
+		{
+			verify(prepared.get(i), never()).close();
+		}
+
+		final DbStatement last = cache.getBatch(batch(batches - 1));
+		assertSame(last, cache.getBatch(batch(batches - 1)));
+		verify(con, times(batches)).prepareStatement(anyString());
+	}
+
+	@Test
+	public void testStatementsAreKept() throws SQLException
+	{
+		final Connection con = mock(Connection.class);
+		when(con.prepareStatement(anyString())).thenAnswer(inv -> mock(PreparedStatement.class));
+
+		final StatementCache cache = StatementCache.of(con);
+		final DbStatement first = cache.get(batch(0), false);
+
+		for (int i = 1; i <= StatementCache.MAX_BATCHES * 2; i++)
+		{
+			cache.get(batch(i), false);
+		}
+
+		assertSame(first, cache.get(batch(0), false));
+	}
+
+	private static String batch(int holdings)
+	{
+		return "UPDATE holding SET h_qty = :qty WHERE h_t_id = :hold_id;\n".repeat(holdings) + "DELETE FROM holding_summary WHERE hs_ca_id = :acct_id";
+	}
+}
@@ -4,6 +4,7 @@ import org.oltp1.runner.model.CustomerTier;
 import org.oltp1.runner.model.RandomCustomer;
 import org.oltp1.runner.tx.customer_position.TxCustomerPositionInput;
 import org.junit.Before;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -30,6 +31,14 @@ public class CustomerPositionInputGeneratorTest {
     private final String fakeTaxId = "FAKE12345TAXID";
     private final long FIXED_SEED = 12345L; // Use a fixed seed for deterministic behavior
 
+    @BeforeClass
+    public static void setUpRandom() {
+        // The expected paths follow the stream of the default seed, drawn by
+        // the test thread as the stream of client 0.
+        ThreadLocalCRandom.setSeed(ThreadLocalCRandom.DEFAULT_SEED);
+        ThreadLocalCRandom.assignClient(0);
+    }
+
     @Before
     public void setUp() {
         // Use a real CRandom object with a fixed seed to make its output predictable.
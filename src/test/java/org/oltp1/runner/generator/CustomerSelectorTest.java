@@ -0,0 +1,77 @@
+package org.oltp1.runner.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class CustomerSelectorTest
+{
+	private static final long START_FROM_CUSTOMER = 4300000001L;
+	private static final long LOAD_UNIT = START_FROM_CUSTOMER / 1000;
+
+	@Test
+	public void testPartitionOfTheClient()
+	{
+		CustomerSelector selector = new CustomerSelector(START_FROM_CUSTOMER, 5000);
+		selector.partitionByCustomer(5, 100);
+		selector.assignPartition(7);
+
+		for (int i = 0; i < 1000; i++)
+		{
+			long cId = selector.randomCustomer().cId;
+			assertEquals(LOAD_UNIT + 2, (cId - 1) / 1000);
+		}
+	}
+
+	@Test
+	public void testSpill()
+	{
+		CustomerSelector selector = new CustomerSelector(START_FROM_CUSTOMER, 5000);
+		selector.partitionByCustomer(5, 50);
+		selector.assignPartition(0);
+
+		int inside = 0;
+		for (int i = 0; i < 10000; i++)
+		{
+			if ((selector.randomCustomer().cId - 1) / 1000 == LOAD_UNIT)
+			{
+				inside++;
+			}
+		}
+
+		// 50% inside the partition, plus a fifth of the rest
+		assertTrue("inside " + inside, inside > 5500 && inside < 6500);
+	}
+
+	@Test
+	public void testNoPartitionWithoutClient()
+	{
+		CustomerSelector selector = new CustomerSelector(START_FROM_CUSTOMER, 5000);
+		selector.partitionByCustomer(5, 100);
+
+		Set<Long> loadUnits = new HashSet<>();
+		for (int i = 0; i < 1000; i++)
+		{
+			loadUnits.add((selector.randomCustomer().cId - 1) / 1000);
+		}
+
+		assertEquals(5, loadUnits.size());
+	}
+
+	@Test
+	public void testAtMostOnePartitionPerLoadUnit()
+	{
+		CustomerSelector selector = new CustomerSelector(START_FROM_CUSTOMER, 2000);
+		selector.partitionByCustomer(8, 100);
+		selector.assignPartition(3);
+
+		for (int i = 0; i < 1000; i++)
+		{
+			assertEquals(LOAD_UNIT + 1, (selector.randomCustomer().cId - 1) / 1000);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package org.oltp1.runner.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class InputRingTest
+{
+	@Test
+	public void testOfferAndPoll()
+	{
+		InputRing<Integer> ring = new InputRing<>(3);
+
+		assertNull(ring.poll());
+		assertTrue(ring.offer(1));
+		assertTrue(ring.offer(2));
+		assertTrue(ring.offer(3));
+		assertTrue(ring.isFull());
+		assertFalse(ring.offer(4));
+
+		assertEquals(Integer.valueOf(1), ring.poll());
+		assertTrue(ring.offer(4));
+		assertEquals(Integer.valueOf(2), ring.poll());
+		assertEquals(Integer.valueOf(3), ring.poll());
+		assertEquals(Integer.valueOf(4), ring.poll());
+		assertNull(ring.poll());
+		assertEquals(0, ring.size());
+	}
+
+	@Test
+	public void testEveryInputTakenOnce() throws InterruptedException
+	{
+		final int inputs = 200000;
+		final InputRing<Integer> ring = new InputRing<>(64);
+		final ConcurrentHashMap<Integer, Boolean> taken = new ConcurrentHashMap<>();
+		final AtomicBoolean isProducing = new AtomicBoolean(true);
+
+		final List<Thread> clients = new ArrayList<>();
+		for (int c = 0; c < 4; c++)
+		{
+			clients.add(Thread.ofPlatform().start(() -> {
+				while (isProducing.get() || ring.size() > 0)
+				{
+					Integer txInput = ring.poll();
+					if (txInput != null)
+					{
+						assertNull("taken twice: " + txInput, taken.put(txInput, Boolean.TRUE));
+					}
+				}
+			}));
+		}
+
+		for (int i = 0; i < inputs; i++)
+		{
+			while (!ring.offer(i))
+			{
+				Thread.onSpinWait();
+			}
+		}
+		isProducing.set(false);
+
+		for (Thread client : clients)
+		{
+			client.join();
+		}
+
+		assertEquals(inputs, taken.size());
+	}
+}
@@ -0,0 +1,126 @@
+package org.oltp1.runner.generator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ThreadLocalCRandomTest
+{
+	private static final long SEED = 4242L;
+
+	@After
+	public void tearDown()
+	{
+		ThreadLocalCRandom.setSeed(ThreadLocalCRandom.DEFAULT_SEED);
+	}
+
+	@Test
+	public void testClientStreamDoesNotDependOnTheThread() throws InterruptedException
+	{
+		ThreadLocalCRandom.setSeed(SEED);
+		final int[] first = drawOnNewThread(false, 3, 5);
+
+		ThreadLocalCRandom.setSeed(SEED);
+		// a thread that first draws from a worker stream does not shift the
+		// stream of the client
+		final int[] second = drawOnNewThread(true, 3, 5);
+
+		assertArrayEquals(first, second);
+	}
+
+	@Test
+	public void testClientStreamCarriesOnAcrossThreads() throws InterruptedException
+	{
+		ThreadLocalCRandom.setSeed(SEED);
+		final int[] oneThread = drawOnNewThread(false, 1, 6);
+
+		ThreadLocalCRandom.setSeed(SEED);
+		final int[] firstRun = drawOnNewThread(false, 1, 3);
+		final int[] secondRun = drawOnNewThread(false, 1, 3);
+
+		assertArrayEquals(oneThread, new int[] { firstRun[0], firstRun[1], firstRun[2], secondRun[0], secondRun[1], secondRun[2] });
+	}
+
+	@Test
+	public void testStreamsSkipAheadFromTheSeed() throws InterruptedException
+	{
+		ThreadLocalCRandom.setSeed(SEED);
+
+		final CRandom random = new CRandom(SEED);
+		assertEquals(SEED, ThreadLocalCRandom.newStream(0).getSeed());
+		assertEquals(random.rndNthElement(SEED, 2 * ThreadLocalCRandom.STREAM_LENGTH), ThreadLocalCRandom.newStream(2).getSeed());
+		assertNotEquals(drawOnNewThread(false, 0, 4)[0], drawOnNewThread(false, 1, 4)[0]);
+	}
+
+	@Test
+	public void testMeeStreamsAreReservedAfterTheClients() throws InterruptedException
+	{
+		ThreadLocalCRandom.setSeed(SEED);
+
+		// the first MEE stream follows the last client stream
+		final int expected = ThreadLocalCRandom.newStream(ThreadLocalCRandom.MAX_CLIENTS).rndIntRange(0, 1000000);
+		assertEquals(expected, drawMeeOnNewThread(0, 1)[0]);
+
+		// the stream carries on from task to task, whichever thread runs it
+		ThreadLocalCRandom.setSeed(SEED);
+		final int[] oneTask = drawMeeOnNewThread(3, 4);
+
+		ThreadLocalCRandom.setSeed(SEED);
+		final int[] firstTask = drawMeeOnNewThread(3, 2);
+		final int[] secondTask = drawMeeOnNewThread(3, 2);
+
+		assertArrayEquals(oneTask, new int[] { firstTask[0], firstTask[1], secondTask[0], secondTask[1] });
+	}
+
+	private static int[] drawMeeOnNewThread(int worker, int count) throws InterruptedException
+	{
+		final AtomicReference<int[]> draws = new AtomicReference<>();
+
+		final Thread thread = new Thread(() -> {
+			// a thread that first drew from a worker stream
+			ThreadLocalCRandom.get().rndIntRange(0, 1000000);
+			ThreadLocalCRandom.assignMeeWorker(worker);
+
+			final int[] values = new int[count];
+			for (int i = 0; i < count; i++)
+			{
+				values[i] = ThreadLocalCRandom.get().rndIntRange(0, 1000000);
+			}
+			draws.set(values);
+		});
+
+		thread.start();
+		thread.join();
+		return draws.get();
+	}
+
+	private static int[] drawOnNewThread(boolean drawAsWorker, int client, int count) throws InterruptedException
+	{
+		final AtomicReference<int[]> draws = new AtomicReference<>();
+
+		final Thread thread = new Thread(() -> {
+			if (drawAsWorker)
+			{
+				ThreadLocalCRandom.get().rndIntRange(0, 1000000);
+			}
+
+			ThreadLocalCRandom.assignClient(client);
+
+			final int[] values = new int[count];
+			for (int i = 0; i < count; i++)
+			{
+				values[i] = ThreadLocalCRandom.get().rndIntRange(0, 1000000);
+			}
+			draws.set(values);
+		});
+
+		thread.start();
+		thread.join();
+		return draws.get();
+	}
+}
@@ -0,0 +1,55 @@
+package org.oltp1.runner.mee;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.oltp1.runner.model.TradeType;
+
+public class LimitOrderBookTest {
+
+    @Test
+    public void testOrdersLeaveTheBookOnce() {
+        LimitOrderBook book = new LimitOrderBook();
+        MeeOrder order = new MeeOrder(1, "AAA", 100, TradeType.LIMIT_BUY, 24.00);
+        book.add(order);
+        book.add(new MeeOrder(2, "BBB", 100, TradeType.LIMIT_SELL, 26.00));
+        assertEquals(2, book.getPendingOrders());
+
+        assertSame(order, book.remove(1));
+        assertNull(book.remove(1));
+        assertNull(book.remove(3));
+        assertEquals(1, book.getPendingOrders());
+    }
+
+    @Test
+    public void testTriggerRulesMatchMarketFeed() {
+        MeeOrder buy = new MeeOrder(1, "AAA", 100, TradeType.LIMIT_BUY, 24.00);
+        MeeOrder stop = new MeeOrder(2, "AAA", 100, TradeType.STOP_LOSS, 22.00);
+        MeeOrder sell = new MeeOrder(3, "AAA", 100, TradeType.LIMIT_SELL, 26.00);
+
+        assertTrue(buy.isTriggeredBy(24.00));
+        assertFalse(buy.isTriggeredBy(24.01));
+        assertTrue(stop.isTriggeredBy(21.00));
+        assertFalse(stop.isTriggeredBy(23.00));
+        assertTrue(sell.isTriggeredBy(26.50));
+        assertFalse(sell.isTriggeredBy(25.99));
+    }
+
+    @Test
+    public void testPriceStaysInRangeAndMoves() {
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (long t = 0; t < MeePriceBoard.PERIOD_NANOS; t += MeePriceBoard.PERIOD_NANOS / 1000) {
+            double p = MeePriceBoard.getPrice("AAA", t);
+            min = Math.min(min, p);
+            max = Math.max(max, p);
+        }
+        assertTrue(min >= MeePriceBoard.MIN_PRICE && min < 20.10);
+        assertTrue(max <= MeePriceBoard.MAX_PRICE && max > 29.90);
+        assertEquals(MeePriceBoard.getPrice("AAA", 0), MeePriceBoard.getPrice("AAA", MeePriceBoard.PERIOD_NANOS), 0.0);
+    }
+}
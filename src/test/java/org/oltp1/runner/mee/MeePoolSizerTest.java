@@ -0,0 +1,44 @@
+package org.oltp1.runner.mee;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class MeePoolSizerTest {
+
+    @Test
+    public void testGrowsOnBacklogAndShrinksWhenIdle() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(4, 4, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        try {
+            MeePoolSizer sizer = new MeePoolSizer(pool, () -> 0, 2, 10);
+
+            sizer.resize(5, 4);
+            assertEquals(6, pool.getMaximumPoolSize());
+            assertEquals(6, pool.getCorePoolSize());
+
+            sizer.resize(20, 6);
+            sizer.resize(20, 9);
+            assertEquals(10, pool.getMaximumPoolSize());
+
+            // shrinks only after several idle ticks
+            for (int i = 0; i < 4; i++) {
+                sizer.resize(0, 1);
+            }
+            assertEquals(10, pool.getMaximumPoolSize());
+            sizer.resize(0, 1);
+            assertEquals(8, pool.getMaximumPoolSize());
+            assertEquals(8, pool.getCorePoolSize());
+
+            for (int i = 0; i < 100; i++) {
+                sizer.resize(0, 0);
+            }
+            assertEquals(2, pool.getMaximumPoolSize());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
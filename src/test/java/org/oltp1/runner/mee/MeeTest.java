@@ -0,0 +1,105 @@
+package org.oltp1.runner.mee;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.oltp1.runner.model.TradeType;
+import org.oltp1.runner.perf.ThreadPoolBuilder;
+import org.oltp1.runner.tx.market_feed.TradeRequestRow;
+import org.oltp1.runner.tx.market_feed.TxMarketFeed;
+import org.oltp1.runner.tx.market_feed.TxMarketFeedOutput;
+import org.oltp1.runner.tx.trade_result.TxTradeResult;
+import org.oltp1.runner.tx.trade_result.TxTradeResultInput;
+
+public class MeeTest {
+
+    private final TxTradeResult txTradeResult = mock(TxTradeResult.class);
+    private final TxMarketFeed txMarketFeed = mock(TxMarketFeed.class);
+
+    private Mee newMee() {
+        // one ticker per Market-Feed
+        return new Mee(txTradeResult, txMarketFeed, ThreadPoolBuilder.newThreadPool(1, "mee-test"), 10, 1, 0);
+    }
+
+    @Test
+    public void testMarketOrderFillsAtItsLastTradePrice() {
+        Mee mee = newMee();
+        mee.submitOrder(new MeeOrder(1, "AAA", 100, TradeType.MARKET_BUY, 21.37));
+        mee.close();
+
+        ArgumentCaptor<TxTradeResultInput> captor = ArgumentCaptor.forClass(TxTradeResultInput.class);
+        verify(txTradeResult).offer(captor.capture());
+        assertEquals(1L, captor.getValue().trade_id);
+        assertEquals(21.37, captor.getValue().requested_price, 0.0);
+    }
+
+    @Test
+    public void testFailedMarketFeedTriggersNothing() {
+        TxMarketFeedOutput failed = new TxMarketFeedOutput();
+        failed.setStatus(-1);
+        when(txMarketFeed.offer(any())).thenReturn(failed);
+
+        Mee mee = newMee();
+        // a limit buy at $30 triggers at any MEE price
+        MeeOrder order = new MeeOrder(2, "AAA", 100, TradeType.LIMIT_BUY, 30.00);
+        mee.registerOrder(order);
+        mee.submitOrder(order);
+        mee.close();
+
+        verify(txMarketFeed).offer(any());
+        verify(txTradeResult, never()).offer(any());
+        assertEquals(1, mee.getPendingOrders());
+    }
+
+    @Test
+    public void testCommittedMarketFeedTriggersItsRequests() {
+        TxMarketFeedOutput committed = new TxMarketFeedOutput();
+        committed.trade_requests = List.of(
+                new TradeRequestRow(2, "AAA", 100, TradeType.LIMIT_BUY.id, 30.00),
+                new TradeRequestRow(3, "AAA", 200, TradeType.STOP_LOSS.id, 30.00));
+        when(txMarketFeed.offer(any())).thenReturn(committed);
+
+        Mee mee = newMee();
+        MeeOrder order = new MeeOrder(2, "AAA", 100, TradeType.LIMIT_BUY, 30.00);
+        mee.registerOrder(order);
+        assertEquals(1, mee.getPendingOrders());
+        mee.submitOrder(order);
+
+        // the triggered orders are new MEE tasks, they must start before the
+        // MEE is closed
+        ArgumentCaptor<TxTradeResultInput> captor = ArgumentCaptor.forClass(TxTradeResultInput.class);
+        verify(txTradeResult, timeout(5000).times(2)).offer(captor.capture());
+        mee.close();
+        assertEquals(0, mee.getPendingOrders());
+
+        // both are executed at the ticker price, not at their limit
+        for (TxTradeResultInput in : captor.getAllValues()) {
+            assertEquals("AAA", in.symbol);
+            assertTrue(in.requested_price <= 30.00);
+        }
+        // the registered order is timed, the request placed outside the run is not
+        assertEquals(1, mee.getStats().get(2).getStats().getCount());
+    }
+
+    @Test
+    public void testCancelledOrderLeavesTheBook() {
+        Mee mee = newMee();
+        MeeOrder order = new MeeOrder(4, "AAA", 100, TradeType.LIMIT_SELL, 20.00);
+        mee.registerOrder(order);
+        mee.cancelOrder(order);
+        mee.registerOrder(new MeeOrder(5, "AAA", 100, TradeType.MARKET_SELL, 25.00));
+        mee.close();
+
+        assertEquals(0, mee.getPendingOrders());
+    }
+}
@@ -0,0 +1,69 @@
+package org.oltp1.runner.perf;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.Test;
+
+public class CardDeckTest {
+
+    private static final List<ImmutablePair<String, Double>> MIX = List.of(
+            ImmutablePair.of("Broker-Volume", 0.049),
+            ImmutablePair.of("Customer-Position", 0.13),
+            ImmutablePair.of("Market-Watch", 0.18),
+            ImmutablePair.of("Security-Detail", 0.14),
+            ImmutablePair.of("Trade-Lookup", 0.08),
+            ImmutablePair.of("Trade-Status", 0.19),
+            ImmutablePair.of("Trade-Order", 0.101),
+            ImmutablePair.of("Trade-Result", 0.1),
+            ImmutablePair.of("Market-Feed", 0.01),
+            ImmutablePair.of("Trade-Update", 0.02));
+
+    @Test
+    public void testCardsPerItem() {
+        CardDeck<String> deck = new CardDeck<>(MIX, CardDeck.DEFAULT_SIZE);
+
+        assertEquals(1000, deck.size());
+        assertEquals(49, deck.count("Broker-Volume"));
+        assertEquals(101, deck.count("Trade-Order"));
+        assertEquals(10, deck.count("Market-Feed"));
+    }
+
+    @Test
+    public void testWeightsAreScaled() {
+        CardDeck<String> deck = new CardDeck<>(List.of(ImmutablePair.of("a", 0.2), ImmutablePair.of("b", 0.1), ImmutablePair.of("c", 0.1)), 10);
+
+        assertEquals(10, deck.size());
+        assertEquals(5, deck.count("a"));
+        assertEquals(5, deck.count("b") + deck.count("c"));
+    }
+
+    @Test
+    public void testEveryDeckHasTheExactMix() {
+        CardDeck<String> deck = new CardDeck<>(MIX, CardDeck.DEFAULT_SIZE);
+        CardDeck.Dealer<String> dealer = deck.newDealer(new SplittableRandom(42));
+
+        for (int round = 0; round < 3; round++) {
+            Map<String, Integer> dealt = new HashMap<>();
+            for (int i = 0; i < deck.size(); i++) {
+                dealt.merge(dealer.next(), 1, Integer::sum);
+            }
+            for (ImmutablePair<String, Double> item : MIX) {
+                assertEquals(item.left, deck.count(item.left), dealt.get(item.left).intValue());
+            }
+        }
+    }
+
+    @Test
+    public void testSmallWeightGetsACard() {
+        CardDeck<String> deck = new CardDeck<>(List.of(ImmutablePair.of("a", 1.0), ImmutablePair.of("b", 0.0001)), 100);
+
+        assertEquals(1, deck.count("b"));
+        assertEquals(101, deck.size());
+    }
+}
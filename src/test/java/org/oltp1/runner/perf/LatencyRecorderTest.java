@@ -0,0 +1,134 @@
+package org.oltp1.runner.perf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class LatencyRecorderTest {
+
+    @Test
+    public void testBucketBoundsAreContiguous() {
+        long expectedLower = 0;
+        for (int i = 0; i < LatencyRecorder.BUCKET_COUNT - 1; i++) {
+            assertEquals(expectedLower, LatencyRecorder.bucketLowerBound(i));
+            assertEquals(i, LatencyRecorder.bucketIndex(expectedLower));
+            long upper = expectedLower + LatencyRecorder.bucketWidth(i) - 1;
+            assertEquals(i, LatencyRecorder.bucketIndex(upper));
+            expectedLower = upper + 1;
+        }
+        assertEquals(LatencyRecorder.BUCKET_COUNT - 1, LatencyRecorder.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testExactSummaryValues() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        double[] values = { 1.5, 2.25, 10.0, 0.75, 4.0 };
+        for (double v : values) {
+            recorder.record(v);
+        }
+
+        LatencyHistogram h = recorder.snapshot();
+        double mean = Arrays.stream(values).average().getAsDouble();
+        double var = Arrays.stream(values).map(v -> (v - mean) * (v - mean)).sum() / (values.length - 1);
+
+        assertEquals(5, h.getCount());
+        assertEquals(0.75, h.getMin(), 0.0);
+        assertEquals(10.0, h.getMax(), 0.0);
+        assertEquals(18.5, h.getSum(), 1e-9);
+        assertEquals(mean, h.getMean(), 1e-9);
+        assertEquals(Math.sqrt(var), h.getStdDev(), 1e-9);
+    }
+
+    @Test
+    public void testQuantileRelativeError() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        Random rnd = new Random(42);
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(rnd.nextGaussian() * 2.0);
+            recorder.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        LatencyHistogram h = recorder.snapshot();
+        for (double q : new double[] { 0.5, 0.9, 0.99, 0.999 }) {
+            // the value as recorded, in whole nanoseconds
+            double expected = Math.round(values[(int) Math.ceil(q * values.length) - 1] * 1000000.0) / 1000000.0;
+            double actual = h.getQuantile(q);
+            assertTrue("q=" + q, Math.abs(actual - expected) / expected <= LatencyRecorder.QUANTILE_RELATIVE_ERROR);
+        }
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder();
+        ExecutorService exec = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            exec.execute(() -> {
+                for (int i = 1; i <= 10_000; i++) {
+                    recorder.record(i / 1000.0);
+                }
+            });
+        }
+        exec.shutdown();
+        assertTrue(exec.awaitTermination(30, TimeUnit.SECONDS));
+
+        LatencyHistogram h = recorder.snapshot();
+        assertEquals(80_000, h.getCount());
+        assertEquals(0.001, h.getMin(), 0.0);
+        assertEquals(10.0, h.getMax(), 0.0);
+        assertEquals(8 * 50_005.0, h.getSum(), 1e-6);
+    }
+
+    @Test
+    public void testReset() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record(5.0);
+        recorder.reset();
+
+        LatencyHistogram h = recorder.snapshot();
+        assertEquals(0, h.getCount());
+        assertTrue(Double.isNaN(h.getMean()));
+        assertTrue(Double.isNaN(h.getQuantile(0.9)));
+    }
+
+    @Test
+    public void testSnapshotAndResetLosesNoValues() throws Exception {
+        LatencyRecorder recorder = LatencyRecorder.newIntervalRecorder();
+        ExecutorService exec = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            exec.execute(() -> {
+                for (int i = 1; i <= 100_000; i++) {
+                    recorder.record(1.0);
+                }
+            });
+        }
+        exec.shutdown();
+
+        long count = 0;
+        double sum = 0;
+        while (!exec.isTerminated()) {
+            LatencyHistogram h = recorder.snapshotAndReset();
+            count += h.getCount();
+            sum += h.getSum();
+        }
+        LatencyHistogram last = recorder.snapshotAndReset();
+        count += last.getCount();
+        sum += last.getSum();
+
+        assertEquals(800_000, count);
+        assertEquals(800_000.0, sum, 1e-6);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSnapshotAndResetNeedsIntervalRecorder() {
+        new LatencyRecorder().snapshotAndReset();
+    }
+}
@@ -0,0 +1,47 @@
+package org.oltp1.runner.perf;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class OutputSamplerTest {
+
+    @After
+    public void keepEverything() {
+        OutputSampler.discard(1.0);
+    }
+
+    @Test
+    public void testPayloadKeptByDefault() {
+        assertFalse(OutputSampler.isDiscarding());
+        assertTrue(new TxOutput(0).isPayloadKept());
+    }
+
+    @Test
+    public void testDiscardAll() {
+        OutputSampler.discard(0.0);
+        assertTrue(OutputSampler.isDiscarding());
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(new TxOutput(0).isPayloadKept());
+        }
+    }
+
+    @Test
+    public void testSampledFraction() {
+        OutputSampler.discard(0.1);
+        int kept = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (new TxOutput(0).isPayloadKept()) {
+                kept++;
+            }
+        }
+        assertTrue("kept " + kept, kept > 9000 && kept < 11000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRate() {
+        OutputSampler.discard(1.5);
+    }
+}
@@ -86,5 +86,16 @@ public class TxStatsCollectorTest {
         assertEquals(4000L, summary.getMinTs());
         assertEquals(11000L, summary.getMaxTs());
     }
-}
 
+    @Test
+    public void testIntervalStatsStartWithReporter() {
+        collector.addValue(10.0);
+        assertEquals(0, collector.getIntervalStats().getCount());
+
+        collector.addValue(20.0);
+        collector.addValue(30.0);
+        TxIntervalSummary interval = collector.getIntervalStats();
+        assertEquals(2, interval.getCount());
+        assertEquals(0, collector.getIntervalStats().getCount());
+    }
+}
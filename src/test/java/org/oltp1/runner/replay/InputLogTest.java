@@ -0,0 +1,187 @@
+package org.oltp1.runner.replay;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.oltp1.runner.model.TradeType;
+import org.oltp1.runner.perf.RecordedInput;
+import org.oltp1.runner.tx.broker_volume.TxBrokerVolumeInput;
+import org.oltp1.runner.tx.customer_position.TxCustomerPositionInput;
+import org.oltp1.runner.tx.market_watch.TxMarketWatchInput;
+import org.oltp1.runner.tx.trade_lookup.TxTradeLookupInput;
+import org.oltp1.runner.tx.trade_order.TxTradeOrderInput;
+import org.oltp1.runner.tx.trade_status.TxTradeStatusInput;
+
+public class InputLogTest
+{
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testVarints() throws IOException
+	{
+		final long[] values = { 0, 1, -1, 63, -64, 64, 1L << 35, Long.MAX_VALUE, Long.MIN_VALUE };
+
+		RecordBuffer buf = new RecordBuffer();
+		for (long v : values)
+		{
+			buf.writeVarLong(v);
+		}
+		buf.writeDouble(-12.375);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		buf.writeTo(bytes);
+		RecordReader in = new RecordReader(new ByteArrayInputStream(bytes.toByteArray()));
+
+		for (long v : values)
+		{
+			assertEquals(v, in.readVarLong());
+		}
+		assertEquals(-12.375, in.readDouble(), 0.0);
+		assertEquals(-1, in.readByteOrEof());
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException
+	{
+		Path path = tmp.newFile("inputs.bin").toPath();
+
+		TxTradeLookupInput lookup = new TxTradeLookupInput();
+		lookup.frame_to_execute = 1;
+		lookup.trade_id = new long[] { 200000000000001L, 200000000000042L };
+		lookup.start_trade_dts = LocalDateTime.of(2005, 1, 3, 9, 30, 0, 123000000);
+
+		TxTradeOrderInput order = new TxTradeOrderInput();
+		order.requested_price = 20.55;
+		order.acct_id = 43000000123L;
+		order.trade_qty = 400;
+		order.is_lifo = true;
+		order.symbol = "ZRAN";
+		order.exec_f_name = "Élodie";
+		order.trade_type = TradeType.LIMIT_BUY;
+
+		try (InputLogWriter writer = InputLogWriter.create(path))
+		{
+			writer.startRun(30);
+			writer.record("Trade-Lookup", System.nanoTime(), lookup);
+			writer.record("Trade-Status", System.nanoTime(), new TxTradeStatusInput(43000000007L));
+			writer.record("Broker-Volume", System.nanoTime(), new TxBrokerVolumeInput(new String[] { "Joe Doe", "Ann Lee" }, "Energy"));
+
+			writer.startRun(60);
+			writer.record("Trade-Order", System.nanoTime(), order);
+			writer.record("Customer-Position", System.nanoTime(), new TxCustomerPositionInput(-1, 0, false, "746XX8922QM650"));
+			writer.record("Market-Watch", System.nanoTime(), new TxMarketWatchInput(0, 4300000042L, 0, 0, LocalDate.of(2005, 2, 28), null));
+		}
+
+		try (InputLogReader reader = InputLogReader.open(path))
+		{
+			assertEquals(30, reader.nextRun());
+
+			RecordedInput r = reader.next();
+			assertEquals("Trade-Lookup", r.txName);
+			TxTradeLookupInput lookupIn = (TxTradeLookupInput) r.txInput;
+			assertEquals(1, lookupIn.frame_to_execute);
+			assertArrayEquals(lookup.trade_id, lookupIn.trade_id);
+			assertEquals(lookup.start_trade_dts, lookupIn.start_trade_dts);
+			assertNull(lookupIn.end_trade_dts);
+			assertNull(lookupIn.symbol);
+
+			long offset = r.offsetNanos;
+			r = reader.next();
+			assertEquals("Trade-Status", r.txName);
+			assertEquals(43000000007L, ((TxTradeStatusInput) r.txInput).acct_id);
+			assertTrue(r.offsetNanos >= offset);
+
+			r = reader.next();
+			assertArrayEquals(new String[] { "Joe Doe", "Ann Lee" }, ((TxBrokerVolumeInput) r.txInput).broker_list);
+			assertNull(reader.next());
+			assertNull(reader.next());
+
+			assertEquals(60, reader.nextRun());
+
+			TxTradeOrderInput orderIn = (TxTradeOrderInput) reader.next().txInput;
+			assertEquals(order.requested_price, orderIn.requested_price, 0.0);
+			assertEquals(order.acct_id, orderIn.acct_id);
+			assertEquals(order.trade_qty, orderIn.trade_qty);
+			assertEquals(order.is_lifo, orderIn.is_lifo);
+			assertEquals(order.symbol, orderIn.symbol);
+			assertEquals(order.exec_f_name, orderIn.exec_f_name);
+			assertEquals(TradeType.LIMIT_BUY, orderIn.trade_type);
+
+			TxCustomerPositionInput positionIn = (TxCustomerPositionInput) reader.next().txInput;
+			assertEquals(-1, positionIn.acct_id_idx);
+			assertEquals("746XX8922QM650", positionIn.tax_id);
+
+			TxMarketWatchInput watchIn = (TxMarketWatchInput) reader.next().txInput;
+			assertEquals(4300000042L, watchIn.c_id);
+			assertEquals(LocalDate.of(2005, 2, 28), watchIn.start_day);
+			assertNull(watchIn.industry_name);
+
+			assertNull(reader.next());
+			assertEquals(-1, reader.nextRun());
+		}
+	}
+
+	@Test
+	public void testNextRunSkipsTheRestOfTheRun() throws IOException
+	{
+		Path path = tmp.newFile("inputs.bin").toPath();
+
+		try (InputLogWriter writer = InputLogWriter.create(path))
+		{
+			writer.startRun(10);
+			writer.record("Trade-Status", System.nanoTime(), new TxTradeStatusInput(1));
+			writer.record("Trade-Status", System.nanoTime(), new TxTradeStatusInput(2));
+			writer.startRun(20);
+			writer.record("Trade-Status", System.nanoTime(), new TxTradeStatusInput(3));
+		}
+
+		try (InputLogReader reader = InputLogReader.open(path))
+		{
+			assertEquals(10, reader.nextRun());
+			assertEquals(1, ((TxTradeStatusInput) reader.next().txInput).acct_id);
+			assertEquals(20, reader.nextRun());
+			assertEquals(3, ((TxTradeStatusInput) reader.next().txInput).acct_id);
+			assertNull(reader.next());
+		}
+	}
+
+	@Test
+	public void testTruncatedRecordEndsTheReplay() throws IOException
+	{
+		Path path = tmp.newFile("inputs.bin").toPath();
+
+		try (InputLogWriter writer = InputLogWriter.create(path))
+		{
+			writer.startRun(10);
+			writer.record("Trade-Status", System.nanoTime(), new TxTradeStatusInput(1));
+			writer.record("Broker-Volume", System.nanoTime(), new TxBrokerVolumeInput(new String[] { "Joe Doe" }, "Energy"));
+		}
+
+		try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw"))
+		{
+			file.setLength(file.length() - 3);
+		}
+
+		try (InputLogReader reader = InputLogReader.open(path))
+		{
+			assertEquals(10, reader.nextRun());
+			assertEquals(1, ((TxTradeStatusInput) reader.next().txInput).acct_id);
+			assertNull(reader.next());
+			assertEquals(-1, reader.nextRun());
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package org.oltp1.runner.tx.market_feed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.oltp1.runner.db.NamedSql;
+import org.oltp1.runner.db.SqlEngine;
+import org.oltp1.runner.tx.QueryFactory;
+
+public class MarketFeedProceduresTest
+{
+	@Test
+	public void testGetQueries_OrioleDB()
+	{
+		MarketFeedProcedures procs = QueryFactory.getQueries(MarketFeedProcedures.class, SqlEngine.ORIOLEDB);
+		assertTrue(procs instanceof PgSqlMarketFeedProcedures);
+	}
+
+	@Test
+	public void testSameParametersOnEveryEngine()
+	{
+		final Set<String> expected = names(new PgSqlMarketFeedProcedures().callFrame1());
+
+		assertEquals(Set.of("tickers", "status_submitted", "tt_buy", "tt_sell", "tt_stop"), expected);
+		assertEquals(expected, names(new MsSqlMarketFeedProcedures().callFrame1()));
+		assertEquals(expected, names(new MariaDbMarketFeedProcedures().callFrame1()));
+	}
+
+	@Test
+	public void testInstalledOnEveryEngine() throws IOException
+	{
+		for (String script : new String[] {
+				"ddl-scripts/postgresql/9_create_procedures.sql",
+				"ddl-scripts/orioledb/9_create_procedures.sql",
+				"ddl-scripts/mssql/9_create_procedures.sql",
+				"ddl-scripts/mariadb/6_create_procedures.sql" })
+		{
+			assertTrue(script, read(script).contains("market_feed_frame1"));
+		}
+	}
+
+	private static String read(String resource) throws IOException
+	{
+		try (InputStream in = MarketFeedProceduresTest.class.getClassLoader().getResourceAsStream(resource))
+		{
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private static Set<String> names(String namedSql)
+	{
+		final NamedSql sql = NamedSql.of(namedSql);
+		final Set<String> names = new LinkedHashSet<>();
+
+		for (int i = 0; i < sql.getParameterCount(); i++)
+		{
+			names.add(sql.getName(i));
+		}
+
+		return names;
+	}
+}
@@ -0,0 +1,44 @@
+package org.oltp1.runner.tx.trade_order;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.Test;
+import org.oltp1.runner.db.NamedSql;
+
+public class TradeOrderProceduresTest
+{
+	@Test
+	public void testSameParametersOnEveryEngine()
+	{
+		final List<Function<TradeOrderProcedures, String>> calls = List
+				.of(
+						TradeOrderProcedures::callFrame3,
+						TradeOrderProcedures::callFrame4);
+
+		for (Function<TradeOrderProcedures, String> call : calls)
+		{
+			final Set<String> expected = names(call.apply(new PgSqlTradeOrderProcedures()));
+
+			assertEquals(expected, names(call.apply(new MsSqlTradeOrderProcedures())));
+			assertEquals(expected, names(call.apply(new MariaDbTradeOrderProcedures())));
+		}
+	}
+
+	private static Set<String> names(String namedSql)
+	{
+		final NamedSql sql = NamedSql.of(namedSql);
+		final Set<String> names = new LinkedHashSet<>();
+
+		for (int i = 0; i < sql.getParameterCount(); i++)
+		{
+			names.add(sql.getName(i));
+		}
+
+		return names;
+	}
+}
@@ -0,0 +1,150 @@
+package org.oltp1.runner.tx.trade_order;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.oltp1.runner.db.DbSession;
+import org.oltp1.runner.db.DbStatement;
+import org.oltp1.runner.db.DeferredStatement;
+import org.oltp1.runner.db.ExecutionMode;
+import org.oltp1.runner.db.RowMapper;
+import org.oltp1.runner.db.SqlContext;
+import org.oltp1.runner.db.SqlEngine;
+import org.oltp1.runner.generator.TxInputGenerator;
+import org.oltp1.runner.mee.Mee;
+import org.oltp1.runner.model.TradeType;
+import org.oltp1.runner.perf.RecordedInput;
+import org.oltp1.runner.replay.InputLogReader;
+import org.oltp1.runner.replay.InputLogWriter;
+
+public class TxTradeOrderReplayTest
+{
+	private static final double REQUESTED_PRICE = 20.55;
+	private static final double MARKET_PRICE = 25.10;
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testMarketOrderReplaysGeneratedInput() throws Exception
+	{
+		final TxInputGenerator gen = mock(TxInputGenerator.class);
+		when(gen.generateTradeOrderInput()).thenReturn(marketBuy());
+
+		final DbStatement stmt = newStatement();
+		final TxTradeOrder tx = new TxTradeOrder(gen, newSqlContext(stmt), mock(Mee.class));
+
+		// record a run
+		final Path recorded = tmp.newFile("recorded.bin").toPath();
+		try (InputLogWriter writer = InputLogWriter.create(recorded))
+		{
+			tx.setInputRecorder(writer);
+			writer.startRun(10);
+			assertTrue(tx.execute().getStatus() >= 0);
+		}
+
+		// the market order is placed at the market price, but the recorded
+		// input is the generated one
+		verify(stmt).bind("requested_price", MARKET_PRICE);
+		final TxTradeOrderInput recordedInput = readSingle(recorded);
+		assertEquals(REQUESTED_PRICE, recordedInput.requested_price, 0.0);
+
+		// replay it, and record the replay
+		final Path replayed = tmp.newFile("replayed.bin").toPath();
+		try (InputLogWriter writer = InputLogWriter.create(replayed))
+		{
+			tx.setInputRecorder(writer);
+			writer.startRun(10);
+			assertTrue(tx.replay(System.nanoTime(), recordedInput).getStatus() >= 0);
+		}
+
+		verify(gen, times(1)).generateTradeOrderInput();
+		verify(stmt, times(2)).bind("requested_price", MARKET_PRICE);
+
+		final TxTradeOrderInput replayedInput = readSingle(replayed);
+		assertEquals(REQUESTED_PRICE, replayedInput.requested_price, 0.0);
+		assertEquals(recordedInput.acct_id, replayedInput.acct_id);
+		assertEquals(recordedInput.trade_qty, replayedInput.trade_qty);
+		assertEquals(recordedInput.symbol, replayedInput.symbol);
+		assertEquals(recordedInput.trade_type, replayedInput.trade_type);
+	}
+
+	private static TxTradeOrderInput marketBuy()
+	{
+		TxTradeOrderInput order = new TxTradeOrderInput();
+		order.requested_price = REQUESTED_PRICE;
+		order.acct_id = 43000000123L;
+		order.trade_qty = 400;
+		order.symbol = "ZRAN";
+		order.exec_f_name = "Joe";
+		order.exec_l_name = "Doe";
+		order.exec_tax_id = "746XX8922QM650";
+		order.st_pending_id = "PNDG";
+		order.st_submitted_id = "SBMT";
+		order.trade_type = TradeType.MARKET_BUY;
+		return order;
+	}
+
+	private static TxTradeOrderInput readSingle(Path path) throws IOException
+	{
+		try (InputLogReader reader = InputLogReader.open(path))
+		{
+			assertEquals(10, reader.nextRun());
+			RecordedInput r = reader.next();
+			assertEquals("Trade-Order", r.txName);
+			return (TxTradeOrderInput) r.txInput;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static DbStatement newStatement() throws SQLException
+	{
+		final ResultSet rs = mock(ResultSet.class);
+		when(rs.getString(anyString())).thenReturn("X");
+		when(rs.getString("cust_f_name")).thenReturn("Joe");
+		when(rs.getString("cust_l_name")).thenReturn("Doe");
+		when(rs.getString("tax_id")).thenReturn("746XX8922QM650");
+		when(rs.getString("symbol")).thenReturn("ZRAN");
+		when(rs.getBoolean("type_is_market")).thenReturn(true);
+		when(rs.getDouble(anyString())).thenReturn(0.5);
+
+		final DbStatement stmt = mock(DbStatement.class, RETURNS_SELF);
+		when(stmt.fetchFirst(any())).thenAnswer(inv -> ((RowMapper<Object>) inv.getArgument(0)).map(rs));
+		when(stmt.fetchList(any())).thenReturn(Collections.emptyList());
+		when(stmt.fetchScalars(any())).thenReturn(Collections.emptyList());
+		when(stmt.fetchScalar(Double.class)).thenReturn(MARKET_PRICE);
+		when(stmt.executeInsert()).thenReturn(200000000000001L);
+		return stmt;
+	}
+
+	private static SqlContext newSqlContext(DbStatement stmt)
+	{
+		final DbSession session = mock(DbSession.class);
+		when(session.prepare(anyString())).thenReturn(stmt);
+		when(session.prepare(anyString(), anyBoolean())).thenReturn(stmt);
+		when(session.defer(anyString())).thenReturn(mock(DeferredStatement.class, RETURNS_SELF));
+
+		final SqlContext sqlCtx = mock(SqlContext.class);
+		when(sqlCtx.getSqlEngine()).thenReturn(SqlEngine.POSTGRESQL);
+		when(sqlCtx.getExecutionMode()).thenReturn(ExecutionMode.STATEMENTS);
+		when(sqlCtx.beginTransaction()).thenReturn(session);
+		return sqlCtx;
+	}
+}
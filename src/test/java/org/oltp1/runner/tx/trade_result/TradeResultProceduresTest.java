@@ -0,0 +1,56 @@
+package org.oltp1.runner.tx.trade_result;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.Test;
+import org.oltp1.runner.db.NamedSql;
+import org.oltp1.runner.db.SqlEngine;
+import org.oltp1.runner.tx.QueryFactory;
+
+public class TradeResultProceduresTest
+{
+	@Test
+	public void testGetQueries_OrioleDB()
+	{
+		TradeResultProcedures procs = QueryFactory.getQueries(TradeResultProcedures.class, SqlEngine.ORIOLEDB);
+		assertTrue(procs instanceof PgSqlTradeResultProcedures);
+	}
+
+	@Test
+	public void testSameParametersOnEveryEngine()
+	{
+		final List<Function<TradeResultProcedures, String>> calls = List
+				.of(
+						TradeResultProcedures::callFrame2,
+						TradeResultProcedures::callFrame3,
+						TradeResultProcedures::callFrame5,
+						TradeResultProcedures::callFrame6);
+
+		for (Function<TradeResultProcedures, String> call : calls)
+		{
+			final Set<String> expected = names(call.apply(new PgSqlTradeResultProcedures()));
+
+			assertEquals(expected, names(call.apply(new MsSqlTradeResultProcedures())));
+			assertEquals(expected, names(call.apply(new MariaDbTradeResultProcedures())));
+		}
+	}
+
+	private static Set<String> names(String namedSql)
+	{
+		final NamedSql sql = NamedSql.of(namedSql);
+		final Set<String> names = new LinkedHashSet<>();
+
+		for (int i = 0; i < sql.getParameterCount(); i++)
+		{
+			names.add(sql.getName(i));
+		}
+
+		return names;
+	}
+}
@@ -0,0 +1,66 @@
+package org.oltp1.runner.tx.trade_update;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class TxTradeUpdateTest
+{
+	@Test
+	public void testReadFrame3() throws SQLException
+	{
+		final LocalDateTime dts = LocalDateTime.of(2005, 1, 3, 9, 30);
+		final TradeInfoRow row = TradeInfoRow.readFrame3(frame3Row(200000000000042L, "Buy \"Sell\"", dts));
+
+		assertEquals(200000000000042L, row.trade_id);
+		assertEquals(400, row.t_qty);
+		assertEquals(dts, row.t_dts);
+		assertEquals("Buy \"Sell\"", row.tt_name);
+		// the price of a pending trade is null
+		assertNull(row.t_trade_price);
+	}
+
+	@Test
+	public void testCashTradeJson() throws Exception
+	{
+		final List<TradeInfoRow> trades = List
+				.of(
+						TradeInfoRow.readFrame3(frame3Row(1L, "Market-Buy", null)),
+						TradeInfoRow.readFrame3(frame3Row(2L, "Limit \"Sell\"\\\n", null)));
+
+		final JsonNode json = new ObjectMapper().readTree(TxTradeUpdate.toCashTradeJson(trades));
+
+		assertEquals(2, json.size());
+		assertEquals(1L, json.get(0).get("trade_id").asLong());
+		assertEquals(400, json.get(0).get("t_qty").asInt());
+		assertEquals("Market-Buy", json.get(0).get("tt_name").asText());
+		assertEquals("Limit \"Sell\"\\\n", json.get(1).get("tt_name").asText());
+		assertEquals("ZRAN Inc.", json.get(1).get("s_name").asText());
+		assertEquals("[]", TxTradeUpdate.toCashTradeJson(List.of()));
+	}
+
+	private static ResultSet frame3Row(long tradeId, String ttName, LocalDateTime dts) throws SQLException
+	{
+		final ResultSet rs = mock(ResultSet.class);
+		when(rs.getLong("trade_id")).thenReturn(tradeId);
+		when(rs.getBoolean("t_is_cash")).thenReturn(true);
+		when(rs.getInt("t_qty")).thenReturn(400);
+		when(rs.getTimestamp("t_dts")).thenReturn(dts == null ? null : Timestamp.valueOf(dts));
+		when(rs.getString("tt_name")).thenReturn(ttName);
+		when(rs.getString("s_name")).thenReturn("ZRAN Inc.");
+		when(rs.wasNull()).thenReturn(true);
+		return rs;
+	}
+}